@@ -0,0 +1,124 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for the per-category running totals kept by triggers
+ */
+@RunWith(AndroidJUnit4.class)
+public class CategoryTotalsTest {
+    private static final String TEST_DATABASE = "category_totals_test.db";
+
+    private Context context;
+    private InventoryDatabaseHelper helper;
+
+    @Before
+    public void openDatabase() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        helper = new InventoryDatabaseHelper(context, TEST_DATABASE);
+        helper.invalidateItemCache();
+    }
+
+    @After
+    public void closeDatabase() {
+        helper.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void getCategoryTotals_sumsUnitsValuesAndStockStatus() {
+        addItem("Hammer", "Tools", 10, 5, 2, 300, 500);
+        addItem("Saw", "Tools", 4, 5, 2, 1000, 1500);
+        addItem("Screws", "Tools", 1, 5, 2, 5, 10);
+        addItem("Primer", "Paint", 20, 5, 2, 700, 1200);
+
+        List<CategoryTotals> totals = helper.getCategoryTotals();
+
+        // Largest retail value first
+        assertEquals("Paint", totals.get(0).getCategory());
+        CategoryTotals tools = totals.get(1);
+        assertEquals("Tools", tools.getCategory());
+        assertEquals(3, tools.getItemCount());
+        assertEquals(15, tools.getTotalUnits());
+        assertEquals(10 * 300 + 4 * 1000 + 5, tools.getCostValueCents());
+        assertEquals(10 * 500 + 4 * 1500 + 10, tools.getRetailValueCents());
+        assertEquals(1, tools.getLowStockCount());
+        assertEquals(1, tools.getCriticalCount());
+        assertArrayEquals(new int[]{4, 1, 1}, helper.getInventoryStats());
+    }
+
+    @Test
+    public void categoryTotals_followEveryKindOfWrite() {
+        long hammerId = addItem("Hammer", "Tools", 10, 5, 2, 300, 500);
+        long sawId = addItem("Saw", "Tools", 4, 5, 2, 1000, 1500);
+        long primerId = addItem("Primer", "Paint", 20, 5, 2, 700, 1200);
+        addItem("Mystery", null, 3, 5, 2, 0, 0);
+
+        helper.updateInventoryQuantity(hammerId, 1);
+        Map<Long, Integer> deltas = new HashMap<>();
+        deltas.put(sawId, 6);
+        deltas.put(primerId, -15);
+        helper.applyQuantityDeltas(deltas);
+        InventoryItem saw = helper.getInventoryItem(sawId);
+        saw.setCategory("Garden");
+        saw.setUnitPriceCents(2000);
+        helper.updateInventoryItem(saw);
+        helper.applyThresholdPolicy("Paint", 10, 6);
+        helper.deleteInventoryItem(hammerId);
+        helper.restoreInventoryItem(hammerId);
+        helper.deleteInventoryItem(primerId);
+        helper.purgeDeletedItems(Long.MAX_VALUE, 10);
+
+        assertEquals(Collections.emptyList(), helper.checkCategoryTotals());
+        Map<String, CategoryTotals> byCategory = new HashMap<>();
+        for (CategoryTotals totals : helper.getCategoryTotals()) {
+            byCategory.put(totals.getCategory(), totals);
+        }
+        assertFalse(byCategory.containsKey("Paint"));
+        assertEquals(1, byCategory.get("Tools").getItemCount());
+        assertEquals(1, byCategory.get("Tools").getCriticalCount());
+        assertEquals(10 * 2000, byCategory.get("Garden").getRetailValueCents());
+        assertEquals(3, byCategory.get("").getTotalUnits());
+    }
+
+    @Test
+    public void rebuildCategoryTotals_repairsTotalsThatDrifted() {
+        addItem("Hammer", "Tools", 10, 5, 2, 300, 500);
+        addItem("Primer", "Paint", 20, 5, 2, 700, 1200);
+        helper.getWritableDatabase().execSQL("UPDATE " + InventoryDatabaseHelper.TABLE_CATEGORY_TOTALS +
+                " SET " + InventoryDatabaseHelper.COLUMN_TOTAL_UNITS + " = 999 WHERE " +
+                InventoryDatabaseHelper.COLUMN_TOTALS_CATEGORY + " = 'Tools'");
+
+        assertEquals(Collections.singletonList("Tools"), helper.checkCategoryTotals());
+
+        helper.rebuildCategoryTotals();
+
+        assertTrue(helper.checkCategoryTotals().isEmpty());
+        assertEquals(10, helper.getCategoryTotals().get(1).getTotalUnits());
+    }
+
+    private long addItem(String name, String category, int quantity, int low, int critical,
+                         long unitCostCents, long unitPriceCents) {
+        InventoryItem item = new InventoryItem(name, "", category, quantity, low, "");
+        item.setCriticalThreshold(critical);
+        item.setUnitCostCents(unitCostCents);
+        item.setUnitPriceCents(unitPriceCents);
+        return helper.addInventoryItem(item);
+    }
+}
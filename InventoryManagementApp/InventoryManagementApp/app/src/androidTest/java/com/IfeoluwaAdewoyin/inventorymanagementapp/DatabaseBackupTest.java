@@ -0,0 +1,185 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for online backups of a location database
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseBackupTest {
+    private static final String TEST_DATABASE = "database_backup_test.db";
+    private static final String RESTORED_DATABASE = "database_backup_test_restored.db";
+    private static final String SCHEMA_QUERY =
+            "SELECT type, name, sql FROM sqlite_master WHERE name NOT LIKE 'sqlite_%' ORDER BY type, name";
+
+    private Context context;
+    private InventoryDatabaseHelper helper;
+    private DatabaseBackup databaseBackup;
+
+    @Before
+    public void openDatabase() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        context.deleteDatabase(RESTORED_DATABASE);
+        helper = new InventoryDatabaseHelper(context, TEST_DATABASE);
+        helper.invalidateItemCache();
+        databaseBackup = new DatabaseBackup(context, helper);
+    }
+
+    @After
+    public void closeDatabase() {
+        helper.close();
+        context.deleteDatabase(TEST_DATABASE);
+        context.deleteDatabase(RESTORED_DATABASE);
+        SQLiteDatabase.deleteDatabase(DatabaseBackup.getBackupFile(context, TEST_DATABASE));
+    }
+
+    @Test
+    public void backup_writesVerifiedCopyWithSameRowsAndSchema() throws IOException {
+        for (int i = 0; i < 50; i++) {
+            helper.addInventoryItem(new InventoryItem("Item " + i, "Description " + i, "Category " + (i % 4), i, 5, ""));
+        }
+
+        File backupFile = databaseBackup.backup();
+
+        assertEquals(DatabaseBackup.getBackupFile(context, TEST_DATABASE), backupFile);
+        assertTrue(DatabaseBackup.verify(backupFile));
+        assertFalse(new File(backupFile.getPath() + ".tmp").exists());
+        SQLiteDatabase copy = SQLiteDatabase.openDatabase(backupFile.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+        try {
+            assertEquals(helper.getReadableDatabase().getVersion(), copy.getVersion());
+            assertEquals(queryAll(helper.getReadableDatabase(), "SELECT * FROM inventory ORDER BY item_id"),
+                    queryAll(copy, "SELECT * FROM inventory ORDER BY item_id"));
+            assertEquals(queryAll(helper.getReadableDatabase(), SCHEMA_QUERY), queryAll(copy, SCHEMA_QUERY));
+        } finally {
+            copy.close();
+        }
+    }
+
+    @Test
+    public void backup_replacesPreviousBackup() throws IOException {
+        helper.addInventoryItem(new InventoryItem("First", "", "Misc", 1, 1, ""));
+        databaseBackup.backup();
+        helper.addInventoryItem(new InventoryItem("Second", "", "Misc", 1, 1, ""));
+
+        File backupFile = databaseBackup.backup();
+
+        SQLiteDatabase copy = SQLiteDatabase.openDatabase(backupFile.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+        try {
+            assertEquals("2", queryAll(copy, "SELECT COUNT(*) FROM inventory"));
+        } finally {
+            copy.close();
+        }
+    }
+
+    @Test
+    public void backup_opensAsWorkingDatabaseThatKeepsItemIds() throws IOException {
+        helper.addInventoryItem(new InventoryItem("Kept", "", "Misc", 4, 1, ""));
+        long deletedId = helper.addInventoryItem(new InventoryItem("Purged", "", "Misc", 1, 1, ""));
+        helper.deleteInventoryItem(deletedId);
+        helper.purgeDeletedItems(Long.MAX_VALUE, 10);
+
+        File backupFile = databaseBackup.backup();
+        File restoredFile = context.getDatabasePath(RESTORED_DATABASE);
+        Files.copy(backupFile.toPath(), restoredFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        InventoryDatabaseHelper restored = new InventoryDatabaseHelper(context, RESTORED_DATABASE);
+        try {
+            List<InventoryItem> items = restored.getAllInventoryItems();
+            assertEquals(1, items.size());
+            assertEquals("Kept", items.get(0).getName());
+            assertTrue(restored.checkCategoryTotals().isEmpty());
+
+            // AUTOINCREMENT counters come along, so a purged item's ID isn't reused
+            assertTrue(restored.addInventoryItem(new InventoryItem("New", "", "Misc", 1, 1, "")) > deletedId);
+        } finally {
+            restored.close();
+        }
+    }
+
+    @Test
+    public void backup_staysConsistentWhileAnotherConnectionWrites() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            helper.addInventoryItem(new InventoryItem("Item " + i, "", "Category " + (i % 4), i, 5, ""));
+        }
+
+        // Writes through a second helper, as the main screen does while settings runs a backup
+        InventoryDatabaseHelper writer = new InventoryDatabaseHelper(context, TEST_DATABASE);
+        AtomicBoolean backupDone = new AtomicBoolean();
+        AtomicInteger writes = new AtomicInteger();
+        AtomicReference<Throwable> writeError = new AtomicReference<>();
+        Thread writerThread = new Thread(() -> {
+            try {
+                while (!backupDone.get()) {
+                    int n = writes.incrementAndGet();
+                    writer.addInventoryItem(new InventoryItem("Written " + n, "", "Category " + (n % 4), n, 5, ""));
+                }
+            } catch (Throwable t) {
+                writeError.set(t);
+            }
+        });
+        File backupFile;
+        writerThread.start();
+        try {
+            while (writes.get() < 5) {
+                Thread.yield();
+            }
+            backupFile = databaseBackup.backup();
+        } finally {
+            backupDone.set(true);
+            writerThread.join();
+            writer.close();
+        }
+
+        assertNull(writeError.get());
+        assertTrue(DatabaseBackup.verify(backupFile));
+        File restoredFile = context.getDatabasePath(RESTORED_DATABASE);
+        Files.copy(backupFile.toPath(), restoredFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        InventoryDatabaseHelper restored = new InventoryDatabaseHelper(context, RESTORED_DATABASE);
+        try {
+            // One snapshot: items and the totals their triggers keep agree
+            int copied = restored.getAllInventoryItems().size();
+            assertTrue(copied >= 200 && copied <= 200 + writes.get());
+            assertTrue(restored.checkCategoryTotals().isEmpty());
+        } finally {
+            restored.close();
+        }
+    }
+
+    private static String queryAll(SQLiteDatabase db, String sql) {
+        StringBuilder rows = new StringBuilder();
+        Cursor cursor = db.rawQuery(sql, null);
+        try {
+            while (cursor.moveToNext()) {
+                for (int i = 0; i < cursor.getColumnCount(); i++) {
+                    rows.append(i == 0 ? "" : "|").append(cursor.getString(i));
+                }
+                rows.append(cursor.isLast() ? "" : "\n");
+            }
+        } finally {
+            cursor.close();
+        }
+        return rows.toString();
+    }
+}
@@ -0,0 +1,236 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests upgrading databases written by older app versions
+ * Old schemas are created from the statements those versions used.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseMigrationTest {
+    private static final String OLD_DATABASE = "migration_test.db";
+    private static final String FRESH_DATABASE = "migration_fresh_test.db";
+
+    private static final String V1_USERS =
+            "CREATE TABLE users (user_id INTEGER PRIMARY KEY AUTOINCREMENT, email TEXT UNIQUE NOT NULL, " +
+                    "password TEXT NOT NULL, created_at DATETIME DEFAULT CURRENT_TIMESTAMP)";
+    private static final String V1_INVENTORY =
+            "CREATE TABLE inventory (item_id INTEGER PRIMARY KEY AUTOINCREMENT, item_name TEXT NOT NULL, " +
+                    "item_description TEXT, item_category TEXT, item_quantity INTEGER NOT NULL DEFAULT 0, " +
+                    "low_stock_threshold INTEGER DEFAULT 10, barcode TEXT, " +
+                    "item_created_at DATETIME DEFAULT CURRENT_TIMESTAMP, item_updated_at DATETIME DEFAULT CURRENT_TIMESTAMP)";
+    private static final String V2_INVENTORY =
+            V1_INVENTORY.substring(0, V1_INVENTORY.length() - 1) +
+                    ", item_uuid TEXT UNIQUE NOT NULL DEFAULT (lower(hex(randomblob(16)))))";
+    private static final String V2_CHANGE_LOG =
+            "CREATE TABLE change_log (change_id INTEGER PRIMARY KEY AUTOINCREMENT, item_uuid TEXT NOT NULL, " +
+                    "field TEXT NOT NULL, value TEXT, quantity_delta INTEGER NOT NULL DEFAULT 0, " +
+                    "device_id TEXT NOT NULL, changed_at INTEGER NOT NULL)";
+    private static final String V2_CHANGE_LOG_INDEX =
+            "CREATE INDEX idx_change_log_item_field ON change_log (item_uuid, field, changed_at)";
+    private static final String V2_SYNC_STATE =
+            "CREATE TABLE sync_state (state_key TEXT PRIMARY KEY, state_value TEXT)";
+
+    private Context context;
+    private InventoryDatabaseHelper helper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(OLD_DATABASE);
+        context.deleteDatabase(FRESH_DATABASE);
+    }
+
+    @After
+    public void tearDown() {
+        if (helper != null) {
+            helper.close();
+        }
+        context.deleteDatabase(OLD_DATABASE);
+        context.deleteDatabase(FRESH_DATABASE);
+    }
+
+    @Test
+    public void upgradeFromVersion1_keepsUsersAndItems() {
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath(OLD_DATABASE), null);
+        db.execSQL(V1_USERS);
+        db.execSQL(V1_INVENTORY);
+        db.execSQL("INSERT INTO users (email, password) VALUES ('owner@example.com', 'secret')");
+        db.execSQL("INSERT INTO inventory (item_id, item_name, item_category, item_quantity, low_stock_threshold) " +
+                "VALUES (3, 'Gloves', 'Safety', 40, 10), (7, 'Tape', 'Packing', 4, 5), (9, 'Labels', 'Packing', 0, 5)");
+        db.execSQL("DELETE FROM inventory WHERE item_id = 9");
+        db.setVersion(1);
+        db.close();
+
+        helper = new InventoryDatabaseHelper(context, OLD_DATABASE);
+        helper.invalidateItemCache();
+
+        assertTrue(helper.verifyUser("owner@example.com", "secret"));
+        InventoryItem gloves = helper.getInventoryItem(3);
+        assertEquals("Gloves", gloves.getName());
+        assertEquals(40, gloves.getQuantity());
+        assertEquals(4, helper.getInventoryItem(7).getQuantity());
+
+        // Quantities are now counters, and items are in the change log so they sync
+        SQLiteDatabase upgraded = helper.getReadableDatabase();
+        assertEquals(44, queryLong(upgraded, "SELECT SUM(increments - decrements) FROM quantity_counters"));
+        assertEquals(2, queryLong(upgraded, "SELECT COUNT(DISTINCT item_uuid) FROM change_log WHERE field = 'item_name'"));
+
+        // Totals are computed for existing items; the low stock count includes Tape
+        int[] stats = helper.getInventoryStats();
+        assertEquals(2, stats[0]);
+        assertEquals(1, stats[1]);
+
+        // Item IDs continue after the highest one ever used, so item 9 is not reused
+        InventoryItem added = new InventoryItem("Boxes", "", "Packing", 12, 3, "");
+        assertEquals(10, helper.addInventoryItem(added));
+        assertEquals(16, helper.getInventoryItem(10).getQuantity() + helper.getInventoryItem(7).getQuantity());
+
+        assertSchemaMatchesFreshDatabase(upgraded);
+    }
+
+    @Test
+    public void upgradeFromVersion2_keepsDeviceIdAndChangeLog() {
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath(OLD_DATABASE), null);
+        db.execSQL(V1_USERS);
+        db.execSQL(V2_INVENTORY);
+        db.execSQL(V2_CHANGE_LOG);
+        db.execSQL(V2_CHANGE_LOG_INDEX);
+        db.execSQL(V2_SYNC_STATE);
+        db.execSQL("INSERT INTO inventory (item_id, item_name, item_quantity, item_uuid) VALUES (1, 'Gloves', 25, 'uuid-gloves')");
+        db.execSQL("INSERT INTO sync_state VALUES ('device_id', 'device-a'), ('sync_last_pushed', '1')");
+        db.execSQL("INSERT INTO change_log (item_uuid, field, value, quantity_delta, device_id, changed_at) " +
+                "VALUES ('uuid-gloves', 'item_name', 'Gloves', 0, 'device-a', 1000)");
+        db.setVersion(2);
+        db.close();
+
+        helper = new InventoryDatabaseHelper(context, OLD_DATABASE);
+
+        assertEquals("device-a", helper.getDeviceId());
+        SQLiteDatabase upgraded = helper.getReadableDatabase();
+        assertEquals("1", InventoryDatabaseHelper.getSyncState(upgraded, "sync_last_pushed"));
+        assertEquals("uuid-gloves", queryString(upgraded, "SELECT item_uuid FROM inventory WHERE item_id = 1"));
+        assertEquals(1, queryLong(upgraded, "SELECT COUNT(*) FROM change_log WHERE change_id = 1 AND field = 'item_name'"));
+
+        // The stock seeded into the counter is logged as a quantity change for the next push
+        Cursor cursor = upgraded.rawQuery("SELECT value, device_id FROM change_log WHERE field = 'item_quantity'", null);
+        assertTrue(cursor.moveToFirst());
+        QuantityCounter counter = QuantityCounter.decodeFromString(cursor.getString(0));
+        assertEquals("device-a", cursor.getString(1));
+        cursor.close();
+        assertEquals(25, counter.getValue());
+
+        // Local changes keep working on top of the seeded counter
+        helper.updateInventoryQuantity(1, 20);
+        helper.invalidateItemCache();
+        assertEquals(20, helper.getInventoryItem(1).getQuantity());
+
+        assertSchemaMatchesFreshDatabase(upgraded);
+    }
+
+    @Test
+    public void upgradeFromVersion1_switchesToIncrementalAutoVacuum() {
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath(OLD_DATABASE), null);
+        db.execSQL(V1_USERS);
+        db.execSQL(V1_INVENTORY);
+        db.setVersion(1);
+        assertEquals(0, queryLong(db, "PRAGMA auto_vacuum"));
+        db.close();
+
+        helper = new InventoryDatabaseHelper(context, OLD_DATABASE);
+        SQLiteDatabase upgraded = helper.getWritableDatabase();
+        assertEquals(2, queryLong(upgraded, "PRAGMA auto_vacuum"));
+    }
+
+    @Test
+    public void upgradeFromVersion14_convertsTimestampWatermarksToChangeIds() {
+        helper = new InventoryDatabaseHelper(context, OLD_DATABASE);
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.execSQL("INSERT INTO change_log (item_uuid, field, value, device_id, changed_at) VALUES " +
+                "('uuid-a', 'item_name', 'A', 'device-a', 1704103200000), " +
+                "('uuid-b', 'item_name', 'B', 'device-a', 1704110400000)");
+        InventoryDatabaseHelper.setSyncState(db, "watermark_low_stock_alerts", "2024-01-01 11:00:00.000");
+        InventoryDatabaseHelper.setSyncState(db, "watermark_expiry_alerts", "1704110400000");
+        db.setVersion(14);
+        helper.close();
+
+        helper = new InventoryDatabaseHelper(context, OLD_DATABASE);
+
+        // The first change was logged at 10:00, the second at 12:00
+        assertEquals(1, helper.getChangeWatermark("low_stock_alerts"));
+        assertEquals(1704110400000L, helper.getChangeWatermark("expiry_alerts"));
+        assertSchemaMatchesFreshDatabase(helper.getReadableDatabase());
+    }
+
+    private void assertSchemaMatchesFreshDatabase(SQLiteDatabase upgraded) {
+        InventoryDatabaseHelper freshHelper = new InventoryDatabaseHelper(context, FRESH_DATABASE);
+        try {
+            assertEquals(describeSchema(freshHelper.getReadableDatabase()), describeSchema(upgraded));
+        } finally {
+            freshHelper.close();
+        }
+    }
+
+    /**
+     * Columns of every table and the SQL of every index and trigger, by name
+     * Table SQL is left out because a renamed table's CREATE statement is stored quoted
+     */
+    private static Map<String, String> describeSchema(SQLiteDatabase db) {
+        Map<String, String> schema = new TreeMap<>();
+        List<String> tables = new ArrayList<>();
+        Cursor cursor = db.rawQuery("SELECT type, name, sql FROM sqlite_master " +
+                "WHERE name NOT LIKE 'sqlite_%' AND name NOT LIKE 'android_%'", null);
+        while (cursor.moveToNext()) {
+            if ("table".equals(cursor.getString(0))) {
+                tables.add(cursor.getString(1));
+            } else {
+                schema.put(cursor.getString(0) + " " + cursor.getString(1), cursor.getString(2));
+            }
+        }
+        cursor.close();
+
+        for (String table : tables) {
+            StringBuilder columns = new StringBuilder();
+            Cursor info = db.rawQuery("PRAGMA table_info(" + table + ")", null);
+            while (info.moveToNext()) {
+                columns.append(info.getString(1)).append(' ').append(info.getString(2)).append(' ')
+                        .append(info.getInt(3)).append(' ').append(info.getString(4)).append(' ')
+                        .append(info.getInt(5)).append("; ");
+            }
+            info.close();
+            schema.put("table " + table, columns.toString());
+        }
+        return schema;
+    }
+
+    private static long queryLong(SQLiteDatabase db, String sql) {
+        Cursor cursor = db.rawQuery(sql, null);
+        long value = cursor.moveToFirst() ? cursor.getLong(0) : -1;
+        cursor.close();
+        return value;
+    }
+
+    private static String queryString(SQLiteDatabase db, String sql) {
+        Cursor cursor = db.rawQuery(sql, null);
+        String value = cursor.moveToFirst() ? cursor.getString(0) : null;
+        cursor.close();
+        return value;
+    }
+}
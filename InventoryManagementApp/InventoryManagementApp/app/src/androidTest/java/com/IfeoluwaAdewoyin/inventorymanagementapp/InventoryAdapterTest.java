@@ -0,0 +1,71 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.os.Debug;
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.widget.FrameLayout;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for binding inventory rows to their cards
+ */
+@RunWith(AndroidJUnit4.class)
+public class InventoryAdapterTest {
+    private static final int ROW_COUNT = 12;
+    private static final int CARD_WIDTH_PX = 480;
+
+    @Test
+    public void bind_sameRowsAgainDoesNotAllocate() {
+        Instrumentation instrumentation = InstrumentationRegistry.getInstrumentation();
+        int[] allocations = new int[1];
+        instrumentation.runOnMainSync(() -> {
+            Context context = new ContextThemeWrapper(instrumentation.getTargetContext(), R.style.Theme_InventoryApp);
+            InventoryAdapter adapter = new InventoryAdapter(context);
+            InventoryItemStore items = new InventoryItemStore();
+            for (int i = 0; i < ROW_COUNT; i++) {
+                // Quantities around the threshold, so every stock status is bound
+                InventoryItem item = new InventoryItem("Item " + i, "Description " + i, "Tools", i, 6, "");
+                item.setId(i + 1);
+                items.add(item);
+            }
+            adapter.updateItems(items);
+
+            // One card per row, laid out the way the list lays them out
+            FrameLayout parent = new FrameLayout(context);
+            List<InventoryAdapter.InventoryViewHolder> holders = new ArrayList<>();
+            for (int i = 0; i < ROW_COUNT; i++) {
+                InventoryAdapter.InventoryViewHolder holder = adapter.onCreateViewHolder(parent, 0);
+                adapter.onBindViewHolder(holder, i);
+                View card = holder.itemView;
+                card.measure(View.MeasureSpec.makeMeasureSpec(CARD_WIDTH_PX, View.MeasureSpec.EXACTLY),
+                        View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+                card.layout(0, 0, card.getMeasuredWidth(), card.getMeasuredHeight());
+                holders.add(holder);
+            }
+
+            Debug.startAllocCounting();
+            Debug.resetThreadAllocCount();
+            for (int pass = 0; pass < 20; pass++) {
+                for (int i = 0; i < ROW_COUNT; i++) {
+                    adapter.onBindViewHolder(holders.get(i), i);
+                }
+            }
+            allocations[0] = Debug.getThreadAllocCount();
+            Debug.stopAllocCounting();
+        });
+
+        assertEquals(0, allocations[0]);
+    }
+}
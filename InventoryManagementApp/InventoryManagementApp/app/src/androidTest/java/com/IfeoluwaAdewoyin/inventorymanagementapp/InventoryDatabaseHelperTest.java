@@ -0,0 +1,470 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for item reads and writes against a real database file
+ */
+@RunWith(AndroidJUnit4.class)
+public class InventoryDatabaseHelperTest {
+    private static final String TAG = "InventoryDatabaseHelperTest";
+    private static final String TEST_DATABASE = "inventory_helper_test.db";
+
+    private Context context;
+    private InventoryDatabaseHelper helper;
+
+    @Before
+    public void openDatabase() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        helper = new InventoryDatabaseHelper(context, TEST_DATABASE);
+        helper.invalidateItemCache();
+    }
+
+    @After
+    public void closeDatabase() {
+        helper.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void getInventoryItem_readsEveryColumnWhenNotCached() {
+        InventoryItem item = new InventoryItem("Gloves", "Nitrile, size M", "Safety", 40, 10, "0123456789012");
+        item.setSupplier("Acme Supply");
+        item.setUnitCostCents(250);
+        item.setUnitPriceCents(499);
+        long itemId = helper.addInventoryItem(item);
+        assertTrue(itemId > 0);
+
+        helper.invalidateItemCache();
+        InventoryItem loaded = helper.getInventoryItem(itemId);
+
+        assertNotNull(loaded);
+        assertEquals("Gloves", loaded.getName());
+        assertEquals("Nitrile, size M", loaded.getDescription());
+        assertEquals("Safety", loaded.getCategory());
+        assertEquals(40, loaded.getQuantity());
+        assertEquals(10, loaded.getLowStockThreshold());
+        assertEquals(250, loaded.getUnitCostCents());
+        assertEquals(499, loaded.getUnitPriceCents());
+        assertEquals("0123456789012", loaded.getBarcode());
+        assertEquals("Acme Supply", loaded.getSupplier());
+        assertNotNull(loaded.getUpdatedAt());
+        assertFalse(loaded.isDeleted());
+    }
+
+    @Test
+    public void getInventoryItem_afterUpdateReadsNewValuesFromDisk() {
+        long itemId = helper.addInventoryItem(new InventoryItem("Tape", "", "Packing", 5, 2, ""));
+        InventoryItem item = helper.getInventoryItem(itemId);
+        item.setSupplier("Boxes Ltd");
+        item.setQuantity(12);
+        assertEquals(1, helper.updateInventoryItem(item));
+
+        helper.invalidateItemCache();
+        InventoryItem loaded = helper.getInventoryItem(itemId);
+
+        assertEquals("Boxes Ltd", loaded.getSupplier());
+        assertEquals(12, loaded.getQuantity());
+    }
+
+    @Test
+    public void getInventoryItem_returnsNullForDeletedItem() {
+        long itemId = helper.addInventoryItem(new InventoryItem("Labels", "", "Packing", 3, 1, ""));
+        assertEquals(1, helper.deleteInventoryItem(itemId));
+
+        assertNull(helper.getInventoryItem(itemId));
+        helper.invalidateItemCache();
+        assertNull(helper.getInventoryItem(itemId));
+    }
+
+    @Test
+    public void restoreInventoryItem_bringsBackDeletedItem() {
+        long itemId = helper.addInventoryItem(new InventoryItem("Vise", "", "Tools", 6, 2, ""));
+        helper.addInventoryItem(new InventoryItem("Clamp", "", "Tools", 4, 2, ""));
+
+        assertEquals(1, helper.deleteInventoryItem(itemId));
+        assertEquals(0, helper.deleteInventoryItem(itemId));
+        assertEquals(1, helper.getAllInventoryItems().size());
+        assertEquals(1, helper.getInventoryStats()[0]);
+
+        assertEquals(1, helper.restoreInventoryItem(itemId));
+        assertEquals(0, helper.restoreInventoryItem(itemId));
+
+        InventoryItem restored = helper.getInventoryItem(itemId);
+        assertNotNull(restored);
+        assertEquals(6, restored.getQuantity());
+        assertEquals(2, helper.getAllInventoryItems().size());
+        assertEquals(2, helper.getInventoryStats()[0]);
+    }
+
+    @Test
+    public void purgeDeletedItems_removesOnlyItemsDeletedBeforeCutoff() {
+        long[] itemIds = new long[5];
+        for (int i = 0; i < itemIds.length; i++) {
+            itemIds[i] = helper.addInventoryItem(new InventoryItem("Item " + i, "", "Misc", 3, 1, ""));
+        }
+        for (int i = 0; i < 4; i++) {
+            assertEquals(1, helper.deleteInventoryItem(itemIds[i]));
+        }
+        // Three tombstones are old enough to purge, one was deleted just now
+        helper.getWritableDatabase().execSQL("UPDATE " + InventoryDatabaseHelper.TABLE_INVENTORY + " SET " +
+                InventoryDatabaseHelper.COLUMN_DELETED_AT + " = 1000 WHERE " +
+                InventoryDatabaseHelper.COLUMN_ITEM_ID + " <= " + itemIds[2]);
+
+        List<Long> purged = helper.purgeDeletedItems(2000, 2);
+
+        assertEquals(Arrays.asList(itemIds[0], itemIds[1], itemIds[2]), purged);
+        assertEquals(0, helper.restoreInventoryItem(itemIds[0]));
+        assertEquals(1, helper.restoreInventoryItem(itemIds[3]));
+        assertEquals(2, helper.getAllInventoryItems().size());
+        assertEquals(2, countRows(InventoryDatabaseHelper.TABLE_INVENTORY, "1"));
+        assertTrue(countRows(InventoryDatabaseHelper.TABLE_QUANTITY_COUNTERS, "1") > 0);
+        assertEquals(0, countRows(InventoryDatabaseHelper.TABLE_QUANTITY_COUNTERS,
+                InventoryDatabaseHelper.COLUMN_ITEM_UUID + " NOT IN (SELECT " + InventoryDatabaseHelper.COLUMN_ITEM_UUID +
+                        " FROM " + InventoryDatabaseHelper.TABLE_INVENTORY + ")"));
+        assertEquals(3, countRows(InventoryDatabaseHelper.TABLE_CHANGE_LOG,
+                InventoryDatabaseHelper.COLUMN_CHANGE_FIELD + " = '" + InventoryDatabaseHelper.FIELD_DELETED + "'"));
+        assertTrue(helper.purgeDeletedItems(Long.MAX_VALUE, 2).isEmpty());
+    }
+
+    @Test
+    public void updateForecasts_countsOnlyNewStockTakenOut() {
+        long usedId = helper.addInventoryItem(new InventoryItem("Tape", "", "Packing", 100, 10, ""));
+        long unusedId = helper.addInventoryItem(new InventoryItem("Boxes", "", "Packing", 50, 10, ""));
+        helper.updateInventoryQuantity(usedId, 90);
+        helper.updateInventoryQuantity(usedId, 85);
+        helper.updateInventoryQuantity(usedId, 120);
+        helper.updateInventoryQuantity(usedId, 100);
+        helper.updateInventoryQuantity(unusedId, 80);
+
+        assertEquals(3, helper.updateForecasts(2));
+        assertEquals(0, helper.updateForecasts(2));
+
+        DemandForecaster.Forecast forecast = helper.getItemForecast(usedId);
+        assertNotNull(forecast);
+        assertTrue(System.currentTimeMillis() - forecast.getLastUsageAt() < 60000);
+        // 35 units taken out, counted as at least one day of history
+        assertEquals(35, forecast.getDailyUsage(forecast.getLastUsageAt()), 2);
+        assertNull(helper.getItemForecast(unusedId));
+
+        helper.updateInventoryQuantity(usedId, 95);
+        assertEquals(1, helper.updateForecasts(2));
+        assertEquals(40, helper.getItemForecast(usedId).getDailyUsage(System.currentTimeMillis()), 2);
+    }
+
+    private String explain(String sql, String[] args) {
+        Cursor cursor = helper.getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN " + sql, args);
+        StringBuilder plan = new StringBuilder();
+        while (cursor.moveToNext()) {
+            plan.append(cursor.getString(cursor.getColumnIndexOrThrow("detail"))).append('\n');
+        }
+        cursor.close();
+        return plan.toString();
+    }
+
+    private long countRows(String table, String where) {
+        Cursor cursor = helper.getReadableDatabase().rawQuery("SELECT COUNT(*) FROM " + table + " WHERE " + where, null);
+        try {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getLong(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void quantityUpdatesAndDeletes_keepWorkingAfterHelperReopens() {
+        long itemId = helper.addInventoryItem(new InventoryItem("Gloves", "", "Safety", 10, 2, ""));
+        assertEquals(1, helper.updateInventoryQuantity(itemId, 7));
+
+        // Cached statements belong to the closed connection and are compiled again
+        helper.close();
+        assertEquals(1, helper.updateInventoryQuantity(itemId, 4));
+        helper.invalidateItemCache();
+        assertEquals(4, helper.getInventoryItem(itemId).getQuantity());
+
+        helper.close();
+        assertEquals(1, helper.deleteInventoryItem(itemId));
+        assertEquals(0, helper.deleteInventoryItem(itemId + 1));
+        assertNull(helper.getInventoryItem(itemId));
+    }
+
+    @Test
+    public void loadInventoryPage_readsDescriptionPreviewOnly() {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            description.append((char) ('a' + i % 26));
+        }
+        long itemId = helper.addInventoryItem(new InventoryItem("Shelf", description.toString(), "Storage", 4, 2, "555"));
+        helper.invalidateItemCache();
+
+        InventoryItemStore store = new InventoryItemStore();
+        assertNull(helper.loadInventoryPage(store, InventorySortOrder.NAME, null, 50));
+
+        assertEquals(1, store.size());
+        InventoryItemStore.ItemView row = store.newView().moveTo(0);
+        assertEquals(itemId, row.getId());
+        assertEquals("Shelf", row.getName());
+        assertEquals(description.substring(0, 100), row.getDescription());
+        assertEquals(4, row.getQuantity());
+        assertEquals("", row.getBarcode());
+        assertEquals(description.toString(), helper.getInventoryItem(itemId).getDescription());
+        assertEquals("555", helper.getInventoryItem(itemId).getBarcode());
+    }
+
+    @Test
+    public void loadInventoryPage_mapsFewerCharactersThanFullRows() {
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < 300; i++) {
+            description.append((char) ('a' + i % 26));
+        }
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < 10000; i++) {
+                helper.addInventoryItem(new InventoryItem("Item " + i, description.toString(), "Category " + (i % 20),
+                        i % 50, 5, String.valueOf(4006381333931L + i)));
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        // Read once so both timed reads find the pages already cached
+        helper.loadInventoryPage(new InventoryItemStore(), InventorySortOrder.NAME, null, 10000);
+        helper.invalidateItemCache();
+
+        long start = System.nanoTime();
+        InventoryItemStore store = new InventoryItemStore();
+        helper.loadInventoryPage(store, InventorySortOrder.NAME, null, 10000);
+        long listMillis = (System.nanoTime() - start) / 1000000;
+        start = System.nanoTime();
+        List<InventoryItem> items = helper.getAllInventoryItems();
+        long fullMillis = (System.nanoTime() - start) / 1000000;
+
+        long listChars = 0;
+        InventoryItemStore.ItemView row = store.newView();
+        for (int i = 0; i < store.size(); i++) {
+            row.moveTo(i);
+            listChars += row.getName().length() + row.getDescription().length() + row.getCategory().length() +
+                    row.getBarcode().length();
+        }
+        long fullChars = 0;
+        for (InventoryItem item : items) {
+            fullChars += item.getName().length() + item.getDescription().length() + item.getCategory().length() +
+                    item.getBarcode().length();
+        }
+        Log.i(TAG, "Per 10k rows: list rows " + listChars + " chars in " + listMillis + " ms, full rows " +
+                fullChars + " chars in " + fullMillis + " ms");
+
+        assertEquals(10000, store.size());
+        assertEquals(10000, items.size());
+        assertTrue(listChars + " vs " + fullChars, listChars * 2 < fullChars);
+    }
+
+    @Test
+    public void loadInventoryPage_returnsEveryItemOnceInEachOrder() {
+        for (int i = 0; i < 57; i++) {
+            InventoryItem item = new InventoryItem("Item " + (i % 7), "", "Category " + (i % 3), i % 11, 5, "");
+            item.setCriticalThreshold(2);
+            helper.addInventoryItem(item);
+        }
+
+        for (InventorySortOrder sortOrder : InventorySortOrder.values()) {
+            List<Long> expected = new ArrayList<>();
+            Cursor cursor = helper.getReadableDatabase().rawQuery("SELECT " + InventoryDatabaseHelper.COLUMN_ITEM_ID +
+                    " FROM " + InventoryDatabaseHelper.TABLE_INVENTORY + " ORDER BY " + sortOrder.getOrderBy(), null);
+            while (cursor.moveToNext()) {
+                expected.add(cursor.getLong(0));
+            }
+            cursor.close();
+
+            InventoryItemStore store = new InventoryItemStore();
+            String[] pageKey = helper.loadInventoryPage(store, sortOrder, null, 10);
+            while (pageKey != null) {
+                pageKey = helper.loadInventoryPage(store, sortOrder, pageKey, 10);
+            }
+
+            List<Long> loaded = new ArrayList<>();
+            for (int i = 0; i < store.size(); i++) {
+                loaded.add(store.newView().moveTo(i).getId());
+            }
+            assertEquals(sortOrder.name(), expected, loaded);
+        }
+    }
+
+    @Test
+    public void loadInventoryPage_seeksSortIndexWithoutSorting() {
+        for (InventorySortOrder sortOrder : InventorySortOrder.values()) {
+            String[] pageKey = new String[sortOrder.getKeys().length + 1];
+            Arrays.fill(pageKey, "1");
+            String plan = explain("SELECT " + InventoryDatabaseHelper.COLUMN_ITEM_ID + " FROM " +
+                    InventoryDatabaseHelper.TABLE_INVENTORY + " WHERE " + InventoryDatabaseHelper.LIVE_ITEMS + " AND " +
+                    sortOrder.getKeysetCondition(pageKey) + " ORDER BY " + sortOrder.getOrderBy() + " LIMIT 10",
+                    sortOrder.getKeysetArgs(pageKey));
+
+            assertTrue(sortOrder + ": " + plan, plan.contains("idx_inventory_"));
+            assertFalse(sortOrder + ": " + plan, plan.contains("TEMP B-TREE"));
+        }
+    }
+
+    @Test
+    public void tombstones_leaveStatsAndFirstPageOnPartialIndexes() {
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            itemIds.add(helper.addInventoryItem(new InventoryItem("Item " + i, "", "Category " + (i % 5), i % 20, 5, "")));
+        }
+        for (long itemId : itemIds.subList(30, 300)) {
+            helper.deleteInventoryItem(itemId);
+        }
+        // Statistics as the maintenance worker leaves them
+        helper.getWritableDatabase().execSQL("ANALYZE");
+
+        assertEquals(30, helper.getInventoryStats()[0]);
+        String statsPlan = explain("SELECT SUM(" + InventoryDatabaseHelper.COLUMN_ITEM_COUNT + ") FROM " +
+                InventoryDatabaseHelper.TABLE_CATEGORY_TOTALS, null);
+        assertFalse(statsPlan, statsPlan.contains(InventoryDatabaseHelper.TABLE_INVENTORY));
+
+        for (InventorySortOrder sortOrder : InventorySortOrder.values()) {
+            String pagePlan = explain("SELECT " + InventoryDatabaseHelper.COLUMN_ITEM_ID + " FROM " +
+                    InventoryDatabaseHelper.TABLE_INVENTORY + " WHERE " + InventoryDatabaseHelper.LIVE_ITEMS +
+                    " ORDER BY " + sortOrder.getOrderBy() + " LIMIT 10", null);
+            assertTrue(sortOrder + ": " + pagePlan, pagePlan.contains("idx_inventory_"));
+            assertFalse(sortOrder + ": " + pagePlan, pagePlan.contains("idx_inventory_tombstones"));
+            assertFalse(sortOrder + ": " + pagePlan, pagePlan.contains("TEMP B-TREE"));
+        }
+
+        String purgePlan = explain("SELECT " + InventoryDatabaseHelper.COLUMN_ITEM_ID + " FROM " +
+                InventoryDatabaseHelper.TABLE_INVENTORY + " WHERE " + InventoryDatabaseHelper.COLUMN_IS_DELETED +
+                " = 1 AND " + InventoryDatabaseHelper.COLUMN_DELETED_AT + " < ? LIMIT 200", new String[]{"1"});
+        assertTrue(purgePlan, purgePlan.contains("idx_inventory_tombstones"));
+    }
+
+    @Test
+    public void loadInventoryPage_neitherRepeatsNorSkipsRowsAddedBetweenPages() {
+        for (int i = 0; i < 20; i++) {
+            helper.addInventoryItem(new InventoryItem(String.format("Item %02d", i), "", "", 1, 1, ""));
+        }
+
+        InventoryItemStore store = new InventoryItemStore();
+        String[] pageKey = helper.loadInventoryPage(store, InventorySortOrder.NAME, null, 10);
+        helper.addInventoryItem(new InventoryItem("Item 00a", "", "", 1, 1, ""));
+        helper.addInventoryItem(new InventoryItem("Item 15a", "", "", 1, 1, ""));
+        assertNull(helper.loadInventoryPage(store, InventorySortOrder.NAME, pageKey, 20));
+
+        assertEquals(21, store.size());
+        InventoryItemStore.ItemView row = store.newView();
+        for (int i = 1; i < store.size(); i++) {
+            String previous = row.moveTo(i - 1).getName();
+            assertTrue(previous.compareTo(row.moveTo(i).getName()) < 0);
+        }
+    }
+
+    @Test
+    public void getInventoryItem_sharesCachedItemsWithOtherHelpersOfTheDatabase() {
+        long itemId = helper.addInventoryItem(new InventoryItem("Gloves", "", "Safety", 40, 10, ""));
+        helper.invalidateItemCache();
+        assertNotNull(helper.getInventoryItem(itemId));
+
+        // Changed behind the cache's back, so only a cache hit still returns the old name
+        helper.getWritableDatabase().execSQL("UPDATE " + InventoryDatabaseHelper.TABLE_INVENTORY + " SET " +
+                InventoryDatabaseHelper.COLUMN_ITEM_NAME + " = 'Renamed' WHERE " +
+                InventoryDatabaseHelper.COLUMN_ITEM_ID + " = " + itemId);
+
+        InventoryDatabaseHelper editScreenHelper = new InventoryDatabaseHelper(context, TEST_DATABASE);
+        try {
+            assertEquals("Gloves", editScreenHelper.getInventoryItem(itemId).getName());
+        } finally {
+            editScreenHelper.close();
+        }
+    }
+
+    @Test
+    public void getItemsChangedSince_reportsDeletedItemsWithoutCachingThem() {
+        long keptId = helper.addInventoryItem(new InventoryItem("Gloves", "", "Safety", 40, 10, ""));
+        long deletedId = helper.addInventoryItem(new InventoryItem("Labels", "", "Packing", 3, 1, ""));
+        assertNotNull(helper.getInventoryItem(deletedId));
+        assertEquals(1, helper.deleteInventoryItem(deletedId));
+
+        List<InventoryItem> changed = helper.getItemsChangedSince(0, helper.getLastChangeId());
+
+        assertEquals(2, changed.size());
+        for (InventoryItem item : changed) {
+            assertEquals(item.getId() == deletedId, item.isDeleted());
+        }
+        assertNull(helper.getInventoryItem(deletedId));
+        assertEquals(40, helper.getInventoryItem(keptId).getQuantity());
+    }
+
+    @Test
+    public void getItemsChangedSince_includesLateCommitWithEarlierTimestamp() {
+        long itemId = helper.addInventoryItem(new InventoryItem("Gloves", "", "Safety", 40, 10, ""));
+        helper.addInventoryItem(new InventoryItem("Tape", "", "Packing", 5, 2, ""));
+        long watermark = helper.getLastChangeId();
+        assertEquals(2, helper.getItemsChangedSince(0, watermark).size());
+
+        // A change stamped before the watermark was taken but committed after it
+        helper.updateInventoryQuantity(itemId, 8);
+        helper.getWritableDatabase().execSQL("UPDATE " + InventoryDatabaseHelper.TABLE_INVENTORY + " SET " +
+                InventoryDatabaseHelper.COLUMN_ITEM_UPDATED_AT + " = '2000-01-01 00:00:00.000' WHERE " +
+                InventoryDatabaseHelper.COLUMN_ITEM_ID + " = " + itemId);
+
+        List<InventoryItem> changed = helper.getItemsChangedSince(watermark, helper.getLastChangeId());
+
+        assertEquals(1, changed.size());
+        assertEquals(itemId, changed.get(0).getId());
+        assertEquals(8, changed.get(0).getQuantity());
+    }
+
+    @Test
+    public void getItemsChangedSince_leavesChangesAfterUpperBoundForNextCall() {
+        long firstId = helper.addInventoryItem(new InventoryItem("Gloves", "", "Safety", 40, 10, ""));
+        long upToChangeId = helper.getLastChangeId();
+        long secondId = helper.addInventoryItem(new InventoryItem("Tape", "", "Packing", 5, 2, ""));
+
+        List<InventoryItem> changed = helper.getItemsChangedSince(0, upToChangeId);
+        assertEquals(1, changed.size());
+        assertEquals(firstId, changed.get(0).getId());
+
+        helper.setChangeWatermark("test_consumer", upToChangeId);
+        long watermark = helper.getChangeWatermark("test_consumer");
+        changed = helper.getItemsChangedSince(watermark, helper.getLastChangeId());
+        assertEquals(1, changed.size());
+        assertEquals(secondId, changed.get(0).getId());
+        assertEquals(0, helper.getChangeWatermark("unknown_consumer"));
+    }
+
+    @Test
+    public void getItemsChangedSince_readsOnlyTheChangeRange() {
+        Cursor cursor = helper.getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN SELECT * FROM " +
+                InventoryDatabaseHelper.TABLE_INVENTORY + " WHERE item_uuid IN (SELECT item_uuid FROM " +
+                InventoryDatabaseHelper.TABLE_CHANGE_LOG + " WHERE change_id > ? AND change_id <= ?) ORDER BY " +
+                InventoryDatabaseHelper.COLUMN_ITEM_ID, new String[]{"10", "20"});
+        StringBuilder plan = new StringBuilder();
+        while (cursor.moveToNext()) {
+            plan.append(cursor.getString(cursor.getColumnIndexOrThrow("detail"))).append('\n');
+        }
+        cursor.close();
+
+        assertTrue(plan.toString(), plan.toString().contains("USING INTEGER PRIMARY KEY"));
+        assertFalse(plan.toString(), plan.toString().contains("SCAN change_log"));
+        assertFalse(plan.toString(), plan.toString().contains("SCAN inventory"));
+    }
+}
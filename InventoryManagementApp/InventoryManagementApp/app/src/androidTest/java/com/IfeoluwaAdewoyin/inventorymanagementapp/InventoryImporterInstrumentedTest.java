@@ -0,0 +1,158 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for importing items from CSV into a location database
+ */
+@RunWith(AndroidJUnit4.class)
+public class InventoryImporterInstrumentedTest {
+    private static final String TEST_DATABASE = "inventory_importer_test.db";
+
+    private Context context;
+    private InventoryDatabaseHelper helper;
+    private ForkJoinPool pool;
+    private InventoryImporter importer;
+
+    @Before
+    public void openDatabase() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        helper = new InventoryDatabaseHelper(context, TEST_DATABASE);
+        helper.invalidateItemCache();
+        pool = new ForkJoinPool(4);
+        importer = new InventoryImporter(helper, pool);
+    }
+
+    @After
+    public void closeDatabase() {
+        pool.shutdown();
+        helper.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void importCsv_addsValidRowsAndReportsTheRest() throws IOException {
+        InventoryImporter.ImportResult result = importer.importCsv(csv(
+                "Name,Qty,Category,SKU,Price\n" +
+                "Gloves,40,Safety,111,4.99\n" +
+                "\"Tape, wide\",-2,Packing,,1\n" +
+                "Labels,3,Packing,222,\n" +
+                "gloves,5,Safety,,1\n"));
+
+        assertEquals(4, result.getRowsRead());
+        assertEquals(2, result.getInserted());
+        assertEquals(0, result.getUpdated());
+        assertEquals(2, result.getFailed());
+        assertEquals(3, result.getErrors().get(0).getRow());
+        assertEquals("Quantity: Quantity cannot be negative", result.getErrors().get(0).getMessage());
+        assertEquals("Duplicate of row 2", result.getErrors().get(1).getMessage());
+
+        Map<String, InventoryItem> items = itemsByName();
+        assertEquals(2, items.size());
+        assertEquals(40, items.get("Gloves").getQuantity());
+        assertEquals(499, items.get("Gloves").getUnitPriceCents());
+        assertEquals("111", items.get("Gloves").getBarcode());
+        assertTrue(helper.checkCategoryTotals().isEmpty());
+    }
+
+    @Test
+    public void importCsv_updatesMatchesAndKeepsColumnsMissingFromFile() throws IOException {
+        InventoryItem gloves = new InventoryItem("Gloves", "Nitrile", "Safety", 40, 10, "111");
+        gloves.setSupplier("Acme");
+        long glovesId = helper.addInventoryItem(gloves);
+        long tapeId = helper.addInventoryItem(new InventoryItem("Tape", "", "Packing", 2, 1, ""));
+
+        InventoryImporter.ImportResult result = importer.importCsv(csv(
+                "Name,Quantity,Barcode\n" +
+                "Nitrile Gloves,25,111\n" +
+                "TAPE,9,\n" +
+                "Labels,3,\n"));
+
+        assertEquals(1, result.getInserted());
+        assertEquals(2, result.getUpdated());
+        helper.invalidateItemCache();
+        InventoryItem updated = helper.getInventoryItem(glovesId);
+        // Matched by barcode, so the row renames the item
+        assertEquals("Nitrile Gloves", updated.getName());
+        assertEquals(25, updated.getQuantity());
+        assertEquals("Nitrile", updated.getDescription());
+        assertEquals("Acme", updated.getSupplier());
+        assertEquals(9, helper.getInventoryItem(tapeId).getQuantity());
+        assertEquals(3, helper.getAllInventoryItems().size());
+    }
+
+    @Test
+    public void importCsv_runTwiceDoesNotDuplicate() throws IOException {
+        StringBuilder data = new StringBuilder("Name,Quantity,Category\n");
+        for (int i = 0; i < 2500; i++) {
+            data.append("Item ").append(i).append(',').append(i).append(",Bulk\n");
+        }
+
+        InventoryImporter.ImportResult first = importer.importCsv(csv(data.toString()));
+        InventoryImporter.ImportResult second = new InventoryImporter(helper, pool).importCsv(csv(data.toString()));
+
+        assertEquals(2500, first.getInserted());
+        assertEquals(0, second.getInserted());
+        assertEquals(2500, second.getUpdated());
+        assertEquals(2500, helper.getAllInventoryItems().size());
+        assertEquals(2500 * 2499 / 2, helper.getCategoryTotals().get(0).getTotalUnits());
+    }
+
+    @Test
+    public void importCsv_reportsProgressPerChunk() throws IOException {
+        StringBuilder data = new StringBuilder("Name,Quantity\n");
+        for (int i = 0; i < 2100; i++) {
+            data.append("Item ").append(i).append(",1\n");
+        }
+        List<Long> progress = new ArrayList<>();
+        importer.setProgressListener((done, total) -> progress.add(done));
+
+        importer.importCsv(csv(data.toString()));
+
+        assertEquals(3, progress.size());
+        assertEquals(Long.valueOf(2100), progress.get(2));
+    }
+
+    @Test(expected = IOException.class)
+    public void importCsv_requiresNameAndQuantityColumns() throws IOException {
+        importer.importCsv(csv("Name,Category\nGloves,Safety\n"));
+    }
+
+    @Test(expected = IOException.class)
+    public void importCsv_rejectsEmptyFile() throws IOException {
+        importer.importCsv(csv("\n\n"));
+    }
+
+    private static InputStream csv(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Map<String, InventoryItem> itemsByName() {
+        Map<String, InventoryItem> items = new HashMap<>();
+        for (InventoryItem item : helper.getAllInventoryItems()) {
+            items.put(item.getName(), item);
+        }
+        return items;
+    }
+}
@@ -0,0 +1,133 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for the shared item cache and the helper reads that go through it
+ */
+@RunWith(AndroidJUnit4.class)
+public class InventoryItemCacheTest {
+    private static final String TEST_DATABASE = "inventory_item_cache_test.db";
+
+    private Context context;
+    private InventoryDatabaseHelper helper;
+
+    @Before
+    public void openDatabase() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        helper = new InventoryDatabaseHelper(context, TEST_DATABASE);
+        helper.invalidateItemCache();
+    }
+
+    @After
+    public void closeDatabase() {
+        helper.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void forDatabase_sharesOneCachePerFile() {
+        assertSame(InventoryItemCache.forDatabase("cache_test_a.db"), InventoryItemCache.forDatabase("cache_test_a.db"));
+        assertNotSame(InventoryItemCache.forDatabase("cache_test_a.db"), InventoryItemCache.forDatabase("cache_test_b.db"));
+    }
+
+    @Test
+    public void get_returnsCopiesSoCallersCannotChangeCachedItem() {
+        InventoryItemCache cache = new InventoryItemCache();
+        InventoryItem item = cachedItem(1, "Hammer");
+        cache.put(item);
+        item.setName("Changed before get");
+
+        InventoryItem first = cache.get(1);
+        first.setName("Changed after get");
+
+        assertEquals("Hammer", cache.get(1).getName());
+        assertNotSame(cache.get(1), cache.get(1));
+        assertNull(cache.get(2));
+    }
+
+    @Test
+    public void invalidate_dropsOneOrAllItems() {
+        InventoryItemCache cache = new InventoryItemCache();
+        cache.put(cachedItem(1, "Hammer"));
+        cache.put(cachedItem(2, "Saw"));
+        cache.put(cachedItem(3, "Chisel"));
+
+        cache.invalidate(2);
+        assertNotNull(cache.get(1));
+        assertNull(cache.get(2));
+
+        cache.invalidateAll();
+        assertNull(cache.get(1));
+        assertNull(cache.get(3));
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsedItemsPastMemoryBudget() {
+        InventoryItemCache cache = new InventoryItemCache();
+        StringBuilder description = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            description.append('x');
+        }
+        // About 2 KB each, so a few hundred items fill the budget
+        for (long id = 1; id <= 1000; id++) {
+            InventoryItem item = cachedItem(id, "Item " + id);
+            item.setDescription(description.toString());
+            cache.put(item);
+            cache.get(1);
+        }
+
+        assertNotNull(cache.get(1));
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(1000));
+        assertTrue(cache.getStats().contains("evictions="));
+        assertFalse(cache.getStats().contains("evictions=0,"));
+    }
+
+    @Test
+    public void getInventoryItem_servesItemsFromListLoadUntilWritten() {
+        long itemId = helper.addInventoryItem(new InventoryItem("Rope", "", "Rigging", 3, 1, ""));
+        helper.invalidateItemCache();
+        assertEquals(1, helper.getAllInventoryItems().size());
+
+        // Change the row behind the cache's back; the cached copy is still served
+        helper.getWritableDatabase().execSQL("UPDATE " + InventoryDatabaseHelper.TABLE_INVENTORY +
+                " SET " + InventoryDatabaseHelper.COLUMN_ITEM_DESCRIPTION + " = 'Edited on disk'");
+        assertEquals("", helper.getInventoryItem(itemId).getDescription());
+
+        InventoryItem item = helper.getInventoryItem(itemId);
+        item.setName("Rope 10m");
+        assertEquals(1, helper.updateInventoryItem(item));
+
+        InventoryItem loaded = helper.getInventoryItem(itemId);
+        assertEquals("Rope 10m", loaded.getName());
+        assertEquals("", loaded.getDescription());
+    }
+
+    @Test
+    public void deleteInventoryItem_stopsServingCachedItem() {
+        long itemId = helper.addInventoryItem(new InventoryItem("Tarp", "", "Covers", 2, 1, ""));
+        assertNotNull(helper.getInventoryItem(itemId));
+
+        assertEquals(1, helper.deleteInventoryItem(itemId));
+
+        assertNull(helper.getInventoryItem(itemId));
+    }
+
+    private static InventoryItem cachedItem(long id, String name) {
+        InventoryItem item = new InventoryItem(name, "", "Tools", 1, 1, "");
+        item.setId(id);
+        return item;
+    }
+}
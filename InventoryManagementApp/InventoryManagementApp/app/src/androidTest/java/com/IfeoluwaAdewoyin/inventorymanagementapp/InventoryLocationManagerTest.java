@@ -0,0 +1,143 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for per-location databases and the stats read across them
+ */
+@RunWith(AndroidJUnit4.class)
+public class InventoryLocationManagerTest {
+    private static final String PREFS_NAME = "InventoryLocations";
+    private static final String TEST_LOCATION_PREFIX = "Test Van ";
+    // More locations than fit in one batch of attached databases
+    private static final int TEST_LOCATIONS = 11;
+
+    private Context context;
+    private SharedPreferences prefs;
+    private Map<String, ?> savedPrefs;
+    private InventoryLocationManager manager;
+
+    @Before
+    public void saveLocations() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        savedPrefs = prefs.getAll();
+        prefs.edit().clear().commit();
+        manager = new InventoryLocationManager(context);
+    }
+
+    @After
+    public void restoreLocations() {
+        for (int i = 1; i <= TEST_LOCATIONS; i++) {
+            context.deleteDatabase(manager.getDatabaseName(TEST_LOCATION_PREFIX + i));
+        }
+        SharedPreferences.Editor editor = prefs.edit().clear();
+        for (Map.Entry<String, ?> entry : savedPrefs.entrySet()) {
+            editor.putString(entry.getKey(), (String) entry.getValue());
+        }
+        editor.commit();
+    }
+
+    @Test
+    public void getDatabaseName_keepsDefaultFileAndSlugsOtherNames() {
+        assertEquals(InventoryDatabaseHelper.DATABASE_NAME,
+                manager.getDatabaseName(InventoryLocationManager.DEFAULT_LOCATION));
+        assertEquals("inventory_management_test_van_1.db", manager.getDatabaseName(" Test  Van #1 "));
+    }
+
+    @Test
+    public void addLocation_rejectsEmptyAndCollidingNames() {
+        assertTrue(manager.addLocation(TEST_LOCATION_PREFIX + 1));
+
+        assertFalse(manager.addLocation("   "));
+        assertFalse(manager.addLocation(null));
+        assertFalse(manager.addLocation("Test\nVan"));
+        assertFalse(manager.addLocation("test-van-1"));
+        assertFalse(manager.addLocation(InventoryLocationManager.DEFAULT_LOCATION));
+
+        List<String> locations = manager.getLocations();
+        assertEquals(2, locations.size());
+        assertEquals(InventoryLocationManager.DEFAULT_LOCATION, locations.get(0));
+        assertEquals(TEST_LOCATION_PREFIX + 1, locations.get(1));
+    }
+
+    @Test
+    public void getCurrentLocation_fallsBackToDefaultForUnknownLocation() {
+        assertTrue(manager.addLocation(TEST_LOCATION_PREFIX + 1));
+        manager.setCurrentLocation(TEST_LOCATION_PREFIX + 1);
+        assertEquals(TEST_LOCATION_PREFIX + 1, manager.getCurrentLocation());
+
+        manager.setCurrentLocation(TEST_LOCATION_PREFIX + 2);
+        assertEquals(InventoryLocationManager.DEFAULT_LOCATION, manager.getCurrentLocation());
+    }
+
+    @Test
+    public void openHelper_keepsEachLocationsItemsSeparate() {
+        assertTrue(manager.addLocation(TEST_LOCATION_PREFIX + 1));
+        assertTrue(manager.addLocation(TEST_LOCATION_PREFIX + 2));
+
+        InventoryDatabaseHelper first = manager.openHelper(TEST_LOCATION_PREFIX + 1);
+        InventoryDatabaseHelper second = manager.openHelper(TEST_LOCATION_PREFIX + 2);
+        try {
+            first.addInventoryItem(new InventoryItem("Ladder", "", "Tools", 1, 1, ""));
+
+            assertEquals(1, first.getAllInventoryItems().size());
+            assertTrue(second.getAllInventoryItems().isEmpty());
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    @Test
+    public void getLocationStats_readsEveryLocationAcrossAttachBatches() {
+        for (int i = 1; i <= TEST_LOCATIONS; i++) {
+            String location = TEST_LOCATION_PREFIX + i;
+            assertTrue(manager.addLocation(location));
+
+            InventoryDatabaseHelper helper = manager.openHelper(location);
+            try {
+                for (int j = 0; j < i; j++) {
+                    helper.addInventoryItem(new InventoryItem("Item " + j, "", "Parts", 10 * i, 5, ""));
+                }
+            } finally {
+                helper.close();
+            }
+        }
+        // A location without a database file yet is skipped
+        assertTrue(manager.addLocation(TEST_LOCATION_PREFIX + "Unused"));
+
+        Map<String, int[]> stats = manager.getLocationStats();
+        Map<String, long[]> values = manager.getLocationValues();
+
+        assertFalse(stats.containsKey(TEST_LOCATION_PREFIX + "Unused"));
+        for (int i = 1; i <= TEST_LOCATIONS; i++) {
+            int[] locationStats = stats.get(TEST_LOCATION_PREFIX + i);
+            assertNotNull(locationStats);
+            assertEquals(i, locationStats[0]);
+            assertEquals(i * 10 * i, locationStats[3]);
+            assertEquals(i * 10 * i, values.get(TEST_LOCATION_PREFIX + i)[0]);
+        }
+
+        int[] combined = manager.getCombinedStats();
+        int expectedItems = 0;
+        for (int[] locationStats : stats.values()) {
+            expectedItems += locationStats[0];
+        }
+        assertEquals(expectedItems, combined[0]);
+    }
+}
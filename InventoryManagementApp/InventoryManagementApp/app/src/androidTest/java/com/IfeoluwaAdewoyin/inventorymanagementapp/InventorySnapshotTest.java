@@ -0,0 +1,202 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for writing and restoring binary database snapshots
+ */
+@RunWith(AndroidJUnit4.class)
+public class InventorySnapshotTest {
+    private static final String TEST_DATABASE = "inventory_snapshot_test.db";
+
+    private Context context;
+    private InventoryDatabaseHelper helper;
+    private InventorySnapshot snapshot;
+    private File snapshotFile;
+
+    @Before
+    public void openDatabase() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        helper = new InventoryDatabaseHelper(context, TEST_DATABASE);
+        helper.invalidateItemCache();
+        snapshot = new InventorySnapshot(helper);
+        snapshotFile = InventorySnapshot.getSnapshotFile(context, TEST_DATABASE);
+
+        InventoryItem gloves = new InventoryItem("Gloves", "Nitrile, größe M", "Safety", 40, 10, "0123456789012");
+        gloves.setSupplier("Acme Supply");
+        gloves.setUnitCostCents(250);
+        gloves.setUnitPriceCents(499);
+        long glovesId = helper.addInventoryItem(gloves);
+        helper.updateInventoryQuantity(glovesId, 35);
+        helper.addInventoryItem(new InventoryItem("Tape", "", "Packing", 0, 2, ""));
+    }
+
+    @After
+    public void closeDatabase() {
+        helper.close();
+        context.deleteDatabase(TEST_DATABASE);
+        snapshotFile.delete();
+    }
+
+    @Test
+    public void restore_bringsBackItemsAsWritten() throws IOException {
+        assertRoundTrip(false);
+    }
+
+    @Test
+    public void restore_readsCompressedSnapshot() throws IOException {
+        assertRoundTrip(true);
+    }
+
+    @Test
+    public void restore_keepsDeviceIdAndClearsSyncCursors() throws IOException {
+        String deviceId = helper.getDeviceId();
+        snapshot.write(snapshotFile, true);
+        helper.setChangeWatermark("test_consumer", 5);
+
+        snapshot.restore(snapshotFile);
+
+        assertEquals(deviceId, helper.getDeviceId());
+        assertEquals(0, helper.getChangeWatermark("test_consumer"));
+    }
+
+    @Test
+    public void restore_rejectsOtherFilesAndLeavesDatabaseUnchanged() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(snapshotFile)) {
+            out.write("id,name\n1,Gloves\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        try {
+            snapshot.restore(snapshotFile);
+            fail("Restored a file that is not a snapshot");
+        } catch (IOException expected) {
+            // Not a snapshot
+        }
+        assertEquals(2, helper.getAllInventoryItems().size());
+    }
+
+    @Test
+    public void restore_rollsBackTruncatedSnapshot() throws IOException {
+        snapshot.write(snapshotFile, false);
+        helper.addInventoryItem(new InventoryItem("Labels", "", "Packing", 3, 1, ""));
+        try (RandomAccessFile file = new RandomAccessFile(snapshotFile, "rw")) {
+            file.setLength(file.length() - 10);
+        }
+
+        try {
+            snapshot.restore(snapshotFile);
+            fail("Restored a truncated snapshot");
+        } catch (IOException expected) {
+            // Ends in the middle of a row
+        }
+        assertEquals(3, helper.getAllInventoryItems().size());
+    }
+
+    @Test
+    public void restore_keepsStockHistoryAndItsRollupPosition() throws IOException {
+        helper.rollUpStockHistory(100);
+        helper.updateInventoryQuantity(findItem("Gloves").getId(), 30);
+        List<String> samples = describeTable(InventoryDatabaseHelper.TABLE_STOCK_SAMPLES);
+        snapshot.write(snapshotFile, false);
+        helper.rollUpStockHistory(100);
+        List<String> rollups = describeTable(InventoryDatabaseHelper.TABLE_STOCK_ROLLUPS);
+
+        snapshot.restore(snapshotFile);
+
+        assertEquals(samples, describeTable(InventoryDatabaseHelper.TABLE_STOCK_SAMPLES));
+        // Only the sample taken after the last roll-up is rolled up, so no bucket counts one twice
+        assertEquals(1, helper.rollUpStockHistory(100));
+        assertEquals(rollups, describeTable(InventoryDatabaseHelper.TABLE_STOCK_ROLLUPS));
+    }
+
+    @Test(expected = IOException.class)
+    public void restore_refusesItemExport() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(snapshotFile)) {
+            InventorySnapshot.ItemSink sink = new InventorySnapshot.ItemSink(out,
+                    helper.getReadableDatabase().getVersion(), false);
+            for (InventoryItem item : helper.getAllInventoryItems()) {
+                sink.accept(item);
+            }
+            sink.finish();
+        }
+
+        snapshot.restore(snapshotFile);
+    }
+
+    private void assertRoundTrip(boolean compress) throws IOException {
+        List<String> before = describeItems();
+        int written = snapshot.write(snapshotFile, compress);
+        assertTrue(written > 2);
+
+        List<InventoryItem> items = helper.getAllInventoryItems();
+        helper.deleteInventoryItem(items.get(0).getId());
+        helper.addInventoryItem(new InventoryItem("Labels", "", "Packing", 3, 1, ""));
+
+        assertEquals(written, snapshot.restore(snapshotFile));
+
+        assertEquals(before, describeItems());
+        assertTrue(helper.checkCategoryTotals().isEmpty());
+        assertFalse(new File(snapshotFile.getPath() + ".tmp").exists());
+    }
+
+    private InventoryItem findItem(String name) {
+        for (InventoryItem item : helper.getAllInventoryItems()) {
+            if (name.equals(item.getName())) {
+                return item;
+            }
+        }
+        throw new AssertionError("No item named " + name);
+    }
+
+    /**
+     * Every row of a history table in key order, one string per row
+     */
+    private List<String> describeTable(String table) {
+        List<String> rows = new ArrayList<>();
+        Cursor cursor = helper.getReadableDatabase().rawQuery("SELECT * FROM " + table + " ORDER BY 1, 2, 3", null);
+        try {
+            while (cursor.moveToNext()) {
+                StringBuilder row = new StringBuilder();
+                for (int i = 0; i < cursor.getColumnCount(); i++) {
+                    row.append(cursor.getString(i)).append('|');
+                }
+                rows.add(row.toString());
+            }
+        } finally {
+            cursor.close();
+        }
+        return rows;
+    }
+
+    private List<String> describeItems() {
+        helper.invalidateItemCache();
+        List<String> described = new ArrayList<>();
+        for (InventoryItem item : helper.getAllInventoryItems()) {
+            described.add(item.getId() + "|" + item.getName() + "|" + item.getDescription() + "|" +
+                    item.getCategory() + "|" + item.getQuantity() + "|" + item.getLowStockThreshold() + "|" +
+                    item.getCriticalThreshold() + "|" + item.getUnitCostCents() + "|" + item.getUnitPriceCents() + "|" +
+                    item.getBarcode() + "|" + item.getSupplier() + "|" + item.getUpdatedAt());
+        }
+        return described;
+    }
+}
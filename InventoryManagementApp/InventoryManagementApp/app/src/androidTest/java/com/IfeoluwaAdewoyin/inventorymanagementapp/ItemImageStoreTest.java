@@ -0,0 +1,134 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for storing item photos next to a location's database
+ */
+@RunWith(AndroidJUnit4.class)
+public class ItemImageStoreTest {
+    private static final String TEST_LOCATION = "item_image_store_test.db";
+    private static final long ITEM_ID = 7;
+
+    private Context context;
+    private ItemImageStore imageStore;
+    private File pendingFile;
+
+    @Before
+    public void createStore() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        imageStore = new ItemImageStore(context, TEST_LOCATION);
+        pendingFile = ItemImageStore.getPendingImageFile(context);
+    }
+
+    @After
+    public void deletePhotos() {
+        imageStore.deleteImage(ITEM_ID);
+        pendingFile.delete();
+    }
+
+    @Test
+    public void shrinkImage_fitsLargePhotoWithinStoredSize() throws IOException {
+        writeImage(pendingFile, 4000, 3000);
+
+        ItemImageStore.shrinkImage(pendingFile);
+
+        int[] size = readSize(pendingFile);
+        assertEquals(1280, size[0]);
+        assertEquals(960, size[1]);
+    }
+
+    @Test
+    public void shrinkImage_keepsSmallPhotoSize() throws IOException {
+        writeImage(pendingFile, 800, 600);
+
+        ItemImageStore.shrinkImage(pendingFile);
+
+        int[] size = readSize(pendingFile);
+        assertEquals(800, size[0]);
+        assertEquals(600, size[1]);
+    }
+
+    @Test(expected = IOException.class)
+    public void shrinkImage_rejectsFileThatIsNotAnImage() throws IOException {
+        ItemImageStore.copyImage(new ByteArrayInputStream("not an image".getBytes(StandardCharsets.UTF_8)), pendingFile);
+
+        ItemImageStore.shrinkImage(pendingFile);
+    }
+
+    @Test
+    public void attachImage_movesPendingPhotoIntoPlace() throws IOException {
+        writeImage(pendingFile, 300, 200);
+
+        assertTrue(imageStore.attachImage(ITEM_ID, pendingFile));
+
+        assertFalse(pendingFile.exists());
+        File photo = imageStore.getImageFile(ITEM_ID);
+        assertTrue(photo.exists());
+        assertEquals(300, readSize(photo)[0]);
+        assertTrue(System.currentTimeMillis() - photo.lastModified() < 60000);
+    }
+
+    @Test
+    public void attachImage_replacesPreviousPhoto() throws IOException {
+        writeImage(pendingFile, 300, 200);
+        assertTrue(imageStore.attachImage(ITEM_ID, pendingFile));
+        writeImage(pendingFile, 100, 50);
+
+        assertTrue(imageStore.attachImage(ITEM_ID, pendingFile));
+
+        assertEquals(100, readSize(imageStore.getImageFile(ITEM_ID))[0]);
+    }
+
+    @Test
+    public void deleteImage_removesPhotoAndIgnoresItemsWithout() throws IOException {
+        writeImage(pendingFile, 300, 200);
+        assertTrue(imageStore.attachImage(ITEM_ID, pendingFile));
+
+        imageStore.deleteImage(ITEM_ID);
+        imageStore.deleteImage(ITEM_ID + 1);
+
+        assertFalse(imageStore.getImageFile(ITEM_ID).exists());
+    }
+
+    @Test
+    public void getStoreId_isSharedPerLocation() {
+        ItemImageStore sameLocation = new ItemImageStore(context, TEST_LOCATION);
+        ItemImageStore otherLocation = new ItemImageStore(context, "item_image_store_other.db");
+
+        assertEquals(imageStore.getStoreId(), sameLocation.getStoreId());
+        assertNotEquals(imageStore.getStoreId(), otherLocation.getStoreId());
+        assertNotEquals(imageStore.getImageFile(ITEM_ID), otherLocation.getImageFile(ITEM_ID));
+    }
+
+    private static void writeImage(File file, int width, int height) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888).compress(Bitmap.CompressFormat.JPEG, 90, out);
+        }
+    }
+
+    private static int[] readSize(File file) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getPath(), options);
+        return new int[]{options.outWidth, options.outHeight};
+    }
+}
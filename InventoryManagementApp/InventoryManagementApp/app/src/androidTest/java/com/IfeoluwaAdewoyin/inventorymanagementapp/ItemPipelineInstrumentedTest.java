@@ -0,0 +1,234 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for streaming items through the pipeline's threads and queues
+ */
+@RunWith(AndroidJUnit4.class)
+public class ItemPipelineInstrumentedTest {
+    private static final String TEST_DATABASE = "item_pipeline_test.db";
+    private static final String IMPORT_DATABASE = "item_pipeline_import_test.db";
+
+    private Context context;
+    private InventoryDatabaseHelper helper;
+
+    @Before
+    public void openDatabase() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        context.deleteDatabase(IMPORT_DATABASE);
+        helper = new InventoryDatabaseHelper(context, TEST_DATABASE);
+        helper.invalidateItemCache();
+    }
+
+    @After
+    public void closeDatabase() {
+        helper.close();
+        context.deleteDatabase(TEST_DATABASE);
+        context.deleteDatabase(IMPORT_DATABASE);
+    }
+
+    @Test
+    public void run_passesItemsThroughStagesInOrder() throws IOException {
+        CountingSource source = new CountingSource(5000);
+        List<InventoryItem> received = new ArrayList<>();
+        List<Long> progress = new ArrayList<>();
+
+        long accepted = new ItemPipeline(source)
+                .map(item -> item.getQuantity() % 2 == 0 ? item : null)
+                .map(item -> {
+                    item.setName(item.getName().toUpperCase());
+                    return item;
+                })
+                .bufferSize(16)
+                .onProgress((rows, total) -> progress.add(rows))
+                .run(collect(received));
+
+        assertEquals(2500, accepted);
+        for (int i = 0; i < received.size(); i++) {
+            assertEquals("ITEM " + (2 * i), received.get(i).getName());
+        }
+        assertEquals(Long.valueOf(5000), progress.get(progress.size() - 1));
+        assertTrue(source.closed);
+    }
+
+    @Test
+    public void run_boundsItemsInFlightBehindSlowSink() throws IOException {
+        CountingSource source = new CountingSource(2000);
+        AtomicInteger maxInFlight = new AtomicInteger();
+        AtomicInteger accepted = new AtomicInteger();
+        int bufferSize = 8;
+
+        new ItemPipeline(source).map(item -> item).bufferSize(bufferSize).run(new ItemPipeline.Sink() {
+            @Override
+            public void accept(InventoryItem item) {
+                int count = accepted.incrementAndGet();
+                maxInFlight.set(Math.max(maxInFlight.get(), source.produced.get() - count));
+                if (count % 100 == 0) {
+                    sleep(5);
+                }
+            }
+
+            @Override
+            public void finish() {
+            }
+        });
+
+        // Two queues plus one item held by the source and one by the stage
+        assertTrue("In flight: " + maxInFlight.get(), maxInFlight.get() <= 2 * bufferSize + 2);
+        assertEquals(2000, accepted.get());
+    }
+
+    @Test
+    public void run_cancelStopsWithoutFinishing() throws IOException {
+        ItemPipeline pipeline = new ItemPipeline(new CountingSource(Integer.MAX_VALUE)).map(item -> item);
+        boolean[] finished = {false};
+
+        try {
+            pipeline.run(new ItemPipeline.Sink() {
+                @Override
+                public void accept(InventoryItem item) {
+                    if (item.getQuantity() == 1000) {
+                        pipeline.cancel();
+                    }
+                }
+
+                @Override
+                public void finish() {
+                    finished[0] = true;
+                }
+            });
+            fail("Pipeline ran to the end after cancel()");
+        } catch (CancellationException expected) {
+            // Cancelled by the sink
+        }
+        assertFalse(finished[0]);
+        assertTrue(pipeline.isCancelled());
+    }
+
+    @Test
+    public void run_rethrowsStageFailure() {
+        CountingSource source = new CountingSource(1000);
+        try {
+            new ItemPipeline(source).map(item -> {
+                if (item.getQuantity() == 500) {
+                    throw new IOException("Bad item");
+                }
+                return item;
+            }).run(collect(new ArrayList<>()));
+            fail("Stage failure was not reported");
+        } catch (IOException e) {
+            assertEquals("Bad item", e.getMessage());
+        }
+        assertTrue(source.closed);
+    }
+
+    @Test
+    public void databaseSource_exportsLiveItemsThatImportBack() throws IOException {
+        for (int i = 0; i < 450; i++) {
+            InventoryItem item = new InventoryItem("Item " + i, "Note, " + i, "Category " + (i % 3), i, 5, "B" + i);
+            item.setUnitPriceCents(i * 10);
+            helper.addInventoryItem(item);
+        }
+        helper.deleteInventoryItem(helper.getAllInventoryItems().get(0).getId());
+
+        ItemPipeline.DatabaseSource source = new ItemPipeline.DatabaseSource(helper);
+        assertEquals(449, source.size());
+        StringWriter out = new StringWriter();
+        assertEquals(449, new ItemPipeline(source).run(new ItemPipeline.CsvSink(out)));
+
+        InventoryDatabaseHelper imported = new InventoryDatabaseHelper(context, IMPORT_DATABASE);
+        try {
+            InventoryImporter.ImportResult result = new InventoryImporter(imported)
+                    .importCsv(new ByteArrayInputStream(out.toString().getBytes(StandardCharsets.UTF_8)));
+            assertEquals(449, result.getInserted());
+            assertEquals(0, result.getFailed());
+            assertEquals(describe(helper.getAllInventoryItems()), describe(imported.getAllInventoryItems()));
+        } finally {
+            imported.close();
+        }
+    }
+
+    private static ItemPipeline.Sink collect(List<InventoryItem> received) {
+        return new ItemPipeline.Sink() {
+            @Override
+            public void accept(InventoryItem item) {
+                received.add(item);
+            }
+
+            @Override
+            public void finish() {
+            }
+        };
+    }
+
+    private static List<String> describe(List<InventoryItem> items) {
+        List<String> described = new ArrayList<>();
+        for (InventoryItem item : items) {
+            described.add(item.getName() + "|" + item.getDescription() + "|" + item.getCategory() + "|" +
+                    item.getQuantity() + "|" + item.getBarcode() + "|" + item.getUnitPriceCents());
+        }
+        return described;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Source of numbered items that records how many it has handed out
+     */
+    private static class CountingSource implements ItemPipeline.Source {
+        final AtomicInteger produced = new AtomicInteger();
+        private final int count;
+        volatile boolean closed;
+
+        CountingSource(int count) {
+            this.count = count;
+        }
+
+        @Override
+        public InventoryItem next() {
+            int i = produced.get();
+            if (i == count) {
+                return null;
+            }
+            produced.incrementAndGet();
+            return new InventoryItem("Item " + i, "", "Misc", i, 1, "");
+        }
+
+        @Override
+        public long size() {
+            return count;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.util.Log;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Minimal in-process HTTP stand-in for the sync server
+ * Listens on the loopback interface and keeps every change stream in memory, so the
+ * sync engine can be exercised without any network. Debug builds allow cleartext
+ * traffic to the loopback address for it.
+ */
+public class LocalSyncServer {
+
+    private static final String TAG = "LocalSyncServer";
+
+    private final Map<String, List<JSONObject>> streams = new HashMap<>();
+    private final Set<String> seenChanges = new HashSet<>();
+    private ServerSocket serverSocket;
+    private Thread acceptThread;
+
+    /**
+     * Start listening on a free loopback port
+     * @throws IOException if the socket cannot be opened
+     */
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        acceptThread = new Thread(this::acceptLoop, TAG);
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+
+        Log.d(TAG, "Listening on " + getBaseUrl());
+    }
+
+    /**
+     * Stop listening; stored changes are discarded
+     */
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Error closing server socket: " + e.getMessage());
+        }
+    }
+
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try (Socket socket = serverSocket.accept()) {
+                handleConnection(socket);
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    Log.w(TAG, "Error handling request: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // ======================== HTTP HANDLING ========================
+
+    private void handleConnection(Socket socket) throws IOException {
+        InputStream in = new BufferedInputStream(socket.getInputStream());
+        OutputStream out = socket.getOutputStream();
+
+        String requestLine = readLine(in);
+        if (requestLine == null || requestLine.isEmpty()) {
+            return;
+        }
+
+        // Read headers; only the body length matters here
+        int contentLength = 0;
+        String header;
+        while ((header = readLine(in)) != null && !header.isEmpty()) {
+            int separator = header.indexOf(':');
+            if (separator > 0 && header.substring(0, separator).trim().equalsIgnoreCase("Content-Length")) {
+                contentLength = Integer.parseInt(header.substring(separator + 1).trim());
+            }
+        }
+
+        byte[] body = new byte[contentLength];
+        int offset = 0;
+        while (offset < contentLength) {
+            int read = in.read(body, offset, contentLength - offset);
+            if (read == -1) {
+                throw new IOException("Request body truncated");
+            }
+            offset += read;
+        }
+
+        String[] parts = requestLine.split(" ");
+        String method = parts[0];
+        String target = parts.length > 1 ? parts[1] : "/";
+        int queryStart = target.indexOf('?');
+        String path = queryStart >= 0 ? target.substring(0, queryStart) : target;
+        Map<String, String> query = parseQuery(queryStart >= 0 ? target.substring(queryStart + 1) : "");
+
+        try {
+            JSONObject response;
+            if ("POST".equals(method) && "/sync/push".equals(path)) {
+                response = handlePush(query.get("stream"), new JSONObject(SyncEngine.gunzip(body)));
+            } else if ("GET".equals(method) && "/sync/pull".equals(path)) {
+                response = handlePull(query.get("stream"), parseLong(query.get("since")),
+                        query.get("exclude"), (int) parseLong(query.get("limit")));
+            } else {
+                writeResponse(out, 404, "Not Found", null);
+                return;
+            }
+            writeResponse(out, 200, "OK", SyncEngine.gzip(response.toString()));
+        } catch (JSONException | NumberFormatException e) {
+            writeResponse(out, 400, "Bad Request", null);
+        }
+    }
+
+    private void writeResponse(OutputStream out, int code, String reason, byte[] gzippedBody) throws IOException {
+        StringBuilder head = new StringBuilder();
+        head.append("HTTP/1.1 ").append(code).append(' ').append(reason).append("\r\n");
+        head.append("Connection: close\r\n");
+        if (gzippedBody != null) {
+            head.append("Content-Type: application/json\r\n");
+            head.append("Content-Encoding: gzip\r\n");
+        }
+        head.append("Content-Length: ").append(gzippedBody != null ? gzippedBody.length : 0).append("\r\n\r\n");
+
+        out.write(head.toString().getBytes(StandardCharsets.US_ASCII));
+        if (gzippedBody != null) {
+            out.write(gzippedBody);
+        }
+        out.flush();
+    }
+
+    // ======================== SYNC ENDPOINTS ========================
+
+    /**
+     * Append pushed changes to a stream, ignoring any (device, change id) seen before
+     */
+    private synchronized JSONObject handlePush(String stream, JSONObject request) throws JSONException {
+        List<JSONObject> changes = getStream(stream);
+        String device = request.getString("device");
+        JSONArray pushed = request.getJSONArray("changes");
+
+        int accepted = 0;
+        for (int i = 0; i < pushed.length(); i++) {
+            JSONObject change = pushed.getJSONObject(i);
+            if (seenChanges.add(stream + "|" + device + "|" + change.getLong("id"))) {
+                changes.add(change);
+                accepted++;
+            }
+        }
+
+        JSONObject response = new JSONObject();
+        response.put("accepted", accepted);
+        return response;
+    }
+
+    /**
+     * Return changes after a sequence number, skipping the requesting device's own changes
+     * Sequence numbers are 1-based positions in the stream
+     */
+    private synchronized JSONObject handlePull(String stream, long since, String excludeDevice, int limit)
+            throws JSONException {
+        List<JSONObject> changes = getStream(stream);
+        JSONArray page = new JSONArray();
+
+        int position = (int) Math.min(since, changes.size());
+        while (position < changes.size() && page.length() < limit) {
+            JSONObject change = changes.get(position);
+            position++;
+            if (!change.getString("device").equals(excludeDevice)) {
+                page.put(change);
+            }
+        }
+
+        JSONObject response = new JSONObject();
+        response.put("changes", page);
+        response.put("last_seq", position);
+        response.put("has_more", position < changes.size());
+        return response;
+    }
+
+    private List<JSONObject> getStream(String stream) {
+        String key = stream != null ? stream : "";
+        List<JSONObject> changes = streams.get(key);
+        if (changes == null) {
+            changes = new ArrayList<>();
+            streams.put(key, changes);
+        }
+        return changes;
+    }
+
+    // ======================== PARSING HELPERS ========================
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            if (b == '\n') {
+                break;
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        if (b == -1 && line.size() == 0) {
+            return null;
+        }
+        return new String(line.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    private static Map<String, String> parseQuery(String query) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        for (String pair : query.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, separator), "UTF-8"),
+                        URLDecoder.decode(pair.substring(separator + 1), "UTF-8"));
+            }
+        }
+        return params;
+    }
+
+    private static long parseLong(String value) {
+        return value != null ? Long.parseLong(value) : 0;
+    }
+}
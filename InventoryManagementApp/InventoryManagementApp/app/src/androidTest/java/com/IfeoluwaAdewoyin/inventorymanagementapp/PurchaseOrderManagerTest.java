@@ -0,0 +1,137 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for generating and receiving purchase orders
+ */
+@RunWith(AndroidJUnit4.class)
+public class PurchaseOrderManagerTest {
+    private static final String TEST_DATABASE = "purchase_order_test.db";
+
+    private Context context;
+    private InventoryDatabaseHelper helper;
+    private PurchaseOrderManager orderManager;
+    private long gloves;
+    private long masks;
+    private long tape;
+
+    @Before
+    public void openDatabase() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        helper = new InventoryDatabaseHelper(context, TEST_DATABASE);
+        helper.invalidateItemCache();
+        orderManager = new PurchaseOrderManager(helper);
+
+        gloves = addItem("Gloves", "Acme", 2, 10, 100);
+        masks = addItem("Masks", "Acme", 10, 10, 250);
+        tape = addItem("Tape", "Packwell", 1, 5, 40);
+        addItem("Helmets", "Acme", 50, 10, 900);
+    }
+
+    @After
+    public void closeDatabase() {
+        helper.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void generateDraftOrders_ordersLowItemsPerSupplier() {
+        assertEquals(3, orderManager.generateDraftOrders());
+
+        Map<String, PurchaseOrder> orders = openOrdersBySupplier();
+        assertEquals(2, orders.size());
+        PurchaseOrder acme = orders.get("Acme");
+        assertEquals(PurchaseOrder.STATUS_DRAFT, acme.getStatus());
+        assertEquals(2, acme.getLineCount());
+        // Ordered up to twice the threshold
+        assertEquals(18 + 10, acme.getTotalUnits());
+        assertEquals(18 * 100 + 10 * 250, acme.getTotalCostCents());
+        assertEquals(9, orders.get("Packwell").getTotalUnits());
+
+        PurchaseOrder withLines = orderManager.getOrder(acme.getId());
+        List<PurchaseOrder.Line> lines = withLines.getLines();
+        assertEquals("Gloves", lines.get(0).getItemName());
+        assertEquals(gloves, lines.get(0).getItemId());
+        assertEquals(18, lines.get(0).getQuantity());
+        assertEquals(100, lines.get(0).getUnitCostCents());
+        assertEquals(masks, lines.get(1).getItemId());
+        assertEquals(acme.getTotalCostCents(), withLines.getTotalCostCents());
+    }
+
+    @Test
+    public void generateDraftOrders_replacesDraftsButKeepsOrderedItemsOut() {
+        orderManager.generateDraftOrders();
+        long packwellOrder = openOrdersBySupplier().get("Packwell").getId();
+        assertTrue(orderManager.markOrdered(packwellOrder));
+        assertFalse(orderManager.markOrdered(packwellOrder));
+        helper.updateInventoryQuantity(masks, 30);
+
+        assertEquals(1, orderManager.generateDraftOrders());
+
+        Map<String, PurchaseOrder> orders = openOrdersBySupplier();
+        assertEquals(2, orders.size());
+        assertEquals(1, orders.get("Acme").getLineCount());
+        assertEquals(PurchaseOrder.STATUS_ORDERED, orders.get("Packwell").getStatus());
+        // Tape is on its way, so it isn't drafted again
+        assertEquals(1, orders.get("Packwell").getLineCount());
+    }
+
+    @Test
+    public void receiveOrder_addsStockOnce() {
+        orderManager.generateDraftOrders();
+        long acmeOrder = openOrdersBySupplier().get("Acme").getId();
+        orderManager.markOrdered(acmeOrder);
+        helper.deleteInventoryItem(masks);
+
+        assertEquals(1, orderManager.receiveOrder(acmeOrder));
+        assertEquals(-1, orderManager.receiveOrder(acmeOrder));
+
+        helper.invalidateItemCache();
+        assertEquals(20, helper.getInventoryItem(gloves).getQuantity());
+        assertEquals(PurchaseOrder.STATUS_RECEIVED, orderManager.getOrder(acmeOrder).getStatus());
+        assertFalse(openOrdersBySupplier().containsKey("Acme"));
+        assertTrue(helper.checkCategoryTotals().isEmpty());
+        // Received goods make the item no longer low
+        assertEquals(1, orderManager.generateDraftOrders());
+        assertEquals(tape, orderManager.getOrder(openOrdersBySupplier().get("Packwell").getId())
+                .getLines().get(0).getItemId());
+    }
+
+    @Test
+    public void getOrder_isNullForUnknownOrder() {
+        assertNull(orderManager.getOrder(12345));
+        assertEquals(-1, orderManager.receiveOrder(12345));
+        assertFalse(orderManager.markOrdered(12345));
+    }
+
+    private long addItem(String name, String supplier, int quantity, int threshold, long unitCostCents) {
+        InventoryItem item = new InventoryItem(name, "", "Safety", quantity, threshold, "");
+        item.setSupplier(supplier);
+        item.setUnitCostCents(unitCostCents);
+        return helper.addInventoryItem(item);
+    }
+
+    private Map<String, PurchaseOrder> openOrdersBySupplier() {
+        Map<String, PurchaseOrder> orders = new HashMap<>();
+        for (PurchaseOrder order : orderManager.getOpenOrders()) {
+            assertNull(orders.put(order.getSupplier(), order));
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,203 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.app.Instrumentation;
+import android.content.Context;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for buffering quantity adjustments on the main thread
+ */
+@RunWith(AndroidJUnit4.class)
+public class QuantityWriteBufferTest {
+    private static final String TEST_DATABASE = "write_buffer_test.db";
+
+    private Instrumentation instrumentation;
+    private Context context;
+    private InventoryDatabaseHelper helper;
+    private QuantityWriteBuffer buffer;
+    private final List<Integer> flushedCounts = new ArrayList<>();
+
+    @Before
+    public void openDatabase() {
+        instrumentation = InstrumentationRegistry.getInstrumentation();
+        context = instrumentation.getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        helper = new InventoryDatabaseHelper(context, TEST_DATABASE);
+        helper.invalidateItemCache();
+        instrumentation.runOnMainSync(() -> {
+            buffer = new QuantityWriteBuffer(helper);
+            buffer.setOnFlushListener(new QuantityWriteBuffer.OnFlushListener() {
+                @Override
+                public void onFlushComplete(int itemsWritten) {
+                    flushedCounts.add(itemsWritten);
+                }
+
+                @Override
+                public void onFlushFailed(Exception e) {
+                    fail("Flush failed: " + e);
+                }
+            });
+        });
+    }
+
+    @After
+    public void closeDatabase() {
+        instrumentation.runOnMainSync(() -> buffer.flush());
+        helper.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void flush_writesMergedDeltaOncePerItem() {
+        long gloves = addItem("Gloves", 20);
+        long tape = addItem("Tape", 5);
+
+        instrumentation.runOnMainSync(() -> {
+            buffer.addDelta(gloves, 5);
+            buffer.addDelta(gloves, -2);
+            buffer.addDelta(tape, -3);
+            assertTrue(buffer.hasPendingChanges());
+            buffer.flush();
+            assertFalse(buffer.hasPendingChanges());
+        });
+
+        assertEquals(1, flushedCounts.size());
+        assertEquals(2, (int) flushedCounts.get(0));
+        assertEquals(23, quantityOf(gloves));
+        assertEquals(2, quantityOf(tape));
+    }
+
+    @Test
+    public void addDelta_deltasThatCancelOutLeaveNothingToWrite() {
+        long gloves = addItem("Gloves", 20);
+
+        instrumentation.runOnMainSync(() -> {
+            buffer.addDelta(gloves, 4);
+            buffer.addDelta(gloves, -4);
+            buffer.addDelta(gloves, 0);
+            assertFalse(buffer.hasPendingChanges());
+            buffer.flush();
+        });
+
+        assertTrue(flushedCounts.isEmpty());
+        assertEquals(20, quantityOf(gloves));
+    }
+
+    @Test
+    public void addDelta_flushesRightAwayOnceEnoughItemsArePending() {
+        List<Long> itemIds = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            itemIds.add(addItem("Item " + i, 10));
+        }
+
+        instrumentation.runOnMainSync(() -> {
+            for (long itemId : itemIds) {
+                buffer.addDelta(itemId, -1);
+            }
+            assertFalse(buffer.hasPendingChanges());
+        });
+
+        assertEquals(25, (int) flushedCounts.get(0));
+        for (long itemId : itemIds) {
+            assertEquals(9, quantityOf(itemId));
+        }
+    }
+
+    @Test
+    public void flush_failingMidBatchWritesNothingAndIsNotRetried() {
+        long gloves = addItem("Gloves", 20);
+        long tape = addItem("Tape", 5);
+        long lastChangeId = helper.getLastChangeId();
+        // Fail the second item of the batch, after the first was already written
+        helper.getWritableDatabase().execSQL("CREATE TRIGGER fail_tape BEFORE UPDATE OF " +
+                InventoryDatabaseHelper.COLUMN_ITEM_QUANTITY + " ON " + InventoryDatabaseHelper.TABLE_INVENTORY +
+                " WHEN NEW." + InventoryDatabaseHelper.COLUMN_ITEM_ID + " = " + tape +
+                " BEGIN SELECT RAISE(ABORT, 'test failure'); END");
+        List<Exception> failures = new ArrayList<>();
+        instrumentation.runOnMainSync(() -> buffer.setOnFlushListener(new QuantityWriteBuffer.OnFlushListener() {
+            @Override
+            public void onFlushComplete(int itemsWritten) {
+                flushedCounts.add(itemsWritten);
+            }
+
+            @Override
+            public void onFlushFailed(Exception e) {
+                failures.add(e);
+            }
+        }));
+
+        instrumentation.runOnMainSync(() -> {
+            buffer.addDelta(gloves, 5);
+            buffer.addDelta(tape, -3);
+            buffer.flush();
+        });
+
+        assertEquals(1, failures.size());
+        assertTrue(flushedCounts.isEmpty());
+        assertEquals(20, quantityOf(gloves));
+        assertEquals(5, quantityOf(tape));
+        assertEquals(lastChangeId, helper.getLastChangeId());
+
+        // The failed batch was handed over, so flushing again only writes newer changes
+        helper.getWritableDatabase().execSQL("DROP TRIGGER fail_tape");
+        instrumentation.runOnMainSync(() -> {
+            buffer.flush();
+            buffer.addDelta(gloves, 1);
+            buffer.flush();
+        });
+
+        assertEquals(1, failures.size());
+        assertEquals(1, flushedCounts.size());
+        assertEquals(21, quantityOf(gloves));
+        assertEquals(5, quantityOf(tape));
+    }
+
+    @Test
+    public void flush_reentrantOrScheduledFlushDoesNotApplyDeltaTwice() throws InterruptedException {
+        long gloves = addItem("Gloves", 20);
+        instrumentation.runOnMainSync(() -> buffer.setOnFlushListener(new QuantityWriteBuffer.OnFlushListener() {
+            @Override
+            public void onFlushComplete(int itemsWritten) {
+                flushedCounts.add(itemsWritten);
+                buffer.flush();
+            }
+
+            @Override
+            public void onFlushFailed(Exception e) {
+                fail("Flush failed: " + e);
+            }
+        }));
+
+        instrumentation.runOnMainSync(() -> {
+            buffer.addDelta(gloves, -4);
+            buffer.flush();
+        });
+        // Past the delay of the flush addDelta scheduled
+        Thread.sleep(1000);
+        instrumentation.waitForIdleSync();
+
+        assertEquals(1, flushedCounts.size());
+        assertEquals(16, quantityOf(gloves));
+    }
+
+    private long addItem(String name, int quantity) {
+        return helper.addInventoryItem(new InventoryItem(name, "", "Test", quantity, 1, ""));
+    }
+
+    private int quantityOf(long itemId) {
+        helper.invalidateItemCache();
+        return helper.getInventoryItem(itemId).getQuantity();
+    }
+}
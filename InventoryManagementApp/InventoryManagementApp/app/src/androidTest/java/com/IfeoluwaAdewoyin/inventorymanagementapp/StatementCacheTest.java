@@ -0,0 +1,116 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for reusing compiled statements
+ */
+@RunWith(AndroidJUnit4.class)
+public class StatementCacheTest {
+    private static final String TAG = "StatementCacheTest";
+    private static final String INSERT_SQL = "INSERT INTO counts (value) VALUES (?)";
+
+    private final StatementCache cache = new StatementCache();
+    private SQLiteDatabase db;
+
+    @Before
+    public void openDatabase() {
+        db = createDatabase();
+    }
+
+    @After
+    public void closeDatabase() {
+        cache.clear();
+        db.close();
+    }
+
+    @Test
+    public void get_returnsSameStatementForSameSql() {
+        SQLiteStatement first = cache.get(db, INSERT_SQL);
+
+        assertSame(first, cache.get(db, INSERT_SQL));
+        assertNotSame(first, cache.get(db, "DELETE FROM counts WHERE value = ?"));
+    }
+
+    @Test
+    public void get_reusedStatementBindsNewValuesEachTime() {
+        for (int i = 1; i <= 3; i++) {
+            SQLiteStatement statement = cache.get(db, INSERT_SQL);
+            statement.bindLong(1, i * 10);
+            statement.executeInsert();
+            statement.clearBindings();
+        }
+
+        SQLiteStatement sum = db.compileStatement("SELECT SUM(value) FROM counts");
+        assertEquals(60, sum.simpleQueryForLong());
+        sum.close();
+    }
+
+    @Test
+    public void get_recompilesForAnotherDatabase() {
+        SQLiteStatement first = cache.get(db, INSERT_SQL);
+        SQLiteDatabase other = createDatabase();
+        try {
+            SQLiteStatement second = cache.get(other, INSERT_SQL);
+            assertNotSame(first, second);
+            second.bindLong(1, 5);
+            assertEquals(1, second.executeInsert());
+        } finally {
+            cache.clear();
+            other.close();
+        }
+    }
+
+    @Test
+    public void get_reportsUpdatesPerSecond() {
+        db.execSQL("INSERT INTO counts (id, value) VALUES (1, 0)");
+        // Warm up both paths before timing them
+        runUpdates(200, true);
+        runUpdates(200, false);
+
+        // The rates go to logcat rather than an assertion; the connection keeps its own cache of
+        // prepared SQL, so how far apart they are depends on the device
+        double cachedPerSecond = runUpdates(5000, true);
+        double compiledPerSecond = runUpdates(5000, false);
+        Log.i(TAG, String.format("Quantity updates/sec: cached %.0f, compiled each time %.0f",
+                cachedPerSecond, compiledPerSecond));
+
+        SQLiteStatement value = db.compileStatement("SELECT value FROM counts WHERE id = 1");
+        assertEquals(4999, value.simpleQueryForLong());
+        value.close();
+    }
+
+    private double runUpdates(int count, boolean cached) {
+        String sql = "UPDATE counts SET value = ? WHERE id = ?";
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            SQLiteStatement statement = cached ? cache.get(db, sql) : db.compileStatement(sql);
+            statement.bindLong(1, i);
+            statement.bindLong(2, 1);
+            statement.executeUpdateDelete();
+            if (cached) {
+                statement.clearBindings();
+            } else {
+                statement.close();
+            }
+        }
+        return count * 1e9 / (System.nanoTime() - start);
+    }
+
+    private static SQLiteDatabase createDatabase() {
+        SQLiteDatabase database = SQLiteDatabase.create(null);
+        database.execSQL("CREATE TABLE counts (id INTEGER PRIMARY KEY, value INTEGER)");
+        return database;
+    }
+}
@@ -0,0 +1,137 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for rolling stock samples up into hourly and daily history
+ */
+@RunWith(AndroidJUnit4.class)
+public class StockHistoryRollupTest {
+    private static final String TEST_DATABASE = "stock_history_test.db";
+
+    private Context context;
+    private InventoryDatabaseHelper helper;
+    private long itemId;
+
+    @Before
+    public void openDatabase() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        helper = new InventoryDatabaseHelper(context, TEST_DATABASE);
+        helper.invalidateItemCache();
+        itemId = helper.addInventoryItem(new InventoryItem("Gloves", "", "Safety", 40, 10, ""));
+    }
+
+    @After
+    public void closeDatabase() {
+        helper.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void rollUpStockHistory_foldsSamplesAcrossBatchesAndRuns() {
+        helper.updateInventoryQuantity(itemId, 25);
+        helper.updateInventoryQuantity(itemId, 60);
+
+        // The item is inserted at zero and its opening stock counted in after, so it has two samples
+        assertEquals(4, helper.rollUpStockHistory(2));
+        assertEquals(0, helper.rollUpStockHistory(2));
+        helper.updateInventoryQuantity(itemId, 12);
+        helper.updateInventoryQuantity(itemId, 30);
+        assertEquals(2, helper.rollUpStockHistory(2));
+
+        long now = System.currentTimeMillis();
+        List<StockHistory.Point> hourly = helper.getStockHistory(itemId, now - StockHistory.HOUR_MILLIS,
+                now + StockHistory.HOUR_MILLIS);
+        StockHistory.Point point = hourly.get(hourly.size() - 1);
+        assertEquals(StockHistory.bucketStart(StockHistory.RESOLUTION_HOURLY, now), point.getBucketStart());
+        assertEquals(0, point.getMinQuantity());
+        assertEquals(60, point.getMaxQuantity());
+        assertEquals(30, point.getLastQuantity());
+    }
+
+    @Test
+    public void rollUpStockHistory_dropsDetailPastItsRetention() {
+        long now = System.currentTimeMillis();
+        long oldSample = now - 40 * StockHistory.DAY_MILLIS;
+        long recentSample = now - 3 * StockHistory.DAY_MILLIS;
+        insertSample(oldSample, 5);
+        insertSample(recentSample, 8);
+
+        assertEquals(4, helper.rollUpStockHistory(100));
+
+        // Only the samples of the item's creation are recent enough to keep raw
+        assertEquals(2, count(InventoryDatabaseHelper.TABLE_STOCK_SAMPLES));
+        assertEquals(1, helper.getStockHistory(itemId, recentSample - StockHistory.HOUR_MILLIS,
+                recentSample + StockHistory.HOUR_MILLIS).size());
+
+        List<StockHistory.Point> daily = helper.getStockHistory(itemId, oldSample - StockHistory.DAY_MILLIS, now);
+        assertEquals(3, daily.size());
+        assertEquals(StockHistory.bucketStart(StockHistory.RESOLUTION_DAILY, oldSample), daily.get(0).getBucketStart());
+        assertEquals(5, daily.get(0).getLastQuantity());
+        assertEquals(8, daily.get(1).getLastQuantity());
+        assertEquals(40, daily.get(2).getLastQuantity());
+        // Three daily buckets, and hourly ones for all but the sample past the 31 days hourly detail is kept
+        assertEquals(5, count(InventoryDatabaseHelper.TABLE_STOCK_ROLLUPS));
+    }
+
+    @Test
+    public void getStockHistory_includesSamplesNotRolledUpYet() {
+        helper.rollUpStockHistory(100);
+        helper.updateInventoryQuantity(itemId, 12);
+        helper.updateInventoryQuantity(itemId, 30);
+        long otherItemId = helper.addInventoryItem(new InventoryItem("Masks", "", "Safety", 90, 10, ""));
+
+        long now = System.currentTimeMillis();
+        List<StockHistory.Point> hourly = helper.getStockHistory(itemId, now - StockHistory.HOUR_MILLIS,
+                now + StockHistory.HOUR_MILLIS);
+        StockHistory.Point point = hourly.get(hourly.size() - 1);
+        assertEquals(StockHistory.bucketStart(StockHistory.RESOLUTION_HOURLY, now), point.getBucketStart());
+        assertEquals(0, point.getMinQuantity());
+        assertEquals(40, point.getMaxQuantity());
+        assertEquals(30, point.getLastQuantity());
+        assertEquals(90, helper.getStockHistory(otherItemId, now - StockHistory.HOUR_MILLIS,
+                now + StockHistory.HOUR_MILLIS).get(0).getMaxQuantity());
+
+        // Reading doesn't move the roll-up position
+        assertEquals(4, helper.rollUpStockHistory(100));
+    }
+
+    @Test
+    public void getStockHistory_isEmptyForOtherItems() {
+        helper.rollUpStockHistory(100);
+        long now = System.currentTimeMillis();
+
+        assertTrue(helper.getStockHistory(itemId + 1, now - StockHistory.DAY_MILLIS, now + 1).isEmpty());
+    }
+
+    private void insertSample(long sampledAt, int quantity) {
+        helper.getWritableDatabase().execSQL("INSERT INTO " + InventoryDatabaseHelper.TABLE_STOCK_SAMPLES + " (" +
+                        InventoryDatabaseHelper.COLUMN_ITEM_ID + ", " + InventoryDatabaseHelper.COLUMN_SAMPLED_AT + ", " +
+                        InventoryDatabaseHelper.COLUMN_ITEM_QUANTITY + ") VALUES (?, ?, ?)",
+                new Object[]{itemId, sampledAt, quantity});
+    }
+
+    private long count(String table) {
+        Cursor cursor = helper.getReadableDatabase().rawQuery("SELECT COUNT(*) FROM " + table, null);
+        try {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getLong(0);
+        } finally {
+            cursor.close();
+        }
+    }
+}
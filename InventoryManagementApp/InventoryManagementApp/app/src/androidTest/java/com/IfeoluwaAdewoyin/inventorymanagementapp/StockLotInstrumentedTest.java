@@ -0,0 +1,210 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for stock lots, expiry alerts and first-expiry-first use
+ */
+@RunWith(AndroidJUnit4.class)
+public class StockLotInstrumentedTest {
+    private static final String TEST_DATABASE = "stock_lot_test.db";
+    private static final long DAY = StockHistory.DAY_MILLIS;
+
+    private Context context;
+    private InventoryDatabaseHelper helper;
+    private long now;
+    private long milkId;
+
+    @Before
+    public void openDatabase() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        helper = new InventoryDatabaseHelper(context, TEST_DATABASE);
+        helper.invalidateItemCache();
+        now = System.currentTimeMillis();
+        milkId = helper.addInventoryItem(new InventoryItem("Milk", "", "Dairy", 30, 5, ""));
+    }
+
+    @After
+    public void closeDatabase() {
+        helper.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void addStockLot_isCappedAtUnitsOutsideLots() {
+        long first = helper.addStockLot(milkId, "L1", now + 10 * DAY, 20);
+        long second = helper.addStockLot(milkId, "", now + 5 * DAY, 20);
+
+        assertNotEquals(-1, first);
+        assertNotEquals(-1, second);
+        assertEquals(-1, helper.addStockLot(milkId, "L3", now + DAY, 1));
+
+        List<StockLot> lots = helper.getItemLots(milkId);
+        assertEquals(2, lots.size());
+        // Soonest expiry first; the second lot only got the 10 units left
+        assertEquals(second, lots.get(0).getLotId());
+        assertEquals(10, lots.get(0).getQuantity());
+        assertEquals("", lots.get(0).getLotNumber());
+        assertEquals("L1", lots.get(1).getLotNumber());
+        assertEquals(20, lots.get(1).getQuantity());
+    }
+
+    @Test
+    public void addStockLot_skipsDeletedItems() {
+        helper.deleteInventoryItem(milkId);
+
+        assertEquals(-1, helper.addStockLot(milkId, "L1", now + DAY, 5));
+    }
+
+    @Test
+    public void quantityDecrease_takesFromLotsFirstExpiryFirst() {
+        long late = helper.addStockLot(milkId, "Late", now + 10 * DAY, 10);
+        helper.addStockLot(milkId, "Soon", now + 5 * DAY, 10);
+        long undated = helper.addStockLot(milkId, "Undated", 0, 5);
+
+        helper.updateInventoryQuantity(milkId, 18);
+
+        List<StockLot> lots = helper.getItemLots(milkId);
+        assertEquals(2, lots.size());
+        assertEquals(late, lots.get(0).getLotId());
+        assertEquals(8, lots.get(0).getQuantity());
+        // Lots without expiry are used last
+        assertEquals(undated, lots.get(1).getLotId());
+        assertEquals(0, lots.get(1).getExpiresAt());
+        assertEquals(5, lots.get(1).getQuantity());
+
+        // Adding stock leaves the lots alone
+        helper.updateInventoryQuantity(milkId, 40);
+        assertEquals(8, helper.getItemLots(milkId).get(0).getQuantity());
+        // Units outside any lot are only used once the lots are empty
+        helper.updateInventoryQuantity(milkId, 30);
+        lots = helper.getItemLots(milkId);
+        assertEquals(1, lots.size());
+        assertEquals(3, lots.get(0).getQuantity());
+        helper.updateInventoryQuantity(milkId, 20);
+        assertTrue(helper.getItemLots(milkId).isEmpty());
+    }
+
+    @Test
+    public void syncedSales_takeFromLotsFirstExpiryFirst() {
+        long late = helper.addStockLot(milkId, "Late", now + 10 * DAY, 10);
+        helper.addStockLot(milkId, "Soon", now + 5 * DAY, 10);
+        QuantityCounter remote = new QuantityCounter();
+        remote.add("other-device", -12);
+
+        SQLiteDatabase db = helper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            helper.mergeQuantityCounter(db, queryUuid(milkId), remote);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        helper.invalidateItemCache();
+        assertEquals(18, helper.getInventoryItem(milkId).getQuantity());
+        List<StockLot> lots = helper.getItemLots(milkId);
+        assertEquals(1, lots.size());
+        assertEquals(late, lots.get(0).getLotId());
+        assertEquals(8, lots.get(0).getQuantity());
+    }
+
+    @Test
+    public void discardLot_takesItsUnitsOutOfStock() {
+        long expired = helper.addStockLot(milkId, "Old", now - DAY, 12);
+        long fresh = helper.addStockLot(milkId, "New", now + 3 * DAY, 10);
+
+        assertEquals(12, helper.discardLot(expired));
+        assertEquals(0, helper.discardLot(expired));
+
+        assertEquals(18, helper.getInventoryItem(milkId).getQuantity());
+        List<StockLot> lots = helper.getItemLots(milkId);
+        assertEquals(1, lots.size());
+        assertEquals(fresh, lots.get(0).getLotId());
+        assertEquals(10, lots.get(0).getQuantity());
+        assertTrue(helper.checkCategoryTotals().isEmpty());
+    }
+
+    @Test
+    public void getExpiringLots_returnsLotsBeforeCutoffSoonestFirst() {
+        long cheeseId = helper.addInventoryItem(new InventoryItem("Cheese", "", "Dairy", 10, 2, ""));
+        long yogurtId = helper.addInventoryItem(new InventoryItem("Yogurt", "", "Dairy", 10, 2, ""));
+        long expired = helper.addStockLot(milkId, "M1", now - DAY, 5);
+        long soon = helper.addStockLot(cheeseId, "C1", now + 2 * DAY, 5);
+        helper.addStockLot(milkId, "M2", now + 30 * DAY, 5);
+        helper.addStockLot(milkId, "M3", 0, 5);
+        helper.addStockLot(yogurtId, "Y1", now + DAY, 5);
+        helper.deleteInventoryItem(yogurtId);
+
+        List<StockLot> lots = helper.getExpiringLots(now + 7 * DAY, 10);
+
+        assertEquals(2, lots.size());
+        assertEquals(expired, lots.get(0).getLotId());
+        assertEquals("Milk", lots.get(0).getItemName());
+        assertTrue(lots.get(0).isExpired(now));
+        assertEquals(soon, lots.get(1).getLotId());
+        assertEquals(cheeseId, lots.get(1).getItemId());
+        assertFalse(lots.get(1).isExpired(now));
+        assertEquals(Collections.singletonList(expired), lotIds(helper.getExpiringLots(now + 7 * DAY, 1)));
+    }
+
+    @Test
+    public void getExpiringLots_scansExpiryIndex() {
+        StringBuilder plan = new StringBuilder();
+        Cursor cursor = helper.getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN " +
+                InventoryDatabaseHelper.SQL_SELECT_EXPIRING_LOTS, new String[]{String.valueOf(now), "10"});
+        while (cursor.moveToNext()) {
+            plan.append(cursor.getString(cursor.getColumnCount() - 1)).append('\n');
+        }
+        cursor.close();
+
+        assertTrue(plan.toString(), plan.toString().contains("idx_stock_lots_expiry"));
+        assertFalse(plan.toString(), plan.toString().contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void purgedItems_loseTheirLots() {
+        helper.addStockLot(milkId, "M1", now + DAY, 5);
+        helper.deleteInventoryItem(milkId);
+        helper.purgeDeletedItems(Long.MAX_VALUE, 10);
+
+        assertTrue(helper.getItemLots(milkId).isEmpty());
+    }
+
+    private String queryUuid(long itemId) {
+        Cursor cursor = helper.getReadableDatabase().rawQuery("SELECT " + InventoryDatabaseHelper.COLUMN_ITEM_UUID +
+                " FROM " + InventoryDatabaseHelper.TABLE_INVENTORY + " WHERE " + InventoryDatabaseHelper.COLUMN_ITEM_ID +
+                " = ?", new String[]{String.valueOf(itemId)});
+        try {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getString(0);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private static List<Long> lotIds(List<StockLot> lots) {
+        List<Long> ids = new ArrayList<>();
+        for (StockLot lot : lots) {
+            ids.add(lot.getLotId());
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,224 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for suppliers, their offers and the cheapest-supplier queries
+ */
+@RunWith(AndroidJUnit4.class)
+public class SupplierManagerTest {
+    private static final String TEST_DATABASE = "supplier_manager_test.db";
+
+    private Context context;
+    private InventoryDatabaseHelper helper;
+    private SupplierManager supplierManager;
+    private long acme;
+    private long packwell;
+
+    @Before
+    public void openDatabase() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        helper = new InventoryDatabaseHelper(context, TEST_DATABASE);
+        helper.invalidateItemCache();
+        supplierManager = new SupplierManager(helper);
+        acme = supplierManager.getOrAddSupplier("Acme");
+        packwell = supplierManager.getOrAddSupplier("Packwell");
+    }
+
+    @After
+    public void closeDatabase() {
+        helper.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void getOrAddSupplier_matchesNamesIgnoringCase() {
+        assertEquals(acme, supplierManager.getOrAddSupplier(" ACME "));
+        assertNotEquals(acme, packwell);
+
+        List<Supplier> suppliers = supplierManager.getSuppliers();
+        assertEquals(2, suppliers.size());
+        assertEquals("Acme", suppliers.get(0).getName());
+        assertEquals("", suppliers.get(0).getContact());
+        assertEquals((int) DemandForecaster.LEAD_TIME_DAYS, suppliers.get(0).getLeadTimeDays());
+    }
+
+    @Test
+    public void setOffer_newOffersTakeSupplierLeadTime() {
+        long gloves = addItem("Gloves", 2, 10);
+        supplierManager.setOffer(gloves, acme, 300);
+        assertTrue(supplierManager.updateSupplier(acme, "orders@acme.test", 2));
+        assertFalse(supplierManager.updateSupplier(9999, "", 1));
+        long masks = addItem("Masks", 2, 10);
+        supplierManager.setOffer(masks, acme, 150);
+        // Replacing the price keeps the offer's own lead time
+        supplierManager.setOffer(gloves, acme, -5);
+
+        List<Supplier.Offer> glovesOffers = supplierManager.getItemOffers(gloves);
+        assertEquals(1, glovesOffers.size());
+        assertEquals(0, glovesOffers.get(0).getUnitCostCents());
+        assertEquals((int) DemandForecaster.LEAD_TIME_DAYS, glovesOffers.get(0).getLeadTimeDays());
+        assertEquals(2, supplierManager.getItemOffers(masks).get(0).getLeadTimeDays());
+        assertEquals("orders@acme.test", supplierManager.getSuppliers().get(0).getContact());
+    }
+
+    @Test
+    public void getItemOffers_listsCheapestThenFastest() {
+        long gloves = addItem("Gloves", 2, 10);
+        long budget = supplierManager.getOrAddSupplier("Budget");
+        supplierManager.updateSupplier(packwell, "", 1);
+        supplierManager.setOffer(gloves, acme, 300);
+        supplierManager.setOffer(gloves, budget, 250);
+        supplierManager.setOffer(gloves, packwell, 250);
+
+        List<Supplier.Offer> offers = supplierManager.getItemOffers(gloves);
+
+        assertEquals(3, offers.size());
+        assertEquals("Packwell", offers.get(0).getSupplierName());
+        assertEquals(budget, offers.get(1).getSupplierId());
+        assertEquals(acme, offers.get(2).getSupplierId());
+        assertEquals(gloves, offers.get(0).getItemId());
+    }
+
+    @Test
+    public void getCheapestOffersForLowStock_returnsOneOfferPerLowItem() {
+        long tape = addItem("Tape", 4, 10);
+        long gloves = addItem("Gloves", 1, 10);
+        long helmets = addItem("Helmets", 50, 10);
+        long labels = addItem("Labels", 3, 10);
+        long deleted = addItem("Old stock", 0, 10);
+        supplierManager.setOffer(gloves, acme, 300);
+        supplierManager.setOffer(gloves, packwell, 200);
+        supplierManager.setOffer(helmets, acme, 900);
+        supplierManager.setOffer(tape, acme, 50);
+        supplierManager.setOffer(deleted, acme, 1);
+        helper.deleteInventoryItem(deleted);
+
+        List<Supplier.Offer> offers = supplierManager.getCheapestOffersForLowStock();
+
+        assertEquals(3, offers.size());
+        // Critical first, then by quantity
+        assertEquals("Gloves", offers.get(0).getItemName());
+        assertEquals(packwell, offers.get(0).getSupplierId());
+        assertEquals(200, offers.get(0).getUnitCostCents());
+        assertEquals(labels, offers.get(1).getItemId());
+        assertEquals("", offers.get(1).getSupplierName());
+        assertEquals(tape, offers.get(2).getItemId());
+        assertEquals(4, offers.get(2).getItemQuantity());
+        assertEquals("Acme", offers.get(2).getSupplierName());
+    }
+
+    @Test
+    public void cheapestOffer_seeksCostIndex() {
+        String plan = explain("SELECT " + SupplierManager.cheapestOffer("c." + InventoryDatabaseHelper.COLUMN_SUPPLIER_ID,
+                "1"));
+
+        assertTrue(plan, plan.contains("idx_item_suppliers_cost"));
+        assertFalse(plan, plan.contains("TEMP B-TREE"));
+    }
+
+    @Test
+    public void deleteSupplier_removesItsOffers() {
+        long gloves = addItem("Gloves", 2, 10);
+        supplierManager.setOffer(gloves, acme, 300);
+        supplierManager.setOffer(gloves, packwell, 400);
+
+        assertTrue(supplierManager.deleteSupplier(acme));
+        assertFalse(supplierManager.deleteSupplier(acme));
+
+        List<Supplier.Offer> offers = supplierManager.getItemOffers(gloves);
+        assertEquals(1, offers.size());
+        assertEquals(packwell, offers.get(0).getSupplierId());
+    }
+
+    @Test
+    public void recordItemSupplier_keepsLastPricePerSupplier() {
+        InventoryItem item = new InventoryItem("Gloves", "", "Safety", 2, 10, "");
+        item.setSupplier("Budget");
+        item.setUnitCostCents(250);
+        supplierManager.recordItemSupplier(item);
+        assertEquals(2, supplierManager.getSuppliers().size());
+
+        item.setId(helper.addInventoryItem(item));
+        supplierManager.recordItemSupplier(item);
+        item.setUnitCostCents(275);
+        supplierManager.recordItemSupplier(item);
+        item.setSupplier("");
+        supplierManager.recordItemSupplier(item);
+
+        List<Supplier.Offer> offers = supplierManager.getItemOffers(item.getId());
+        assertEquals(1, offers.size());
+        assertEquals("Budget", offers.get(0).getSupplierName());
+        assertEquals(275, offers.get(0).getUnitCostCents());
+    }
+
+    @Test
+    public void purgedItems_loseTheirOffers() {
+        long gloves = addItem("Gloves", 2, 10);
+        supplierManager.setOffer(gloves, acme, 300);
+        helper.deleteInventoryItem(gloves);
+        helper.purgeDeletedItems(Long.MAX_VALUE, 10);
+
+        assertTrue(supplierManager.getItemOffers(gloves).isEmpty());
+    }
+
+    @Test
+    public void generateDraftOrders_ordersFromCheapestSupplier() {
+        InventoryItem gloves = new InventoryItem("Gloves", "", "Safety", 2, 10, "");
+        gloves.setSupplier("Acme");
+        gloves.setUnitCostCents(300);
+        long glovesId = helper.addInventoryItem(gloves);
+        supplierManager.setOffer(glovesId, acme, 300);
+        supplierManager.setOffer(glovesId, packwell, 220);
+        InventoryItem tape = new InventoryItem("Tape", "", "Packing", 1, 5, "");
+        tape.setSupplier("Corner Shop");
+        tape.setUnitCostCents(80);
+        helper.addInventoryItem(tape);
+
+        PurchaseOrderManager orderManager = new PurchaseOrderManager(helper);
+        assertEquals(2, orderManager.generateDraftOrders());
+
+        for (PurchaseOrder order : orderManager.getOpenOrders()) {
+            PurchaseOrder.Line line = orderManager.getOrder(order.getId()).getLines().get(0);
+            if (line.getItemId() == glovesId) {
+                assertEquals("Packwell", order.getSupplier());
+                assertEquals(220, line.getUnitCostCents());
+            } else {
+                // No offers, so the item's own supplier and cost are used
+                assertEquals("Corner Shop", order.getSupplier());
+                assertEquals(80, line.getUnitCostCents());
+            }
+        }
+    }
+
+    private long addItem(String name, int quantity, int threshold) {
+        return helper.addInventoryItem(new InventoryItem(name, "", "Safety", quantity, threshold, ""));
+    }
+
+    private String explain(String sql) {
+        StringBuilder plan = new StringBuilder();
+        Cursor cursor = helper.getReadableDatabase().rawQuery("EXPLAIN QUERY PLAN " + sql, null);
+        try {
+            while (cursor.moveToNext()) {
+                plan.append(cursor.getString(cursor.getColumnCount() - 1)).append('\n');
+            }
+        } finally {
+            cursor.close();
+        }
+        return plan.toString();
+    }
+}
@@ -0,0 +1,198 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for syncing two databases through the in-process sync server
+ */
+@RunWith(AndroidJUnit4.class)
+public class SyncEngineTest {
+    private static final String DATABASE_A = "sync_engine_test_a.db";
+    private static final String DATABASE_B = "sync_engine_test_b.db";
+    private static final String STREAM = "sync-engine-test";
+
+    private Context context;
+    private LocalSyncServer server;
+    private InventoryDatabaseHelper helperA;
+    private InventoryDatabaseHelper helperB;
+    private SyncEngine engineA;
+    private SyncEngine engineB;
+
+    @Before
+    public void startServer() throws IOException {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(DATABASE_A);
+        context.deleteDatabase(DATABASE_B);
+
+        server = new LocalSyncServer();
+        server.start();
+        helperA = new InventoryDatabaseHelper(context, DATABASE_A);
+        helperB = new InventoryDatabaseHelper(context, DATABASE_B);
+        engineA = new SyncEngine(helperA, server.getBaseUrl(), STREAM);
+        engineB = new SyncEngine(helperB, server.getBaseUrl(), STREAM);
+    }
+
+    @After
+    public void stopServer() {
+        server.stop();
+        helperA.close();
+        helperB.close();
+        context.deleteDatabase(DATABASE_A);
+        context.deleteDatabase(DATABASE_B);
+    }
+
+    @Test
+    public void sync_copiesNewItemWithSameUuid() throws IOException {
+        InventoryItem item = new InventoryItem("Drill bits", "HSS set", "Tools", 12, 3, "4006381333931");
+        item.setSupplier("Acme Supply");
+        long itemId = helperA.addInventoryItem(item);
+
+        SyncEngine.SyncResult pushed = engineA.sync();
+        SyncEngine.SyncResult pulled = engineB.sync();
+
+        assertTrue(pushed.changesPushed > 0);
+        assertEquals(pushed.changesPushed, pulled.changesPulled);
+
+        InventoryItem copy = findByName(helperB, "Drill bits");
+        assertNotNull(copy);
+        assertEquals("HSS set", copy.getDescription());
+        assertEquals("Tools", copy.getCategory());
+        assertEquals(12, copy.getQuantity());
+        assertEquals(3, copy.getLowStockThreshold());
+        assertEquals("4006381333931", copy.getBarcode());
+        assertEquals("Acme Supply", copy.getSupplier());
+        assertEquals(getUuid(helperA, itemId), getUuid(helperB, copy.getId()));
+    }
+
+    @Test
+    public void sync_keepsLaterNameOnBothDevices() throws IOException, InterruptedException {
+        long itemIdA = helperA.addInventoryItem(new InventoryItem("Gloves", "", "Safety", 5, 1, ""));
+        engineA.sync();
+        engineB.sync();
+        long itemIdB = findByName(helperB, "Gloves").getId();
+
+        rename(helperA, itemIdA, "Gloves (A)");
+        Thread.sleep(10);
+        rename(helperB, itemIdB, "Gloves (B)");
+
+        engineA.sync();
+        engineB.sync();
+        engineA.sync();
+
+        assertEquals("Gloves (B)", helperA.getInventoryItem(itemIdA).getName());
+        assertEquals("Gloves (B)", helperB.getInventoryItem(itemIdB).getName());
+    }
+
+    @Test
+    public void sync_addsUpConcurrentQuantityChanges() throws IOException {
+        long itemIdA = helperA.addInventoryItem(new InventoryItem("Batteries", "", "Power", 10, 2, ""));
+        engineA.sync();
+        engineB.sync();
+        long itemIdB = findByName(helperB, "Batteries").getId();
+
+        // Both devices sell from the same stock of 10 before seeing each other's change
+        assertEquals(1, helperA.updateInventoryQuantity(itemIdA, 7));
+        assertEquals(1, helperB.updateInventoryQuantity(itemIdB, 8));
+
+        engineA.sync();
+        engineB.sync();
+        engineA.sync();
+
+        assertEquals(5, helperA.getInventoryItem(itemIdA).getQuantity());
+        assertEquals(5, helperB.getInventoryItem(itemIdB).getQuantity());
+    }
+
+    @Test
+    public void sync_removesPurgedItemFromOtherDevice() throws IOException {
+        long itemId = helperA.addInventoryItem(new InventoryItem("Old stock", "", "Misc", 1, 1, ""));
+        engineA.sync();
+        engineB.sync();
+        assertNotNull(findByName(helperB, "Old stock"));
+
+        assertEquals(1, helperA.deleteInventoryItem(itemId));
+        assertEquals(1, helperA.purgeDeletedItems(Long.MAX_VALUE, 10).size());
+        engineA.sync();
+        engineB.sync();
+
+        assertNull(findByName(helperB, "Old stock"));
+    }
+
+    @Test
+    public void sync_repeatedWithoutChangesTransfersNothing() throws IOException {
+        helperA.addInventoryItem(new InventoryItem("Labels", "", "Packing", 100, 10, ""));
+        engineA.sync();
+        engineB.sync();
+
+        SyncEngine.SyncResult againA = engineA.sync();
+        SyncEngine.SyncResult againB = engineB.sync();
+
+        assertEquals(0, againA.getTotalChanges());
+        assertEquals(0, againB.getTotalChanges());
+    }
+
+    @Test
+    public void sync_withNewServerSendsEveryChangeAgain() throws IOException {
+        helperA.addInventoryItem(new InventoryItem("Labels", "", "Packing", 100, 10, ""));
+        SyncEngine.SyncResult first = engineA.sync();
+
+        LocalSyncServer otherServer = new LocalSyncServer();
+        otherServer.start();
+        try {
+            SyncEngine.SyncResult moved = new SyncEngine(helperA, otherServer.getBaseUrl(), STREAM).sync();
+            SyncEngine.SyncResult pulled = new SyncEngine(helperB, otherServer.getBaseUrl(), STREAM).sync();
+
+            assertEquals(first.changesPushed, moved.changesPushed);
+            assertEquals(first.changesPushed, pulled.changesPulled);
+            assertEquals(100, findByName(helperB, "Labels").getQuantity());
+        } finally {
+            otherServer.stop();
+        }
+
+        // The first server's cursors are unchanged
+        assertEquals(0, engineA.sync().getTotalChanges());
+    }
+
+    private static void rename(InventoryDatabaseHelper helper, long itemId, String name) {
+        InventoryItem item = helper.getInventoryItem(itemId);
+        item.setName(name);
+        assertEquals(1, helper.updateInventoryItem(item));
+    }
+
+    private static InventoryItem findByName(InventoryDatabaseHelper helper, String name) {
+        List<InventoryItem> items = helper.getAllInventoryItems();
+        for (InventoryItem item : items) {
+            if (name.equals(item.getName())) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    private static String getUuid(InventoryDatabaseHelper helper, long itemId) {
+        Cursor cursor = helper.getReadableDatabase().rawQuery(
+                "SELECT " + InventoryDatabaseHelper.COLUMN_ITEM_UUID + " FROM " +
+                        InventoryDatabaseHelper.TABLE_INVENTORY + " WHERE " +
+                        InventoryDatabaseHelper.COLUMN_ITEM_ID + " = ?",
+                new String[]{String.valueOf(itemId)});
+        try {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getString(0);
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for category and global stock threshold policies
+ */
+@RunWith(AndroidJUnit4.class)
+public class ThresholdPolicyTest {
+    private static final String TEST_DATABASE = "threshold_policy_test.db";
+
+    private Context context;
+    private InventoryDatabaseHelper helper;
+    private long toolId;
+    private long otherToolId;
+    private long paintId;
+
+    @Before
+    public void openDatabase() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DATABASE);
+        helper = new InventoryDatabaseHelper(context, TEST_DATABASE);
+        helper.invalidateItemCache();
+
+        toolId = helper.addInventoryItem(new InventoryItem("Hammer", "", "Tools", 10, 5, ""));
+        otherToolId = helper.addInventoryItem(new InventoryItem("Saw", "", "Tools", 10, 8, ""));
+        paintId = helper.addInventoryItem(new InventoryItem("Primer", "", "Paint", 10, 5, ""));
+    }
+
+    @After
+    public void closeDatabase() {
+        helper.close();
+        context.deleteDatabase(TEST_DATABASE);
+    }
+
+    @Test
+    public void applyThresholdPolicy_changesOnlyItemsOfCategory() {
+        long loggedBefore = countThresholdChanges();
+
+        assertEquals(2, helper.applyThresholdPolicy("Tools", 8, 3));
+
+        assertThresholds(toolId, 8, 3);
+        assertThresholds(otherToolId, 8, 3);
+        assertThresholds(paintId, 5, 0);
+        // Only the Hammer's low threshold changed, so only it is logged for sync
+        assertEquals(loggedBefore + 1, countThresholdChanges());
+
+        assertEquals(0, helper.applyThresholdPolicy("Tools", 8, 3));
+        assertEquals(loggedBefore + 1, countThresholdChanges());
+    }
+
+    @Test
+    public void applyThresholdPolicy_globalSkipsCategoriesWithOwnPolicy() {
+        helper.applyThresholdPolicy("Tools", 8, 3);
+
+        assertEquals(1, helper.applyThresholdPolicy(InventoryDatabaseHelper.GLOBAL_POLICY, 20, 10));
+
+        assertThresholds(toolId, 8, 3);
+        assertThresholds(paintId, 20, 10);
+    }
+
+    @Test
+    public void applyThresholdPolicy_capsCriticalAtLowThreshold() {
+        helper.applyThresholdPolicy("Paint", 4, 9);
+        assertThresholds(paintId, 4, 4);
+
+        helper.applyThresholdPolicy("Paint", -1, -1);
+        assertThresholds(paintId, 0, 0);
+        assertArrayEquals(new int[]{0, 0}, helper.getThresholdPolicy("Paint"));
+    }
+
+    @Test
+    public void getThresholdPolicy_fallsBackToGlobalPolicy() {
+        assertNull(helper.getThresholdPolicy("Tools"));
+
+        helper.applyThresholdPolicy(InventoryDatabaseHelper.GLOBAL_POLICY, 6, 2);
+        helper.applyThresholdPolicy("Tools", 8, 3);
+
+        assertArrayEquals(new int[]{8, 3}, helper.getThresholdPolicy("Tools"));
+        assertArrayEquals(new int[]{6, 2}, helper.getThresholdPolicy("Paint"));
+        assertArrayEquals(new int[]{6, 2}, helper.getThresholdPolicy(null));
+    }
+
+    @Test
+    public void addInventoryItem_takesCriticalThresholdFromPolicy() {
+        helper.applyThresholdPolicy("Tools", 8, 3);
+        InventoryItem item = new InventoryItem("Chisel", "", "Tools", 10, 8, "");
+        item.setCriticalThreshold(1);
+
+        long itemId = helper.addInventoryItem(item);
+
+        assertThresholds(itemId, 8, 3);
+    }
+
+    private void assertThresholds(long itemId, int low, int critical) {
+        helper.invalidateItemCache();
+        InventoryItem item = helper.getInventoryItem(itemId);
+        assertEquals(item.getName(), low, item.getLowStockThreshold());
+        assertEquals(item.getName(), critical, item.getCriticalThreshold());
+    }
+
+    private long countThresholdChanges() {
+        Cursor cursor = helper.getReadableDatabase().rawQuery("SELECT COUNT(*) FROM " +
+                InventoryDatabaseHelper.TABLE_CHANGE_LOG + " WHERE " + InventoryDatabaseHelper.COLUMN_CHANGE_FIELD +
+                " = ?", new String[]{InventoryDatabaseHelper.COLUMN_LOW_STOCK_THRESHOLD});
+        try {
+            assertTrue(cursor.moveToFirst());
+            return cursor.getLong(0);
+        } finally {
+            cursor.close();
+        }
+    }
+}
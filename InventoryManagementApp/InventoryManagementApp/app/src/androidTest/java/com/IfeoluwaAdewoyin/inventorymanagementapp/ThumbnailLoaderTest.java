@@ -0,0 +1,122 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Debug;
+import android.widget.ImageView;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Instrumented tests for the thumbnail memory cache used when binding list rows
+ */
+@RunWith(AndroidJUnit4.class)
+public class ThumbnailLoaderTest {
+    private static final String TEST_LOCATION = "thumbnail_loader_test.db";
+    private static final long ITEM_ID = 42;
+    private static final int SIZE_PX = 64;
+    private static final long LOAD_TIMEOUT_MS = 5000;
+
+    private Instrumentation instrumentation;
+    private ItemImageStore imageStore;
+    private ThumbnailLoader loader;
+    private ImageView imageView;
+    private ImageView probeView;
+
+    @Before
+    public void writePhoto() throws IOException {
+        instrumentation = InstrumentationRegistry.getInstrumentation();
+        Context context = instrumentation.getTargetContext();
+        imageStore = new ItemImageStore(context, TEST_LOCATION);
+        loader = ThumbnailLoader.getInstance(context);
+
+        File photo = imageStore.getImageFile(ITEM_ID);
+        assertTrue(photo.getParentFile().isDirectory() || photo.getParentFile().mkdirs());
+        try (FileOutputStream out = new FileOutputStream(photo)) {
+            Bitmap.createBitmap(256, 256, Bitmap.Config.ARGB_8888).compress(Bitmap.CompressFormat.JPEG, 90, out);
+        }
+        instrumentation.runOnMainSync(() -> {
+            imageView = new ImageView(context);
+            probeView = new ImageView(context);
+            loader.invalidate(imageStore, ITEM_ID);
+        });
+    }
+
+    @After
+    public void deletePhoto() {
+        instrumentation.runOnMainSync(() -> {
+            loader.cancel(imageView);
+            loader.cancel(probeView);
+            loader.invalidate(imageStore, ITEM_ID);
+        });
+        imageStore.getImageFile(ITEM_ID).delete();
+    }
+
+    @Test
+    public void load_showsCachedThumbnailWithoutAllocating() throws InterruptedException {
+        assertTrue(waitUntilCached(ITEM_ID, SIZE_PX));
+
+        boolean[] shown = new boolean[1];
+        int[] allocations = new int[1];
+        instrumentation.runOnMainSync(() -> {
+            Debug.startAllocCounting();
+            Debug.resetThreadAllocCount();
+            boolean allShown = true;
+            for (int i = 0; i < 100; i++) {
+                allShown &= loader.load(imageStore, ITEM_ID, imageView, SIZE_PX);
+            }
+            allocations[0] = Debug.getThreadAllocCount();
+            Debug.stopAllocCounting();
+            shown[0] = allShown;
+        });
+
+        assertTrue(shown[0]);
+        assertEquals(0, allocations[0]);
+    }
+
+    @Test
+    public void load_keepsSizesItemsAndInvalidatedPhotosApart() throws InterruptedException {
+        assertTrue(waitUntilCached(ITEM_ID, SIZE_PX));
+
+        assertFalse(loadOnMainThread(ITEM_ID, SIZE_PX * 2));
+        assertFalse(loadOnMainThread(ITEM_ID + 1, SIZE_PX));
+        instrumentation.runOnMainSync(() -> loader.invalidate(imageStore, ITEM_ID));
+        assertFalse(loadOnMainThread(ITEM_ID, SIZE_PX));
+    }
+
+    /**
+     * Start a load for the row's view, then poll through a second view so polling doesn't cancel it
+     */
+    private boolean waitUntilCached(long itemId, int sizePx) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + LOAD_TIMEOUT_MS;
+        boolean shown = loadOnMainThread(imageView, itemId, sizePx);
+        while (!shown && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            shown = loadOnMainThread(probeView, itemId, sizePx);
+        }
+        return shown;
+    }
+
+    private boolean loadOnMainThread(long itemId, int sizePx) {
+        return loadOnMainThread(imageView, itemId, sizePx);
+    }
+
+    private boolean loadOnMainThread(ImageView view, long itemId, int sizePx) {
+        boolean[] shown = new boolean[1];
+        instrumentation.runOnMainSync(() -> shown[0] = loader.load(imageStore, itemId, view, sizePx));
+        return shown[0];
+    }
+}
@@ -1,15 +1,35 @@
 package com.IfeoluwaAdewoyin.inventorymanagementapp;
 
+import android.Manifest;
+import android.content.ActivityNotFoundException;
 import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.net.Uri;
 import android.os.Bundle;
+import android.provider.MediaStore;
 import android.util.Log;
+import android.view.View;
 import android.widget.ArrayAdapter;
 import android.widget.AutoCompleteTextView;
+import android.widget.ImageView;
+import android.widget.TextView;
 import android.widget.Toast;
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
+import androidx.core.app.ActivityCompat;
+import androidx.core.content.ContextCompat;
+import androidx.core.content.FileProvider;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.textfield.TextInputEditText;
+import com.google.android.material.textfield.TextInputLayout;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * AddItemActivity handles adding new inventory items and editing existing ones
@@ -18,6 +38,11 @@ import com.google.android.material.textfield.TextInputEditText;
 public class AddItemActivity extends AppCompatActivity {
 
     private static final String TAG = "AddItemActivity";
+    private static final int CAMERA_PERMISSION_REQUEST_CODE = 200;
+    private static final int TAKE_PHOTO_REQUEST_CODE = 201;
+    private static final int PICK_IMAGE_REQUEST_CODE = 202;
+    private static final int PREVIEW_SIZE_DP = 200;
+    private static final int TREND_DAYS = 90;
 
     // UI Components
     private TextInputEditText productNameInput;
@@ -25,9 +50,19 @@ public class AddItemActivity extends AppCompatActivity {
     private AutoCompleteTextView categoryDropdown;
     private TextInputEditText quantityInput;
     private TextInputEditText lowStockThresholdInput;
+    private TextInputEditText unitCostInput;
+    private TextInputEditText unitPriceInput;
+    private TextInputLayout lowStockThresholdLayout;
     private TextInputEditText barcodeInput;
+    private TextInputEditText supplierInput;
+    private TextInputEditText lotNumberInput;
+    private TextInputEditText expiryDateInput;
+    private TextInputLayout expiryDateLayout;
     private MaterialButton cancelButton;
     private MaterialButton saveButton;
+    private ImageView productImage;
+    private MaterialButton cameraButton;
+    private MaterialButton galleryButton;
 
     // Data and database
     private InventoryDatabaseHelper databaseHelper;
@@ -35,13 +70,22 @@ public class AddItemActivity extends AppCompatActivity {
     private long editItemId = -1;
     private InventoryItem currentItem;
 
+    // Item photo handling
+    private ItemImageStore imageStore;
+    private File pendingImageFile;
+    private boolean hasPendingImage = false;
+    private final ExecutorService imageExecutor = Executors.newSingleThreadExecutor();
+    private final ExecutorService historyExecutor = Executors.newSingleThreadExecutor();
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_add_item);
 
-        // Initialize database helper
-        databaseHelper = new InventoryDatabaseHelper(this);
+        // Initialize database helper for the current stock location
+        databaseHelper = new InventoryLocationManager(this).openCurrentHelper();
+        imageStore = new ItemImageStore(this, databaseHelper.getDatabaseName());
+        pendingImageFile = ItemImageStore.getPendingImageFile(this);
 
         // Check if we're in edit mode
         checkEditMode();
@@ -93,9 +137,19 @@ public class AddItemActivity extends AppCompatActivity {
         categoryDropdown = findViewById(R.id.category_dropdown);
         quantityInput = findViewById(R.id.quantity_input);
         lowStockThresholdInput = findViewById(R.id.low_stock_threshold_input);
+        lowStockThresholdLayout = findViewById(R.id.low_stock_threshold_layout);
+        unitCostInput = findViewById(R.id.unit_cost_input);
+        unitPriceInput = findViewById(R.id.unit_price_input);
         barcodeInput = findViewById(R.id.barcode_input);
+        supplierInput = findViewById(R.id.supplier_input);
+        lotNumberInput = findViewById(R.id.lot_number_input);
+        expiryDateInput = findViewById(R.id.expiry_date_input);
+        expiryDateLayout = findViewById(R.id.expiry_date_layout);
         cancelButton = findViewById(R.id.btn_cancel);
         saveButton = findViewById(R.id.btn_save);
+        productImage = findViewById(R.id.product_image);
+        cameraButton = findViewById(R.id.btn_camera);
+        galleryButton = findViewById(R.id.btn_gallery);
 
         // Update button text for edit mode
         if (isEditMode) {
@@ -119,6 +173,8 @@ public class AddItemActivity extends AppCompatActivity {
     private void setupClickListeners() {
         cancelButton.setOnClickListener(v -> finish());
         saveButton.setOnClickListener(v -> handleSaveItem());
+        cameraButton.setOnClickListener(v -> takePhoto());
+        galleryButton.setOnClickListener(v -> pickImageFromGallery());
     }
 
     /**
@@ -156,7 +212,207 @@ public class AddItemActivity extends AppCompatActivity {
         categoryDropdown.setText(item.getCategory(), false);
         quantityInput.setText(String.valueOf(item.getQuantity()));
         lowStockThresholdInput.setText(String.valueOf(item.getLowStockThreshold()));
+        unitCostInput.setText(InventoryItem.formatCents(item.getUnitCostCents()));
+        unitPriceInput.setText(InventoryItem.formatCents(item.getUnitPriceCents()));
         barcodeInput.setText(item.getBarcode());
+        supplierInput.setText(item.getSupplier());
+        showPhoto(imageStore.getImageFile(item.getId()));
+        showSuggestedThreshold(item.getId());
+        showNextExpiry(item.getId());
+        showStockTrend(item.getId());
+    }
+
+    /**
+     * Chart the item's stock level over the last days below the amount fields
+     * Only this item's history is read; rolling up every item's samples is left to ForecastWorker
+     * @param itemId ID of the item being edited
+     */
+    private void showStockTrend(long itemId) {
+        historyExecutor.execute(() -> {
+            try {
+                long now = System.currentTimeMillis();
+                List<StockHistory.Point> points = databaseHelper.getStockHistory(itemId,
+                        now - TREND_DAYS * StockHistory.DAY_MILLIS, now);
+                runOnUiThread(() -> {
+                    if (isFinishing() || points.size() < 2) {
+                        return;
+                    }
+                    StockTrendView chart = findViewById(R.id.stock_trend_chart);
+                    chart.setPoints(points);
+                    chart.setVisibility(View.VISIBLE);
+                    findViewById(R.id.stock_trend_label).setVisibility(View.VISIBLE);
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading stock history: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Show the reorder point forecast from the item's usage below the threshold field
+     * @param itemId ID of the item being edited
+     */
+    private void showSuggestedThreshold(long itemId) {
+        DemandForecaster.Forecast forecast = databaseHelper.getItemForecast(itemId);
+        if (forecast == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        lowStockThresholdLayout.setHelperText(String.format(Locale.US,
+                "Suggested: %d (about %.1f used per day)",
+                forecast.getReorderPoint(now), forecast.getDailyUsage(now)));
+    }
+
+    /**
+     * Show the item's next lot to expire below the expiry date field
+     * @param itemId ID of the item being edited
+     */
+    private void showNextExpiry(long itemId) {
+        for (StockLot lot : databaseHelper.getItemLots(itemId)) {
+            if (lot.getExpiresAt() != 0) {
+                expiryDateLayout.setHelperText("Next to expire: " + lot.getQuantity() + " units on " +
+                        lot.getExpiryDate());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Record the units added by this save as a lot, if a lot number or expiry date was entered
+     * @param itemId ID of the saved item
+     * @param addedUnits Units the save added to the item's quantity
+     */
+    private void recordLot(long itemId, int addedUnits) {
+        String lotNumber = getTextFromInput(lotNumberInput);
+        long expiresAt = InventoryItemValidator.parseExpiryDate(getTextFromInput(expiryDateInput));
+        if (lotNumber.isEmpty() && expiresAt == 0) {
+            return;
+        }
+        if (addedUnits <= 0) {
+            Log.d(TAG, "No units added, lot not recorded");
+            return;
+        }
+        databaseHelper.addStockLot(itemId, lotNumber, expiresAt, addedUnits);
+    }
+
+    // ======================== ITEM PHOTO ========================
+
+    /**
+     * Take a photo with the camera app, asking for the camera permission first if needed
+     */
+    private void takePhoto() {
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.CAMERA)
+                != PackageManager.PERMISSION_GRANTED) {
+            ActivityCompat.requestPermissions(this, new String[]{Manifest.permission.CAMERA},
+                    CAMERA_PERMISSION_REQUEST_CODE);
+            return;
+        }
+
+        Uri photoUri = FileProvider.getUriForFile(this, getPackageName() + ".fileprovider", pendingImageFile);
+        Intent intent = new Intent(MediaStore.ACTION_IMAGE_CAPTURE);
+        intent.putExtra(MediaStore.EXTRA_OUTPUT, photoUri);
+        intent.addFlags(Intent.FLAG_GRANT_WRITE_URI_PERMISSION);
+        try {
+            startActivityForResult(intent, TAKE_PHOTO_REQUEST_CODE);
+        } catch (ActivityNotFoundException e) {
+            Toast.makeText(this, "No camera app available", Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    /**
+     * Pick an existing image from the gallery
+     */
+    private void pickImageFromGallery() {
+        Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
+        intent.setType("image/*");
+        try {
+            startActivityForResult(intent, PICK_IMAGE_REQUEST_CODE);
+        } catch (ActivityNotFoundException e) {
+            Toast.makeText(this, "No gallery app available", Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    /**
+     * Copy and shrink a new photo into the pending file in the background, then preview it
+     * @param sourceUri Picked image to copy, or null if the camera already wrote the pending file
+     */
+    private void preparePendingImage(Uri sourceUri) {
+        imageExecutor.execute(() -> {
+            try {
+                if (sourceUri != null) {
+                    try (InputStream in = getContentResolver().openInputStream(sourceUri)) {
+                        if (in == null) {
+                            throw new IOException("Cannot open " + sourceUri);
+                        }
+                        ItemImageStore.copyImage(in, pendingImageFile);
+                    }
+                }
+                ItemImageStore.shrinkImage(pendingImageFile);
+
+                runOnUiThread(() -> {
+                    hasPendingImage = true;
+                    showPhoto(pendingImageFile);
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Error preparing photo: " + e.getMessage(), e);
+                runOnUiThread(() -> Toast.makeText(this, "Error loading photo", Toast.LENGTH_SHORT).show());
+            }
+        });
+    }
+
+    /**
+     * Show a photo in the image section, or keep the placeholder if the file does not exist
+     * @param file Photo file to show
+     */
+    private void showPhoto(File file) {
+        ThumbnailLoader thumbnailLoader = ThumbnailLoader.getInstance(this);
+        int sizePx = Math.round(PREVIEW_SIZE_DP * getResources().getDisplayMetrics().density);
+        thumbnailLoader.load(file, productImage, sizePx);
+    }
+
+    /**
+     * Attach the pending photo, if any, to a saved item
+     * @param itemId ID of the saved item
+     */
+    private void attachPendingImage(long itemId) {
+        if (!hasPendingImage) {
+            return;
+        }
+
+        if (imageStore.attachImage(itemId, pendingImageFile)) {
+            ThumbnailLoader.getInstance(this).invalidate(imageStore, itemId);
+        } else {
+            Toast.makeText(this, "Failed to save photo", Toast.LENGTH_SHORT).show();
+        }
+        hasPendingImage = false;
+    }
+
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+
+        if (resultCode != RESULT_OK) {
+            return;
+        }
+        if (requestCode == TAKE_PHOTO_REQUEST_CODE) {
+            preparePendingImage(null);
+        } else if (requestCode == PICK_IMAGE_REQUEST_CODE && data != null && data.getData() != null) {
+            preparePendingImage(data.getData());
+        }
+    }
+
+    @Override
+    public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions,
+                                           @NonNull int[] grantResults) {
+        super.onRequestPermissionsResult(requestCode, permissions, grantResults);
+
+        if (requestCode == CAMERA_PERMISSION_REQUEST_CODE) {
+            if (grantResults.length > 0 && grantResults[0] == PackageManager.PERMISSION_GRANTED) {
+                takePhoto();
+            } else {
+                Toast.makeText(this, "Camera permission is needed to take photos", Toast.LENGTH_SHORT).show();
+            }
+        }
     }
 
     /**
@@ -195,6 +451,10 @@ public class AddItemActivity extends AppCompatActivity {
 
         if (itemId != -1) {
             Log.d(TAG, "Item created successfully with ID: " + itemId);
+            item.setId(itemId);
+            new SupplierManager(databaseHelper).recordItemSupplier(item);
+            recordLot(itemId, item.getQuantity());
+            attachPendingImage(itemId);
             Toast.makeText(this, "Item added successfully", Toast.LENGTH_SHORT).show();
 
             // Return success result
@@ -217,6 +477,9 @@ public class AddItemActivity extends AppCompatActivity {
 
         if (rowsAffected > 0) {
             Log.d(TAG, "Item updated successfully");
+            new SupplierManager(databaseHelper).recordItemSupplier(item);
+            recordLot(editItemId, item.getQuantity() - (currentItem != null ? currentItem.getQuantity() : 0));
+            attachPendingImage(editItemId);
             Toast.makeText(this, "Item updated successfully", Toast.LENGTH_SHORT).show();
 
             // Return success result
@@ -240,7 +503,10 @@ public class AddItemActivity extends AppCompatActivity {
         item.setCategory(categoryDropdown.getText().toString().trim());
         item.setQuantity(getIntFromInput(quantityInput, 0));
         item.setLowStockThreshold(getIntFromInput(lowStockThresholdInput, 10));
+        item.setUnitCostCents(getCentsFromInput(unitCostInput));
+        item.setUnitPriceCents(getCentsFromInput(unitPriceInput));
         item.setBarcode(getTextFromInput(barcodeInput));
+        item.setSupplier(getTextFromInput(supplierInput));
 
         return item;
     }
@@ -253,74 +519,74 @@ public class AddItemActivity extends AppCompatActivity {
         boolean isValid = true;
 
         // Validate product name
-        String productName = getTextFromInput(productNameInput);
-        if (productName.isEmpty()) {
-            productNameInput.setError("Product name is required");
-            productNameInput.requestFocus();
-            isValid = false;
-        } else if (productName.length() > 100) {
-            productNameInput.setError("Product name is too long (max 100 characters)");
-            productNameInput.requestFocus();
+        if (!showFieldError(productNameInput,
+                InventoryItemValidator.checkName(getTextFromInput(productNameInput)), true)) {
             isValid = false;
         }
 
         // Validate quantity
-        String quantityStr = getTextFromInput(quantityInput);
-        if (quantityStr.isEmpty()) {
-            quantityInput.setError("Quantity is required");
-            if (isValid) quantityInput.requestFocus();
+        if (!showFieldError(quantityInput,
+                InventoryItemValidator.checkQuantity(getTextFromInput(quantityInput)), isValid)) {
             isValid = false;
-        } else {
-            try {
-                int quantity = Integer.parseInt(quantityStr);
-                if (quantity < 0) {
-                    quantityInput.setError("Quantity cannot be negative");
-                    if (isValid) quantityInput.requestFocus();
-                    isValid = false;
-                } else if (quantity > 999999) {
-                    quantityInput.setError("Quantity is too large");
-                    if (isValid) quantityInput.requestFocus();
-                    isValid = false;
-                }
-            } catch (NumberFormatException e) {
-                quantityInput.setError("Please enter a valid number");
-                if (isValid) quantityInput.requestFocus();
-                isValid = false;
-            }
         }
 
         // Validate low stock threshold
-        String thresholdStr = getTextFromInput(lowStockThresholdInput);
-        if (!thresholdStr.isEmpty()) {
-            try {
-                int threshold = Integer.parseInt(thresholdStr);
-                if (threshold < 0) {
-                    lowStockThresholdInput.setError("Threshold cannot be negative");
-                    if (isValid) lowStockThresholdInput.requestFocus();
-                    isValid = false;
-                } else if (threshold > 9999) {
-                    lowStockThresholdInput.setError("Threshold is too large");
-                    if (isValid) lowStockThresholdInput.requestFocus();
-                    isValid = false;
-                }
-            } catch (NumberFormatException e) {
-                lowStockThresholdInput.setError("Please enter a valid number");
-                if (isValid) lowStockThresholdInput.requestFocus();
-                isValid = false;
-            }
+        if (!showFieldError(lowStockThresholdInput,
+                InventoryItemValidator.checkThreshold(getTextFromInput(lowStockThresholdInput)), isValid)) {
+            isValid = false;
+        }
+
+        // Validate unit cost and price
+        if (!showFieldError(unitCostInput,
+                InventoryItemValidator.checkAmount(getTextFromInput(unitCostInput)), isValid)) {
+            isValid = false;
+        }
+        if (!showFieldError(unitPriceInput,
+                InventoryItemValidator.checkAmount(getTextFromInput(unitPriceInput)), isValid)) {
+            isValid = false;
         }
 
         // Validate category
-        String category = categoryDropdown.getText().toString().trim();
-        if (category.isEmpty()) {
-            categoryDropdown.setError("Please select a category");
-            if (isValid) categoryDropdown.requestFocus();
+        if (!showFieldError(categoryDropdown,
+                InventoryItemValidator.checkCategory(categoryDropdown.getText().toString().trim()), isValid)) {
+            isValid = false;
+        }
+
+        // Validate supplier
+        if (!showFieldError(supplierInput,
+                InventoryItemValidator.checkSupplier(getTextFromInput(supplierInput)), isValid)) {
+            isValid = false;
+        }
+
+        // Validate lot
+        if (!showFieldError(lotNumberInput,
+                InventoryItemValidator.checkLotNumber(getTextFromInput(lotNumberInput)), isValid)) {
+            isValid = false;
+        }
+        if (!showFieldError(expiryDateInput,
+                InventoryItemValidator.checkExpiryDate(getTextFromInput(expiryDateInput)), isValid)) {
             isValid = false;
         }
 
         return isValid;
     }
 
+    /**
+     * Show a validation error on a field
+     * @param input Field that was checked
+     * @param error Error message from InventoryItemValidator, null if the value is valid
+     * @param takeFocus Whether to focus the field if it is invalid
+     * @return true if there was no error, false otherwise
+     */
+    private boolean showFieldError(TextView input, String error, boolean takeFocus) {
+        if (error == null) {
+            return true;
+        }
+        input.setError(error);
+        if (takeFocus) input.requestFocus();
+        return false;
+    }
+
     /**
      * Safely get text from TextInputEditText
      * @param input Input field to get text from
@@ -351,11 +617,28 @@ public class AddItemActivity extends AppCompatActivity {
         return defaultValue;
     }
 
+    /**
+     * Safely get a money amount in cents from TextInputEditText
+     * @param input Input field to get the amount from
+     * @return Amount in cents, 0 if empty or invalid
+     */
+    private long getCentsFromInput(TextInputEditText input) {
+        try {
+            return InventoryItem.parseCents(getTextFromInput(input));
+        } catch (NumberFormatException | ArithmeticException e) {
+            Log.w(TAG, "Failed to parse amount from input: " + e.getMessage());
+            return 0;
+        }
+    }
+
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        imageExecutor.shutdown();
         if (databaseHelper != null) {
-            databaseHelper.close();
+            // Closed after a history read already queued, which still uses the helper
+            historyExecutor.execute(databaseHelper::close);
         }
+        historyExecutor.shutdown();
     }
 }
\ No newline at end of file
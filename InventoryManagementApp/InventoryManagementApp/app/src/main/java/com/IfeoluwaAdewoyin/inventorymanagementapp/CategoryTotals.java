@@ -0,0 +1,76 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+/**
+ * Stock totals of one category, as kept up to date by the database
+ * Values are in cents and only cover items that are not deleted.
+ */
+public class CategoryTotals {
+
+    final String category;
+    int itemCount;
+    long totalUnits;
+    long costValueCents;
+    long retailValueCents;
+    int lowStockCount;
+    int criticalCount;
+
+    public CategoryTotals(String category) {
+        this.category = category;
+    }
+
+    /**
+     * Get the category name
+     * @return Category, "" for items without one
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public long getTotalUnits() {
+        return totalUnits;
+    }
+
+    /**
+     * Get what the stock in this category cost to buy
+     * @return Sum of quantity times unit cost, in cents
+     */
+    public long getCostValueCents() {
+        return costValueCents;
+    }
+
+    /**
+     * Get what the stock in this category sells for
+     * @return Sum of quantity times unit price, in cents
+     */
+    public long getRetailValueCents() {
+        return retailValueCents;
+    }
+
+    /**
+     * Get the number of low items, not counting critical ones
+     */
+    public int getLowStockCount() {
+        return lowStockCount;
+    }
+
+    public int getCriticalCount() {
+        return criticalCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CategoryTotals{" +
+                "category='" + category + '\'' +
+                ", itemCount=" + itemCount +
+                ", totalUnits=" + totalUnits +
+                ", costValueCents=" + costValueCents +
+                ", retailValueCents=" + retailValueCents +
+                ", lowStockCount=" + lowStockCount +
+                ", criticalCount=" + criticalCount +
+                '}';
+    }
+}
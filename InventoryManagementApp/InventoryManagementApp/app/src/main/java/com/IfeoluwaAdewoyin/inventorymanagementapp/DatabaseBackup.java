@@ -0,0 +1,233 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Online backup of a location database to a complete SQLite file
+ * The database runs in WAL mode, so on Android 11+ the copy is made with VACUUM INTO
+ * on a separate read-only connection: it reads one consistent snapshot while the app
+ * keeps writing through its own connection. Older platform SQLite versions lack
+ * VACUUM INTO, so there the tables are copied in one transaction on the helper's
+ * connection, which blocks writers for the length of the copy (see copyTables).
+ * Every copy passes PRAGMA integrity_check before it replaces the previous backup.
+ */
+public class DatabaseBackup {
+
+    private static final String TAG = "DatabaseBackup";
+    private static final String BACKUP_DIR = "db_backups";
+
+    private final Context context;
+    private final InventoryDatabaseHelper databaseHelper;
+
+    /**
+     * @param context Application context
+     * @param databaseHelper Open helper of the database to back up
+     */
+    public DatabaseBackup(Context context, InventoryDatabaseHelper databaseHelper) {
+        this.context = context;
+        this.databaseHelper = databaseHelper;
+    }
+
+    /**
+     * Get the backup file of a stock location
+     * Kept out of Android backups, which carry the smaller snapshots instead
+     * @param context Application context
+     * @param databaseName Database file of the stock location
+     * @return Backup file location, which only exists once a backup was made
+     */
+    public static File getBackupFile(Context context, String databaseName) {
+        return new File(new File(context.getFilesDir(), BACKUP_DIR), databaseName);
+    }
+
+    /**
+     * Copy the database to its backup file without stopping writes
+     * Must not be called on the main thread
+     * @return The verified backup file
+     * @throws IOException if the copy can't be made or fails its integrity check
+     */
+    public File backup() throws IOException {
+        long startTime = System.nanoTime();
+        String databaseName = databaseHelper.getDatabaseName();
+        File backupFile = getBackupFile(context, databaseName);
+        File parent = backupFile.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Could not create " + parent);
+        }
+
+        // Build the copy beside the backup and only swap it in once it checks out
+        File tempFile = new File(backupFile.getPath() + ".tmp");
+        SQLiteDatabase.deleteDatabase(tempFile);
+
+        try {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                vacuumInto(context.getDatabasePath(databaseName), tempFile);
+            } else {
+                copyTables(tempFile);
+            }
+            if (!verify(tempFile)) {
+                throw new IOException("Backup copy failed its integrity check");
+            }
+        } catch (RuntimeException e) {
+            SQLiteDatabase.deleteDatabase(tempFile);
+            throw new IOException("Could not copy database: " + e.getMessage(), e);
+        } catch (IOException e) {
+            SQLiteDatabase.deleteDatabase(tempFile);
+            throw e;
+        }
+
+        if (!tempFile.renameTo(backupFile)) {
+            SQLiteDatabase.deleteDatabase(tempFile);
+            throw new IOException("Could not replace " + backupFile);
+        }
+        Log.d(TAG, "Backed up " + databaseName + " (" + backupFile.length() + " bytes) in " +
+                (System.nanoTime() - startTime) / 1000000 + " ms");
+        return backupFile;
+    }
+
+    /**
+     * Check a database file with PRAGMA integrity_check
+     * @param file Database file, e.g. a backup
+     * @return true if SQLite reports no problems
+     */
+    public static boolean verify(File file) {
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(file.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+        try {
+            Cursor cursor = db.rawQuery("PRAGMA integrity_check", null);
+            String result = cursor.moveToFirst() ? cursor.getString(0) : null;
+            boolean ok = "ok".equals(result) && !cursor.moveToNext();
+            cursor.close();
+            if (!ok) {
+                Log.w(TAG, "Integrity check of " + file.getName() + " failed: " + result);
+            }
+            return ok;
+        } finally {
+            db.close();
+        }
+    }
+
+    /**
+     * Copy the database with VACUUM INTO (SQLite 3.27+, Android 11+)
+     * The separate connection only takes a WAL read snapshot, so the app's writer is never blocked
+     */
+    private static void vacuumInto(File source, File target) {
+        SQLiteDatabase reader = SQLiteDatabase.openDatabase(source.getPath(), null, SQLiteDatabase.OPEN_READONLY);
+        try {
+            reader.execSQL("VACUUM INTO ?", new Object[]{target.getPath()});
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Copy the schema and rows into a new database inside one transaction
+     * Triggers and indexes are created after the rows, so triggers don't fire on the copy.
+     * Limitation: the framework can only begin immediate or exclusive transactions before
+     * Android 15, so a consistent read of every table takes the database's write lock, and a
+     * separate read-only connection can't avoid that. While the copy runs, writes from other
+     * connections wait, including MainActivity's QuantityWriteBuffer flush. Writes that wait
+     * longer than SQLite's busy timeout fail and are rolled back. This path only runs on
+     * Android 10 and older.
+     */
+    private void copyTables(File target) {
+        SQLiteDatabase db = databaseHelper.getWritableDatabase();
+        SQLiteDatabase copy = SQLiteDatabase.openOrCreateDatabase(target, null);
+        try {
+            db.beginTransactionNonExclusive();
+            copy.beginTransaction();
+            try {
+                List<String> tables = new ArrayList<>();
+                List<String> laterSql = new ArrayList<>();
+                Cursor schema = db.rawQuery("SELECT type, name, sql FROM sqlite_master" +
+                        " WHERE sql IS NOT NULL AND substr(name, 1, 7) != 'sqlite_'" +
+                        " AND name != 'android_metadata'", null);
+                while (schema.moveToNext()) {
+                    if ("table".equals(schema.getString(0))) {
+                        copy.execSQL(schema.getString(2));
+                        tables.add(schema.getString(1));
+                    } else {
+                        laterSql.add(schema.getString(2));
+                    }
+                }
+                schema.close();
+
+                int rows = 0;
+                for (String table : tables) {
+                    rows += copyRows(db, copy, table);
+                }
+
+                // Keep AUTOINCREMENT counters, so IDs of deleted rows are not handed out again
+                Cursor sequences = db.rawQuery("SELECT name, seq FROM sqlite_sequence", null);
+                while (sequences.moveToNext()) {
+                    copy.execSQL("DELETE FROM sqlite_sequence WHERE name = ?",
+                            new Object[]{sequences.getString(0)});
+                    copy.execSQL("INSERT INTO sqlite_sequence (name, seq) VALUES (?, ?)",
+                            new Object[]{sequences.getString(0), sequences.getLong(1)});
+                }
+                sequences.close();
+
+                for (String sql : laterSql) {
+                    copy.execSQL(sql);
+                }
+                copy.setVersion(db.getVersion());
+                copy.setTransactionSuccessful();
+                Log.d(TAG, "Copied " + rows + " rows from " + tables.size() + " tables");
+            } finally {
+                copy.endTransaction();
+                db.endTransaction();
+            }
+        } finally {
+            copy.close();
+        }
+    }
+
+    private static int copyRows(SQLiteDatabase source, SQLiteDatabase target, String table) {
+        Cursor cursor = source.rawQuery("SELECT * FROM " + table, null);
+        int columnCount = cursor.getColumnCount();
+        StringBuilder insertSql = new StringBuilder("INSERT INTO " + table + " VALUES (");
+        for (int i = 0; i < columnCount; i++) {
+            insertSql.append(i == 0 ? "?" : ", ?");
+        }
+        SQLiteStatement insert = target.compileStatement(insertSql.append(")").toString());
+
+        int rows = 0;
+        try {
+            while (cursor.moveToNext()) {
+                for (int i = 0; i < columnCount; i++) {
+                    int index = i + 1;
+                    switch (cursor.getType(i)) {
+                        case Cursor.FIELD_TYPE_INTEGER:
+                            insert.bindLong(index, cursor.getLong(i));
+                            break;
+                        case Cursor.FIELD_TYPE_FLOAT:
+                            insert.bindDouble(index, cursor.getDouble(i));
+                            break;
+                        case Cursor.FIELD_TYPE_STRING:
+                            insert.bindString(index, cursor.getString(i));
+                            break;
+                        case Cursor.FIELD_TYPE_BLOB:
+                            insert.bindBlob(index, cursor.getBlob(i));
+                            break;
+                        default:
+                            insert.bindNull(index);
+                            break;
+                    }
+                }
+                insert.executeInsert();
+                rows++;
+            }
+        } finally {
+            insert.close();
+            cursor.close();
+        }
+        return rows;
+    }
+}
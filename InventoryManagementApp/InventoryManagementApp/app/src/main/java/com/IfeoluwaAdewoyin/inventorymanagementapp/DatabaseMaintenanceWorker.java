@@ -0,0 +1,199 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Build;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that keeps location databases compact and well planned
+ * Runs over every stock location while the device is idle and charging: verifies the
+ * running category totals against the items, refreshes query planner statistics,
+ * returns free pages to the file system with incremental vacuum, and checkpoints the
+ * WAL without waiting on readers or writers.
+ * A report with file sizes and probe query timings before and after is kept per database.
+ */
+public class DatabaseMaintenanceWorker extends Worker {
+
+    private static final String TAG = "DatabaseMaintenance";
+    private static final String WORK_NAME = "database_maintenance";
+    private static final long INTERVAL_HOURS = 24;
+
+    // Pages freed per incremental vacuum step; each step is its own short write transaction
+    private static final int VACUUM_STEP_PAGES = 256;
+    private static final int PROBE_PAGE_SIZE = 200;
+    static final String STATE_LAST_MAINTENANCE = "last_maintenance";
+
+    /**
+     * Measurements taken around one maintenance run
+     */
+    public static class MaintenanceReport {
+        public long bytesBefore;
+        public long bytesAfter;
+        public long freePagesBefore;
+        public long freePagesAfter;
+        public long queryMicrosBefore;
+        public long queryMicrosAfter;
+        public long checkpointedFrames;
+        public boolean analyzed;
+        public int rebuiltCategories;
+        public long elapsedMs;
+
+        @Override
+        public String toString() {
+            return "MaintenanceReport{" +
+                    "bytes=" + bytesBefore + "->" + bytesAfter +
+                    ", freePages=" + freePagesBefore + "->" + freePagesAfter +
+                    ", queryMicros=" + queryMicrosBefore + "->" + queryMicrosAfter +
+                    ", checkpointedFrames=" + checkpointedFrames +
+                    ", analyzed=" + analyzed +
+                    ", rebuiltCategories=" + rebuiltCategories +
+                    ", elapsedMs=" + elapsedMs +
+                    '}';
+        }
+    }
+
+    public DatabaseMaintenanceWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedule the daily maintenance run; an existing schedule is kept
+     * @param context Any context
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiresDeviceIdle(true)
+                .setRequiresCharging(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(DatabaseMaintenanceWorker.class,
+                INTERVAL_HOURS, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(WORK_NAME,
+                ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        InventoryLocationManager locationManager = new InventoryLocationManager(context);
+
+        try {
+            for (String location : locationManager.getLocations()) {
+                if (isStopped()) {
+                    return Result.retry();
+                }
+                if (!context.getDatabasePath(locationManager.getDatabaseName(location)).exists()) {
+                    continue;
+                }
+
+                InventoryDatabaseHelper helper = locationManager.openHelper(location);
+                try {
+                    MaintenanceReport report = maintain(helper);
+                    Log.d(TAG, location + ": " + report);
+                } finally {
+                    helper.close();
+                }
+            }
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "Error maintaining databases: " + e.getMessage(), e);
+            return Result.retry();
+        }
+    }
+
+    /**
+     * Run every maintenance step on one database and store the report in it
+     * @param helper Open helper of the database
+     * @return Sizes and timings before and after
+     */
+    MaintenanceReport maintain(InventoryDatabaseHelper helper) {
+        long startTime = System.nanoTime();
+        SQLiteDatabase db = helper.getWritableDatabase();
+        MaintenanceReport report = new MaintenanceReport();
+        report.bytesBefore = getDatabaseBytes(db);
+        report.freePagesBefore = queryLong(db, "PRAGMA freelist_count");
+        report.queryMicrosBefore = timeProbeQueries(helper);
+
+        // The running category totals should always match the items; repair them if not
+        List<String> staleCategories = helper.checkCategoryTotals();
+        if (!staleCategories.isEmpty()) {
+            helper.rebuildCategoryTotals();
+            report.rebuiltCategories = staleCategories.size();
+        }
+
+        // PRAGMA optimize only re-analyzes tables whose statistics are stale, but needs
+        // SQLite 3.18 (Android 8) and existing statistics to compare against
+        boolean hasStatistics = queryLong(db,
+                "SELECT COUNT(*) FROM sqlite_master WHERE name = 'sqlite_stat1'") > 0;
+        if (!hasStatistics || Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            db.execSQL("ANALYZE");
+            report.analyzed = true;
+        } else {
+            queryLong(db, "PRAGMA optimize");
+        }
+
+        // Release free pages in small steps, so app writes can interleave
+        long freePages = report.freePagesBefore;
+        while (freePages > 0 && !isStopped()) {
+            queryLong(db, "PRAGMA incremental_vacuum(" + VACUUM_STEP_PAGES + ")");
+            long remaining = queryLong(db, "PRAGMA freelist_count");
+            if (remaining >= freePages) {
+                break;
+            }
+            freePages = remaining;
+        }
+
+        // Columns: busy, frames in the WAL, frames copied into the database
+        Cursor checkpoint = db.rawQuery("PRAGMA wal_checkpoint(PASSIVE)", null);
+        if (checkpoint.moveToFirst()) {
+            report.checkpointedFrames = checkpoint.getLong(2);
+        }
+        checkpoint.close();
+
+        report.bytesAfter = getDatabaseBytes(db);
+        report.freePagesAfter = queryLong(db, "PRAGMA freelist_count");
+        report.queryMicrosAfter = timeProbeQueries(helper);
+        report.elapsedMs = (System.nanoTime() - startTime) / 1000000;
+
+        InventoryDatabaseHelper.setSyncState(db, STATE_LAST_MAINTENANCE, report.toString());
+        return report;
+    }
+
+    /**
+     * Time the queries the dashboard runs on every refresh: stats and the first list page
+     */
+    private static long timeProbeQueries(InventoryDatabaseHelper helper) {
+        long startTime = System.nanoTime();
+        helper.getInventoryStats();
+        helper.loadInventoryPage(new InventoryItemStore(), InventorySortOrder.STOCK_STATUS, null, PROBE_PAGE_SIZE);
+        return (System.nanoTime() - startTime) / 1000;
+    }
+
+    /**
+     * Size on disk of the database file and its WAL
+     */
+    private static long getDatabaseBytes(SQLiteDatabase db) {
+        return new File(db.getPath()).length() + new File(db.getPath() + "-wal").length();
+    }
+
+    private static long queryLong(SQLiteDatabase db, String sql) {
+        Cursor cursor = db.rawQuery(sql, null);
+        long value = cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        cursor.close();
+        return value;
+    }
+}
@@ -0,0 +1,88 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+/**
+ * Estimates how fast items are used and when they should be reordered
+ * Usage is tracked as an exponentially decayed sum of the units taken out of stock,
+ * so recording a movement costs the same no matter how long the history is. Recent
+ * usage counts most; a movement SMOOTHING_DAYS old counts about a third as much.
+ */
+public class DemandForecaster {
+
+    private static final double MILLIS_PER_DAY = 24 * 60 * 60 * 1000.0;
+
+    // Time constant of the smoothing, in days
+    static final double SMOOTHING_DAYS = 14;
+
+    // Days of usage a reorder must cover: supplier lead time plus a safety margin
+    static final double LEAD_TIME_DAYS = 7;
+    static final double SAFETY_DAYS = 3;
+
+    /**
+     * Smoothed usage state of one item
+     */
+    public static class Forecast {
+        // Decayed sum of units used, as of lastUsageAt
+        double usageLevel;
+        long firstUsageAt;
+        long lastUsageAt;
+
+        /**
+         * Get the average number of units used per day as of a point in time
+         * Corrected for items with less history than the smoothing window, which would
+         * otherwise look slower than they are
+         * @param now Time to evaluate at, in epoch millis
+         * @return Units per day, 0 if nothing was used yet
+         */
+        public double getDailyUsage(long now) {
+            if (firstUsageAt == 0) {
+                return 0;
+            }
+            double level = usageLevel * decay(Math.max(0, now - lastUsageAt));
+            // Sum of weights over the observed history, so a short history isn't diluted
+            double historyDays = Math.max(1, (now - firstUsageAt) / MILLIS_PER_DAY);
+            double window = SMOOTHING_DAYS * (1 - Math.exp(-historyDays / SMOOTHING_DAYS));
+            return level / window;
+        }
+
+        /**
+         * Get the stock level at which the item should be reordered
+         * @param now Time to evaluate at, in epoch millis
+         * @return Units expected to be used over the lead time plus safety margin
+         */
+        public int getReorderPoint(long now) {
+            return (int) Math.ceil(getDailyUsage(now) * (LEAD_TIME_DAYS + SAFETY_DAYS));
+        }
+
+        public long getLastUsageAt() {
+            return lastUsageAt;
+        }
+    }
+
+    /**
+     * Add one stock movement to an item's usage state in constant time
+     * Movements may arrive out of order, e.g. from sync; older ones are decayed to match
+     * @param forecast State to update
+     * @param units Units taken out of stock (ignored unless positive)
+     * @param at Time of the movement, in epoch millis
+     */
+    public static void recordUsage(Forecast forecast, long units, long at) {
+        if (units <= 0) {
+            return;
+        }
+        if (forecast.firstUsageAt == 0) {
+            forecast.usageLevel = units;
+            forecast.firstUsageAt = at;
+            forecast.lastUsageAt = at;
+        } else if (at >= forecast.lastUsageAt) {
+            forecast.usageLevel = forecast.usageLevel * decay(at - forecast.lastUsageAt) + units;
+            forecast.lastUsageAt = at;
+        } else {
+            forecast.usageLevel += units * decay(forecast.lastUsageAt - at);
+            forecast.firstUsageAt = Math.min(forecast.firstUsageAt, at);
+        }
+    }
+
+    private static double decay(long elapsedMillis) {
+        return Math.exp(-elapsedMillis / MILLIS_PER_DAY / SMOOTHING_DAYS);
+    }
+}
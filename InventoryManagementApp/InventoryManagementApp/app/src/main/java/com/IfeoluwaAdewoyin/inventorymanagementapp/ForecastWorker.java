@@ -0,0 +1,75 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that keeps item demand forecasts and stock history up to date
+ * Runs over every stock location and only reads the stock movements and quantity
+ * samples recorded since its previous run.
+ */
+public class ForecastWorker extends Worker {
+
+    private static final String TAG = "ForecastWorker";
+    private static final String WORK_NAME = "update_forecasts";
+    private static final long INTERVAL_HOURS = 6;
+    private static final int BATCH_SIZE = 1000;
+
+    public ForecastWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedule the periodic forecast update; an existing schedule is kept
+     * @param context Any context
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiresBatteryNotLow(true)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(ForecastWorker.class,
+                INTERVAL_HOURS, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(WORK_NAME,
+                ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        InventoryLocationManager locationManager = new InventoryLocationManager(context);
+
+        try {
+            for (String location : locationManager.getLocations()) {
+                if (isStopped()) {
+                    return Result.retry();
+                }
+                if (!context.getDatabasePath(locationManager.getDatabaseName(location)).exists()) {
+                    continue;
+                }
+
+                InventoryDatabaseHelper helper = locationManager.openHelper(location);
+                try {
+                    helper.updateForecasts(BATCH_SIZE);
+                    helper.rollUpStockHistory(BATCH_SIZE);
+                } finally {
+                    helper.close();
+                }
+            }
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "Error updating forecasts and history: " + e.getMessage(), e);
+            return Result.retry();
+        }
+    }
+}
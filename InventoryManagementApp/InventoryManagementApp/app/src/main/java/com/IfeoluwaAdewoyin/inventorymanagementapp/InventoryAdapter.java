@@ -1,6 +1,8 @@
 package com.IfeoluwaAdewoyin.inventorymanagementapp;
 
 import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -12,20 +14,36 @@ import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.card.MaterialCardView;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * RecyclerView adapter for displaying inventory items in a grid layout
  * Handles item display, click events, and quantity updates
+ * Rows are read from a column store through one flyweight view, and an InventoryItem
+ * is only materialized when a row is handed to a listener
  */
 public class InventoryAdapter extends RecyclerView.Adapter<InventoryAdapter.InventoryViewHolder> {
 
+    // Size of the photo thumbnail on a card, matching item_inventory_card.xml
+    private static final int THUMBNAIL_SIZE_DP = 64;
+
+    // Stock status styles, indexed by status and resolved once per adapter
+    private static final int STATUS_CRITICAL = 0;
+    private static final int STATUS_LOW = 1;
+    private static final int STATUS_GOOD = 2;
+    private static final int[] STROKE_WIDTHS = {4, 3, 1};
+    private static final String QUANTITY_PREFIX = "Qty: ";
+
     private Context context;
-    private List<InventoryItem> inventoryItems;
+    private InventoryItemStore inventoryItems;
+    private InventoryItemStore.ItemView rowView;
     private OnItemClickListener itemClickListener;
     private OnItemDeleteListener itemDeleteListener;
     private OnQuantityChangeListener quantityChangeListener;
+    private final ThumbnailLoader thumbnailLoader;
+    private final int thumbnailSizePx;
+    private ItemImageStore imageStore;
+    private final int[] statusColors;
+    private final int[] strokeColors;
 
     // Interface definitions for callback events
     public interface OnItemClickListener {
@@ -43,7 +61,17 @@ public class InventoryAdapter extends RecyclerView.Adapter<InventoryAdapter.Inve
     // Constructor
     public InventoryAdapter(Context context) {
         this.context = context;
-        this.inventoryItems = new ArrayList<>();
+        this.inventoryItems = new InventoryItemStore();
+        this.rowView = inventoryItems.newView();
+        this.thumbnailLoader = ThumbnailLoader.getInstance(context);
+        this.thumbnailSizePx = Math.round(THUMBNAIL_SIZE_DP * context.getResources().getDisplayMetrics().density);
+
+        int criticalColor = ContextCompat.getColor(context, R.color.inventory_critical);
+        int lowColor = ContextCompat.getColor(context, R.color.inventory_low);
+        this.statusColors = new int[]{criticalColor, lowColor,
+                ContextCompat.getColor(context, R.color.inventory_good)};
+        this.strokeColors = new int[]{criticalColor, lowColor,
+                ContextCompat.getColor(context, R.color.md_theme_outline)};
     }
 
     @NonNull
@@ -55,8 +83,15 @@ public class InventoryAdapter extends RecyclerView.Adapter<InventoryAdapter.Inve
 
     @Override
     public void onBindViewHolder(@NonNull InventoryViewHolder holder, int position) {
-        InventoryItem item = inventoryItems.get(position);
-        holder.bind(item, position);
+        holder.bind(rowView.moveTo(position));
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull InventoryViewHolder holder) {
+        super.onViewRecycled(holder);
+        // Drop the photo request of the row that scrolled away
+        thumbnailLoader.cancel(holder.itemImage);
+        holder.itemImage.setImageDrawable(holder.placeholder);
     }
 
     @Override
@@ -68,14 +103,25 @@ public class InventoryAdapter extends RecyclerView.Adapter<InventoryAdapter.Inve
 
     /**
      * Update the entire dataset
-     * @param newItems New list of inventory items
+     * @param newItems Store holding the new inventory items
      */
-    public void updateItems(List<InventoryItem> newItems) {
-        this.inventoryItems.clear();
-        this.inventoryItems.addAll(newItems);
+    public void updateItems(InventoryItemStore newItems) {
+        this.inventoryItems = newItems;
+        this.rowView = newItems.newView();
         notifyDataSetChanged();
     }
 
+    /**
+     * Show rows that were appended to the current store, e.g. the next page of the list
+     * @param positionStart Position of the first appended row
+     * @param itemCount Number of rows appended
+     */
+    public void notifyItemsAppended(int positionStart, int itemCount) {
+        if (itemCount > 0) {
+            notifyItemRangeInserted(positionStart, itemCount);
+        }
+    }
+
     /**
      * Add a single item to the list
      * @param item Item to add
@@ -85,6 +131,17 @@ public class InventoryAdapter extends RecyclerView.Adapter<InventoryAdapter.Inve
         notifyItemInserted(inventoryItems.size() - 1);
     }
 
+    /**
+     * Put an item back into the list, e.g. when a delete is undone
+     * @param position Position the item had; clamped to the end of the list
+     * @param item Item to insert
+     */
+    public void insertItem(int position, InventoryItem item) {
+        int insertAt = Math.min(Math.max(position, 0), inventoryItems.size());
+        inventoryItems.insert(insertAt, item);
+        notifyItemInserted(insertAt);
+    }
+
     /**
      * Remove an item from the list
      * @param position Position of item to remove
@@ -108,6 +165,28 @@ public class InventoryAdapter extends RecyclerView.Adapter<InventoryAdapter.Inve
         }
     }
 
+    /**
+     * Change the quantity shown for one item
+     * Only the quantity slot is written, so adjustments don't add text to the store
+     * @param position Position of the item
+     * @param quantity New quantity
+     */
+    public void updateQuantity(int position, int quantity) {
+        if (position >= 0 && position < inventoryItems.size()) {
+            inventoryItems.setQuantity(position, quantity);
+            notifyItemChanged(position);
+        }
+    }
+
+    /**
+     * Set where item photos are read from; photos are not shown until this is set
+     * @param imageStore Photo store of the displayed location
+     */
+    public void setImageStore(ItemImageStore imageStore) {
+        this.imageStore = imageStore;
+        notifyDataSetChanged();
+    }
+
     // Setter methods for event listeners
     public void setOnItemClickListener(OnItemClickListener listener) {
         this.itemClickListener = listener;
@@ -134,6 +213,12 @@ public class InventoryAdapter extends RecyclerView.Adapter<InventoryAdapter.Inve
         private TextView itemQuantity;
         private View stockStatusIndicator;
         private MaterialButton deleteButton;
+        // Placeholder inflated with the card; setting it again while shown is a no-op
+        private final Drawable placeholder;
+
+        // "Qty: " followed by room for any int, reused on every bind
+        private final char[] quantityText = new char[QUANTITY_PREFIX.length() + 10];
+        private int boundQuantity = -1;
 
         public InventoryViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -146,92 +231,98 @@ public class InventoryAdapter extends RecyclerView.Adapter<InventoryAdapter.Inve
             itemQuantity = itemView.findViewById(R.id.item_quantity);
             stockStatusIndicator = itemView.findViewById(R.id.stock_status_indicator);
             deleteButton = itemView.findViewById(R.id.btn_delete);
+            placeholder = itemImage.getDrawable();
+
+            QUANTITY_PREFIX.getChars(0, QUANTITY_PREFIX.length(), quantityText, 0);
+            setupClickListeners();
         }
 
         /**
          * Bind data to views for a specific inventory item
-         * @param item The inventory item to display
-         * @param position Position in the adapter
+         * Only reads precomputed styles and reuses holder buffers, so binding doesn't allocate
+         * @param item Flyweight view of the row to display; only valid during this call
          */
-        public void bind(InventoryItem item, int position) {
-            // Set basic item information
-            itemName.setText(item.getName());
-            itemDescription.setText(item.getDescription());
-            itemQuantity.setText("Qty: " + item.getQuantity());
-
-            // Set stock status indicator color based on inventory level
-            updateStockStatusIndicator(item);
+        public void bind(InventoryItemStore.ItemView item) {
+            // Set basic item information; unchanged text is not set again, which would re-layout it
+            setTextIfChanged(itemName, item.getName());
+            setTextIfChanged(itemDescription, item.getDescription());
+            setQuantityText(item.getQuantity());
+
+            // Show the placeholder until the photo thumbnail, if any, has loaded
+            boolean photoShown = imageStore != null
+                    && thumbnailLoader.load(imageStore, item.getId(), itemImage, thumbnailSizePx);
+            if (!photoShown) {
+                itemImage.setImageDrawable(placeholder);
+            }
 
-            // Set up click listeners
-            setupClickListeners(item, position);
+            // Style the status indicator and card border by stock level
+            int status = item.isCriticalStock() ? STATUS_CRITICAL
+                    : item.isLowStock() ? STATUS_LOW : STATUS_GOOD;
+            stockStatusIndicator.setBackgroundColor(statusColors[status]);
+            itemCard.setStrokeColor(strokeColors[status]);
+            itemCard.setStrokeWidth(STROKE_WIDTHS[status]);
+        }
 
-            // Update card appearance based on stock status
-            updateCardAppearance(item);
+        private void setTextIfChanged(TextView view, String text) {
+            if (!TextUtils.equals(view.getText(), text)) {
+                view.setText(text);
+            }
         }
 
         /**
-         * Update the stock status indicator color
-         * @param item Inventory item to check status for
+         * Show "Qty: n" by formatting the number into the holder's own character buffer
+         * @param quantity Quantity to show
          */
-        private void updateStockStatusIndicator(InventoryItem item) {
-            int colorResource;
-
-            if (item.isCriticalStock()) {
-                colorResource = R.color.inventory_critical;
-            } else if (item.isLowStock()) {
-                colorResource = R.color.inventory_low;
-            } else {
-                colorResource = R.color.inventory_good;
+        private void setQuantityText(int quantity) {
+            if (quantity == boundQuantity) {
+                return;
             }
+            boundQuantity = quantity;
 
-            int color = ContextCompat.getColor(context, colorResource);
-            stockStatusIndicator.setBackgroundColor(color);
+            int digits = 1;
+            for (int remaining = quantity; remaining >= 10; remaining /= 10) {
+                digits++;
+            }
+            int end = QUANTITY_PREFIX.length() + digits;
+            int remaining = quantity;
+            for (int i = end - 1; i >= QUANTITY_PREFIX.length(); i--) {
+                quantityText[i] = (char) ('0' + remaining % 10);
+                remaining /= 10;
+            }
+            itemQuantity.setText(quantityText, 0, end);
         }
 
         /**
-         * Set up click listeners for user interactions
-         * @param item Current inventory item
-         * @param position Position in adapter
+         * Set up click listeners once; they look up the holder's current position when fired
+         * The row is materialized as an InventoryItem only when it is clicked
          */
-        private void setupClickListeners(InventoryItem item, int position) {
+        private void setupClickListeners() {
             // Card click for item details/editing
             itemCard.setOnClickListener(v -> {
-                if (itemClickListener != null) {
-                    itemClickListener.onItemClick(item, position);
+                int position = getBindingAdapterPosition();
+                if (position != RecyclerView.NO_POSITION && itemClickListener != null) {
+                    itemClickListener.onItemClick(inventoryItems.getItem(position), position);
                 }
             });
 
             // Delete button click
             deleteButton.setOnClickListener(v -> {
-                if (itemDeleteListener != null) {
-                    itemDeleteListener.onItemDelete(item, position);
+                int position = getBindingAdapterPosition();
+                if (position != RecyclerView.NO_POSITION && itemDeleteListener != null) {
+                    itemDeleteListener.onItemDelete(inventoryItems.getItem(position), position);
                 }
             });
 
             // Long press for quantity adjustment options
             itemCard.setOnLongClickListener(v -> {
-                showQuantityAdjustmentOptions(item, position);
+                int position = getBindingAdapterPosition();
+                if (position != RecyclerView.NO_POSITION) {
+                    showQuantityAdjustmentOptions(inventoryItems.getItem(position), position);
+                }
                 return true;
             });
         }
 
-        /**
-         * Update card appearance based on stock status
-         * @param item Inventory item to check
-         */
-        private void updateCardAppearance(InventoryItem item) {
-            if (item.isCriticalStock()) {
-                itemCard.setStrokeColor(ContextCompat.getColor(context, R.color.inventory_critical));
-                itemCard.setStrokeWidth(4);
-            } else if (item.isLowStock()) {
-                itemCard.setStrokeColor(ContextCompat.getColor(context, R.color.inventory_low));
-                itemCard.setStrokeWidth(3);
-            } else {
-                itemCard.setStrokeColor(ContextCompat.getColor(context, R.color.md_theme_outline));
-                itemCard.setStrokeWidth(1);
-            }
-        }
-
         /**
          * Show options for adjusting item quantity
          * @param item Item to adjust
@@ -4,20 +4,38 @@ import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
+import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import android.util.Log;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
 
 /**
  * Database helper class for managing inventory and user data
  * Provides CRUD operations for both users and inventory items
+ * The underlying connection stays open for the lifetime of the helper and is
+ * released by close(), so compiled statements can be reused between calls
+ * Databases run in WAL mode, so readers (including online backups) never block the writer
  */
 public class InventoryDatabaseHelper extends SQLiteOpenHelper {
 
     private static final String TAG = "InventoryDatabase";
-    private static final String DATABASE_NAME = "inventory_management.db";
-    private static final int DATABASE_VERSION = 1;
+    static final String DATABASE_NAME = "inventory_management.db";
+    private static final int DATABASE_VERSION = 15;
+
+    // Value of PRAGMA auto_vacuum when free pages are released by PRAGMA incremental_vacuum
+    private static final int AUTO_VACUUM_INCREMENTAL = 2;
+
+    // Characters of the description loaded for the two-line preview on list cards
+    private static final int DESCRIPTION_PREVIEW_LENGTH = 100;
 
     // User table constants
     public static final String TABLE_USERS = "users";
@@ -34,9 +52,112 @@ public class InventoryDatabaseHelper extends SQLiteOpenHelper {
     public static final String COLUMN_ITEM_CATEGORY = "item_category";
     public static final String COLUMN_ITEM_QUANTITY = "item_quantity";
     public static final String COLUMN_LOW_STOCK_THRESHOLD = "low_stock_threshold";
+    public static final String COLUMN_CRITICAL_THRESHOLD = "critical_threshold";
+    // Money is stored in cents, so running sums stay exact
+    public static final String COLUMN_UNIT_COST = "unit_cost_cents";
+    public static final String COLUMN_UNIT_PRICE = "unit_price_cents";
     public static final String COLUMN_BARCODE = "barcode";
+    public static final String COLUMN_SUPPLIER = "supplier";
     public static final String COLUMN_ITEM_CREATED_AT = "item_created_at";
     public static final String COLUMN_ITEM_UPDATED_AT = "item_updated_at";
+    public static final String COLUMN_ITEM_UUID = "item_uuid";
+    public static final String COLUMN_IS_DELETED = "is_deleted";
+    public static final String COLUMN_DELETED_AT = "deleted_at";
+
+    // Deleted items stay in the table as tombstones until purged; every live query filters on this
+    static final String LIVE_ITEMS = COLUMN_IS_DELETED + " = 0";
+
+    // Change log table constants, used by the sync engine
+    public static final String TABLE_CHANGE_LOG = "change_log";
+    public static final String COLUMN_CHANGE_ID = "change_id";
+    public static final String COLUMN_CHANGE_FIELD = "field";
+    public static final String COLUMN_CHANGE_VALUE = "value";
+    public static final String COLUMN_QUANTITY_DELTA = "quantity_delta";
+    public static final String COLUMN_DEVICE_ID = "device_id";
+    public static final String COLUMN_CHANGED_AT = "changed_at";
+    public static final String FIELD_DELETED = "deleted";
+
+    // Sync state table constants (key/value pairs such as the device ID and sync cursors)
+    public static final String TABLE_SYNC_STATE = "sync_state";
+    public static final String COLUMN_STATE_KEY = "state_key";
+    public static final String COLUMN_STATE_VALUE = "state_value";
+    static final String STATE_DEVICE_ID = "device_id";
+    private static final String STATE_WATERMARK_PREFIX = "watermark_";
+    private static final String STATE_FORECAST_CHANGE_ID = "forecast_last_change_id";
+    static final String STATE_HISTORY_SAMPLE_ID = "history_last_sample_id";
+
+    // Millisecond UTC timestamps; same text format as CURRENT_TIMESTAMP, so both sort together
+    private static final String TIMESTAMP_NOW = "strftime('%Y-%m-%d %H:%M:%f', 'now')";
+
+    // Quantity counter table constants (one PN-counter component per item and device)
+    public static final String TABLE_QUANTITY_COUNTERS = "quantity_counters";
+    public static final String COLUMN_INCREMENTS = "increments";
+    public static final String COLUMN_DECREMENTS = "decrements";
+    // Counter component holding the stock items had when the database was upgraded to counters
+    static final String SEEDED_COUNTER_ID = "seeded";
+
+    // Item forecast table constants (smoothed usage state per item, see DemandForecaster)
+    public static final String TABLE_ITEM_FORECAST = "item_forecast";
+    public static final String COLUMN_USAGE_LEVEL = "usage_level";
+    public static final String COLUMN_FIRST_USAGE_AT = "first_usage_at";
+    public static final String COLUMN_LAST_USAGE_AT = "last_usage_at";
+    public static final String COLUMN_REORDER_POINT = "reorder_point";
+
+    // Threshold policy table constants (one row per category, '' for the global default)
+    public static final String TABLE_THRESHOLD_POLICY = "threshold_policy";
+    public static final String COLUMN_POLICY_CATEGORY = "category";
+    public static final String GLOBAL_POLICY = "";
+
+    // Category totals table constants (running sums over live items, kept by triggers)
+    public static final String TABLE_CATEGORY_TOTALS = "category_totals";
+    public static final String COLUMN_TOTALS_CATEGORY = "category";
+    public static final String COLUMN_ITEM_COUNT = "item_count";
+    public static final String COLUMN_TOTAL_UNITS = "total_units";
+    public static final String COLUMN_COST_VALUE = "cost_value_cents";
+    public static final String COLUMN_RETAIL_VALUE = "retail_value_cents";
+    public static final String COLUMN_LOW_STOCK_COUNT = "low_stock_count";
+    public static final String COLUMN_CRITICAL_COUNT = "critical_count";
+
+    // Stock history table constants (raw quantity samples and their hourly/daily rollups)
+    public static final String TABLE_STOCK_SAMPLES = "stock_samples";
+    public static final String COLUMN_SAMPLE_ID = "sample_id";
+    public static final String COLUMN_SAMPLED_AT = "sampled_at";
+    public static final String TABLE_STOCK_ROLLUPS = "stock_rollups";
+    public static final String COLUMN_RESOLUTION = "resolution";
+    public static final String COLUMN_BUCKET_START = "bucket_start";
+    public static final String COLUMN_MIN_QUANTITY = "min_quantity";
+    public static final String COLUMN_MAX_QUANTITY = "max_quantity";
+    public static final String COLUMN_LAST_QUANTITY = "last_quantity";
+    public static final String COLUMN_SAMPLE_COUNT = "sample_count";
+
+    // Purchase order table constants (orders per supplier and their item lines)
+    public static final String TABLE_PURCHASE_ORDERS = "purchase_orders";
+    public static final String COLUMN_ORDER_ID = "order_id";
+    public static final String COLUMN_ORDER_STATUS = "status";
+    public static final String COLUMN_ORDER_CREATED_AT = "created_at";
+    public static final String COLUMN_RECEIVED_AT = "received_at";
+    public static final String TABLE_PURCHASE_ORDER_LINES = "purchase_order_lines";
+    public static final String COLUMN_ORDER_QUANTITY = "order_quantity";
+
+    // Supplier table constants (suppliers and the price and lead time each offers per item)
+    public static final String TABLE_SUPPLIERS = "suppliers";
+    public static final String COLUMN_SUPPLIER_ID = "supplier_id";
+    public static final String COLUMN_SUPPLIER_NAME = "supplier_name";
+    public static final String COLUMN_SUPPLIER_CONTACT = "contact";
+    public static final String COLUMN_LEAD_TIME_DAYS = "lead_time_days";
+    public static final String TABLE_ITEM_SUPPLIERS = "item_suppliers";
+
+    // Stock lot table constants (units of an item received together, with their expiry)
+    public static final String TABLE_STOCK_LOTS = "stock_lots";
+    public static final String COLUMN_LOT_ID = "lot_id";
+    public static final String COLUMN_LOT_NUMBER = "lot_number";
+    public static final String COLUMN_EXPIRES_AT = "expires_at";
+    public static final String COLUMN_LOT_QUANTITY = "lot_quantity";
+
+    // First expiry first out: lots without an expiry date are used last
+    static final String LOT_FEFO_ORDER = "IFNULL(" + COLUMN_EXPIRES_AT + ", " + Long.MAX_VALUE + ")";
+
+    private static final String EPOCH_MILLIS_NOW = "CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER)";
 
     // SQL statements for table creation
     private static final String CREATE_USER_TABLE =
@@ -54,12 +175,422 @@ public class InventoryDatabaseHelper extends SQLiteOpenHelper {
                     COLUMN_ITEM_CATEGORY + " TEXT, " +
                     COLUMN_ITEM_QUANTITY + " INTEGER NOT NULL DEFAULT 0, " +
                     COLUMN_LOW_STOCK_THRESHOLD + " INTEGER DEFAULT 10, " +
+                    COLUMN_CRITICAL_THRESHOLD + " INTEGER NOT NULL DEFAULT 0, " +
+                    COLUMN_UNIT_COST + " INTEGER NOT NULL DEFAULT 0, " +
+                    COLUMN_UNIT_PRICE + " INTEGER NOT NULL DEFAULT 0, " +
                     COLUMN_BARCODE + " TEXT, " +
+                    COLUMN_SUPPLIER + " TEXT, " +
                     COLUMN_ITEM_CREATED_AT + " DATETIME DEFAULT CURRENT_TIMESTAMP, " +
-                    COLUMN_ITEM_UPDATED_AT + " DATETIME DEFAULT CURRENT_TIMESTAMP)";
+                    COLUMN_ITEM_UPDATED_AT + " DATETIME DEFAULT (" + TIMESTAMP_NOW + "), " +
+                    COLUMN_ITEM_UUID + " TEXT UNIQUE NOT NULL DEFAULT (lower(hex(randomblob(16)))), " +
+                    COLUMN_IS_DELETED + " INTEGER NOT NULL DEFAULT 0, " +
+                    COLUMN_DELETED_AT + " INTEGER)";
+
+    // Lets the purge find expired tombstones without scanning live items
+    private static final String CREATE_TOMBSTONE_INDEX =
+            "CREATE INDEX idx_inventory_tombstones ON " + TABLE_INVENTORY + " (" + COLUMN_DELETED_AT +
+                    ") WHERE " + COLUMN_IS_DELETED + " = 1";
+
+    private static final String CREATE_CHANGE_LOG_TABLE =
+            "CREATE TABLE " + TABLE_CHANGE_LOG + " (" +
+                    COLUMN_CHANGE_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    COLUMN_ITEM_UUID + " TEXT NOT NULL, " +
+                    COLUMN_CHANGE_FIELD + " TEXT NOT NULL, " +
+                    COLUMN_CHANGE_VALUE + " TEXT, " +
+                    COLUMN_QUANTITY_DELTA + " INTEGER NOT NULL DEFAULT 0, " +
+                    COLUMN_DEVICE_ID + " TEXT NOT NULL, " +
+                    COLUMN_CHANGED_AT + " INTEGER NOT NULL)";
+
+    private static final String CREATE_CHANGE_LOG_INDEX =
+            "CREATE INDEX idx_change_log_item_field ON " + TABLE_CHANGE_LOG + " (" +
+                    COLUMN_ITEM_UUID + ", " + COLUMN_CHANGE_FIELD + ", " + COLUMN_CHANGED_AT + ")";
+
+    // Every write to an item's fields, local or synced, refreshes its updated timestamp
+    private static final String CREATE_UPDATED_AT_TRIGGER =
+            "CREATE TRIGGER trg_inventory_updated_at AFTER UPDATE OF " +
+                    COLUMN_ITEM_NAME + ", " + COLUMN_ITEM_DESCRIPTION + ", " + COLUMN_ITEM_CATEGORY + ", " +
+                    COLUMN_ITEM_QUANTITY + ", " + COLUMN_LOW_STOCK_THRESHOLD + ", " + COLUMN_CRITICAL_THRESHOLD + ", " +
+                    COLUMN_UNIT_COST + ", " + COLUMN_UNIT_PRICE + ", " + COLUMN_BARCODE + ", " + COLUMN_SUPPLIER + ", " + COLUMN_IS_DELETED + " ON " + TABLE_INVENTORY + " BEGIN UPDATE " + TABLE_INVENTORY + " SET " +
+                    COLUMN_ITEM_UPDATED_AT + " = " + TIMESTAMP_NOW + " WHERE " + COLUMN_ITEM_ID +
+                    " = NEW." + COLUMN_ITEM_ID + "; END";
+
+    private static final String CREATE_SYNC_STATE_TABLE =
+            "CREATE TABLE " + TABLE_SYNC_STATE + " (" +
+                    COLUMN_STATE_KEY + " TEXT PRIMARY KEY, " +
+                    COLUMN_STATE_VALUE + " TEXT)";
+
+    private static final String CREATE_QUANTITY_COUNTERS_TABLE =
+            "CREATE TABLE " + TABLE_QUANTITY_COUNTERS + " (" +
+                    COLUMN_ITEM_UUID + " TEXT NOT NULL, " +
+                    COLUMN_DEVICE_ID + " TEXT NOT NULL, " +
+                    COLUMN_INCREMENTS + " INTEGER NOT NULL DEFAULT 0, " +
+                    COLUMN_DECREMENTS + " INTEGER NOT NULL DEFAULT 0, " +
+                    "PRIMARY KEY (" + COLUMN_ITEM_UUID + ", " + COLUMN_DEVICE_ID + "))";
+
+    private static final String CREATE_ITEM_FORECAST_TABLE =
+            "CREATE TABLE " + TABLE_ITEM_FORECAST + " (" +
+                    COLUMN_ITEM_UUID + " TEXT PRIMARY KEY, " +
+                    COLUMN_USAGE_LEVEL + " REAL NOT NULL, " +
+                    COLUMN_FIRST_USAGE_AT + " INTEGER NOT NULL, " +
+                    COLUMN_LAST_USAGE_AT + " INTEGER NOT NULL, " +
+                    COLUMN_REORDER_POINT + " INTEGER NOT NULL DEFAULT 0)";
+
+    private static final String CREATE_THRESHOLD_POLICY_TABLE =
+            "CREATE TABLE " + TABLE_THRESHOLD_POLICY + " (" +
+                    COLUMN_POLICY_CATEGORY + " TEXT PRIMARY KEY, " +
+                    COLUMN_LOW_STOCK_THRESHOLD + " INTEGER NOT NULL, " +
+                    COLUMN_CRITICAL_THRESHOLD + " INTEGER NOT NULL)";
+
+    private static final String CREATE_CATEGORY_TOTALS_TABLE =
+            "CREATE TABLE " + TABLE_CATEGORY_TOTALS + " (" +
+                    COLUMN_TOTALS_CATEGORY + " TEXT PRIMARY KEY, " +
+                    COLUMN_ITEM_COUNT + " INTEGER NOT NULL DEFAULT 0, " +
+                    COLUMN_TOTAL_UNITS + " INTEGER NOT NULL DEFAULT 0, " +
+                    COLUMN_COST_VALUE + " INTEGER NOT NULL DEFAULT 0, " +
+                    COLUMN_RETAIL_VALUE + " INTEGER NOT NULL DEFAULT 0, " +
+                    COLUMN_LOW_STOCK_COUNT + " INTEGER NOT NULL DEFAULT 0, " +
+                    COLUMN_CRITICAL_COUNT + " INTEGER NOT NULL DEFAULT 0)";
+
+    // Category totals follow every change to a live item: its old contribution is taken
+    // out and its new one added, so reports never have to scan the inventory table
+    private static final String CREATE_TOTALS_INSERT_TRIGGER =
+            "CREATE TRIGGER trg_category_totals_insert AFTER INSERT ON " + TABLE_INVENTORY +
+                    " BEGIN " + ensureCategoryTotals("NEW") + addToCategoryTotals("NEW", " + ") + " END";
+
+    private static final String CREATE_TOTALS_DELETE_TRIGGER =
+            "CREATE TRIGGER trg_category_totals_delete AFTER DELETE ON " + TABLE_INVENTORY +
+                    " BEGIN " + addToCategoryTotals("OLD", " - ") + " END";
+
+    private static final String CREATE_TOTALS_UPDATE_TRIGGER =
+            "CREATE TRIGGER trg_category_totals_update AFTER UPDATE OF " +
+                    COLUMN_ITEM_CATEGORY + ", " + COLUMN_ITEM_QUANTITY + ", " + COLUMN_LOW_STOCK_THRESHOLD + ", " +
+                    COLUMN_CRITICAL_THRESHOLD + ", " + COLUMN_UNIT_COST + ", " + COLUMN_UNIT_PRICE + ", " +
+                    COLUMN_IS_DELETED + " ON " + TABLE_INVENTORY + " BEGIN " + addToCategoryTotals("OLD", " - ") +
+                    ensureCategoryTotals("NEW") + addToCategoryTotals("NEW", " + ") + " END";
+
+    // AUTOINCREMENT, so sample IDs keep growing past the rollup position even after retention
+    private static final String CREATE_STOCK_SAMPLES_TABLE =
+            "CREATE TABLE " + TABLE_STOCK_SAMPLES + " (" +
+                    COLUMN_SAMPLE_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    COLUMN_ITEM_ID + " INTEGER NOT NULL, " +
+                    COLUMN_SAMPLED_AT + " INTEGER NOT NULL, " +
+                    COLUMN_ITEM_QUANTITY + " INTEGER NOT NULL)";
+
+    private static final String CREATE_STOCK_SAMPLES_INDEX =
+            "CREATE INDEX idx_stock_samples_item ON " + TABLE_STOCK_SAMPLES + " (" + COLUMN_ITEM_ID + ")";
+
+    // Clustered by item, resolution and time, so a chart is one contiguous range of the table
+    private static final String CREATE_STOCK_ROLLUPS_TABLE =
+            "CREATE TABLE " + TABLE_STOCK_ROLLUPS + " (" +
+                    COLUMN_ITEM_ID + " INTEGER NOT NULL, " +
+                    COLUMN_RESOLUTION + " INTEGER NOT NULL, " +
+                    COLUMN_BUCKET_START + " INTEGER NOT NULL, " +
+                    COLUMN_MIN_QUANTITY + " INTEGER NOT NULL, " +
+                    COLUMN_MAX_QUANTITY + " INTEGER NOT NULL, " +
+                    COLUMN_LAST_QUANTITY + " INTEGER NOT NULL, " +
+                    COLUMN_SAMPLE_COUNT + " INTEGER NOT NULL DEFAULT 0, " +
+                    "PRIMARY KEY (" + COLUMN_ITEM_ID + ", " + COLUMN_RESOLUTION + ", " + COLUMN_BUCKET_START +
+                    ")) WITHOUT ROWID";
+
+    // Every quantity a live item takes on is sampled, whether set locally or merged from sync
+    private static final String CREATE_SAMPLE_INSERT_TRIGGER =
+            "CREATE TRIGGER trg_stock_sample_insert AFTER INSERT ON " + TABLE_INVENTORY +
+                    " WHEN NEW." + COLUMN_IS_DELETED + " = 0 BEGIN " + insertStockSample() + " END";
+
+    private static final String CREATE_SAMPLE_UPDATE_TRIGGER =
+            "CREATE TRIGGER trg_stock_sample_update AFTER UPDATE OF " + COLUMN_ITEM_QUANTITY + " ON " +
+                    TABLE_INVENTORY + " WHEN NEW." + COLUMN_ITEM_QUANTITY + " != OLD." + COLUMN_ITEM_QUANTITY +
+                    " AND NEW." + COLUMN_IS_DELETED + " = 0 BEGIN " + insertStockSample() + " END";
+
+    private static final String CREATE_HISTORY_DELETE_TRIGGER =
+            "CREATE TRIGGER trg_stock_history_delete AFTER DELETE ON " + TABLE_INVENTORY + " BEGIN " +
+                    "DELETE FROM " + TABLE_STOCK_SAMPLES + " WHERE " + COLUMN_ITEM_ID + " = OLD." + COLUMN_ITEM_ID + "; " +
+                    "DELETE FROM " + TABLE_STOCK_ROLLUPS + " WHERE " + COLUMN_ITEM_ID + " = OLD." + COLUMN_ITEM_ID + "; END";
+
+    // Orders are few; the index lets draft lines find their supplier's order without a scan
+    private static final String CREATE_PURCHASE_ORDERS_TABLE =
+            "CREATE TABLE " + TABLE_PURCHASE_ORDERS + " (" +
+                    COLUMN_ORDER_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    COLUMN_SUPPLIER + " TEXT NOT NULL, " +
+                    COLUMN_ORDER_STATUS + " INTEGER NOT NULL, " +
+                    COLUMN_ORDER_CREATED_AT + " INTEGER NOT NULL, " +
+                    COLUMN_RECEIVED_AT + " INTEGER)";
+
+    private static final String CREATE_PURCHASE_ORDERS_INDEX =
+            "CREATE INDEX idx_purchase_orders_status ON " + TABLE_PURCHASE_ORDERS + " (" +
+                    COLUMN_ORDER_STATUS + ", " + COLUMN_SUPPLIER + ")";
+
+    // Clustered by order, so an order's lines are one contiguous range; the unit cost is
+    // copied from the item, so an order keeps its value when prices change later
+    private static final String CREATE_PURCHASE_ORDER_LINES_TABLE =
+            "CREATE TABLE " + TABLE_PURCHASE_ORDER_LINES + " (" +
+                    COLUMN_ORDER_ID + " INTEGER NOT NULL, " +
+                    COLUMN_ITEM_ID + " INTEGER NOT NULL, " +
+                    COLUMN_ORDER_QUANTITY + " INTEGER NOT NULL, " +
+                    COLUMN_UNIT_COST + " INTEGER NOT NULL DEFAULT 0, " +
+                    "PRIMARY KEY (" + COLUMN_ORDER_ID + ", " + COLUMN_ITEM_ID + ")) WITHOUT ROWID";
+
+    private static final String CREATE_SUPPLIERS_TABLE =
+            "CREATE TABLE " + TABLE_SUPPLIERS + " (" +
+                    COLUMN_SUPPLIER_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                    COLUMN_SUPPLIER_NAME + " TEXT UNIQUE NOT NULL COLLATE NOCASE, " +
+                    COLUMN_SUPPLIER_CONTACT + " TEXT, " +
+                    COLUMN_LEAD_TIME_DAYS + " INTEGER NOT NULL DEFAULT " + (int) DemandForecaster.LEAD_TIME_DAYS + ")";
+
+    // Clustered by item, so all offers for an item are one range
+    private static final String CREATE_ITEM_SUPPLIERS_TABLE =
+            "CREATE TABLE " + TABLE_ITEM_SUPPLIERS + " (" +
+                    COLUMN_ITEM_ID + " INTEGER NOT NULL, " +
+                    COLUMN_SUPPLIER_ID + " INTEGER NOT NULL, " +
+                    COLUMN_UNIT_COST + " INTEGER NOT NULL DEFAULT 0, " +
+                    COLUMN_LEAD_TIME_DAYS + " INTEGER NOT NULL, " +
+                    "PRIMARY KEY (" + COLUMN_ITEM_ID + ", " + COLUMN_SUPPLIER_ID + ")) WITHOUT ROWID";
+
+    // An item's offers in price order; entries of a WITHOUT ROWID table's index also carry
+    // its primary key, so the cheapest supplier of an item is the first entry of its range
+    // and is read without touching the table
+    private static final String CREATE_ITEM_SUPPLIERS_COST_INDEX =
+            "CREATE INDEX idx_item_suppliers_cost ON " + TABLE_ITEM_SUPPLIERS + " (" +
+                    COLUMN_ITEM_ID + ", " + COLUMN_UNIT_COST + ", " + COLUMN_LEAD_TIME_DAYS + ")";
+
+    // Items of a supplier, for listing them and for deleting the supplier
+    private static final String CREATE_ITEM_SUPPLIERS_SUPPLIER_INDEX =
+            "CREATE INDEX idx_item_suppliers_supplier ON " + TABLE_ITEM_SUPPLIERS + " (" +
+                    COLUMN_SUPPLIER_ID + ")";
+
+    private static final String CREATE_ITEM_SUPPLIERS_DELETE_TRIGGER =
+            "CREATE TRIGGER trg_item_suppliers_delete AFTER DELETE ON " + TABLE_INVENTORY + " BEGIN " +
+                    "DELETE FROM " + TABLE_ITEM_SUPPLIERS + " WHERE " + COLUMN_ITEM_ID + " = OLD." + COLUMN_ITEM_ID + "; END";
+
+    // Lots only hold units that are counted in their item's quantity; emptied lots are deleted
+    private static final String CREATE_STOCK_LOTS_TABLE =
+            "CREATE TABLE " + TABLE_STOCK_LOTS + " (" +
+                    COLUMN_LOT_ID + " INTEGER PRIMARY KEY, " +
+                    COLUMN_ITEM_ID + " INTEGER NOT NULL, " +
+                    COLUMN_LOT_NUMBER + " TEXT, " +
+                    COLUMN_EXPIRES_AT + " INTEGER, " +
+                    COLUMN_LOT_QUANTITY + " INTEGER NOT NULL, " +
+                    COLUMN_RECEIVED_AT + " INTEGER NOT NULL)";
+
+    // An item's lots in the order they are used up; lot_id breaks ties as the implicit last key
+    private static final String CREATE_STOCK_LOTS_FEFO_INDEX =
+            "CREATE INDEX idx_stock_lots_fefo ON " + TABLE_STOCK_LOTS + " (" +
+                    COLUMN_ITEM_ID + ", " + LOT_FEFO_ORDER + ")";
+
+    // All expiring lots in expiry order, so "expiring within N days" is one range scan
+    private static final String CREATE_STOCK_LOTS_EXPIRY_INDEX =
+            "CREATE INDEX idx_stock_lots_expiry ON " + TABLE_STOCK_LOTS + " (" +
+                    COLUMN_EXPIRES_AT + ") WHERE " + COLUMN_EXPIRES_AT + " IS NOT NULL";
+
+    private static final String CREATE_STOCK_LOTS_DELETE_TRIGGER =
+            "CREATE TRIGGER trg_stock_lots_delete AFTER DELETE ON " + TABLE_INVENTORY + " BEGIN " +
+                    "DELETE FROM " + TABLE_STOCK_LOTS + " WHERE " + COLUMN_ITEM_ID + " = OLD." + COLUMN_ITEM_ID + "; END";
+
+    // Category totals computed from scratch, in the column order of the totals table
+    private static final String SQL_RECOMPUTE_CATEGORY_TOTALS =
+            "SELECT IFNULL(" + COLUMN_ITEM_CATEGORY + ", '') AS " + COLUMN_TOTALS_CATEGORY + ", COUNT(*), " +
+                    "SUM(" + COLUMN_ITEM_QUANTITY + "), " +
+                    "SUM(" + COLUMN_ITEM_QUANTITY + " * " + COLUMN_UNIT_COST + "), " +
+                    "SUM(" + COLUMN_ITEM_QUANTITY + " * " + COLUMN_UNIT_PRICE + "), " +
+                    "SUM(" + InventorySortOrder.STOCK_STATUS_EXPRESSION + " = 1), " +
+                    "SUM(" + InventorySortOrder.STOCK_STATUS_EXPRESSION + " = 0) " +
+                    "FROM " + TABLE_INVENTORY + " WHERE " + LIVE_ITEMS + " GROUP BY 1";
+
+    private static final String SQL_SELECT_CATEGORY_TOTALS =
+            "SELECT " + COLUMN_TOTALS_CATEGORY + ", " + COLUMN_ITEM_COUNT + ", " + COLUMN_TOTAL_UNITS + ", " +
+                    COLUMN_COST_VALUE + ", " + COLUMN_RETAIL_VALUE + ", " + COLUMN_LOW_STOCK_COUNT + ", " +
+                    COLUMN_CRITICAL_COUNT + " FROM " + TABLE_CATEGORY_TOTALS + " WHERE " + COLUMN_ITEM_COUNT + " > 0";
+
+    // Hot write statements, compiled once and reused through the statement cache
+    private static final String SQL_UPDATE_QUANTITY =
+            "UPDATE " + TABLE_INVENTORY + " SET " + COLUMN_ITEM_QUANTITY + " = ?" +
+                    " WHERE " + COLUMN_ITEM_ID + " = ?";
+
+    private static final String SQL_SOFT_DELETE_ITEM =
+            "UPDATE " + TABLE_INVENTORY + " SET " + COLUMN_IS_DELETED + " = 1, " + COLUMN_DELETED_AT +
+                    " = ? WHERE " + COLUMN_ITEM_ID + " = ? AND " + LIVE_ITEMS;
+
+    private static final String SQL_RESTORE_ITEM =
+            "UPDATE " + TABLE_INVENTORY + " SET " + COLUMN_IS_DELETED + " = 0, " + COLUMN_DELETED_AT +
+                    " = NULL WHERE " + COLUMN_ITEM_ID + " = ? AND " + COLUMN_IS_DELETED + " = 1";
+
+    private static final String SQL_DELETE_ITEM =
+            "DELETE FROM " + TABLE_INVENTORY + " WHERE " + COLUMN_ITEM_ID + " = ?";
+
+    private static final String SQL_DELETE_COUNTERS =
+            "DELETE FROM " + TABLE_QUANTITY_COUNTERS + " WHERE " + COLUMN_ITEM_UUID + " = (SELECT " +
+                    COLUMN_ITEM_UUID + " FROM " + TABLE_INVENTORY + " WHERE " + COLUMN_ITEM_ID + " = ?)";
+
+    private static final String SQL_DELETE_FORECAST =
+            "DELETE FROM " + TABLE_ITEM_FORECAST + " WHERE " + COLUMN_ITEM_UUID + " = (SELECT " +
+                    COLUMN_ITEM_UUID + " FROM " + TABLE_INVENTORY + " WHERE " + COLUMN_ITEM_ID + " = ?)";
+
+    // Change log entries resolve the item's UUID from its local ID
+    private static final String SQL_LOG_CHANGE =
+            "INSERT INTO " + TABLE_CHANGE_LOG + " (" + COLUMN_ITEM_UUID + ", " + COLUMN_CHANGE_FIELD + ", " +
+                    COLUMN_CHANGE_VALUE + ", " + COLUMN_QUANTITY_DELTA + ", " + COLUMN_DEVICE_ID + ", " +
+                    COLUMN_CHANGED_AT + ") SELECT " + COLUMN_ITEM_UUID + ", ?, ?, ?, ?, ? FROM " +
+                    TABLE_INVENTORY + " WHERE " + COLUMN_ITEM_ID + " = ?";
+
+    // One-value reads of a local quantity change, run as cached statements so no cursor
+    // window is allocated per change
+    private static final String SQL_SELECT_ITEM_UUID =
+            "SELECT " + COLUMN_ITEM_UUID + " FROM " + TABLE_INVENTORY + " WHERE " + COLUMN_ITEM_ID + " = ?";
+
+    private static final String SQL_SELECT_ITEM_QUANTITY =
+            "SELECT " + COLUMN_ITEM_QUANTITY + " FROM " + TABLE_INVENTORY + " WHERE " + COLUMN_ITEM_ID + " = ?";
+
+    private static final String SQL_SELECT_COUNTER_VALUE =
+            "SELECT COALESCE(SUM(" + COLUMN_INCREMENTS + " - " + COLUMN_DECREMENTS + "), 0) FROM " +
+                    TABLE_QUANTITY_COUNTERS + " WHERE " + COLUMN_ITEM_UUID + " = ?";
+
+    private static final String SQL_SELECT_COMPONENT_INCREMENTS =
+            "SELECT COALESCE(MAX(" + COLUMN_INCREMENTS + "), 0) FROM " + TABLE_QUANTITY_COUNTERS + " WHERE " +
+                    COLUMN_ITEM_UUID + " = ? AND " + COLUMN_DEVICE_ID + " = ?";
+
+    private static final String SQL_SELECT_COMPONENT_DECREMENTS =
+            "SELECT COALESCE(MAX(" + COLUMN_DECREMENTS + "), 0) FROM " + TABLE_QUANTITY_COUNTERS + " WHERE " +
+                    COLUMN_ITEM_UUID + " = ? AND " + COLUMN_DEVICE_ID + " = ?";
+
+    private static final String SQL_INIT_COUNTER =
+            "INSERT OR IGNORE INTO " + TABLE_QUANTITY_COUNTERS + " (" + COLUMN_ITEM_UUID + ", " +
+                    COLUMN_DEVICE_ID + ") VALUES (?, ?)";
+
+    private static final String SQL_ADD_TO_COUNTER =
+            "UPDATE " + TABLE_QUANTITY_COUNTERS + " SET " + COLUMN_INCREMENTS + " = " + COLUMN_INCREMENTS +
+                    " + ?, " + COLUMN_DECREMENTS + " = " + COLUMN_DECREMENTS + " + ? WHERE " +
+                    COLUMN_ITEM_UUID + " = ? AND " + COLUMN_DEVICE_ID + " = ?";
+
+    private static final String SQL_MERGE_COUNTER =
+            "UPDATE " + TABLE_QUANTITY_COUNTERS + " SET " + COLUMN_INCREMENTS + " = MAX(" + COLUMN_INCREMENTS +
+                    ", ?), " + COLUMN_DECREMENTS + " = MAX(" + COLUMN_DECREMENTS + ", ?) WHERE " +
+                    COLUMN_ITEM_UUID + " = ? AND " + COLUMN_DEVICE_ID + " = ?";
+
+    private static final String SQL_MATERIALIZE_QUANTITY =
+            "UPDATE " + TABLE_INVENTORY + " SET " + COLUMN_ITEM_QUANTITY + " = MAX(0, (SELECT COALESCE(SUM(" +
+                    COLUMN_INCREMENTS + " - " + COLUMN_DECREMENTS + "), 0) FROM " + TABLE_QUANTITY_COUNTERS +
+                    " WHERE " + COLUMN_ITEM_UUID + " = ?)) WHERE " + COLUMN_ITEM_UUID + " = ?";
+
+    // Items with changes, local or synced, in a range of change IDs
+    private static final String SQL_SELECT_ITEMS_CHANGED_BETWEEN =
+            "SELECT * FROM " + TABLE_INVENTORY + " WHERE " + COLUMN_ITEM_UUID + " IN (SELECT " +
+                    COLUMN_ITEM_UUID + " FROM " + TABLE_CHANGE_LOG + " WHERE " + COLUMN_CHANGE_ID + " > ? AND " +
+                    COLUMN_CHANGE_ID + " <= ?) ORDER BY " + COLUMN_ITEM_ID;
+
+    // Stock taken out, local or synced, in change log order after the last processed change
+    private static final String SQL_SELECT_USAGE_MOVEMENTS =
+            "SELECT " + COLUMN_CHANGE_ID + ", " + COLUMN_ITEM_UUID + ", " + COLUMN_QUANTITY_DELTA + ", " +
+                    COLUMN_CHANGED_AT + " FROM " + TABLE_CHANGE_LOG + " WHERE " + COLUMN_CHANGE_ID + " > ? AND " +
+                    COLUMN_CHANGE_FIELD + " = '" + COLUMN_ITEM_QUANTITY + "' AND " + COLUMN_QUANTITY_DELTA +
+                    " < 0 ORDER BY " + COLUMN_CHANGE_ID + " LIMIT ?";
+
+    private static final String SQL_SAVE_FORECAST =
+            "INSERT OR REPLACE INTO " + TABLE_ITEM_FORECAST + " (" + COLUMN_ITEM_UUID + ", " +
+                    COLUMN_USAGE_LEVEL + ", " + COLUMN_FIRST_USAGE_AT + ", " + COLUMN_LAST_USAGE_AT + ", " +
+                    COLUMN_REORDER_POINT + ") VALUES (?, ?, ?, ?, ?)";
+
+    private static final String SQL_SELECT_NEW_SAMPLES =
+            "SELECT " + COLUMN_SAMPLE_ID + ", " + COLUMN_ITEM_ID + ", " + COLUMN_SAMPLED_AT + ", " +
+                    COLUMN_ITEM_QUANTITY + " FROM " + TABLE_STOCK_SAMPLES + " WHERE " + COLUMN_SAMPLE_ID +
+                    " > ? ORDER BY " + COLUMN_SAMPLE_ID + " LIMIT ?";
+
+    private static final String SQL_INIT_ROLLUP =
+            "INSERT OR IGNORE INTO " + TABLE_STOCK_ROLLUPS + " (" + COLUMN_ITEM_ID + ", " + COLUMN_RESOLUTION + ", " +
+                    COLUMN_BUCKET_START + ", " + COLUMN_MIN_QUANTITY + ", " + COLUMN_MAX_QUANTITY + ", " +
+                    COLUMN_LAST_QUANTITY + ") VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String SQL_ADD_TO_ROLLUP =
+            "UPDATE " + TABLE_STOCK_ROLLUPS + " SET " + COLUMN_MIN_QUANTITY + " = MIN(" + COLUMN_MIN_QUANTITY +
+                    ", ?), " + COLUMN_MAX_QUANTITY + " = MAX(" + COLUMN_MAX_QUANTITY + ", ?), " +
+                    COLUMN_LAST_QUANTITY + " = ?, " + COLUMN_SAMPLE_COUNT + " = " + COLUMN_SAMPLE_COUNT +
+                    " + ? WHERE " + COLUMN_ITEM_ID + " = ? AND " + COLUMN_RESOLUTION + " = ? AND " +
+                    COLUMN_BUCKET_START + " = ?";
+
+    private static final String SQL_SELECT_LOTS_FEFO =
+            "SELECT " + COLUMN_LOT_ID + ", " + COLUMN_LOT_QUANTITY + " FROM " + TABLE_STOCK_LOTS + " WHERE " +
+                    COLUMN_ITEM_ID + " = ? ORDER BY " + LOT_FEFO_ORDER + ", " + COLUMN_LOT_ID;
+
+    private static final String SQL_TAKE_FROM_LOT =
+            "UPDATE " + TABLE_STOCK_LOTS + " SET " + COLUMN_LOT_QUANTITY + " = " + COLUMN_LOT_QUANTITY +
+                    " - ? WHERE " + COLUMN_LOT_ID + " = ?";
+
+    private static final String SQL_DELETE_LOT =
+            "DELETE FROM " + TABLE_STOCK_LOTS + " WHERE " + COLUMN_LOT_ID + " = ?";
+
+    // A new lot is capped at the item's units not yet in a lot, and skipped if there are none
+    private static final String SQL_INSERT_LOT =
+            "INSERT INTO " + TABLE_STOCK_LOTS + " (" + COLUMN_ITEM_ID + ", " + COLUMN_LOT_NUMBER + ", " +
+                    COLUMN_EXPIRES_AT + ", " + COLUMN_LOT_QUANTITY + ", " + COLUMN_RECEIVED_AT + ") SELECT " +
+                    COLUMN_ITEM_ID + ", ?, ?, units, ? FROM (SELECT " + COLUMN_ITEM_ID + ", MIN(?, " +
+                    COLUMN_ITEM_QUANTITY + " - IFNULL((SELECT SUM(l." + COLUMN_LOT_QUANTITY + ") FROM " +
+                    TABLE_STOCK_LOTS + " l WHERE l." + COLUMN_ITEM_ID + " = i." + COLUMN_ITEM_ID + "), 0)) AS units" +
+                    " FROM " + TABLE_INVENTORY + " i WHERE " + COLUMN_ITEM_ID + " = ? AND " + LIVE_ITEMS +
+                    ") WHERE units > 0";
+
+    // Lots of live items expiring before a cutoff, soonest first; a range of the expiry index
+    static final String SQL_SELECT_EXPIRING_LOTS =
+            "SELECT l." + COLUMN_LOT_ID + ", l." + COLUMN_ITEM_ID + ", i." + COLUMN_ITEM_NAME + ", l." +
+                    COLUMN_LOT_NUMBER + ", l." + COLUMN_EXPIRES_AT + ", l." + COLUMN_LOT_QUANTITY + " FROM " +
+                    TABLE_STOCK_LOTS + " l JOIN " + TABLE_INVENTORY + " i ON i." + COLUMN_ITEM_ID + " = l." +
+                    COLUMN_ITEM_ID + " WHERE l." + COLUMN_EXPIRES_AT + " IS NOT NULL AND l." + COLUMN_EXPIRES_AT +
+                    " < ? AND i." + LIVE_ITEMS + " ORDER BY l." + COLUMN_EXPIRES_AT + ", l." + COLUMN_LOT_ID +
+                    " LIMIT ?";
+
+    private static final String SQL_SAVE_THRESHOLD_POLICY =
+            "INSERT OR REPLACE INTO " + TABLE_THRESHOLD_POLICY + " (" + COLUMN_POLICY_CATEGORY + ", " +
+                    COLUMN_LOW_STOCK_THRESHOLD + ", " + COLUMN_CRITICAL_THRESHOLD + ") VALUES (?, ?, ?)";
+
+    // Items governed by a category's policy; the same expression as the category index
+    private static final String SQL_CATEGORY_POLICY_ITEMS =
+            LIVE_ITEMS + " AND IFNULL(" + COLUMN_ITEM_CATEGORY + ", '') = ?";
+
+    // Items governed by the global policy: those whose category has no policy of its own
+    private static final String SQL_GLOBAL_POLICY_ITEMS =
+            LIVE_ITEMS + " AND IFNULL(" + COLUMN_ITEM_CATEGORY + ", '') NOT IN (SELECT " +
+                    COLUMN_POLICY_CATEGORY + " FROM " + TABLE_THRESHOLD_POLICY + " WHERE " +
+                    COLUMN_POLICY_CATEGORY + " != '')";
+
+    private final StatementCache statementCache = new StatementCache();
+    private final InventoryItemCache itemCache;
+    private final boolean isDefaultDatabase;
+    private String deviceId;
+    private boolean vacuumAfterUpgrade;
 
     public InventoryDatabaseHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        this(context, DATABASE_NAME);
+    }
+
+    /**
+     * Create a helper for a specific database file, e.g. one stock location
+     * @param context Application context
+     * @param databaseName File name of the database to open
+     */
+    public InventoryDatabaseHelper(Context context, String databaseName) {
+        super(context, databaseName, null, DATABASE_VERSION);
+        this.isDefaultDatabase = DATABASE_NAME.equals(databaseName);
+        this.itemCache = InventoryItemCache.forDatabase(databaseName);
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        // Only takes effect before the first table is created; older files switch on upgrade
+        db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+    }
+
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        // VACUUM can't run inside the upgrade transaction, so the step that asked for it
+        // leaves it for here; a failure is not retried, as the upgrade is already committed
+        if (vacuumAfterUpgrade) {
+            vacuumAfterUpgrade = false;
+            Log.d(TAG, "Switching " + getDatabaseName() + " to incremental auto-vacuum");
+            try {
+                db.execSQL("VACUUM");
+            } catch (SQLiteException e) {
+                Log.e(TAG, "Could not switch to incremental auto-vacuum: " + e.getMessage(), e);
+            }
+        }
     }
 
     @Override
@@ -67,15 +598,222 @@ public class InventoryDatabaseHelper extends SQLiteOpenHelper {
         Log.d(TAG, "Creating database tables");
         db.execSQL(CREATE_USER_TABLE);
         db.execSQL(CREATE_INVENTORY_TABLE);
-        insertSampleData(db);
+        db.execSQL(CREATE_CHANGE_LOG_TABLE);
+        db.execSQL(CREATE_CHANGE_LOG_INDEX);
+        db.execSQL(CREATE_SYNC_STATE_TABLE);
+        db.execSQL(CREATE_QUANTITY_COUNTERS_TABLE);
+        db.execSQL(CREATE_ITEM_FORECAST_TABLE);
+        db.execSQL(CREATE_THRESHOLD_POLICY_TABLE);
+        db.execSQL(CREATE_CATEGORY_TOTALS_TABLE);
+        db.execSQL(CREATE_STOCK_SAMPLES_TABLE);
+        db.execSQL(CREATE_STOCK_SAMPLES_INDEX);
+        db.execSQL(CREATE_STOCK_ROLLUPS_TABLE);
+        db.execSQL(CREATE_PURCHASE_ORDERS_TABLE);
+        db.execSQL(CREATE_PURCHASE_ORDERS_INDEX);
+        db.execSQL(CREATE_PURCHASE_ORDER_LINES_TABLE);
+        db.execSQL(CREATE_SUPPLIERS_TABLE);
+        db.execSQL(CREATE_ITEM_SUPPLIERS_TABLE);
+        db.execSQL(CREATE_ITEM_SUPPLIERS_COST_INDEX);
+        db.execSQL(CREATE_ITEM_SUPPLIERS_SUPPLIER_INDEX);
+        db.execSQL(CREATE_STOCK_LOTS_TABLE);
+        db.execSQL(CREATE_STOCK_LOTS_FEFO_INDEX);
+        db.execSQL(CREATE_STOCK_LOTS_EXPIRY_INDEX);
+        createInventoryIndexesAndTriggers(db);
+
+        // Only the default database carries the demo user and sample items
+        if (isDefaultDatabase) {
+            insertSampleData(db);
+        }
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
         Log.d(TAG, "Upgrading database from version " + oldVersion + " to " + newVersion);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_INVENTORY);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_USERS);
-        onCreate(db);
+        // Each step adds what its version introduced; users, items, the change log and the
+        // device ID are kept. SQLiteOpenHelper runs all steps in one transaction.
+
+        // Versions 2 to 11 added inventory columns. ALTER TABLE can't add item_uuid (unique,
+        // random default) or change the item_updated_at default, so the table is rebuilt
+        if (oldVersion < 11) {
+            rebuildInventoryTable(db);
+        }
+        if (oldVersion < 2) {
+            db.execSQL(CREATE_CHANGE_LOG_TABLE);
+            db.execSQL(CREATE_CHANGE_LOG_INDEX);
+            db.execSQL(CREATE_SYNC_STATE_TABLE);
+        }
+        if (oldVersion < 3) {
+            db.execSQL(CREATE_QUANTITY_COUNTERS_TABLE);
+            seedQuantityCounters(db, oldVersion < 2);
+        }
+        // Versions 4 to 6 only changed the inventory table and its indexes and triggers
+        if (oldVersion < 7) {
+            db.execSQL(CREATE_ITEM_FORECAST_TABLE);
+        }
+        if (oldVersion < 8) {
+            db.execSQL(CREATE_THRESHOLD_POLICY_TABLE);
+        }
+        if (oldVersion < 9) {
+            db.execSQL(CREATE_CATEGORY_TOTALS_TABLE);
+            // Files created before incremental auto-vacuum (set in onConfigure) was enabled
+            // only change mode when rebuilt by VACUUM
+            Cursor cursor = db.rawQuery("PRAGMA auto_vacuum", null);
+            vacuumAfterUpgrade = cursor.moveToFirst() && cursor.getInt(0) != AUTO_VACUUM_INCREMENTAL;
+            cursor.close();
+        }
+        if (oldVersion < 10) {
+            db.execSQL(CREATE_STOCK_SAMPLES_TABLE);
+            db.execSQL(CREATE_STOCK_SAMPLES_INDEX);
+            db.execSQL(CREATE_STOCK_ROLLUPS_TABLE);
+        }
+        if (oldVersion < 11) {
+            db.execSQL(CREATE_PURCHASE_ORDERS_TABLE);
+            db.execSQL(CREATE_PURCHASE_ORDERS_INDEX);
+            db.execSQL(CREATE_PURCHASE_ORDER_LINES_TABLE);
+        }
+        if (oldVersion < 12) {
+            db.execSQL(CREATE_SUPPLIERS_TABLE);
+            db.execSQL(CREATE_ITEM_SUPPLIERS_TABLE);
+            db.execSQL(CREATE_ITEM_SUPPLIERS_COST_INDEX);
+            db.execSQL(CREATE_ITEM_SUPPLIERS_SUPPLIER_INDEX);
+        }
+        if (oldVersion < 13) {
+            db.execSQL(CREATE_STOCK_LOTS_TABLE);
+            db.execSQL(CREATE_STOCK_LOTS_FEFO_INDEX);
+            db.execSQL(CREATE_STOCK_LOTS_EXPIRY_INDEX);
+        }
+        if (oldVersion < 15) {
+            // Change watermarks were updated_at timestamps; they become the last change ID
+            // logged at or before that time
+            db.execSQL("UPDATE " + TABLE_SYNC_STATE + " SET " + COLUMN_STATE_VALUE + " = (SELECT IFNULL(MAX(" +
+                    COLUMN_CHANGE_ID + "), 0) FROM " + TABLE_CHANGE_LOG + " WHERE " + COLUMN_CHANGED_AT +
+                    " <= CAST(ROUND((julianday(" + TABLE_SYNC_STATE + "." + COLUMN_STATE_VALUE +
+                    ") - 2440587.5) * 86400000) AS INTEGER)) WHERE " + COLUMN_STATE_KEY + " LIKE '" +
+                    STATE_WATERMARK_PREFIX + "%' AND " + COLUMN_STATE_VALUE + " GLOB '*[^0-9]*'");
+        }
+
+        // Every version up to 15 changed the inventory indexes or triggers; they are replaced
+        // once the tables the triggers write to exist
+        if (oldVersion < 15) {
+            dropInventoryIndexesAndTriggers(db);
+            createInventoryIndexesAndTriggers(db);
+        }
+        // Copying rows into the rebuilt table bypassed the totals triggers
+        if (oldVersion < 11) {
+            rebuildCategoryTotals(db);
+        }
+    }
+
+    /**
+     * Create the indexes and triggers of the inventory table, after every table they use
+     */
+    private void createInventoryIndexesAndTriggers(SQLiteDatabase db) {
+        db.execSQL(CREATE_UPDATED_AT_TRIGGER);
+        for (InventorySortOrder order : InventorySortOrder.values()) {
+            db.execSQL(order.getCreateIndexSql());
+        }
+        db.execSQL(CREATE_TOMBSTONE_INDEX);
+        db.execSQL(CREATE_TOTALS_INSERT_TRIGGER);
+        db.execSQL(CREATE_TOTALS_DELETE_TRIGGER);
+        db.execSQL(CREATE_TOTALS_UPDATE_TRIGGER);
+        db.execSQL(CREATE_SAMPLE_INSERT_TRIGGER);
+        db.execSQL(CREATE_SAMPLE_UPDATE_TRIGGER);
+        db.execSQL(CREATE_HISTORY_DELETE_TRIGGER);
+        db.execSQL(CREATE_ITEM_SUPPLIERS_DELETE_TRIGGER);
+        db.execSQL(CREATE_STOCK_LOTS_DELETE_TRIGGER);
+    }
+
+    /**
+     * Drop the indexes and triggers of the inventory table; its UNIQUE constraint index stays
+     */
+    private void dropInventoryIndexesAndTriggers(SQLiteDatabase db) {
+        Cursor cursor = db.rawQuery("SELECT type, name FROM sqlite_master WHERE tbl_name = ? AND " +
+                "type IN ('index', 'trigger') AND sql IS NOT NULL", new String[]{TABLE_INVENTORY});
+        List<String> statements = new ArrayList<>();
+        while (cursor.moveToNext()) {
+            statements.add("DROP " + cursor.getString(0).toUpperCase(Locale.ROOT) + " " + cursor.getString(1));
+        }
+        cursor.close();
+        for (String sql : statements) {
+            db.execSQL(sql);
+        }
+    }
+
+    /**
+     * Recreate the inventory table in its current form, copying the columns it already has
+     * Rows keep their item IDs and the ID sequence is carried over; missing columns take their
+     * defaults, so every row gets a new item_uuid if it had none. Indexes and triggers are
+     * dropped with the old table.
+     */
+    private void rebuildInventoryTable(SQLiteDatabase db) {
+        String newTable = TABLE_INVENTORY + "_new";
+        db.execSQL(CREATE_INVENTORY_TABLE.replace("CREATE TABLE " + TABLE_INVENTORY + " (",
+                "CREATE TABLE " + newTable + " ("));
+
+        List<String> newColumns = getColumnNames(db, newTable);
+        StringBuilder columns = new StringBuilder();
+        for (String column : getColumnNames(db, TABLE_INVENTORY)) {
+            if (newColumns.contains(column)) {
+                columns.append(columns.length() > 0 ? ", " : "").append(column);
+            }
+        }
+        db.execSQL("INSERT INTO " + newTable + " (" + columns + ") SELECT " + columns + " FROM " + TABLE_INVENTORY);
+
+        Cursor cursor = db.rawQuery("SELECT seq FROM sqlite_sequence WHERE name = ?", new String[]{TABLE_INVENTORY});
+        long sequence = cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        cursor.close();
+
+        db.execSQL("DROP TABLE " + TABLE_INVENTORY);
+        db.execSQL("ALTER TABLE " + newTable + " RENAME TO " + TABLE_INVENTORY);
+        // Purged IDs stay used, so synced and historical references never point at a new item
+        db.execSQL("DELETE FROM sqlite_sequence WHERE name = ?", new Object[]{TABLE_INVENTORY});
+        db.execSQL("INSERT INTO sqlite_sequence (name, seq) VALUES (?, ?)", new Object[]{TABLE_INVENTORY, sequence});
+    }
+
+    private static List<String> getColumnNames(SQLiteDatabase db, String table) {
+        List<String> columns = new ArrayList<>();
+        Cursor cursor = db.rawQuery("PRAGMA table_info(" + table + ")", null);
+        int nameIndex = cursor.getColumnIndexOrThrow("name");
+        while (cursor.moveToNext()) {
+            columns.add(cursor.getString(nameIndex));
+        }
+        cursor.close();
+        return columns;
+    }
+
+    /**
+     * Give items that predate quantity counters their stock as a counter component, logged
+     * for sync like any quantity change, and log their fields too if they predate the change log
+     * The component is not this device's own but one every replica seeds with the same
+     * value, so replicas that already shared an item's stock merge to one copy of it
+     */
+    private void seedQuantityCounters(SQLiteDatabase db, boolean logFields) {
+        Cursor cursor = db.rawQuery("SELECT * FROM " + TABLE_INVENTORY, null);
+        int uuidIndex = cursor.getColumnIndexOrThrow(COLUMN_ITEM_UUID);
+        while (cursor.moveToNext()) {
+            InventoryItem item = cursorToInventoryItem(cursor);
+            if (logFields) {
+                logItemFields(db, item.getId(), item);
+            }
+
+            ContentValues values = new ContentValues();
+            values.put(COLUMN_ITEM_UUID, cursor.getString(uuidIndex));
+            values.put(COLUMN_DEVICE_ID, SEEDED_COUNTER_ID);
+            values.put(COLUMN_INCREMENTS, item.getQuantity());
+            db.insert(TABLE_QUANTITY_COUNTERS, null, values);
+
+            QuantityCounter counter = new QuantityCounter();
+            counter.merge(SEEDED_COUNTER_ID, item.getQuantity(), 0);
+            logChange(db, item.getId(), COLUMN_ITEM_QUANTITY, counter.encodeToString(), 0);
+        }
+        cursor.close();
+    }
+
+    @Override
+    public synchronized void close() {
+        Log.d(TAG, "Item cache stats: " + itemCache.getStats());
+        statementCache.clear();
+        super.close();
     }
 
     /**
@@ -111,6 +849,12 @@ public class InventoryDatabaseHelper extends SQLiteOpenHelper {
         for (String sql : sampleItems) {
             db.execSQL(sql);
         }
+
+        // Sample stock counts as this device's initial increments
+        db.execSQL("INSERT INTO " + TABLE_QUANTITY_COUNTERS + " (" + COLUMN_ITEM_UUID + ", " +
+                        COLUMN_DEVICE_ID + ", " + COLUMN_INCREMENTS + ") SELECT " + COLUMN_ITEM_UUID + ", ?, " +
+                        COLUMN_ITEM_QUANTITY + " FROM " + TABLE_INVENTORY,
+                new Object[]{getDeviceId(db)});
     }
 
     // ======================== USER OPERATIONS ========================
@@ -128,7 +872,6 @@ public class InventoryDatabaseHelper extends SQLiteOpenHelper {
         values.put(COLUMN_PASSWORD, password); // Note: In production, hash this password
 
         long userId = db.insert(TABLE_USERS, null, values);
-        db.close();
 
         Log.d(TAG, "User created with ID: " + userId);
         return userId;
@@ -149,7 +892,6 @@ public class InventoryDatabaseHelper extends SQLiteOpenHelper {
         Cursor cursor = db.query(TABLE_USERS, columns, selection, selectionArgs, null, null, null);
         boolean userExists = cursor.getCount() > 0;
         cursor.close();
-        db.close();
 
         Log.d(TAG, "User verification for " + email + ": " + userExists);
         return userExists;
@@ -169,7 +911,6 @@ public class InventoryDatabaseHelper extends SQLiteOpenHelper {
         Cursor cursor = db.query(TABLE_USERS, columns, selection, selectionArgs, null, null, null);
         boolean exists = cursor.getCount() > 0;
         cursor.close();
-        db.close();
 
         return exists;
     }
@@ -187,12 +928,25 @@ public class InventoryDatabaseHelper extends SQLiteOpenHelper {
         values.put(COLUMN_ITEM_NAME, item.getName());
         values.put(COLUMN_ITEM_DESCRIPTION, item.getDescription());
         values.put(COLUMN_ITEM_CATEGORY, item.getCategory());
-        values.put(COLUMN_ITEM_QUANTITY, item.getQuantity());
         values.put(COLUMN_LOW_STOCK_THRESHOLD, item.getLowStockThreshold());
+        values.put(COLUMN_CRITICAL_THRESHOLD, getCriticalThreshold(db, item));
+        values.put(COLUMN_UNIT_COST, item.getUnitCostCents());
+        values.put(COLUMN_UNIT_PRICE, item.getUnitPriceCents());
         values.put(COLUMN_BARCODE, item.getBarcode());
-
-        long itemId = db.insert(TABLE_INVENTORY, null, values);
-        db.close();
+        values.put(COLUMN_SUPPLIER, item.getSupplier());
+
+        long itemId;
+        db.beginTransaction();
+        try {
+            itemId = db.insert(TABLE_INVENTORY, null, values);
+            if (itemId != -1) {
+                logItemFields(db, itemId, item);
+                changeQuantityLocal(db, itemId, item.getQuantity(), true);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
 
         Log.d(TAG, "Inventory item added with ID: " + itemId);
         return itemId;
@@ -204,7 +958,8 @@ public class InventoryDatabaseHelper extends SQLiteOpenHelper {
      */
     public List<InventoryItem> getAllInventoryItems() {
         List<InventoryItem> itemList = new ArrayList<>();
-        String selectQuery = "SELECT * FROM " + TABLE_INVENTORY + " ORDER BY " + COLUMN_ITEM_NAME;
+        String selectQuery = "SELECT * FROM " + TABLE_INVENTORY + " WHERE " + LIVE_ITEMS +
+                " ORDER BY " + COLUMN_ITEM_NAME;
 
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = db.rawQuery(selectQuery, null);
@@ -212,28 +967,87 @@ public class InventoryDatabaseHelper extends SQLiteOpenHelper {
         if (cursor.moveToFirst()) {
             do {
                 InventoryItem item = cursorToInventoryItem(cursor);
+                itemCache.put(item);
                 itemList.add(item);
             } while (cursor.moveToNext());
         }
 
         cursor.close();
-        db.close();
 
         Log.d(TAG, "Retrieved " + itemList.size() + " inventory items");
         return itemList;
     }
 
+    /**
+     * READ: Append one page of the inventory list to a compact column store
+     * Only the columns a list card shows are read, and descriptions are cut to a short
+     * preview; open an item with getInventoryItem() to get its full row. Pages continue
+     * after the sort key of the previous page, so rows are neither repeated nor skipped
+     * when other rows are added or removed between pages.
+     * @param store Store to append the rows to
+     * @param sortOrder Ordering of the list
+     * @param afterKey Sort key returned for the previous page, or null for the first page
+     * @param pageSize Maximum number of rows to read
+     * @return Sort key of the last row read, or null if the end of the list was reached
+     */
+    public String[] loadInventoryPage(InventoryItemStore store, InventorySortOrder sortOrder,
+                                      String[] afterKey, int pageSize) {
+        long startTime = System.nanoTime();
+        String[] keys = sortOrder.getKeys();
+        StringBuilder selectQuery = new StringBuilder("SELECT " + COLUMN_ITEM_ID + ", " + COLUMN_ITEM_NAME + ", " +
+                "substr(" + COLUMN_ITEM_DESCRIPTION + ", 1, " + DESCRIPTION_PREVIEW_LENGTH + "), " +
+                COLUMN_ITEM_QUANTITY + ", " + COLUMN_LOW_STOCK_THRESHOLD + ", " + COLUMN_CRITICAL_THRESHOLD);
+        for (String key : keys) {
+            selectQuery.append(", ").append(key);
+        }
+        selectQuery.append(" FROM ").append(TABLE_INVENTORY).append(" WHERE ").append(LIVE_ITEMS);
+        if (afterKey != null) {
+            selectQuery.append(" AND ").append(sortOrder.getKeysetCondition(afterKey));
+        }
+        selectQuery.append(" ORDER BY ").append(sortOrder.getOrderBy()).append(" LIMIT ").append(pageSize);
+
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery(selectQuery.toString(),
+                afterKey != null ? sortOrder.getKeysetArgs(afterKey) : null);
+        int rowsRead = 0;
+        String[] lastKey = null;
+        while (cursor.moveToNext()) {
+            store.add(cursor.getLong(0), cursor.getString(1), cursor.getString(2), null,
+                    cursor.getInt(3), cursor.getInt(4), cursor.getInt(5), null);
+            rowsRead++;
+            if (cursor.isLast()) {
+                lastKey = new String[keys.length + 1];
+                for (int i = 0; i < keys.length; i++) {
+                    lastKey[i] = cursor.getString(6 + i);
+                }
+                lastKey[keys.length] = String.valueOf(cursor.getLong(0));
+            }
+        }
+        cursor.close();
+
+        Log.d(TAG, "Loaded " + rowsRead + " inventory list rows by " + sortOrder + " in " +
+                (System.nanoTime() - startTime) / 1000000 + " ms");
+        return rowsRead < pageSize ? null : lastKey;
+    }
+
     /**
      * READ: Get inventory item by ID
+     * Served from the item cache when the item was loaded recently
      * @param itemId The ID of the item to retrieve
      * @return InventoryItem if found, null otherwise
      */
     public InventoryItem getInventoryItem(long itemId) {
+        InventoryItem cached = itemCache.get(itemId);
+        if (cached != null) {
+            return cached;
+        }
+
         SQLiteDatabase db = this.getReadableDatabase();
         String[] columns = {COLUMN_ITEM_ID, COLUMN_ITEM_NAME, COLUMN_ITEM_DESCRIPTION,
-                COLUMN_ITEM_CATEGORY, COLUMN_ITEM_QUANTITY, COLUMN_LOW_STOCK_THRESHOLD,
-                COLUMN_BARCODE, COLUMN_ITEM_CREATED_AT, COLUMN_ITEM_UPDATED_AT};
-        String selection = COLUMN_ITEM_ID + " = ?";
+                COLUMN_ITEM_CATEGORY, COLUMN_ITEM_QUANTITY, COLUMN_LOW_STOCK_THRESHOLD, COLUMN_CRITICAL_THRESHOLD,
+                COLUMN_UNIT_COST, COLUMN_UNIT_PRICE, COLUMN_SUPPLIER, COLUMN_BARCODE, COLUMN_ITEM_CREATED_AT,
+                COLUMN_ITEM_UPDATED_AT, COLUMN_IS_DELETED};
+        String selection = COLUMN_ITEM_ID + " = ? AND " + LIVE_ITEMS;
         String[] selectionArgs = {String.valueOf(itemId)};
 
         Cursor cursor = db.query(TABLE_INVENTORY, columns, selection, selectionArgs, null, null, null);
@@ -241,10 +1055,10 @@ public class InventoryDatabaseHelper extends SQLiteOpenHelper {
         InventoryItem item = null;
         if (cursor.moveToFirst()) {
             item = cursorToInventoryItem(cursor);
+            itemCache.put(item);
         }
 
         cursor.close();
-        db.close();
 
         return item;
     }
@@ -260,15 +1074,29 @@ public class InventoryDatabaseHelper extends SQLiteOpenHelper {
         values.put(COLUMN_ITEM_NAME, item.getName());
         values.put(COLUMN_ITEM_DESCRIPTION, item.getDescription());
         values.put(COLUMN_ITEM_CATEGORY, item.getCategory());
-        values.put(COLUMN_ITEM_QUANTITY, item.getQuantity());
         values.put(COLUMN_LOW_STOCK_THRESHOLD, item.getLowStockThreshold());
+        values.put(COLUMN_CRITICAL_THRESHOLD, getCriticalThreshold(db, item));
+        values.put(COLUMN_UNIT_COST, item.getUnitCostCents());
+        values.put(COLUMN_UNIT_PRICE, item.getUnitPriceCents());
         values.put(COLUMN_BARCODE, item.getBarcode());
+        values.put(COLUMN_SUPPLIER, item.getSupplier());
 
         String whereClause = COLUMN_ITEM_ID + " = ?";
         String[] whereArgs = {String.valueOf(item.getId())};
 
-        int rowsAffected = db.update(TABLE_INVENTORY, values, whereClause, whereArgs);
-        db.close();
+        int rowsAffected;
+        db.beginTransaction();
+        try {
+            rowsAffected = db.update(TABLE_INVENTORY, values, whereClause, whereArgs);
+            if (rowsAffected > 0) {
+                logItemFields(db, item.getId(), item);
+                changeQuantityLocal(db, item.getId(), item.getQuantity(), true);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            itemCache.invalidate(item.getId());
+        }
 
         Log.d(TAG, "Updated inventory item ID " + item.getId() + ", rows affected: " + rowsAffected);
         return rowsAffected;
@@ -282,36 +1110,179 @@ public class InventoryDatabaseHelper extends SQLiteOpenHelper {
      */
     public int updateInventoryQuantity(long itemId, int newQuantity) {
         SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COLUMN_ITEM_QUANTITY, newQuantity);
+        int rowsAffected;
+
+        db.beginTransaction();
+        try {
+            rowsAffected = changeQuantityLocal(db, itemId, newQuantity, true);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            itemCache.invalidate(itemId);
+        }
 
-        String whereClause = COLUMN_ITEM_ID + " = ?";
-        String[] whereArgs = {String.valueOf(itemId)};
+        Log.d(TAG, "Updated quantity for item ID " + itemId + " to " + newQuantity);
+        return rowsAffected;
+    }
 
-        int rowsAffected = db.update(TABLE_INVENTORY, values, whereClause, whereArgs);
-        db.close();
+    /**
+     * UPDATE: Apply a batch of quantity adjustments in a single transaction
+     * Either every adjustment is written or, if any write fails, none of them are
+     * @param quantityDeltas Map of item ID to the amount to add to its quantity
+     * @return Number of rows affected
+     */
+    public int applyQuantityDeltas(Map<Long, Integer> quantityDeltas) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        int rowsAffected = 0;
+
+        db.beginTransaction();
+        try {
+            for (Map.Entry<Long, Integer> entry : quantityDeltas.entrySet()) {
+                rowsAffected += changeQuantityLocal(db, entry.getKey(), entry.getValue(), false);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            for (Long itemId : quantityDeltas.keySet()) {
+                itemCache.invalidate(itemId);
+            }
+        }
 
-        Log.d(TAG, "Updated quantity for item ID " + itemId + " to " + newQuantity);
+        Log.d(TAG, "Applied " + quantityDeltas.size() + " quantity adjustments, rows affected: " + rowsAffected);
         return rowsAffected;
     }
 
     /**
-     * DELETE: Remove an inventory item
+     * DELETE: Mark an inventory item as deleted
+     * The item disappears from every live query but stays in the table as a tombstone,
+     * so it can be brought back with restoreInventoryItem() until purgeDeletedItems()
+     * removes it. The deletion is only synced once the tombstone is purged.
      * @param itemId The ID of the item to delete
      * @return Number of rows affected (should be 1 if successful)
      */
     public int deleteInventoryItem(long itemId) {
         SQLiteDatabase db = this.getWritableDatabase();
-        String whereClause = COLUMN_ITEM_ID + " = ?";
-        String[] whereArgs = {String.valueOf(itemId)};
-
-        int rowsAffected = db.delete(TABLE_INVENTORY, whereClause, whereArgs);
-        db.close();
+        int rowsAffected;
+
+        SQLiteStatement statement = statementCache.get(db, SQL_SOFT_DELETE_ITEM);
+        synchronized (statement) {
+            statement.bindLong(1, System.currentTimeMillis());
+            statement.bindLong(2, itemId);
+            rowsAffected = statement.executeUpdateDelete();
+            statement.clearBindings();
+        }
+        itemCache.invalidate(itemId);
 
         Log.d(TAG, "Deleted inventory item ID " + itemId + ", rows affected: " + rowsAffected);
         return rowsAffected;
     }
 
+    /**
+     * Undo deleteInventoryItem() for an item that has not been purged yet
+     * @param itemId The ID of the deleted item
+     * @return Number of rows affected (0 if the item was already purged)
+     */
+    public int restoreInventoryItem(long itemId) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        int rowsAffected;
+
+        SQLiteStatement statement = statementCache.get(db, SQL_RESTORE_ITEM);
+        synchronized (statement) {
+            statement.bindLong(1, itemId);
+            rowsAffected = statement.executeUpdateDelete();
+            statement.clearBindings();
+        }
+        itemCache.invalidate(itemId);
+
+        Log.d(TAG, "Restored inventory item ID " + itemId + ", rows affected: " + rowsAffected);
+        return rowsAffected;
+    }
+
+    /**
+     * Permanently remove items that were deleted before a cutoff time
+     * Tombstones are removed in batches of one short transaction each, so other writers
+     * are never blocked for long. Each purged item's deletion is logged for sync and its
+     * quantity counters and forecast are dropped with it.
+     * @param deletedBefore Only items deleted before this time (epoch millis) are purged
+     * @param batchSize Maximum number of items removed per transaction
+     * @return IDs of the purged items, e.g. to delete their photos
+     */
+    public List<Long> purgeDeletedItems(long deletedBefore, int batchSize) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        List<Long> purgedIds = new ArrayList<>();
+        String selectQuery = "SELECT " + COLUMN_ITEM_ID + " FROM " + TABLE_INVENTORY +
+                " WHERE " + COLUMN_IS_DELETED + " = 1 AND " + COLUMN_DELETED_AT + " < ? LIMIT " + batchSize;
+
+        while (true) {
+            List<Long> batch = new ArrayList<>();
+            db.beginTransaction();
+            try {
+                Cursor cursor = db.rawQuery(selectQuery, new String[]{String.valueOf(deletedBefore)});
+                while (cursor.moveToNext()) {
+                    batch.add(cursor.getLong(0));
+                }
+                cursor.close();
+
+                for (long itemId : batch) {
+                    logChange(db, itemId, FIELD_DELETED, "1", 0);
+
+                    SQLiteStatement counterStatement = statementCache.get(db, SQL_DELETE_COUNTERS);
+                    synchronized (counterStatement) {
+                        counterStatement.bindLong(1, itemId);
+                        counterStatement.executeUpdateDelete();
+                        counterStatement.clearBindings();
+                    }
+
+                    SQLiteStatement forecastStatement = statementCache.get(db, SQL_DELETE_FORECAST);
+                    synchronized (forecastStatement) {
+                        forecastStatement.bindLong(1, itemId);
+                        forecastStatement.executeUpdateDelete();
+                        forecastStatement.clearBindings();
+                    }
+
+                    SQLiteStatement statement = statementCache.get(db, SQL_DELETE_ITEM);
+                    synchronized (statement) {
+                        statement.bindLong(1, itemId);
+                        statement.executeUpdateDelete();
+                        statement.clearBindings();
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+
+            purgedIds.addAll(batch);
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+
+        Log.d(TAG, "Purged " + purgedIds.size() + " deleted inventory items");
+        return purgedIds;
+    }
+
+    /**
+     * Get the next page of live items in item ID order, for streaming through all items
+     * Each page is a separate short read that seeks the primary key, so a long export
+     * neither holds a read transaction open nor keeps more than one page in memory.
+     * Items read this way bypass the item cache.
+     * @param afterItemId ID of the last item of the previous page, 0 for the first page
+     * @param limit Maximum number of items
+     * @return Items with IDs greater than afterItemId; fewer than limit at the end
+     */
+    public List<InventoryItem> getItemsAfter(long afterItemId, int limit) {
+        List<InventoryItem> items = new ArrayList<>(limit);
+        Cursor cursor = this.getReadableDatabase().rawQuery("SELECT * FROM " + TABLE_INVENTORY +
+                " WHERE " + COLUMN_ITEM_ID + " > ? AND " + LIVE_ITEMS + " ORDER BY " + COLUMN_ITEM_ID + " LIMIT ?",
+                new String[]{String.valueOf(afterItemId), String.valueOf(limit)});
+        while (cursor.moveToNext()) {
+            items.add(cursorToInventoryItem(cursor));
+        }
+        cursor.close();
+        return items;
+    }
+
     /**
      * Get items that are low in stock (quantity <= low stock threshold)
      * @return List of low stock items
@@ -320,7 +1291,7 @@ public class InventoryDatabaseHelper extends SQLiteOpenHelper {
         List<InventoryItem> lowStockItems = new ArrayList<>();
         String selectQuery = "SELECT * FROM " + TABLE_INVENTORY +
                 " WHERE " + COLUMN_ITEM_QUANTITY + " <= " + COLUMN_LOW_STOCK_THRESHOLD +
-                " ORDER BY " + COLUMN_ITEM_QUANTITY;
+                " AND " + LIVE_ITEMS + " ORDER BY " + COLUMN_ITEM_QUANTITY;
 
         SQLiteDatabase db = this.getReadableDatabase();
         Cursor cursor = db.rawQuery(selectQuery, null);
@@ -328,55 +1299,983 @@ public class InventoryDatabaseHelper extends SQLiteOpenHelper {
         if (cursor.moveToFirst()) {
             do {
                 InventoryItem item = cursorToInventoryItem(cursor);
+                itemCache.put(item);
                 lowStockItems.add(item);
             } while (cursor.moveToNext());
         }
 
         cursor.close();
-        db.close();
 
         Log.d(TAG, "Found " + lowStockItems.size() + " low stock items");
         return lowStockItems;
     }
 
+    /**
+     * Get the ID of the latest change log entry, local or synced
+     * Changes are logged in the transaction that makes them and writes are serialized, so
+     * a change committed later always gets a higher ID, unlike its updated_at timestamp.
+     * @return Latest change ID, or 0 if nothing was logged yet
+     */
+    public long getLastChangeId() {
+        Cursor cursor = this.getReadableDatabase().rawQuery(
+                "SELECT MAX(" + COLUMN_CHANGE_ID + ") FROM " + TABLE_CHANGE_LOG, null);
+        long changeId = cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        cursor.close();
+        return changeId;
+    }
+
+    /**
+     * Get items with changes logged after one change ID, up to and including another
+     * Callers read getLastChangeId() first, pass it as upToChangeId and store it as their
+     * watermark afterwards; changes committed in between are left for the next call.
+     * Items are returned in their current state. Deleted items are reported with
+     * isDeleted() set until they are purged; only live items are cached.
+     * @param sinceChangeId Watermark of the last change processed, or 0 for every change
+     * @param upToChangeId Last change ID to include
+     * @return Items changed in the range, in item ID order
+     */
+    public List<InventoryItem> getItemsChangedSince(long sinceChangeId, long upToChangeId) {
+        List<InventoryItem> changedItems = new ArrayList<>();
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery(SQL_SELECT_ITEMS_CHANGED_BETWEEN,
+                new String[]{String.valueOf(sinceChangeId), String.valueOf(upToChangeId)});
+        while (cursor.moveToNext()) {
+            InventoryItem item = cursorToInventoryItem(cursor);
+            if (item.isDeleted()) {
+                itemCache.invalidate(item.getId());
+            } else {
+                itemCache.put(item);
+            }
+            changedItems.add(item);
+        }
+        cursor.close();
+
+        Log.d(TAG, "Found " + changedItems.size() + " items changed after change " + sinceChangeId);
+        return changedItems;
+    }
+
+    /**
+     * Get the last change ID a consumer of getItemsChangedSince() has processed
+     * @param consumer Name of the consumer, e.g. "low_stock_alerts"
+     * @return Stored watermark, or 0 if the consumer has not processed any changes yet
+     */
+    public long getChangeWatermark(String consumer) {
+        String watermark = getSyncState(this.getReadableDatabase(), STATE_WATERMARK_PREFIX + consumer);
+        return watermark != null ? Long.parseLong(watermark) : 0;
+    }
+
+    /**
+     * Remember the last change ID a consumer has processed
+     * @param consumer Name of the consumer
+     * @param changeId upToChangeId of the last getItemsChangedSince() call processed
+     */
+    public void setChangeWatermark(String consumer, long changeId) {
+        setSyncState(this.getWritableDatabase(), STATE_WATERMARK_PREFIX + consumer, String.valueOf(changeId));
+    }
+
     /**
      * Get inventory statistics for dashboard
+     * Read from the category totals, so the cost doesn't grow with the number of items
      * @return Array containing [totalItems, lowStockCount, criticalStockCount]
      */
     public int[] getInventoryStats() {
         SQLiteDatabase db = this.getReadableDatabase();
         int[] stats = new int[3]; // [total, low stock, critical stock]
 
-        // Total items
-        Cursor totalCursor = db.rawQuery("SELECT COUNT(*) FROM " + TABLE_INVENTORY, null);
-        if (totalCursor.moveToFirst()) {
-            stats[0] = totalCursor.getInt(0);
+        Cursor cursor = db.rawQuery("SELECT SUM(" + COLUMN_ITEM_COUNT + "), SUM(" + COLUMN_LOW_STOCK_COUNT +
+                "), SUM(" + COLUMN_CRITICAL_COUNT + ") FROM " + TABLE_CATEGORY_TOTALS, null);
+        if (cursor.moveToFirst()) {
+            for (int i = 0; i < stats.length; i++) {
+                stats[i] = cursor.getInt(i);
+            }
         }
-        totalCursor.close();
+        cursor.close();
+
+        Log.d(TAG, "Inventory stats - Total: " + stats[0] + ", Low: " + stats[1] + ", Critical: " + stats[2]);
+        return stats;
+    }
 
-        // Low stock items (quantity <= threshold but > 0)
-        Cursor lowStockCursor = db.rawQuery(
-                "SELECT COUNT(*) FROM " + TABLE_INVENTORY +
-                        " WHERE " + COLUMN_ITEM_QUANTITY + " <= " + COLUMN_LOW_STOCK_THRESHOLD +
-                        " AND " + COLUMN_ITEM_QUANTITY + " > 0", null);
-        if (lowStockCursor.moveToFirst()) {
-            stats[1] = lowStockCursor.getInt(0);
+    // ======================== VALUATION ========================
+
+    /**
+     * Get stock value and counts per category, largest retail value first
+     * Read from the running totals kept by triggers, so the cost depends only on the
+     * number of categories, not on the number of items
+     * @return Totals of every category that has live items
+     */
+    public List<CategoryTotals> getCategoryTotals() {
+        List<CategoryTotals> totals = new ArrayList<>();
+        Cursor cursor = this.getReadableDatabase().rawQuery(SQL_SELECT_CATEGORY_TOTALS +
+                " ORDER BY " + COLUMN_RETAIL_VALUE + " DESC, " + COLUMN_TOTALS_CATEGORY, null);
+        while (cursor.moveToNext()) {
+            CategoryTotals categoryTotals = new CategoryTotals(cursor.getString(0));
+            categoryTotals.itemCount = cursor.getInt(1);
+            categoryTotals.totalUnits = cursor.getLong(2);
+            categoryTotals.costValueCents = cursor.getLong(3);
+            categoryTotals.retailValueCents = cursor.getLong(4);
+            categoryTotals.lowStockCount = cursor.getInt(5);
+            categoryTotals.criticalCount = cursor.getInt(6);
+            totals.add(categoryTotals);
         }
-        lowStockCursor.close();
+        cursor.close();
+        return totals;
+    }
 
-        // Critical stock items (quantity = 0)
-        Cursor criticalCursor = db.rawQuery(
-                "SELECT COUNT(*) FROM " + TABLE_INVENTORY +
-                        " WHERE " + COLUMN_ITEM_QUANTITY + " = 0", null);
-        if (criticalCursor.moveToFirst()) {
-            stats[2] = criticalCursor.getInt(0);
+    /**
+     * Compare the running category totals with a full recompute over the inventory table
+     * @return Categories whose stored totals differ from the recompute; empty if consistent
+     */
+    public List<String> checkCategoryTotals() {
+        List<String> mismatched = new ArrayList<>();
+        Cursor cursor = this.getReadableDatabase().rawQuery(
+                "SELECT " + COLUMN_TOTALS_CATEGORY + " FROM (" + SQL_RECOMPUTE_CATEGORY_TOTALS +
+                        " EXCEPT " + SQL_SELECT_CATEGORY_TOTALS + ") UNION SELECT " + COLUMN_TOTALS_CATEGORY +
+                        " FROM (" + SQL_SELECT_CATEGORY_TOTALS + " EXCEPT " + SQL_RECOMPUTE_CATEGORY_TOTALS + ")", null);
+        while (cursor.moveToNext()) {
+            mismatched.add(cursor.getString(0));
         }
-        criticalCursor.close();
+        cursor.close();
 
-        db.close();
+        if (!mismatched.isEmpty()) {
+            Log.w(TAG, "Category totals out of date for: " + mismatched);
+        }
+        return mismatched;
+    }
 
-        Log.d(TAG, "Inventory stats - Total: " + stats[0] + ", Low: " + stats[1] + ", Critical: " + stats[2]);
-        return stats;
+    /**
+     * Replace the running category totals with a full recompute
+     */
+    public void rebuildCategoryTotals() {
+        rebuildCategoryTotals(this.getWritableDatabase());
+    }
+
+    private void rebuildCategoryTotals(SQLiteDatabase db) {
+        db.beginTransaction();
+        try {
+            db.delete(TABLE_CATEGORY_TOTALS, null, null);
+            db.execSQL("INSERT INTO " + TABLE_CATEGORY_TOTALS + " " + SQL_RECOMPUTE_CATEGORY_TOTALS);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        Log.d(TAG, "Rebuilt category totals");
+    }
+
+    /**
+     * Trigger statement creating the totals row of a trigger row's category if it is missing
+     * @param row NEW or OLD
+     */
+    private static String ensureCategoryTotals(String row) {
+        return "INSERT OR IGNORE INTO " + TABLE_CATEGORY_TOTALS + " (" + COLUMN_TOTALS_CATEGORY + ") SELECT IFNULL(" +
+                row + "." + COLUMN_ITEM_CATEGORY + ", '') WHERE " + row + "." + COLUMN_IS_DELETED + " = 0; ";
+    }
+
+    /**
+     * Trigger statement adding or removing a live trigger row's share of its category totals
+     * @param row NEW or OLD
+     * @param sign " + " or " - "
+     */
+    private static String addToCategoryTotals(String row, String sign) {
+        String quantity = row + "." + COLUMN_ITEM_QUANTITY;
+        // Same rules as STOCK_STATUS_EXPRESSION, on the trigger row's columns
+        String status = "CASE WHEN " + quantity + " <= " + row + "." + COLUMN_CRITICAL_THRESHOLD + " THEN 0" +
+                " WHEN " + quantity + " <= " + row + "." + COLUMN_LOW_STOCK_THRESHOLD + " THEN 1 ELSE 2 END";
+        return "UPDATE " + TABLE_CATEGORY_TOTALS + " SET " +
+                COLUMN_ITEM_COUNT + " = " + COLUMN_ITEM_COUNT + sign + "1, " +
+                COLUMN_TOTAL_UNITS + " = " + COLUMN_TOTAL_UNITS + sign + quantity + ", " +
+                COLUMN_COST_VALUE + " = " + COLUMN_COST_VALUE + sign + quantity + " * " + row + "." + COLUMN_UNIT_COST + ", " +
+                COLUMN_RETAIL_VALUE + " = " + COLUMN_RETAIL_VALUE + sign + quantity + " * " + row + "." + COLUMN_UNIT_PRICE + ", " +
+                COLUMN_LOW_STOCK_COUNT + " = " + COLUMN_LOW_STOCK_COUNT + sign + "(" + status + " = 1), " +
+                COLUMN_CRITICAL_COUNT + " = " + COLUMN_CRITICAL_COUNT + sign + "(" + status + " = 0)" +
+                " WHERE " + COLUMN_TOTALS_CATEGORY + " = IFNULL(" + row + "." + COLUMN_ITEM_CATEGORY + ", '') AND " +
+                row + "." + COLUMN_IS_DELETED + " = 0; ";
+    }
+
+    // ======================== THRESHOLD POLICY ========================
+
+    /**
+     * Get the stock thresholds that apply to a category
+     * @param category Item category, or null/GLOBAL_POLICY for the global default
+     * @return [lowStockThreshold, criticalThreshold] of the category's policy, else of the
+     *         global policy, or null if neither has been set
+     */
+    public int[] getThresholdPolicy(String category) {
+        return getThresholdPolicy(this.getReadableDatabase(), category);
+    }
+
+    private int[] getThresholdPolicy(SQLiteDatabase db, String category) {
+        String key = category != null ? category : GLOBAL_POLICY;
+        // The category's own row sorts before the global '' row
+        Cursor cursor = db.rawQuery("SELECT " + COLUMN_LOW_STOCK_THRESHOLD + ", " + COLUMN_CRITICAL_THRESHOLD +
+                " FROM " + TABLE_THRESHOLD_POLICY + " WHERE " + COLUMN_POLICY_CATEGORY + " IN (?, '')" +
+                " ORDER BY " + COLUMN_POLICY_CATEGORY + " DESC LIMIT 1", new String[]{key});
+        int[] policy = cursor.moveToFirst() ? new int[]{cursor.getInt(0), cursor.getInt(1)} : null;
+        cursor.close();
+        return policy;
+    }
+
+    /**
+     * Critical threshold for an item being written: set by the policy of its category if any
+     */
+    private int getCriticalThreshold(SQLiteDatabase db, InventoryItem item) {
+        int[] policy = getThresholdPolicy(db, item.getCategory());
+        return policy != null ? policy[1] : item.getCriticalThreshold();
+    }
+
+    /**
+     * Save a threshold policy and apply it to every item it governs
+     * A category policy covers the live items of that category; the global policy covers
+     * the items whose category has no policy of its own. Items are changed by one UPDATE
+     * over the category index rather than item by item, and the low thresholds that change
+     * are logged for sync with one INSERT ... SELECT, all in a single transaction.
+     * @param category Category to set the policy for, or GLOBAL_POLICY for the default
+     * @param lowStockThreshold Quantity at or below which items are low in stock
+     * @param criticalThreshold Quantity at or below which items are critical (capped at the low threshold)
+     * @return Number of items whose thresholds changed
+     */
+    public int applyThresholdPolicy(String category, int lowStockThreshold, int criticalThreshold) {
+        long startTime = System.nanoTime();
+        int low = Math.max(0, lowStockThreshold);
+        int critical = Math.max(0, Math.min(criticalThreshold, low));
+        boolean isGlobal = GLOBAL_POLICY.equals(category);
+        String governed = isGlobal ? SQL_GLOBAL_POLICY_ITEMS : SQL_CATEGORY_POLICY_ITEMS;
+        String changed = " AND (IFNULL(" + COLUMN_LOW_STOCK_THRESHOLD + ", -1) != " + low +
+                " OR " + COLUMN_CRITICAL_THRESHOLD + " != " + critical + ")";
+        String[] args = isGlobal ? null : new String[]{category};
+
+        SQLiteDatabase db = this.getWritableDatabase();
+        String device = getDeviceId(db);
+        int rowsAffected;
+        db.beginTransaction();
+        try {
+            SQLiteStatement saveStatement = statementCache.get(db, SQL_SAVE_THRESHOLD_POLICY);
+            synchronized (saveStatement) {
+                saveStatement.bindString(1, category);
+                saveStatement.bindLong(2, low);
+                saveStatement.bindLong(3, critical);
+                saveStatement.executeInsert();
+                saveStatement.clearBindings();
+            }
+
+            // Only the low threshold is a synced item field; critical levels are a local setting
+            db.execSQL("INSERT INTO " + TABLE_CHANGE_LOG + " (" + COLUMN_ITEM_UUID + ", " +
+                    COLUMN_CHANGE_FIELD + ", " + COLUMN_CHANGE_VALUE + ", " + COLUMN_DEVICE_ID + ", " +
+                    COLUMN_CHANGED_AT + ") SELECT " + COLUMN_ITEM_UUID + ", '" + COLUMN_LOW_STOCK_THRESHOLD +
+                    "', '" + low + "', ?, " + System.currentTimeMillis() + " FROM " + TABLE_INVENTORY +
+                    " WHERE " + governed + " AND IFNULL(" + COLUMN_LOW_STOCK_THRESHOLD + ", -1) != " + low,
+                    isGlobal ? new Object[]{device} : new Object[]{device, category});
+
+            ContentValues values = new ContentValues();
+            values.put(COLUMN_LOW_STOCK_THRESHOLD, low);
+            values.put(COLUMN_CRITICAL_THRESHOLD, critical);
+            rowsAffected = db.update(TABLE_INVENTORY, values, governed + changed, args);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            itemCache.invalidateAll();
+        }
+
+        Log.d(TAG, "Applied thresholds " + low + "/" + critical + " to " + rowsAffected + " items of '" +
+                category + "' in " + (System.nanoTime() - startTime) / 1000000 + " ms");
+        return rowsAffected;
+    }
+
+    /**
+     * Drop every cached item, e.g. after changes were applied directly by the sync engine
+     */
+    void invalidateItemCache() {
+        itemCache.invalidateAll();
+    }
+
+    // ======================== CHANGE LOG ========================
+
+    /**
+     * Get the ID this database uses to tag its own changes, creating it on first use
+     * @return Device ID of this replica
+     */
+    public String getDeviceId() {
+        return getDeviceId(this.getWritableDatabase());
+    }
+
+    private synchronized String getDeviceId(SQLiteDatabase db) {
+        if (deviceId == null) {
+            deviceId = getSyncState(db, STATE_DEVICE_ID);
+            if (deviceId == null) {
+                deviceId = UUID.randomUUID().toString();
+                setSyncState(db, STATE_DEVICE_ID, deviceId);
+            }
+        }
+        return deviceId;
+    }
+
+    /**
+     * Read a value from the sync state table
+     * @param db Database to read from
+     * @param key State key
+     * @return Stored value, or null if not set
+     */
+    static String getSyncState(SQLiteDatabase db, String key) {
+        Cursor cursor = db.query(TABLE_SYNC_STATE, new String[]{COLUMN_STATE_VALUE},
+                COLUMN_STATE_KEY + " = ?", new String[]{key}, null, null, null);
+        String value = cursor.moveToFirst() ? cursor.getString(0) : null;
+        cursor.close();
+        return value;
+    }
+
+    /**
+     * Write a value to the sync state table
+     * @param db Database to write to
+     * @param key State key
+     * @param value Value to store
+     */
+    static void setSyncState(SQLiteDatabase db, String key, String value) {
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_STATE_KEY, key);
+        values.put(COLUMN_STATE_VALUE, value);
+        db.insertWithOnConflict(TABLE_SYNC_STATE, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    /**
+     * Record a local change to one field of an item
+     * Must be called inside the transaction that performs the change
+     */
+    private void logChange(SQLiteDatabase db, long itemId, String field, String value, long quantityDelta) {
+        String device = getDeviceId(db);
+        SQLiteStatement statement = statementCache.get(db, SQL_LOG_CHANGE);
+        synchronized (statement) {
+            statement.bindString(1, field);
+            if (value != null) {
+                statement.bindString(2, value);
+            } else {
+                statement.bindNull(2);
+            }
+            statement.bindLong(3, quantityDelta);
+            statement.bindString(4, device);
+            statement.bindLong(5, System.currentTimeMillis());
+            statement.bindLong(6, itemId);
+            statement.executeInsert();
+            statement.clearBindings();
+        }
+    }
+
+    /**
+     * Record the descriptive fields of an item as changed
+     */
+    private void logItemFields(SQLiteDatabase db, long itemId, InventoryItem item) {
+        logChange(db, itemId, COLUMN_ITEM_NAME, item.getName(), 0);
+        logChange(db, itemId, COLUMN_ITEM_DESCRIPTION, item.getDescription(), 0);
+        logChange(db, itemId, COLUMN_ITEM_CATEGORY, item.getCategory(), 0);
+        logChange(db, itemId, COLUMN_LOW_STOCK_THRESHOLD, String.valueOf(item.getLowStockThreshold()), 0);
+        logChange(db, itemId, COLUMN_UNIT_COST, String.valueOf(item.getUnitCostCents()), 0);
+        logChange(db, itemId, COLUMN_UNIT_PRICE, String.valueOf(item.getUnitPriceCents()), 0);
+        logChange(db, itemId, COLUMN_BARCODE, item.getBarcode(), 0);
+        logChange(db, itemId, COLUMN_SUPPLIER, item.getSupplier(), 0);
+    }
+
+    // ======================== QUANTITY COUNTERS ========================
+
+    /**
+     * Change an item's quantity through this device's quantity counter
+     * This is the only path for local quantity changes: the new quantity is clamped at zero,
+     * the difference is added to this device's counter component, the result is written to
+     * item_quantity and the component is logged for sync. Must be called inside a transaction.
+     * Units taken out are taken from the item's stock lots, first expiry first.
+     * @param amount New quantity if absolute, otherwise the amount to add
+     * @return 1 if the item exists, 0 otherwise
+     */
+    private int changeQuantityLocal(SQLiteDatabase db, long itemId, int amount, boolean absolute) {
+        return changeQuantityLocal(db, itemId, amount, absolute, true);
+    }
+
+    /**
+     * @param consumeLots Whether units taken out are taken from the item's lots; false when
+     *                    the caller already removed them from a specific lot
+     */
+    private int changeQuantityLocal(SQLiteDatabase db, long itemId, int amount, boolean absolute,
+                                    boolean consumeLots) {
+        String device = getDeviceId(db);
+        String uuid;
+        SQLiteStatement uuidStatement = statementCache.get(db, SQL_SELECT_ITEM_UUID);
+        synchronized (uuidStatement) {
+            uuidStatement.bindLong(1, itemId);
+            try {
+                uuid = uuidStatement.simpleQueryForString();
+            } catch (SQLiteDoneException e) {
+                return 0;
+            } finally {
+                uuidStatement.clearBindings();
+            }
+        }
+        int current = (int) queryLong(db, SQL_SELECT_ITEM_QUANTITY, itemId);
+        long counterValue = queryLong(db, SQL_SELECT_COUNTER_VALUE, uuid);
+
+        // Measured against the counter rather than item_quantity, so the result is exactly the
+        // target even if concurrent sales on other devices left the counter below zero
+        int target = Math.max(0, absolute ? amount : current + amount);
+        long counterDelta = target - counterValue;
+        long increments = 0;
+        long decrements = 0;
+        if (counterDelta != 0) {
+            increments = queryLong(db, SQL_SELECT_COMPONENT_INCREMENTS, uuid, device);
+            decrements = queryLong(db, SQL_SELECT_COMPONENT_DECREMENTS, uuid, device);
+
+            SQLiteStatement initStatement = statementCache.get(db, SQL_INIT_COUNTER);
+            synchronized (initStatement) {
+                initStatement.bindString(1, uuid);
+                initStatement.bindString(2, device);
+                initStatement.executeInsert();
+                initStatement.clearBindings();
+            }
+
+            SQLiteStatement statement = statementCache.get(db, SQL_ADD_TO_COUNTER);
+            synchronized (statement) {
+                statement.bindLong(1, Math.max(0, counterDelta));
+                statement.bindLong(2, Math.max(0, -counterDelta));
+                statement.bindString(3, uuid);
+                statement.bindString(4, device);
+                statement.executeUpdateDelete();
+                statement.clearBindings();
+            }
+        }
+
+        if (target != current) {
+            SQLiteStatement statement = statementCache.get(db, SQL_UPDATE_QUANTITY);
+            synchronized (statement) {
+                statement.bindLong(1, target);
+                statement.bindLong(2, itemId);
+                statement.executeUpdateDelete();
+                statement.clearBindings();
+            }
+            if (consumeLots && target < current) {
+                takeFromLots(db, itemId, current - target);
+            }
+        }
+
+        if (counterDelta != 0) {
+            // Ship this device's whole component; receivers merge it idempotently
+            String component = QuantityCounter.encodeReplicaToString(device,
+                    increments + Math.max(0, counterDelta), decrements + Math.max(0, -counterDelta));
+            logChange(db, itemId, COLUMN_ITEM_QUANTITY, component, target - current);
+        }
+        return 1;
+    }
+
+    /**
+     * Run a cached query returning one number
+     * @param arg Bound to the first parameter
+     * @return The first column of the first row
+     */
+    private long queryLong(SQLiteDatabase db, String sql, long arg) {
+        SQLiteStatement statement = statementCache.get(db, sql);
+        synchronized (statement) {
+            statement.bindLong(1, arg);
+            long value = statement.simpleQueryForLong();
+            statement.clearBindings();
+            return value;
+        }
+    }
+
+    /**
+     * Run a cached query returning one number
+     * @param args Bound to the parameters in order
+     * @return The first column of the first row
+     */
+    private long queryLong(SQLiteDatabase db, String sql, String... args) {
+        SQLiteStatement statement = statementCache.get(db, sql);
+        synchronized (statement) {
+            for (int i = 0; i < args.length; i++) {
+                statement.bindString(i + 1, args[i]);
+            }
+            long value = statement.simpleQueryForLong();
+            statement.clearBindings();
+            return value;
+        }
+    }
+
+    /**
+     * Merge a counter received from another replica and rematerialize the item's quantity
+     * Merging is idempotent, so the same state may safely be applied more than once.
+     * Units sold on other devices are taken from this device's lots, first expiry first.
+     * Must be called inside a transaction.
+     * @param db Database to write to
+     * @param uuid Item the counter belongs to
+     * @param remote Counter state received from another device
+     */
+    void mergeQuantityCounter(SQLiteDatabase db, String uuid, QuantityCounter remote) {
+        SQLiteStatement initStatement = statementCache.get(db, SQL_INIT_COUNTER);
+        SQLiteStatement mergeStatement = statementCache.get(db, SQL_MERGE_COUNTER);
+        synchronized (initStatement) {
+            synchronized (mergeStatement) {
+                for (Map.Entry<String, long[]> replica : remote.getReplicas().entrySet()) {
+                    initStatement.bindString(1, uuid);
+                    initStatement.bindString(2, replica.getKey());
+                    initStatement.executeInsert();
+
+                    mergeStatement.bindLong(1, replica.getValue()[0]);
+                    mergeStatement.bindLong(2, replica.getValue()[1]);
+                    mergeStatement.bindString(3, uuid);
+                    mergeStatement.bindString(4, replica.getKey());
+                    mergeStatement.executeUpdateDelete();
+                }
+                initStatement.clearBindings();
+                mergeStatement.clearBindings();
+            }
+        }
+
+        long[] before = queryItemQuantity(db, uuid);
+        SQLiteStatement statement = statementCache.get(db, SQL_MATERIALIZE_QUANTITY);
+        synchronized (statement) {
+            statement.bindString(1, uuid);
+            statement.bindString(2, uuid);
+            statement.executeUpdateDelete();
+            statement.clearBindings();
+        }
+
+        long[] after = queryItemQuantity(db, uuid);
+        if (before != null && after != null && after[1] < before[1]) {
+            takeFromLots(db, after[0], (int) (before[1] - after[1]));
+        }
+    }
+
+    /**
+     * @return Item ID and quantity, or null if there is no item with this UUID
+     */
+    private static long[] queryItemQuantity(SQLiteDatabase db, String uuid) {
+        Cursor cursor = db.rawQuery("SELECT " + COLUMN_ITEM_ID + ", " + COLUMN_ITEM_QUANTITY + " FROM " +
+                TABLE_INVENTORY + " WHERE " + COLUMN_ITEM_UUID + " = ?", new String[]{uuid});
+        long[] quantity = cursor.moveToFirst() ? new long[]{cursor.getLong(0), cursor.getLong(1)} : null;
+        cursor.close();
+        return quantity;
+    }
+
+    // ======================== STOCK LOTS ========================
+
+    /**
+     * Record units already counted in an item's quantity as a lot with an expiry date
+     * The lot is capped at the units not yet in another lot, so the lots of an item never
+     * hold more than its quantity. Add the units to the quantity first, e.g. by saving the
+     * item, then record them here. Lots stay on this device and are not synced.
+     * @param itemId The ID of the item
+     * @param lotNumber Lot or batch number, may be empty
+     * @param expiresAt Expiry time in epoch millis, 0 if the units don't expire
+     * @param quantity Units in the lot
+     * @return ID of the new lot, or -1 if the item has no units outside other lots
+     */
+    public long addStockLot(long itemId, String lotNumber, long expiresAt, int quantity) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        long lotId;
+
+        SQLiteStatement statement = statementCache.get(db, SQL_INSERT_LOT);
+        synchronized (statement) {
+            if (lotNumber == null || lotNumber.isEmpty()) {
+                statement.bindNull(1);
+            } else {
+                statement.bindString(1, lotNumber);
+            }
+            if (expiresAt == 0) {
+                statement.bindNull(2);
+            } else {
+                statement.bindLong(2, expiresAt);
+            }
+            statement.bindLong(3, System.currentTimeMillis());
+            statement.bindLong(4, quantity);
+            statement.bindLong(5, itemId);
+            lotId = statement.executeInsert();
+            statement.clearBindings();
+        }
+
+        Log.d(TAG, "Added lot " + lotId + " of " + quantity + " units to item ID " + itemId);
+        return lotId;
+    }
+
+    /**
+     * Get an item's lots in the order they will be used up
+     * @param itemId The ID of the item
+     * @return Lots, soonest expiry first and lots without expiry last
+     */
+    public List<StockLot> getItemLots(long itemId) {
+        List<StockLot> lots = new ArrayList<>();
+        Cursor cursor = this.getReadableDatabase().rawQuery("SELECT " + COLUMN_LOT_ID + ", " +
+                COLUMN_LOT_NUMBER + ", " + COLUMN_EXPIRES_AT + ", " + COLUMN_LOT_QUANTITY + " FROM " +
+                TABLE_STOCK_LOTS + " WHERE " + COLUMN_ITEM_ID + " = ? ORDER BY " + LOT_FEFO_ORDER + ", " +
+                COLUMN_LOT_ID, new String[]{String.valueOf(itemId)});
+        while (cursor.moveToNext()) {
+            lots.add(new StockLot(cursor.getLong(0), itemId, null, cursor.getString(1),
+                    cursor.isNull(2) ? 0 : cursor.getLong(2), cursor.getInt(3)));
+        }
+        cursor.close();
+        return lots;
+    }
+
+    /**
+     * Get the lots of live items that expire before a cutoff, including expired ones
+     * Reads one range of the expiry index, so the cost follows the number of lots
+     * returned rather than the number of lots stored.
+     * @param expiresBefore Cutoff in epoch millis, e.g. now plus the alert window
+     * @param limit Maximum number of lots returned
+     * @return Lots with their item names, soonest expiry first
+     */
+    public List<StockLot> getExpiringLots(long expiresBefore, int limit) {
+        long startTime = System.nanoTime();
+        List<StockLot> lots = new ArrayList<>();
+        Cursor cursor = this.getReadableDatabase().rawQuery(SQL_SELECT_EXPIRING_LOTS,
+                new String[]{String.valueOf(expiresBefore), String.valueOf(limit)});
+        while (cursor.moveToNext()) {
+            lots.add(new StockLot(cursor.getLong(0), cursor.getLong(1), cursor.getString(2), cursor.getString(3),
+                    cursor.getLong(4), cursor.getInt(5)));
+        }
+        cursor.close();
+        Log.d(TAG, "Found " + lots.size() + " expiring lots in " + (System.nanoTime() - startTime) / 1000 + " us");
+        return lots;
+    }
+
+    /**
+     * Write off a whole lot, e.g. once it has expired
+     * The lot's units are taken out of the item's quantity like any other stock movement.
+     * @param lotId The ID of the lot
+     * @return Units written off, 0 if the lot no longer exists
+     */
+    public int discardLot(long lotId) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        long itemId = -1;
+        int units = 0;
+
+        db.beginTransaction();
+        try {
+            Cursor cursor = db.rawQuery("SELECT " + COLUMN_ITEM_ID + ", " + COLUMN_LOT_QUANTITY + " FROM " +
+                    TABLE_STOCK_LOTS + " WHERE " + COLUMN_LOT_ID + " = ?", new String[]{String.valueOf(lotId)});
+            if (cursor.moveToFirst()) {
+                itemId = cursor.getLong(0);
+                units = cursor.getInt(1);
+            }
+            cursor.close();
+
+            if (itemId != -1) {
+                db.delete(TABLE_STOCK_LOTS, COLUMN_LOT_ID + " = ?", new String[]{String.valueOf(lotId)});
+                changeQuantityLocal(db, itemId, -units, false, false);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            if (itemId != -1) {
+                itemCache.invalidate(itemId);
+            }
+        }
+
+        Log.d(TAG, "Discarded lot " + lotId + " with " + units + " units");
+        return units;
+    }
+
+    /**
+     * Take units out of an item's lots, first expiry first
+     * Walks the item's range of the FEFO index and stops at the first lot that covers the
+     * rest; emptied lots are deleted. Units beyond the lots come out of untracked stock.
+     * Must be called inside a transaction.
+     */
+    private void takeFromLots(SQLiteDatabase db, long itemId, int units) {
+        Cursor cursor = db.rawQuery(SQL_SELECT_LOTS_FEFO, new String[]{String.valueOf(itemId)});
+        try {
+            while (units > 0 && cursor.moveToNext()) {
+                long lotId = cursor.getLong(0);
+                int lotQuantity = cursor.getInt(1);
+                if (lotQuantity <= units) {
+                    SQLiteStatement statement = statementCache.get(db, SQL_DELETE_LOT);
+                    synchronized (statement) {
+                        statement.bindLong(1, lotId);
+                        statement.executeUpdateDelete();
+                        statement.clearBindings();
+                    }
+                } else {
+                    SQLiteStatement statement = statementCache.get(db, SQL_TAKE_FROM_LOT);
+                    synchronized (statement) {
+                        statement.bindLong(1, units);
+                        statement.bindLong(2, lotId);
+                        statement.executeUpdateDelete();
+                        statement.clearBindings();
+                    }
+                }
+                units -= Math.min(units, lotQuantity);
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // ======================== DEMAND FORECASTS ========================
+
+    /**
+     * Fold stock movements logged since the last run into the item forecasts
+     * Only new change log entries are read, and each movement updates its item's
+     * smoothed usage in constant time. Each batch and the position reached are saved
+     * in one transaction, so an interrupted run continues where it stopped.
+     * @param batchSize Maximum number of movements processed per transaction
+     * @return Number of movements processed
+     */
+    public int updateForecasts(int batchSize) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        long now = System.currentTimeMillis();
+        int processed = 0;
+
+        while (true) {
+            int batchCount = 0;
+            db.beginTransaction();
+            try {
+                String lastChangeId = getSyncState(db, STATE_FORECAST_CHANGE_ID);
+                Cursor cursor = db.rawQuery(SQL_SELECT_USAGE_MOVEMENTS, new String[]{
+                        lastChangeId != null ? lastChangeId : "0", String.valueOf(batchSize)});
+
+                Map<String, DemandForecaster.Forecast> forecasts = new HashMap<>();
+                long changeId = 0;
+                while (cursor.moveToNext()) {
+                    changeId = cursor.getLong(0);
+                    String uuid = cursor.getString(1);
+                    DemandForecaster.Forecast forecast = forecasts.get(uuid);
+                    if (forecast == null) {
+                        forecast = loadForecast(db, uuid);
+                        forecasts.put(uuid, forecast);
+                    }
+                    DemandForecaster.recordUsage(forecast, -cursor.getLong(2), cursor.getLong(3));
+                    batchCount++;
+                }
+                cursor.close();
+
+                if (batchCount > 0) {
+                    SQLiteStatement statement = statementCache.get(db, SQL_SAVE_FORECAST);
+                    synchronized (statement) {
+                        for (Map.Entry<String, DemandForecaster.Forecast> entry : forecasts.entrySet()) {
+                            DemandForecaster.Forecast forecast = entry.getValue();
+                            statement.bindString(1, entry.getKey());
+                            statement.bindDouble(2, forecast.usageLevel);
+                            statement.bindLong(3, forecast.firstUsageAt);
+                            statement.bindLong(4, forecast.lastUsageAt);
+                            statement.bindLong(5, forecast.getReorderPoint(now));
+                            statement.executeInsert();
+                        }
+                        statement.clearBindings();
+                    }
+                    setSyncState(db, STATE_FORECAST_CHANGE_ID, String.valueOf(changeId));
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+
+            processed += batchCount;
+            if (batchCount < batchSize) {
+                break;
+            }
+        }
+
+        Log.d(TAG, "Updated forecasts from " + processed + " stock movements");
+        return processed;
+    }
+
+    /**
+     * Get the usage forecast of an item
+     * @param itemId The ID of the item
+     * @return Forecast, or null if no stock has been taken out of the item yet
+     */
+    public DemandForecaster.Forecast getItemForecast(long itemId) {
+        SQLiteDatabase db = this.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT " + COLUMN_ITEM_UUID + " FROM " + TABLE_INVENTORY +
+                " WHERE " + COLUMN_ITEM_ID + " = ?", new String[]{String.valueOf(itemId)});
+        String uuid = cursor.moveToFirst() ? cursor.getString(0) : null;
+        cursor.close();
+        if (uuid == null) {
+            return null;
+        }
+
+        DemandForecaster.Forecast forecast = loadForecast(db, uuid);
+        return forecast.firstUsageAt != 0 ? forecast : null;
+    }
+
+    private DemandForecaster.Forecast loadForecast(SQLiteDatabase db, String uuid) {
+        DemandForecaster.Forecast forecast = new DemandForecaster.Forecast();
+        Cursor cursor = db.query(TABLE_ITEM_FORECAST,
+                new String[]{COLUMN_USAGE_LEVEL, COLUMN_FIRST_USAGE_AT, COLUMN_LAST_USAGE_AT},
+                COLUMN_ITEM_UUID + " = ?", new String[]{uuid}, null, null, null);
+        if (cursor.moveToFirst()) {
+            forecast.usageLevel = cursor.getDouble(0);
+            forecast.firstUsageAt = cursor.getLong(1);
+            forecast.lastUsageAt = cursor.getLong(2);
+        }
+        cursor.close();
+        return forecast;
+    }
+
+    // ======================== STOCK HISTORY ========================
+
+    /**
+     * Fold stock samples recorded since the last run into the hourly and daily rollups,
+     * then drop history that is past its retention
+     * Each sample is read once and updates one bucket per resolution, so the cost follows
+     * the number of new samples, not the length of the history. Each batch and the position
+     * reached are saved in one transaction, so an interrupted run continues where it stopped.
+     * @param batchSize Maximum number of samples processed per transaction
+     * @return Number of samples processed
+     */
+    public int rollUpStockHistory(int batchSize) {
+        SQLiteDatabase db = this.getWritableDatabase();
+        int processed = 0;
+
+        while (true) {
+            int batchCount = 0;
+            db.beginTransaction();
+            try {
+                String lastSampleId = getSyncState(db, STATE_HISTORY_SAMPLE_ID);
+                Cursor cursor = db.rawQuery(SQL_SELECT_NEW_SAMPLES, new String[]{
+                        lastSampleId != null ? lastSampleId : "0", String.valueOf(batchSize)});
+
+                // Buckets touched by this batch: [itemId, resolution, bucketStart, min, max, last, count]
+                Map<String, long[]> buckets = new LinkedHashMap<>();
+                long sampleId = 0;
+                while (cursor.moveToNext()) {
+                    sampleId = cursor.getLong(0);
+                    long itemId = cursor.getLong(1);
+                    long sampledAt = cursor.getLong(2);
+                    long quantity = cursor.getLong(3);
+                    for (int resolution : new int[]{StockHistory.RESOLUTION_HOURLY, StockHistory.RESOLUTION_DAILY}) {
+                        long bucketStart = StockHistory.bucketStart(resolution, sampledAt);
+                        String key = itemId + ":" + resolution + ":" + bucketStart;
+                        long[] bucket = buckets.get(key);
+                        if (bucket == null) {
+                            buckets.put(key, new long[]{itemId, resolution, bucketStart,
+                                    quantity, quantity, quantity, 1});
+                        } else {
+                            bucket[3] = Math.min(bucket[3], quantity);
+                            bucket[4] = Math.max(bucket[4], quantity);
+                            bucket[5] = quantity;
+                            bucket[6]++;
+                        }
+                    }
+                    batchCount++;
+                }
+                cursor.close();
+
+                if (batchCount > 0) {
+                    for (long[] bucket : buckets.values()) {
+                        addToRollup(db, bucket);
+                    }
+                    setSyncState(db, STATE_HISTORY_SAMPLE_ID, String.valueOf(sampleId));
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+
+            processed += batchCount;
+            if (batchCount < batchSize) {
+                break;
+            }
+        }
+
+        applyHistoryRetention(db);
+        Log.d(TAG, "Rolled up " + processed + " stock samples");
+        return processed;
+    }
+
+    /**
+     * Merge one bucket of new samples into the stored rollup
+     * @param bucket [itemId, resolution, bucketStart, min, max, last, count]
+     */
+    private void addToRollup(SQLiteDatabase db, long[] bucket) {
+        SQLiteStatement init = statementCache.get(db, SQL_INIT_ROLLUP);
+        synchronized (init) {
+            for (int i = 0; i < 6; i++) {
+                init.bindLong(i + 1, bucket[i]);
+            }
+            init.executeInsert();
+            init.clearBindings();
+        }
+
+        SQLiteStatement add = statementCache.get(db, SQL_ADD_TO_ROLLUP);
+        synchronized (add) {
+            add.bindLong(1, bucket[3]);
+            add.bindLong(2, bucket[4]);
+            add.bindLong(3, bucket[5]);
+            add.bindLong(4, bucket[6]);
+            add.bindLong(5, bucket[0]);
+            add.bindLong(6, bucket[1]);
+            add.bindLong(7, bucket[2]);
+            add.executeUpdateDelete();
+            add.clearBindings();
+        }
+    }
+
+    /**
+     * Delete rolled-up raw samples and rollups older than their resolution is kept for
+     */
+    private void applyHistoryRetention(SQLiteDatabase db) {
+        long now = System.currentTimeMillis();
+        String lastSampleId = getSyncState(db, STATE_HISTORY_SAMPLE_ID);
+        int samples = db.delete(TABLE_STOCK_SAMPLES, COLUMN_SAMPLE_ID + " <= ? AND " + COLUMN_SAMPLED_AT + " < ?",
+                new String[]{lastSampleId != null ? lastSampleId : "0",
+                        String.valueOf(now - StockHistory.RAW_RETENTION_MILLIS)});
+        int hourly = db.delete(TABLE_STOCK_ROLLUPS, COLUMN_RESOLUTION + " = ? AND " + COLUMN_BUCKET_START + " < ?",
+                new String[]{String.valueOf(StockHistory.RESOLUTION_HOURLY),
+                        String.valueOf(now - StockHistory.HOURLY_RETENTION_MILLIS)});
+        int daily = db.delete(TABLE_STOCK_ROLLUPS, COLUMN_RESOLUTION + " = ? AND " + COLUMN_BUCKET_START + " < ?",
+                new String[]{String.valueOf(StockHistory.RESOLUTION_DAILY),
+                        String.valueOf(now - StockHistory.DAILY_RETENTION_MILLIS)});
+        Log.d(TAG, "History retention removed " + samples + " samples, " + hourly + " hourly and " +
+                daily + " daily buckets");
+    }
+
+    /**
+     * Get an item's stock levels over a time range for charting
+     * Reads one range of the rollup table's primary key; the resolution is picked from the
+     * length of the range, so a year comes back as about 365 daily points.
+     * The item's samples taken since the last roll-up are folded in from the samples index,
+     * so the latest changes show without rolling up every item.
+     * @param itemId The ID of the item
+     * @param from Range start in epoch millis, inclusive
+     * @param to Range end in epoch millis, exclusive
+     * @return Points in time order
+     */
+    public List<StockHistory.Point> getStockHistory(long itemId, long from, long to) {
+        int resolution = StockHistory.resolutionFor(from, to);
+        long rangeStart = StockHistory.bucketStart(resolution, from);
+        SQLiteDatabase db = this.getReadableDatabase();
+        // Points by bucket start
+        TreeMap<Long, StockHistory.Point> points = new TreeMap<>();
+        Cursor cursor = db.rawQuery("SELECT " + COLUMN_BUCKET_START + ", " +
+                COLUMN_MIN_QUANTITY + ", " + COLUMN_MAX_QUANTITY + ", " + COLUMN_LAST_QUANTITY + " FROM " +
+                TABLE_STOCK_ROLLUPS + " WHERE " + COLUMN_ITEM_ID + " = ? AND " + COLUMN_RESOLUTION + " = ? AND " +
+                COLUMN_BUCKET_START + " >= ? AND " + COLUMN_BUCKET_START + " < ? ORDER BY " + COLUMN_BUCKET_START,
+                new String[]{String.valueOf(itemId), String.valueOf(resolution),
+                        String.valueOf(rangeStart), String.valueOf(to)});
+        while (cursor.moveToNext()) {
+            points.put(cursor.getLong(0),
+                    new StockHistory.Point(cursor.getLong(0), cursor.getInt(1), cursor.getInt(2), cursor.getInt(3)));
+        }
+        cursor.close();
+
+        String lastSampleId = getSyncState(db, STATE_HISTORY_SAMPLE_ID);
+        Cursor samples = db.rawQuery("SELECT " + COLUMN_SAMPLED_AT + ", " + COLUMN_ITEM_QUANTITY + " FROM " +
+                TABLE_STOCK_SAMPLES + " WHERE " + COLUMN_ITEM_ID + " = ? AND " + COLUMN_SAMPLE_ID + " > ? AND " +
+                COLUMN_SAMPLED_AT + " >= ? AND " + COLUMN_SAMPLED_AT + " < ? ORDER BY " + COLUMN_SAMPLE_ID,
+                new String[]{String.valueOf(itemId), lastSampleId != null ? lastSampleId : "0",
+                        String.valueOf(rangeStart), String.valueOf(to)});
+        while (samples.moveToNext()) {
+            long bucketStart = StockHistory.bucketStart(resolution, samples.getLong(0));
+            int quantity = samples.getInt(1);
+            StockHistory.Point point = points.get(bucketStart);
+            points.put(bucketStart, point == null
+                    ? new StockHistory.Point(bucketStart, quantity, quantity, quantity)
+                    : new StockHistory.Point(bucketStart, Math.min(point.minQuantity, quantity),
+                            Math.max(point.maxQuantity, quantity), quantity));
+        }
+        samples.close();
+        return new ArrayList<>(points.values());
+    }
+
+    /**
+     * Trigger statement sampling the quantity of the NEW row
+     */
+    private static String insertStockSample() {
+        return "INSERT INTO " + TABLE_STOCK_SAMPLES + " (" + COLUMN_ITEM_ID + ", " + COLUMN_SAMPLED_AT + ", " +
+                COLUMN_ITEM_QUANTITY + ") VALUES (NEW." + COLUMN_ITEM_ID + ", " + EPOCH_MILLIS_NOW + ", NEW." +
+                COLUMN_ITEM_QUANTITY + ");";
     }
 
     /**
@@ -392,7 +2291,13 @@ public class InventoryDatabaseHelper extends SQLiteOpenHelper {
         item.setCategory(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_ITEM_CATEGORY)));
         item.setQuantity(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_ITEM_QUANTITY)));
         item.setLowStockThreshold(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_LOW_STOCK_THRESHOLD)));
+        item.setCriticalThreshold(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_CRITICAL_THRESHOLD)));
+        item.setUnitCostCents(cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_UNIT_COST)));
+        item.setUnitPriceCents(cursor.getLong(cursor.getColumnIndexOrThrow(COLUMN_UNIT_PRICE)));
         item.setBarcode(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_BARCODE)));
+        item.setSupplier(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_SUPPLIER)));
+        item.setUpdatedAt(cursor.getString(cursor.getColumnIndexOrThrow(COLUMN_ITEM_UPDATED_AT)));
+        item.setDeleted(cursor.getInt(cursor.getColumnIndexOrThrow(COLUMN_IS_DELETED)) != 0);
         return item;
     }
 }
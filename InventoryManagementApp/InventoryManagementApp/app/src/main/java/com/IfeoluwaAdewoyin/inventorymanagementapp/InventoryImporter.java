@@ -0,0 +1,585 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Imports inventory items from a CSV file, e.g. a spreadsheet saved as CSV
+ * The file is streamed: the calling thread splits it into records a chunk at a time
+ * and hands each chunk to a ForkJoinPool to be parsed and validated, keeping at most
+ * MAX_CHUNKS_IN_FLIGHT chunks ahead of the writer, so memory stays bounded however
+ * large the file is. The calling thread is the only writer: it takes the chunks in
+ * file order, matches each row against the catalog by barcode or name through a hash
+ * index, and commits one transaction per chunk.
+ * Rows that match an existing item update it, so importing the same file twice does
+ * not create duplicates and an interrupted import can simply be run again.
+ */
+public class InventoryImporter {
+
+    private static final String TAG = "InventoryImporter";
+    // Rows written per transaction, and rows a parse task handles without forking
+    private static final int CHUNK_SIZE = 1000;
+    private static final int PARSE_GRAIN = 250;
+    private static final int MAX_REPORTED_ERRORS = 200;
+    // Chunks read and being parsed ahead of the one being written
+    private static final int MAX_CHUNKS_IN_FLIGHT = 4;
+
+    // Columns, by normalized header name; the export's headers are included
+    static final int COLUMN_NAME = 0;
+    static final int COLUMN_DESCRIPTION = 1;
+    static final int COLUMN_CATEGORY = 2;
+    static final int COLUMN_QUANTITY = 3;
+    static final int COLUMN_THRESHOLD = 4;
+    static final int COLUMN_BARCODE = 5;
+    static final int COLUMN_UNIT_COST = 6;
+    static final int COLUMN_UNIT_PRICE = 7;
+    static final int COLUMN_SUPPLIER = 8;
+    static final String[] COLUMN_LABELS = {"Name", "Description", "Category", "Quantity",
+            "Low Stock Threshold", "Barcode", "Unit Cost", "Unit Price", "Supplier"};
+    private static final Map<String, Integer> HEADER_ALIASES = new HashMap<>();
+
+    static {
+        for (int i = 0; i < COLUMN_LABELS.length; i++) {
+            HEADER_ALIASES.put(normalizeHeader(COLUMN_LABELS[i]), i);
+        }
+        HEADER_ALIASES.put("productname", COLUMN_NAME);
+        HEADER_ALIASES.put("item", COLUMN_NAME);
+        HEADER_ALIASES.put("qty", COLUMN_QUANTITY);
+        HEADER_ALIASES.put("threshold", COLUMN_THRESHOLD);
+        HEADER_ALIASES.put("lowstockalert", COLUMN_THRESHOLD);
+        HEADER_ALIASES.put("sku", COLUMN_BARCODE);
+        HEADER_ALIASES.put("barcodesku", COLUMN_BARCODE);
+        HEADER_ALIASES.put("cost", COLUMN_UNIT_COST);
+        HEADER_ALIASES.put("price", COLUMN_UNIT_PRICE);
+        HEADER_ALIASES.put("vendor", COLUMN_SUPPLIER);
+    }
+
+    /**
+     * A row that could not be imported
+     */
+    public static class RowError {
+        final int row;
+        final String message;
+
+        RowError(int row, String message) {
+            this.row = row;
+            this.message = message;
+        }
+
+        /**
+         * Get the row number as a spreadsheet shows it, the header being row 1
+         */
+        public int getRow() {
+            return row;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+
+    /**
+     * Counts and errors of one import
+     */
+    public static class ImportResult {
+        int rowsRead;
+        int inserted;
+        int updated;
+        int failed;
+        long elapsedMs;
+        final List<RowError> errors = new ArrayList<>();
+
+        public int getRowsRead() {
+            return rowsRead;
+        }
+
+        public int getInserted() {
+            return inserted;
+        }
+
+        public int getUpdated() {
+            return updated;
+        }
+
+        /**
+         * Get the number of rows skipped for invalid values or as duplicates within the file
+         */
+        public int getFailed() {
+            return failed;
+        }
+
+        /**
+         * Get the first rows that failed, at most MAX_REPORTED_ERRORS
+         */
+        public List<RowError> getErrors() {
+            return errors;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedMs > 0 ? rowsRead * 1000.0 / elapsedMs : rowsRead;
+        }
+
+        @Override
+        public String toString() {
+            return "ImportResult{" +
+                    "rowsRead=" + rowsRead +
+                    ", inserted=" + inserted +
+                    ", updated=" + updated +
+                    ", failed=" + failed +
+                    ", elapsedMs=" + elapsedMs +
+                    '}';
+        }
+    }
+
+    /**
+     * One data row after parsing and validation
+     */
+    static class ParsedRow {
+        final int row;
+        final InventoryItem item;
+        final String error;
+
+        ParsedRow(int row, InventoryItem item, String error) {
+            this.row = row;
+            this.item = item;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Parses and validates a range of records, splitting it in halves down to PARSE_GRAIN
+     */
+    static class ParseTask extends RecursiveTask<List<ParsedRow>> {
+        private final List<String> records;
+        private final int firstRow;
+        private final int[] columns;
+        private final int from;
+        private final int to;
+
+        /**
+         * @param records Records of one chunk
+         * @param firstRow Spreadsheet row number of the chunk's first record
+         */
+        ParseTask(List<String> records, int firstRow, int[] columns, int from, int to) {
+            this.records = records;
+            this.firstRow = firstRow;
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<ParsedRow> compute() {
+            if (to - from > PARSE_GRAIN) {
+                int middle = (from + to) >>> 1;
+                ParseTask second = new ParseTask(records, firstRow, columns, middle, to);
+                second.fork();
+                List<ParsedRow> rows = new ParseTask(records, firstRow, columns, from, middle).compute();
+                rows.addAll(second.join());
+                return rows;
+            }
+
+            List<ParsedRow> rows = new ArrayList<>(to - from);
+            for (int i = from; i < to; i++) {
+                rows.add(parseRow(firstRow + i, parseFields(records.get(i)), columns));
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Splits CSV text into records one at a time, without parsing their fields
+     * Line breaks inside quoted fields stay part of the record; blank lines are skipped.
+     * A leading byte order mark, as written by spreadsheet apps, is dropped.
+     */
+    static class RecordReader {
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder record = new StringBuilder();
+        private int position;
+        private int limit;
+        private boolean first = true;
+
+        RecordReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * @return Next raw record, or null at the end of the text
+         */
+        String next() throws IOException {
+            boolean quoted = false;
+            while (true) {
+                if (position == limit) {
+                    limit = reader.read(buffer);
+                    position = 0;
+                    if (limit == -1) {
+                        limit = 0;
+                        break;
+                    }
+                    if (first && limit > 0 && buffer[0] == '\uFEFF') {
+                        position = 1;
+                    }
+                    first = false;
+                }
+                char c = buffer[position++];
+                if (c == '"') {
+                    quoted = !quoted;
+                } else if (!quoted && (c == '\n' || c == '\r')) {
+                    if (record.length() > 0) {
+                        return take();
+                    }
+                    continue;
+                }
+                record.append(c);
+            }
+            return record.length() > 0 ? take() : null;
+        }
+
+        private String take() {
+            String value = record.toString();
+            record.setLength(0);
+            return value;
+        }
+    }
+
+    private volatile boolean cancelled;
+    private ItemPipeline.ProgressListener progressListener;
+
+    private final InventoryDatabaseHelper databaseHelper;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param databaseHelper Helper of the location to import into
+     */
+    public InventoryImporter(InventoryDatabaseHelper databaseHelper) {
+        this(databaseHelper, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param databaseHelper Helper of the location to import into
+     * @param pool Pool that parses and validates rows, e.g. one sized for a benchmark
+     */
+    InventoryImporter(InventoryDatabaseHelper databaseHelper, ForkJoinPool pool) {
+        this.databaseHelper = databaseHelper;
+        this.pool = pool;
+    }
+
+    /**
+     * Set a listener told the number of rows written after each chunk
+     * Called on the importing thread; the total is always -1 as the file is streamed
+     * @param progressListener Listener, or null
+     */
+    public void setProgressListener(ItemPipeline.ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Stop a running import after the chunk being written; safe to call from any thread
+     * Chunks already committed stay imported, and running the file again updates them.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Import every row of a CSV file whose first row names the columns
+     * Must not be called on the main thread
+     * @param in CSV data, UTF-8; it is not closed
+     * @return Counts and per-row errors
+     * @throws IOException if the data can't be read or has no usable header
+     * @throws CancellationException if cancel() was called
+     */
+    public ImportResult importCsv(InputStream in) throws IOException {
+        long startTime = System.nanoTime();
+        RecordReader records = new RecordReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        String header = records.next();
+        if (header == null) {
+            throw new IOException("The file is empty");
+        }
+        int[] columns = mapColumns(parseFields(header));
+        if (columns[COLUMN_NAME] < 0 || columns[COLUMN_QUANTITY] < 0) {
+            throw new IOException("The first row must name at least the Name and Quantity columns");
+        }
+
+        // Parse ahead in parallel while this thread writes the chunks in file order
+        ArrayDeque<ForkJoinTask<List<ParsedRow>>> chunks = new ArrayDeque<>();
+        ImportResult result = new ImportResult();
+        Map<String, Long> catalog = loadCatalogIndex();
+        Map<String, Integer> rowsByKey = new HashMap<>();
+        SQLiteDatabase db = databaseHelper.getWritableDatabase();
+        // The header is spreadsheet row 1
+        int nextRow = 2;
+        boolean endOfFile = false;
+        try {
+            while (true) {
+                while (!endOfFile && chunks.size() < MAX_CHUNKS_IN_FLIGHT) {
+                    List<String> chunk = readChunk(records);
+                    endOfFile = chunk.size() < CHUNK_SIZE;
+                    if (!chunk.isEmpty()) {
+                        chunks.add(pool.submit(new ParseTask(chunk, nextRow, columns, 0, chunk.size())));
+                        nextRow += chunk.size();
+                    }
+                }
+                if (chunks.isEmpty()) {
+                    break;
+                }
+                if (cancelled) {
+                    throw new CancellationException("Import cancelled after " + result.rowsRead + " rows");
+                }
+
+                List<ParsedRow> rows = chunks.poll().join();
+                db.beginTransaction();
+                try {
+                    for (ParsedRow row : rows) {
+                        writeRow(row, columns, catalog, rowsByKey, result);
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+                if (progressListener != null) {
+                    progressListener.onProgress(result.rowsRead, -1);
+                }
+            }
+        } finally {
+            for (ForkJoinTask<List<ParsedRow>> chunk : chunks) {
+                chunk.cancel(false);
+            }
+        }
+
+        result.elapsedMs = (System.nanoTime() - startTime) / 1000000;
+        Log.d(TAG, "Imported " + result + String.format(Locale.US, " at %.0f rows/s", result.getRowsPerSecond()));
+        return result;
+    }
+
+    /**
+     * Insert a new item or update the catalog item it matches
+     * Runs on the writer thread only, so the hash indexes need no locking
+     */
+    private void writeRow(ParsedRow row, int[] columns, Map<String, Long> catalog,
+                          Map<String, Integer> rowsByKey, ImportResult result) {
+        result.rowsRead++;
+        if (row.error != null) {
+            fail(result, row.row, row.error);
+            return;
+        }
+
+        InventoryItem item = row.item;
+        String barcodeKey = barcodeKey(item.getBarcode());
+        String nameKey = nameKey(item.getName());
+        Integer earlierRow = barcodeKey != null ? rowsByKey.get(barcodeKey) : null;
+        if (earlierRow == null) {
+            earlierRow = rowsByKey.get(nameKey);
+        }
+        if (earlierRow != null) {
+            fail(result, row.row, "Duplicate of row " + earlierRow);
+            return;
+        }
+
+        Long existingId = barcodeKey != null ? catalog.get(barcodeKey) : null;
+        if (existingId == null) {
+            existingId = catalog.get(nameKey);
+        }
+        InventoryItem existing = existingId != null ? databaseHelper.getInventoryItem(existingId) : null;
+
+        long itemId;
+        if (existing != null) {
+            applyColumns(existing, item, columns);
+            databaseHelper.updateInventoryItem(existing);
+            itemId = existing.getId();
+            result.updated++;
+        } else {
+            itemId = databaseHelper.addInventoryItem(item);
+            if (itemId == -1) {
+                fail(result, row.row, "Could not be saved");
+                return;
+            }
+            result.inserted++;
+        }
+
+        if (barcodeKey != null) {
+            rowsByKey.put(barcodeKey, row.row);
+            catalog.put(barcodeKey, itemId);
+        }
+        rowsByKey.put(nameKey, row.row);
+        catalog.put(nameKey, itemId);
+    }
+
+    private static List<String> readChunk(RecordReader records) throws IOException {
+        List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+        String record;
+        while (chunk.size() < CHUNK_SIZE && (record = records.next()) != null) {
+            chunk.add(record);
+        }
+        return chunk;
+    }
+
+    private static void fail(ImportResult result, int row, String message) {
+        result.failed++;
+        if (result.errors.size() < MAX_REPORTED_ERRORS) {
+            result.errors.add(new RowError(row, message));
+        }
+    }
+
+    /**
+     * Build the hash index of live items by barcode and by name
+     * @return Key from barcodeKey() or nameKey() to item ID
+     */
+    private Map<String, Long> loadCatalogIndex() {
+        Map<String, Long> catalog = new HashMap<>();
+        Cursor cursor = databaseHelper.getReadableDatabase().rawQuery("SELECT " +
+                InventoryDatabaseHelper.COLUMN_ITEM_ID + ", " + InventoryDatabaseHelper.COLUMN_ITEM_NAME + ", " +
+                InventoryDatabaseHelper.COLUMN_BARCODE + " FROM " + InventoryDatabaseHelper.TABLE_INVENTORY +
+                " WHERE " + InventoryDatabaseHelper.LIVE_ITEMS, null);
+        while (cursor.moveToNext()) {
+            long itemId = cursor.getLong(0);
+            catalog.put(nameKey(cursor.getString(1)), itemId);
+            String barcodeKey = barcodeKey(cursor.getString(2));
+            if (barcodeKey != null) {
+                catalog.put(barcodeKey, itemId);
+            }
+        }
+        cursor.close();
+        return catalog;
+    }
+
+    static String barcodeKey(String barcode) {
+        return barcode == null || barcode.trim().isEmpty() ? null : "b:" + barcode.trim();
+    }
+
+    static String nameKey(String name) {
+        return "n:" + (name == null ? "" : name.trim().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Copy the imported values of the columns present in the file onto an existing item
+     */
+    private static void applyColumns(InventoryItem target, InventoryItem source, int[] columns) {
+        target.setName(source.getName());
+        target.setQuantity(source.getQuantity());
+        if (columns[COLUMN_DESCRIPTION] >= 0) target.setDescription(source.getDescription());
+        if (columns[COLUMN_CATEGORY] >= 0) target.setCategory(source.getCategory());
+        if (columns[COLUMN_THRESHOLD] >= 0) target.setLowStockThreshold(source.getLowStockThreshold());
+        if (columns[COLUMN_BARCODE] >= 0) target.setBarcode(source.getBarcode());
+        if (columns[COLUMN_UNIT_COST] >= 0) target.setUnitCostCents(source.getUnitCostCents());
+        if (columns[COLUMN_UNIT_PRICE] >= 0) target.setUnitPriceCents(source.getUnitPriceCents());
+        if (columns[COLUMN_SUPPLIER] >= 0) target.setSupplier(source.getSupplier());
+    }
+
+    /**
+     * Validate one row with InventoryItemValidator and build its item
+     * @param row Spreadsheet row number
+     * @param fields Values of the row
+     * @param columns Field index of each COLUMN_ constant, -1 if the file lacks it
+     * @return Parsed row with either an item or the first error
+     */
+    static ParsedRow parseRow(int row, List<String> fields, int[] columns) {
+        String[] values = new String[COLUMN_LABELS.length];
+        for (int i = 0; i < values.length; i++) {
+            int index = columns[i];
+            values[i] = index >= 0 && index < fields.size() ? fields.get(index).trim() : "";
+        }
+
+        String[] errors = {
+                InventoryItemValidator.checkName(values[COLUMN_NAME]),
+                InventoryItemValidator.checkQuantity(values[COLUMN_QUANTITY]),
+                InventoryItemValidator.checkThreshold(values[COLUMN_THRESHOLD]),
+                InventoryItemValidator.checkAmount(values[COLUMN_UNIT_COST]),
+                InventoryItemValidator.checkAmount(values[COLUMN_UNIT_PRICE]),
+                columns[COLUMN_CATEGORY] >= 0 ? InventoryItemValidator.checkCategory(values[COLUMN_CATEGORY]) : null,
+                InventoryItemValidator.checkSupplier(values[COLUMN_SUPPLIER])};
+        int[] errorColumns = {COLUMN_NAME, COLUMN_QUANTITY, COLUMN_THRESHOLD, COLUMN_UNIT_COST,
+                COLUMN_UNIT_PRICE, COLUMN_CATEGORY, COLUMN_SUPPLIER};
+        for (int i = 0; i < errors.length; i++) {
+            if (errors[i] != null) {
+                return new ParsedRow(row, null, COLUMN_LABELS[errorColumns[i]] + ": " + errors[i]);
+            }
+        }
+
+        InventoryItem item = new InventoryItem();
+        item.setName(values[COLUMN_NAME]);
+        item.setDescription(values[COLUMN_DESCRIPTION]);
+        item.setCategory(values[COLUMN_CATEGORY]);
+        item.setQuantity(Integer.parseInt(values[COLUMN_QUANTITY]));
+        if (!values[COLUMN_THRESHOLD].isEmpty()) {
+            item.setLowStockThreshold(Integer.parseInt(values[COLUMN_THRESHOLD]));
+        }
+        item.setBarcode(values[COLUMN_BARCODE]);
+        item.setUnitCostCents(InventoryItem.parseCents(values[COLUMN_UNIT_COST]));
+        item.setUnitPriceCents(InventoryItem.parseCents(values[COLUMN_UNIT_PRICE]));
+        item.setSupplier(values[COLUMN_SUPPLIER]);
+        return new ParsedRow(row, item, null);
+    }
+
+    /**
+     * Find each known column in the header row
+     * @return Field index of each COLUMN_ constant, -1 if missing
+     */
+    static int[] mapColumns(List<String> header) {
+        int[] columns = new int[COLUMN_LABELS.length];
+        Arrays.fill(columns, -1);
+        for (int i = 0; i < header.size(); i++) {
+            Integer column = HEADER_ALIASES.get(normalizeHeader(header.get(i)));
+            if (column != null && columns[column] < 0) {
+                columns[column] = i;
+            }
+        }
+        return columns;
+    }
+
+    private static String normalizeHeader(String header) {
+        return header.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+    }
+
+    /**
+     * Split one CSV record into fields, removing quotes and unescaping doubled quotes
+     * @param record Raw record from RecordReader
+     * @return Field values
+     */
+    static List<String> parseFields(String record) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -1,5 +1,7 @@
 package com.IfeoluwaAdewoyin.inventorymanagementapp;
 
+import java.math.BigDecimal;
+
 /**
  * Model class representing an inventory item
  * Contains all necessary properties and methods for inventory management
@@ -12,7 +14,14 @@ public class InventoryItem {
     private String category;
     private int quantity;
     private int lowStockThreshold;
+    private int criticalThreshold;
+    // Money in cents, so stock values add up exactly
+    private long unitCostCents;
+    private long unitPriceCents;
     private String barcode;
+    private String supplier;
+    private String updatedAt;
+    private boolean deleted;
 
     // Default constructor
     public InventoryItem() {
@@ -23,6 +32,7 @@ public class InventoryItem {
         this.quantity = 0;
         this.lowStockThreshold = 10;
         this.barcode = "";
+        this.supplier = "";
     }
 
     // Constructor with parameters
@@ -36,6 +46,23 @@ public class InventoryItem {
         this.barcode = barcode;
     }
 
+    // Copy constructor
+    public InventoryItem(InventoryItem other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.description = other.description;
+        this.category = other.category;
+        this.quantity = other.quantity;
+        this.lowStockThreshold = other.lowStockThreshold;
+        this.criticalThreshold = other.criticalThreshold;
+        this.unitCostCents = other.unitCostCents;
+        this.unitPriceCents = other.unitPriceCents;
+        this.barcode = other.barcode;
+        this.supplier = other.supplier;
+        this.updatedAt = other.updatedAt;
+        this.deleted = other.deleted;
+    }
+
     // Getters and setters with proper validation
     public long getId() {
         return id;
@@ -85,6 +112,42 @@ public class InventoryItem {
         this.lowStockThreshold = Math.max(0, lowStockThreshold); // Ensure threshold is not negative
     }
 
+    /**
+     * Get the quantity at or below which the item counts as critical
+     * Set from the threshold policy of the item's category, 0 by default
+     */
+    public int getCriticalThreshold() {
+        return criticalThreshold;
+    }
+
+    public void setCriticalThreshold(int criticalThreshold) {
+        this.criticalThreshold = Math.max(0, criticalThreshold);
+    }
+
+    /**
+     * Get what one unit cost to buy
+     * @return Cost in cents, 0 if not set
+     */
+    public long getUnitCostCents() {
+        return unitCostCents;
+    }
+
+    public void setUnitCostCents(long unitCostCents) {
+        this.unitCostCents = Math.max(0, unitCostCents);
+    }
+
+    /**
+     * Get what one unit sells for
+     * @return Price in cents, 0 if not set
+     */
+    public long getUnitPriceCents() {
+        return unitPriceCents;
+    }
+
+    public void setUnitPriceCents(long unitPriceCents) {
+        this.unitPriceCents = Math.max(0, unitPriceCents);
+    }
+
     public String getBarcode() {
         return barcode != null ? barcode : "";
     }
@@ -93,6 +156,42 @@ public class InventoryItem {
         this.barcode = barcode != null ? barcode.trim() : "";
     }
 
+    /**
+     * Get the supplier the item is reordered from
+     * @return Supplier name, "" if none is set
+     */
+    public String getSupplier() {
+        return supplier != null ? supplier : "";
+    }
+
+    public void setSupplier(String supplier) {
+        this.supplier = supplier != null ? supplier.trim() : "";
+    }
+
+    /**
+     * Get when the item was last changed, as stored by the database
+     * @return UTC timestamp "yyyy-MM-dd HH:mm:ss.SSS", or "" for items not read from the database
+     */
+    public String getUpdatedAt() {
+        return updatedAt != null ? updatedAt : "";
+    }
+
+    public void setUpdatedAt(String updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Check if the item was deleted and is waiting to be purged
+     * @return true for a deleted item, which can still be restored
+     */
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+
     // Helper methods for business logic
 
     /**
@@ -104,11 +203,11 @@ public class InventoryItem {
     }
 
     /**
-     * Check if item is critically low (out of stock)
-     * @return true if quantity is 0, false otherwise
+     * Check if item is critically low
+     * @return true if quantity is at or below the critical threshold, false otherwise
      */
     public boolean isCriticalStock() {
-        return quantity == 0;
+        return quantity <= criticalThreshold;
     }
 
     /**
@@ -139,6 +238,34 @@ public class InventoryItem {
         return true;
     }
 
+    /**
+     * Parse an amount typed by the user, e.g. "12.5", into cents
+     * @param amount Decimal amount with at most two fraction digits; blank means 0
+     * @return Amount in cents
+     * @throws NumberFormatException if the amount is negative, malformed or too precise
+     */
+    public static long parseCents(String amount) {
+        String trimmed = amount == null ? "" : amount.trim();
+        if (trimmed.isEmpty()) {
+            return 0;
+        }
+        if (!trimmed.matches("\\d*(\\.\\d{0,2})?") || trimmed.equals(".")) {
+            throw new NumberFormatException("Not an amount: " + amount);
+        }
+        return new BigDecimal(trimmed).movePointRight(2).longValueExact();
+    }
+
+    /**
+     * Format cents as a plain decimal amount, e.g. 1250 as "12.50"
+     * @param cents Amount in cents
+     * @return Amount with two fraction digits
+     */
+    public static String formatCents(long cents) {
+        String sign = cents < 0 ? "-" : "";
+        long abs = Math.abs(cents);
+        return sign + (abs / 100) + "." + (abs % 100 < 10 ? "0" : "") + (abs % 100);
+    }
+
     @Override
     public String toString() {
         return "InventoryItem{" +
@@ -148,7 +275,12 @@ public class InventoryItem {
                 ", category='" + category + '\'' +
                 ", quantity=" + quantity +
                 ", lowStockThreshold=" + lowStockThreshold +
+                ", criticalThreshold=" + criticalThreshold +
+                ", unitCostCents=" + unitCostCents +
+                ", unitPriceCents=" + unitPriceCents +
                 ", barcode='" + barcode + '\'' +
+                ", supplier='" + supplier + '\'' +
+                ", updatedAt='" + updatedAt + '\'' +
                 ", stockStatus='" + getStockStatus() + '\'' +
                 '}';
     }
@@ -0,0 +1,80 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.util.LruCache;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Process-wide read-through cache of inventory items, one per database file
+ * Filled by list loads and single-item reads and invalidated by every write, so
+ * screens that already showed an item can open it again without touching disk.
+ * Items are copied on the way in and out, since InventoryItem is mutable.
+ */
+class InventoryItemCache {
+
+    // Approximate memory budget per database, in bytes
+    private static final int MAX_CACHE_BYTES = 256 * 1024;
+
+    // Rough fixed cost of an item object and its fields, excluding string contents
+    private static final int ITEM_OVERHEAD_BYTES = 96;
+
+    private static final Map<String, InventoryItemCache> caches = new HashMap<>();
+
+    private final LruCache<Long, InventoryItem> items = new LruCache<Long, InventoryItem>(MAX_CACHE_BYTES) {
+        @Override
+        protected int sizeOf(Long itemId, InventoryItem item) {
+            return ITEM_OVERHEAD_BYTES + 2 * (item.getName().length() + item.getDescription().length()
+                    + item.getCategory().length() + item.getBarcode().length() + item.getSupplier().length());
+        }
+    };
+
+    /**
+     * Get the shared cache for a database file
+     * @param databaseName File name of the database
+     * @return Cache shared by every helper opened on that database
+     */
+    static synchronized InventoryItemCache forDatabase(String databaseName) {
+        InventoryItemCache cache = caches.get(databaseName);
+        if (cache == null) {
+            cache = new InventoryItemCache();
+            caches.put(databaseName, cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Look up an item
+     * @param itemId ID of the item
+     * @return Copy of the cached item, or null on a miss
+     */
+    InventoryItem get(long itemId) {
+        InventoryItem item = items.get(itemId);
+        return item != null ? new InventoryItem(item) : null;
+    }
+
+    void put(InventoryItem item) {
+        items.put(item.getId(), new InventoryItem(item));
+    }
+
+    void invalidate(long itemId) {
+        items.remove(itemId);
+    }
+
+    void invalidateAll() {
+        items.evictAll();
+    }
+
+    /**
+     * Describe cache effectiveness for logging
+     * @return Hit, miss and eviction counts with the hit rate
+     */
+    String getStats() {
+        int hits = items.hitCount();
+        int misses = items.missCount();
+        int lookups = hits + misses;
+        return "hits=" + hits + ", misses=" + misses +
+                ", hitRate=" + (lookups > 0 ? hits * 100 / lookups : 0) + "%" +
+                ", evictions=" + items.evictionCount() +
+                ", sizeBytes=" + items.size();
+    }
+}
@@ -0,0 +1,309 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact column-oriented store for large inventory lists
+ * Numeric fields live in parallel primitive arrays, categories are interned and the
+ * text fields are kept as UTF-8 in one shared byte array that is only decoded when a
+ * row is displayed. The last decoded strings are kept in a small fixed-size cache, so
+ * rebinding visible rows is free while the heap used stays independent of the list
+ * length. Rows are read through a reusable ItemView instead of one
+ * InventoryItem object per row. Stores loaded for list display only hold the
+ * columns a list card shows. Must only be used from one thread.
+ */
+public class InventoryItemStore {
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int INITIAL_TEXT_CAPACITY = 4096;
+    // Decoded text slots, a power of two well above the text fields of one screen of rows
+    static final int DECODED_TEXT_SLOTS = 256;
+
+    private int size;
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private int[] thresholds = new int[INITIAL_CAPACITY];
+    private int[] criticalThresholds = new int[INITIAL_CAPACITY];
+    private String[] categories = new String[INITIAL_CAPACITY];
+
+    // Offset and length of each text field in textData: name, description, barcode
+    private int[] textOffsets = new int[INITIAL_CAPACITY * 3];
+    private int[] textLengths = new int[INITIAL_CAPACITY * 3];
+    private byte[] textData = new byte[INITIAL_TEXT_CAPACITY];
+    private int textSize;
+
+    // Direct-mapped cache of decoded text: slot (index % DECODED_TEXT_SLOTS) holds the
+    // text field index decodedIndex[slot], or -1
+    private final String[] decodedText = new String[DECODED_TEXT_SLOTS];
+    private final int[] decodedIndex = new int[DECODED_TEXT_SLOTS];
+
+    private final Map<String, String> categoryPool = new HashMap<>();
+
+    private static final int FIELD_NAME = 0;
+    private static final int FIELD_DESCRIPTION = 1;
+    private static final int FIELD_BARCODE = 2;
+
+    public InventoryItemStore() {
+        Arrays.fill(decodedIndex, -1);
+    }
+
+    /**
+     * Flyweight view of one row; moveTo() repositions it without allocating
+     */
+    public class ItemView {
+        private int position;
+
+        public ItemView moveTo(int position) {
+            this.position = position;
+            return this;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        public long getId() {
+            return ids[position];
+        }
+
+        public int getQuantity() {
+            return quantities[position];
+        }
+
+        public int getLowStockThreshold() {
+            return thresholds[position];
+        }
+
+        public int getCriticalThreshold() {
+            return criticalThresholds[position];
+        }
+
+        public String getCategory() {
+            return categories[position];
+        }
+
+        public String getName() {
+            return getText(position, FIELD_NAME);
+        }
+
+        public String getDescription() {
+            return getText(position, FIELD_DESCRIPTION);
+        }
+
+        public String getBarcode() {
+            return getText(position, FIELD_BARCODE);
+        }
+
+        // Same rules as InventoryItem.isLowStock() and isCriticalStock()
+        public boolean isLowStock() {
+            return quantities[position] <= thresholds[position];
+        }
+
+        public boolean isCriticalStock() {
+            return quantities[position] <= criticalThresholds[position];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Create a view positioned at the first row; reuse it for all rows
+     * @return New flyweight view
+     */
+    public ItemView newView() {
+        return new ItemView();
+    }
+
+    /**
+     * Append a row
+     * @param id Item ID
+     * @param name Item name
+     * @param description Item description
+     * @param category Item category, interned
+     * @param quantity Current stock quantity
+     * @param lowStockThreshold Low stock threshold
+     * @param criticalThreshold Critical stock threshold
+     * @param barcode Item barcode
+     */
+    public void add(long id, String name, String description, String category,
+                    int quantity, int lowStockThreshold, int criticalThreshold, String barcode) {
+        ensureCapacity(size + 1);
+        set(size, id, name, description, category, quantity, lowStockThreshold, criticalThreshold, barcode);
+        size++;
+    }
+
+    public void add(InventoryItem item) {
+        add(item.getId(), item.getName(), item.getDescription(), item.getCategory(),
+                item.getQuantity(), item.getLowStockThreshold(), item.getCriticalThreshold(), item.getBarcode());
+    }
+
+    /**
+     * Insert a row, shifting later rows down by one
+     * @param position Position of the new row, from 0 to size()
+     * @param item Item to store
+     */
+    public void insert(int position, InventoryItem item) {
+        if (position < 0 || position > size) {
+            throw new IndexOutOfBoundsException("Position " + position + ", size " + size);
+        }
+        ensureCapacity(size + 1);
+        int moved = size - position;
+        System.arraycopy(ids, position, ids, position + 1, moved);
+        System.arraycopy(quantities, position, quantities, position + 1, moved);
+        System.arraycopy(thresholds, position, thresholds, position + 1, moved);
+        System.arraycopy(criticalThresholds, position, criticalThresholds, position + 1, moved);
+        System.arraycopy(categories, position, categories, position + 1, moved);
+        System.arraycopy(textOffsets, position * 3, textOffsets, (position + 1) * 3, moved * 3);
+        System.arraycopy(textLengths, position * 3, textLengths, (position + 1) * 3, moved * 3);
+        Arrays.fill(decodedIndex, -1);
+        size++;
+        set(position, item);
+    }
+
+    /**
+     * Replace a row with the contents of an item
+     * The previous text stays in the text buffer until the store is reloaded
+     * @param position Row to replace
+     * @param item Item to store
+     */
+    public void set(int position, InventoryItem item) {
+        checkPosition(position);
+        set(position, item.getId(), item.getName(), item.getDescription(), item.getCategory(),
+                item.getQuantity(), item.getLowStockThreshold(), item.getCriticalThreshold(), item.getBarcode());
+    }
+
+    /**
+     * Change the quantity of a row in place, leaving its text as it is
+     * @param position Row to change
+     * @param quantity New quantity; negative values are stored as 0
+     */
+    public void setQuantity(int position, int quantity) {
+        checkPosition(position);
+        quantities[position] = Math.max(0, quantity);
+    }
+
+    /**
+     * Remove a row, shifting later rows up by one
+     * @param position Row to remove
+     */
+    public void remove(int position) {
+        checkPosition(position);
+        int moved = size - position - 1;
+        System.arraycopy(ids, position + 1, ids, position, moved);
+        System.arraycopy(quantities, position + 1, quantities, position, moved);
+        System.arraycopy(thresholds, position + 1, thresholds, position, moved);
+        System.arraycopy(criticalThresholds, position + 1, criticalThresholds, position, moved);
+        System.arraycopy(categories, position + 1, categories, position, moved);
+        System.arraycopy(textOffsets, (position + 1) * 3, textOffsets, position * 3, moved * 3);
+        System.arraycopy(textLengths, (position + 1) * 3, textLengths, position * 3, moved * 3);
+        Arrays.fill(decodedIndex, -1);
+        size--;
+        categories[size] = null;
+    }
+
+    /**
+     * Find the row holding an item
+     * @param itemId Item ID to look for
+     * @return Row position, or -1 if the item is not in the store
+     */
+    public int indexOf(long itemId) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == itemId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Materialize one row as a standalone InventoryItem, e.g. to hand it to a listener
+     * The item only carries the fields this store was loaded with
+     * @param position Row to copy
+     * @return New item holding the row's values
+     */
+    public InventoryItem getItem(int position) {
+        checkPosition(position);
+        InventoryItem item = new InventoryItem(getText(position, FIELD_NAME),
+                getText(position, FIELD_DESCRIPTION), categories[position], quantities[position],
+                thresholds[position], getText(position, FIELD_BARCODE));
+        item.setId(ids[position]);
+        item.setCriticalThreshold(criticalThresholds[position]);
+        return item;
+    }
+
+    private void set(int position, long id, String name, String description, String category,
+                     int quantity, int lowStockThreshold, int criticalThreshold, String barcode) {
+        ids[position] = id;
+        quantities[position] = Math.max(0, quantity);
+        thresholds[position] = Math.max(0, lowStockThreshold);
+        criticalThresholds[position] = Math.max(0, criticalThreshold);
+        categories[position] = intern(category != null ? category : "");
+        putText(position, FIELD_NAME, name);
+        putText(position, FIELD_DESCRIPTION, description);
+        putText(position, FIELD_BARCODE, barcode);
+    }
+
+    private String intern(String category) {
+        String pooled = categoryPool.get(category);
+        if (pooled == null) {
+            categoryPool.put(category, category);
+            pooled = category;
+        }
+        return pooled;
+    }
+
+    private void putText(int position, int field, String text) {
+        byte[] bytes = (text != null ? text : "").getBytes(StandardCharsets.UTF_8);
+        if (textSize + bytes.length > textData.length) {
+            textData = Arrays.copyOf(textData, Math.max(textData.length * 2, textSize + bytes.length));
+        }
+        System.arraycopy(bytes, 0, textData, textSize, bytes.length);
+        int index = position * 3 + field;
+        textOffsets[index] = textSize;
+        textLengths[index] = bytes.length;
+        int slot = index & (DECODED_TEXT_SLOTS - 1);
+        if (decodedIndex[slot] == index) {
+            decodedIndex[slot] = -1;
+        }
+        textSize += bytes.length;
+    }
+
+    private String getText(int position, int field) {
+        int index = position * 3 + field;
+        int length = textLengths[index];
+        if (length == 0) {
+            return "";
+        }
+        int slot = index & (DECODED_TEXT_SLOTS - 1);
+        if (decodedIndex[slot] != index) {
+            decodedText[slot] = new String(textData, textOffsets[index], length, StandardCharsets.UTF_8);
+            decodedIndex[slot] = index;
+        }
+        return decodedText[slot];
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(ids.length * 2, required);
+        ids = Arrays.copyOf(ids, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        thresholds = Arrays.copyOf(thresholds, capacity);
+        criticalThresholds = Arrays.copyOf(criticalThresholds, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        textOffsets = Arrays.copyOf(textOffsets, capacity * 3);
+        textLengths = Arrays.copyOf(textLengths, capacity * 3);
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position " + position + ", size " + size);
+        }
+    }
+}
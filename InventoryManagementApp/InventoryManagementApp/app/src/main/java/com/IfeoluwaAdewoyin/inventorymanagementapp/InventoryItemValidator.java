@@ -0,0 +1,174 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Validation rules for inventory item fields, shared by the item form and the importer
+ * Each check takes the field's text as entered and returns an error message, or null
+ * if the value is acceptable.
+ */
+public class InventoryItemValidator {
+
+    public static final int MAX_NAME_LENGTH = 100;
+    public static final int MAX_QUANTITY = 999999;
+    public static final int MAX_THRESHOLD = 9999;
+    public static final long MAX_AMOUNT_CENTS = 99999999;
+    public static final int MAX_SUPPLIER_LENGTH = 100;
+    public static final int MAX_LOT_NUMBER_LENGTH = 50;
+    public static final String EXPIRY_DATE_FORMAT = "yyyy-MM-dd";
+
+    private InventoryItemValidator() {
+    }
+
+    /**
+     * Check a product name (required)
+     * @param name Trimmed name
+     * @return Error message, or null if valid
+     */
+    public static String checkName(String name) {
+        if (name == null || name.isEmpty()) {
+            return "Product name is required";
+        } else if (name.length() > MAX_NAME_LENGTH) {
+            return "Product name is too long (max " + MAX_NAME_LENGTH + " characters)";
+        }
+        return null;
+    }
+
+    /**
+     * Check a quantity (required)
+     * @param quantity Trimmed quantity text
+     * @return Error message, or null if valid
+     */
+    public static String checkQuantity(String quantity) {
+        if (quantity == null || quantity.isEmpty()) {
+            return "Quantity is required";
+        }
+        try {
+            int value = Integer.parseInt(quantity);
+            if (value < 0) {
+                return "Quantity cannot be negative";
+            } else if (value > MAX_QUANTITY) {
+                return "Quantity is too large";
+            }
+        } catch (NumberFormatException e) {
+            return "Please enter a valid number";
+        }
+        return null;
+    }
+
+    /**
+     * Check a low stock threshold (optional, the default applies when empty)
+     * @param threshold Trimmed threshold text
+     * @return Error message, or null if valid
+     */
+    public static String checkThreshold(String threshold) {
+        if (threshold == null || threshold.isEmpty()) {
+            return null;
+        }
+        try {
+            int value = Integer.parseInt(threshold);
+            if (value < 0) {
+                return "Threshold cannot be negative";
+            } else if (value > MAX_THRESHOLD) {
+                return "Threshold is too large";
+            }
+        } catch (NumberFormatException e) {
+            return "Please enter a valid number";
+        }
+        return null;
+    }
+
+    /**
+     * Check a money amount with at most two decimals (optional, 0 when empty)
+     * @param amount Trimmed amount text
+     * @return Error message, or null if valid
+     */
+    public static String checkAmount(String amount) {
+        try {
+            if (InventoryItem.parseCents(amount) > MAX_AMOUNT_CENTS) {
+                return "Amount is too large";
+            }
+        } catch (NumberFormatException | ArithmeticException e) {
+            return "Please enter an amount like 12.50";
+        }
+        return null;
+    }
+
+    /**
+     * Check a supplier name (optional)
+     * @param supplier Trimmed supplier name
+     * @return Error message, or null if valid
+     */
+    public static String checkSupplier(String supplier) {
+        if (supplier != null && supplier.length() > MAX_SUPPLIER_LENGTH) {
+            return "Supplier name is too long (max " + MAX_SUPPLIER_LENGTH + " characters)";
+        }
+        return null;
+    }
+
+    /**
+     * Check a lot number (optional)
+     * @param lotNumber Trimmed lot number
+     * @return Error message, or null if valid
+     */
+    public static String checkLotNumber(String lotNumber) {
+        if (lotNumber != null && lotNumber.length() > MAX_LOT_NUMBER_LENGTH) {
+            return "Lot number is too long (max " + MAX_LOT_NUMBER_LENGTH + " characters)";
+        }
+        return null;
+    }
+
+    /**
+     * Check an expiry date (optional)
+     * @param expiryDate Trimmed date as YYYY-MM-DD
+     * @return Error message, or null if valid
+     */
+    public static String checkExpiryDate(String expiryDate) {
+        if (expiryDate == null || expiryDate.isEmpty()) {
+            return null;
+        }
+        if (parseExpiryDate(expiryDate) == 0) {
+            return "Please enter the date as YYYY-MM-DD";
+        }
+        return null;
+    }
+
+    /**
+     * Convert an expiry date to the time the units expire
+     * Units can be used through the whole expiry day, so they expire at the next midnight.
+     * @param expiryDate Date as YYYY-MM-DD
+     * @return Epoch millis of the end of that day in local time, 0 if empty or invalid
+     */
+    public static long parseExpiryDate(String expiryDate) {
+        if (expiryDate == null || expiryDate.isEmpty()) {
+            return 0;
+        }
+        SimpleDateFormat format = new SimpleDateFormat(EXPIRY_DATE_FORMAT, Locale.US);
+        format.setLenient(false);
+        ParsePosition position = new ParsePosition(0);
+        Date date = format.parse(expiryDate, position);
+        if (date == null || position.getIndex() != expiryDate.length()) {
+            return 0;
+        }
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(date);
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        return calendar.getTimeInMillis();
+    }
+
+    /**
+     * Check a category (required)
+     * @param category Trimmed category
+     * @return Error message, or null if valid
+     */
+    public static String checkCategory(String category) {
+        if (category == null || category.isEmpty()) {
+            return "Please select a category";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,261 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * Manages stock locations, each backed by its own database file
+ * Writes to different locations go to different files and never share a write lock;
+ * cross-location totals are read by attaching the location files to one connection
+ */
+public class InventoryLocationManager {
+
+    private static final String TAG = "InventoryLocations";
+    private static final String PREFS_NAME = "InventoryLocations";
+    private static final String PREF_LOCATIONS = "locations";
+    private static final String PREF_CURRENT_LOCATION = "current_location";
+    private static final String LOCATION_SEPARATOR = "\n";
+
+    // SQLite allows at most 10 attached databases per connection by default
+    private static final int MAX_ATTACHED_PER_QUERY = 9;
+
+    public static final String DEFAULT_LOCATION = "Main Stock Room";
+
+    private final Context context;
+    private final SharedPreferences prefs;
+
+    public InventoryLocationManager(Context context) {
+        this.context = context.getApplicationContext();
+        this.prefs = this.context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Get all known locations, starting with the default location
+     * @return List of location names
+     */
+    public List<String> getLocations() {
+        List<String> locations = new ArrayList<>();
+        locations.add(DEFAULT_LOCATION);
+
+        String stored = prefs.getString(PREF_LOCATIONS, "");
+        for (String location : stored.split(LOCATION_SEPARATOR)) {
+            if (!location.isEmpty()) {
+                locations.add(location);
+            }
+        }
+        return locations;
+    }
+
+    /**
+     * Add a new location
+     * @param name Display name of the location
+     * @return true if added, false if the name is empty or already in use
+     */
+    public boolean addLocation(String name) {
+        String trimmed = name != null ? name.trim() : "";
+        if (trimmed.isEmpty() || trimmed.contains(LOCATION_SEPARATOR)) {
+            return false;
+        }
+
+        List<String> locations = getLocations();
+        for (String location : locations) {
+            if (getDatabaseName(location).equals(getDatabaseName(trimmed))) {
+                return false;
+            }
+        }
+
+        locations.add(trimmed);
+        locations.remove(DEFAULT_LOCATION);
+        prefs.edit().putString(PREF_LOCATIONS, joinLocations(locations)).apply();
+
+        Log.d(TAG, "Location added: " + trimmed);
+        return true;
+    }
+
+    public String getCurrentLocation() {
+        String current = prefs.getString(PREF_CURRENT_LOCATION, DEFAULT_LOCATION);
+        return getLocations().contains(current) ? current : DEFAULT_LOCATION;
+    }
+
+    public void setCurrentLocation(String location) {
+        prefs.edit().putString(PREF_CURRENT_LOCATION, location).apply();
+    }
+
+    /**
+     * Get the database file name that stores a location's inventory
+     * @param location Location name
+     * @return Database file name
+     */
+    public String getDatabaseName(String location) {
+        if (DEFAULT_LOCATION.equals(location)) {
+            return InventoryDatabaseHelper.DATABASE_NAME;
+        }
+
+        String slug = location.trim().toLowerCase(Locale.US).replaceAll("[^a-z0-9]+", "_");
+        return "inventory_management_" + slug + ".db";
+    }
+
+    /**
+     * Open a database helper for a location
+     * @param location Location name
+     * @return Helper for the location's database; the caller is responsible for closing it
+     */
+    public InventoryDatabaseHelper openHelper(String location) {
+        return new InventoryDatabaseHelper(context, getDatabaseName(location));
+    }
+
+    /**
+     * Open a database helper for the currently selected location
+     * @return Helper for the current location's database
+     */
+    public InventoryDatabaseHelper openCurrentHelper() {
+        return openHelper(getCurrentLocation());
+    }
+
+    /**
+     * Get inventory statistics for every location using attached databases
+     * @return Map of location name to [totalItems, lowStockCount, criticalStockCount, totalUnits]
+     */
+    public Map<String, int[]> getLocationStats() {
+        Map<String, int[]> statsByLocation = queryEachLocation(this::queryLocationStats);
+        Log.d(TAG, "Collected stats for " + statsByLocation.size() + " locations");
+        return statsByLocation;
+    }
+
+    /**
+     * Get inventory statistics summed over every location
+     * @return Array containing [totalItems, lowStockCount, criticalStockCount, totalUnits]
+     */
+    public int[] getCombinedStats() {
+        int[] combined = new int[4];
+        for (int[] stats : getLocationStats().values()) {
+            for (int i = 0; i < combined.length; i++) {
+                combined[i] += stats[i];
+            }
+        }
+        return combined;
+    }
+
+    /**
+     * Get the stock value of every location using attached databases
+     * @return Map of location name to [totalUnits, costValueCents, retailValueCents]
+     */
+    public Map<String, long[]> getLocationValues() {
+        return queryEachLocation(this::queryLocationValues);
+    }
+
+    /**
+     * Run a query against every location that has a database, attaching them in batches
+     * Location databases are brought up to the current schema first, so the query can rely on it
+     * @param query Called with the shared connection and the schema name of one location
+     * @return Map of location name to query result, in location order
+     */
+    private <T> Map<String, T> queryEachLocation(BiFunction<SQLiteDatabase, String, T> query) {
+        Map<String, T> resultByLocation = new LinkedHashMap<>();
+
+        // Only locations whose database has been created can be attached
+        List<String> locations = new ArrayList<>();
+        for (String location : getLocations()) {
+            if (context.getDatabasePath(getDatabaseName(location)).exists()) {
+                InventoryDatabaseHelper helper = openHelper(location);
+                helper.getReadableDatabase();
+                helper.close();
+                locations.add(location);
+            }
+        }
+        if (locations.isEmpty()) {
+            return resultByLocation;
+        }
+
+        File primaryFile = context.getDatabasePath(getDatabaseName(locations.get(0)));
+        SQLiteDatabase db = SQLiteDatabase.openDatabase(primaryFile.getPath(), null,
+                SQLiteDatabase.OPEN_READONLY);
+        try {
+            resultByLocation.put(locations.get(0), query.apply(db, "main"));
+
+            for (int start = 1; start < locations.size(); start += MAX_ATTACHED_PER_QUERY) {
+                int end = Math.min(start + MAX_ATTACHED_PER_QUERY, locations.size());
+                List<String> batch = locations.subList(start, end);
+
+                for (int i = 0; i < batch.size(); i++) {
+                    File file = context.getDatabasePath(getDatabaseName(batch.get(i)));
+                    db.execSQL("ATTACH DATABASE ? AS loc" + i, new Object[]{file.getPath()});
+                }
+                try {
+                    for (int i = 0; i < batch.size(); i++) {
+                        resultByLocation.put(batch.get(i), query.apply(db, "loc" + i));
+                    }
+                } finally {
+                    for (int i = 0; i < batch.size(); i++) {
+                        db.execSQL("DETACH DATABASE loc" + i);
+                    }
+                }
+            }
+        } finally {
+            db.close();
+        }
+        return resultByLocation;
+    }
+
+    /**
+     * Sum the category totals of one schema of an attached connection
+     */
+    private int[] queryLocationStats(SQLiteDatabase db, String schema) {
+        String query = "SELECT SUM(" + InventoryDatabaseHelper.COLUMN_ITEM_COUNT + "), " +
+                "SUM(" + InventoryDatabaseHelper.COLUMN_LOW_STOCK_COUNT + "), " +
+                "SUM(" + InventoryDatabaseHelper.COLUMN_CRITICAL_COUNT + "), " +
+                "SUM(" + InventoryDatabaseHelper.COLUMN_TOTAL_UNITS + ") " +
+                "FROM " + schema + "." + InventoryDatabaseHelper.TABLE_CATEGORY_TOTALS;
+
+        int[] stats = new int[4];
+        Cursor cursor = db.rawQuery(query, null);
+        if (cursor.moveToFirst()) {
+            for (int i = 0; i < stats.length; i++) {
+                stats[i] = cursor.getInt(i);
+            }
+        }
+        cursor.close();
+        return stats;
+    }
+
+    /**
+     * Sum the stock value columns of the category totals of one schema
+     */
+    private long[] queryLocationValues(SQLiteDatabase db, String schema) {
+        String query = "SELECT SUM(" + InventoryDatabaseHelper.COLUMN_TOTAL_UNITS + "), " +
+                "SUM(" + InventoryDatabaseHelper.COLUMN_COST_VALUE + "), " +
+                "SUM(" + InventoryDatabaseHelper.COLUMN_RETAIL_VALUE + ") " +
+                "FROM " + schema + "." + InventoryDatabaseHelper.TABLE_CATEGORY_TOTALS;
+
+        long[] values = new long[3];
+        Cursor cursor = db.rawQuery(query, null);
+        if (cursor.moveToFirst()) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = cursor.getLong(i);
+            }
+        }
+        cursor.close();
+        return values;
+    }
+
+    private String joinLocations(List<String> locations) {
+        StringBuilder joined = new StringBuilder();
+        for (String location : locations) {
+            if (joined.length() > 0) {
+                joined.append(LOCATION_SEPARATOR);
+            }
+            joined.append(location);
+        }
+        return joined.toString();
+    }
+}
@@ -0,0 +1,643 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.util.Log;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Binary snapshot backup and restore of one inventory database
+ * A snapshot starts with an uncompressed header (magic, format version, flags and the
+ * database version it was taken from), followed by a body that is optionally gzipped.
+ * The body holds one section per table: the table and column names, then each row as
+ * a varint length followed by typed column values, with integers as zigzag varints.
+ * Restore maps columns by name, so snapshots stay readable after columns are added.
+ *
+ * Users, items, category threshold policies, quantity counters, the change log
+ * (stock movements), purchase orders, suppliers, stock lots and stock level history are
+ * included, with the position the history is rolled up to. Forecasts and sync cursors
+ * are derived state: they are cleared on restore and rebuilt by the forecast job and
+ * the next sync.
+ *
+ * ItemSink writes the same format with only the item fields a user edits, for export
+ * through ItemPipeline. Such files carry FLAG_ITEMS_ONLY and are refused by restore().
+ */
+public class InventorySnapshot {
+
+    private static final String TAG = "InventorySnapshot";
+
+    private static final byte[] MAGIC = {'I', 'N', 'V', 'S'};
+    private static final int FORMAT_VERSION = 1;
+    private static final int FLAG_GZIP = 1;
+    private static final int FLAG_ITEMS_ONLY = 2;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String SNAPSHOT_DIR = "backups";
+
+    private static final int TYPE_NULL = 0;
+    private static final int TYPE_INTEGER = 1;
+    private static final int TYPE_FLOAT = 2;
+    private static final int TYPE_TEXT = 3;
+    private static final int TYPE_BLOB = 4;
+
+    // Tables in restore order; anything else found in a snapshot is skipped
+    private static final String[] TABLES = {
+            InventoryDatabaseHelper.TABLE_USERS,
+            InventoryDatabaseHelper.TABLE_INVENTORY,
+            InventoryDatabaseHelper.TABLE_THRESHOLD_POLICY,
+            InventoryDatabaseHelper.TABLE_QUANTITY_COUNTERS,
+            InventoryDatabaseHelper.TABLE_CHANGE_LOG,
+            InventoryDatabaseHelper.TABLE_PURCHASE_ORDERS,
+            InventoryDatabaseHelper.TABLE_PURCHASE_ORDER_LINES,
+            InventoryDatabaseHelper.TABLE_SUPPLIERS,
+            InventoryDatabaseHelper.TABLE_ITEM_SUPPLIERS,
+            InventoryDatabaseHelper.TABLE_STOCK_LOTS,
+            InventoryDatabaseHelper.TABLE_STOCK_SAMPLES,
+            InventoryDatabaseHelper.TABLE_STOCK_ROLLUPS
+    };
+
+    // The only sync state kept in a snapshot: how far the restored samples are rolled up
+    private static final String HISTORY_STATE_SELECTION = InventoryDatabaseHelper.COLUMN_STATE_KEY + " = '" +
+            InventoryDatabaseHelper.STATE_HISTORY_SAMPLE_ID + "'";
+
+    private final InventoryDatabaseHelper databaseHelper;
+
+    public InventorySnapshot(InventoryDatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    /**
+     * Get the snapshot file of a stock location; included in Android backups
+     * @param context Application context
+     * @param databaseName Database file of the stock location
+     * @return Snapshot file location, which only exists once a backup was made
+     */
+    public static File getSnapshotFile(Context context, String databaseName) {
+        return new File(new File(context.getFilesDir(), SNAPSHOT_DIR), databaseName + ".snapshot");
+    }
+
+    /**
+     * Write a snapshot of the database to a file
+     * All tables are read in one transaction, so the snapshot is consistent. The file is
+     * written next to the target and renamed into place, so an interrupted backup never
+     * replaces a good snapshot with a torn one. Must not be called on the main thread.
+     * @param file Snapshot file to create or replace
+     * @param compress True to gzip the body
+     * @return Number of rows written
+     * @throws IOException if the file can't be written
+     */
+    public int write(File file, boolean compress) throws IOException {
+        long startTime = System.nanoTime();
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Could not create " + parent);
+        }
+        File tempFile = new File(file.getPath() + ".tmp");
+
+        int rows = 0;
+        SQLiteDatabase db = databaseHelper.getWritableDatabase();
+        try (FileOutputStream output = new FileOutputStream(tempFile)) {
+            FileChannel fileChannel = output.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 6);
+            header.put(MAGIC).put((byte) FORMAT_VERSION).put((byte) (compress ? FLAG_GZIP : 0))
+                    .putInt(db.getVersion());
+            header.flip();
+            while (header.hasRemaining()) {
+                fileChannel.write(header);
+            }
+
+            GZIPOutputStream gzipStream = compress
+                    ? new GZIPOutputStream(Channels.newOutputStream(fileChannel), BUFFER_SIZE) : null;
+            RowWriter writer = new RowWriter(gzipStream != null ? Channels.newChannel(gzipStream) : fileChannel);
+
+            db.beginTransactionNonExclusive();
+            try {
+                for (String table : TABLES) {
+                    rows += writeTable(db, table, null, writer);
+                }
+                rows += writeTable(db, InventoryDatabaseHelper.TABLE_SYNC_STATE, HISTORY_STATE_SELECTION, writer);
+            } finally {
+                db.endTransaction();
+            }
+            writer.writeString("");
+            writer.flush();
+            if (gzipStream != null) {
+                gzipStream.finish();
+            }
+            fileChannel.force(true);
+        }
+
+        if (!tempFile.renameTo(file)) {
+            throw new IOException("Could not replace " + file);
+        }
+        Log.d(TAG, "Wrote snapshot of " + rows + " rows (" + file.length() + " bytes) in " +
+                (System.nanoTime() - startTime) / 1000000 + " ms");
+        return rows;
+    }
+
+    /**
+     * Replace the contents of the database with a snapshot
+     * Every snapshot table is cleared and bulk-loaded inside one transaction, so a failed
+     * restore leaves the database as it was. Must not be called on the main thread.
+     * @param file Snapshot file written by write()
+     * @return Number of rows restored
+     * @throws IOException if the file is missing, corrupt or from a newer format
+     */
+    public int restore(File file) throws IOException {
+        long startTime = System.nanoTime();
+        int rows = 0;
+        SQLiteDatabase db = databaseHelper.getWritableDatabase();
+        try (FileInputStream input = new FileInputStream(file)) {
+            FileChannel fileChannel = input.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 6);
+            while (header.hasRemaining()) {
+                if (fileChannel.read(header) < 0) {
+                    throw new IOException("Not an inventory snapshot");
+                }
+            }
+            header.flip();
+            byte[] magic = new byte[MAGIC.length];
+            header.get(magic);
+            int formatVersion = header.get();
+            int flags = header.get();
+            int databaseVersion = header.getInt();
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not an inventory snapshot");
+            }
+            if (formatVersion > FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot format " + formatVersion);
+            }
+            if ((flags & FLAG_ITEMS_ONLY) != 0) {
+                throw new IOException("This is an item export, not a full backup; import it instead");
+            }
+
+            InputStream gzipStream = (flags & FLAG_GZIP) != 0
+                    ? new GZIPInputStream(Channels.newInputStream(fileChannel), BUFFER_SIZE) : null;
+            RowReader reader = new RowReader(gzipStream != null ? Channels.newChannel(gzipStream) : fileChannel);
+
+            db.beginTransaction();
+            try {
+                for (String table : TABLES) {
+                    db.delete(table, null, null);
+                }
+                // Derived from the restored change log; rebuilt by the forecast job and the next sync
+                db.delete(InventoryDatabaseHelper.TABLE_ITEM_FORECAST, null, null);
+                db.delete(InventoryDatabaseHelper.TABLE_SYNC_STATE,
+                        InventoryDatabaseHelper.COLUMN_STATE_KEY + " != ?",
+                        new String[]{InventoryDatabaseHelper.STATE_DEVICE_ID});
+
+                String table;
+                while (!(table = reader.readString()).isEmpty()) {
+                    if (InventoryDatabaseHelper.TABLE_STOCK_SAMPLES.equals(table)) {
+                        // Restoring the items sampled their quantities; the snapshot has the real history
+                        db.delete(table, null, null);
+                    }
+                    rows += restoreTable(db, table, reader);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+                databaseHelper.invalidateItemCache();
+            }
+            Log.d(TAG, "Restored " + rows + " rows from a version " + databaseVersion + " snapshot in " +
+                    (System.nanoTime() - startTime) / 1000000 + " ms");
+        }
+        return rows;
+    }
+
+    /**
+     * ItemPipeline sink writing items to a compact snapshot of the items table only
+     * Rows are encoded as they arrive, so memory use doesn't grow with the item count.
+     */
+    public static class ItemSink implements ItemPipeline.Sink {
+        private static final String[] COLUMNS = {
+                InventoryDatabaseHelper.COLUMN_ITEM_NAME,
+                InventoryDatabaseHelper.COLUMN_ITEM_DESCRIPTION,
+                InventoryDatabaseHelper.COLUMN_ITEM_CATEGORY,
+                InventoryDatabaseHelper.COLUMN_ITEM_QUANTITY,
+                InventoryDatabaseHelper.COLUMN_LOW_STOCK_THRESHOLD,
+                InventoryDatabaseHelper.COLUMN_BARCODE,
+                InventoryDatabaseHelper.COLUMN_SUPPLIER,
+                InventoryDatabaseHelper.COLUMN_UNIT_COST,
+                InventoryDatabaseHelper.COLUMN_UNIT_PRICE
+        };
+
+        private final RowWriter writer;
+        private final GZIPOutputStream gzipStream;
+        private final WritableByteChannel channel;
+
+        /**
+         * @param output Destination; flushed but not closed by finish()
+         * @param databaseVersion Schema version to record in the header
+         * @param compress True to gzip the body
+         */
+        public ItemSink(OutputStream output, int databaseVersion, boolean compress) throws IOException {
+            channel = Channels.newChannel(output);
+            ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 6);
+            header.put(MAGIC).put((byte) FORMAT_VERSION)
+                    .put((byte) (FLAG_ITEMS_ONLY | (compress ? FLAG_GZIP : 0)))
+                    .putInt(databaseVersion);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+
+            gzipStream = compress ? new GZIPOutputStream(output, BUFFER_SIZE) : null;
+            writer = new RowWriter(gzipStream != null ? Channels.newChannel(gzipStream) : channel);
+            writer.writeString(InventoryDatabaseHelper.TABLE_INVENTORY);
+            writer.writeVarint(COLUMNS.length);
+            for (String column : COLUMNS) {
+                writer.writeString(column);
+            }
+        }
+
+        @Override
+        public void accept(InventoryItem item) throws IOException {
+            writer.beginRow();
+            putText(item.getName());
+            putText(item.getDescription());
+            putText(item.getCategory());
+            putInteger(item.getQuantity());
+            putInteger(item.getLowStockThreshold());
+            putText(item.getBarcode());
+            putText(item.getSupplier());
+            putInteger(item.getUnitCostCents());
+            putInteger(item.getUnitPriceCents());
+            writer.endRow();
+        }
+
+        @Override
+        public void finish() throws IOException {
+            // End of the table, then end of the snapshot
+            writer.writeVarint(0);
+            writer.writeString("");
+            writer.flush();
+            if (gzipStream != null) {
+                gzipStream.finish();
+            }
+        }
+
+        private void putText(String value) {
+            if (value == null) {
+                writer.putType(TYPE_NULL);
+            } else {
+                writer.putType(TYPE_TEXT);
+                writer.putBytes(value.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        private void putInteger(long value) {
+            writer.putType(TYPE_INTEGER);
+            writer.putVarint(zigzag(value));
+        }
+    }
+
+    private int writeTable(SQLiteDatabase db, String table, String selection, RowWriter writer) throws IOException {
+        Cursor cursor = db.rawQuery("SELECT * FROM " + table + (selection != null ? " WHERE " + selection : ""), null);
+        try {
+            int columnCount = cursor.getColumnCount();
+            writer.writeString(table);
+            writer.writeVarint(columnCount);
+            for (int i = 0; i < columnCount; i++) {
+                writer.writeString(cursor.getColumnName(i));
+            }
+
+            int rows = 0;
+            while (cursor.moveToNext()) {
+                writer.beginRow();
+                for (int i = 0; i < columnCount; i++) {
+                    switch (cursor.getType(i)) {
+                        case Cursor.FIELD_TYPE_INTEGER:
+                            writer.putType(TYPE_INTEGER);
+                            writer.putVarint(zigzag(cursor.getLong(i)));
+                            break;
+                        case Cursor.FIELD_TYPE_FLOAT:
+                            writer.putType(TYPE_FLOAT);
+                            writer.putDouble(cursor.getDouble(i));
+                            break;
+                        case Cursor.FIELD_TYPE_STRING:
+                            writer.putType(TYPE_TEXT);
+                            writer.putBytes(cursor.getString(i).getBytes(StandardCharsets.UTF_8));
+                            break;
+                        case Cursor.FIELD_TYPE_BLOB:
+                            writer.putType(TYPE_BLOB);
+                            writer.putBytes(cursor.getBlob(i));
+                            break;
+                        default:
+                            writer.putType(TYPE_NULL);
+                            break;
+                    }
+                }
+                writer.endRow();
+                rows++;
+            }
+            // A zero length marks the end of the table
+            writer.writeVarint(0);
+            return rows;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    private int restoreTable(SQLiteDatabase db, String table, RowReader reader) throws IOException {
+        int columnCount = (int) reader.readVarint();
+        String[] columns = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            columns[i] = reader.readString();
+        }
+
+        // Only known tables and columns of the current schema are loaded
+        boolean known = Arrays.asList(TABLES).contains(table)
+                || InventoryDatabaseHelper.TABLE_SYNC_STATE.equals(table);
+        Set<String> currentColumns = known ? getColumns(db, table) : new HashSet<>();
+        int[] bindIndex = new int[columnCount];
+        List<String> kept = new ArrayList<>();
+        for (int i = 0; i < columnCount; i++) {
+            bindIndex[i] = currentColumns.contains(columns[i]) ? kept.size() + 1 : 0;
+            if (bindIndex[i] != 0) {
+                kept.add(columns[i]);
+            }
+        }
+
+        SQLiteStatement insert = null;
+        if (!kept.isEmpty()) {
+            String placeholders = new String(new char[kept.size() - 1]).replace("\0", "?, ") + "?";
+            insert = db.compileStatement("INSERT INTO " + table + " (" + String.join(", ", kept) +
+                    ") VALUES (" + placeholders + ")");
+        }
+
+        int rows = 0;
+        try {
+            int rowLength;
+            while ((rowLength = (int) reader.readVarint()) != 0) {
+                ByteBuffer row = reader.readRow(rowLength);
+                if (insert == null) {
+                    continue;
+                }
+                for (int i = 0; i < columnCount; i++) {
+                    int type = row.get();
+                    int index = bindIndex[i];
+                    switch (type) {
+                        case TYPE_INTEGER: {
+                            long value = unzigzag(getVarint(row));
+                            if (index != 0) insert.bindLong(index, value);
+                            break;
+                        }
+                        case TYPE_FLOAT: {
+                            double value = row.getDouble();
+                            if (index != 0) insert.bindDouble(index, value);
+                            break;
+                        }
+                        case TYPE_TEXT: {
+                            byte[] value = getBytes(row);
+                            if (index != 0) insert.bindString(index, new String(value, StandardCharsets.UTF_8));
+                            break;
+                        }
+                        case TYPE_BLOB: {
+                            byte[] value = getBytes(row);
+                            if (index != 0) insert.bindBlob(index, value);
+                            break;
+                        }
+                        case TYPE_NULL:
+                            if (index != 0) insert.bindNull(index);
+                            break;
+                        default:
+                            throw new IOException("Corrupt snapshot: unknown value type " + type);
+                    }
+                }
+                insert.executeInsert();
+                insert.clearBindings();
+                rows++;
+            }
+        } finally {
+            if (insert != null) {
+                insert.close();
+            }
+        }
+
+        if (insert == null) {
+            Log.w(TAG, "Skipped snapshot table not in this schema: " + table);
+        }
+        return rows;
+    }
+
+    private static Set<String> getColumns(SQLiteDatabase db, String table) {
+        Set<String> columns = new HashSet<>();
+        Cursor cursor = db.rawQuery("PRAGMA table_info(" + table + ")", null);
+        while (cursor.moveToNext()) {
+            columns.add(cursor.getString(cursor.getColumnIndexOrThrow("name")));
+        }
+        cursor.close();
+        return columns;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static long getVarint(ByteBuffer buffer) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt snapshot: varint too long");
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer) throws IOException {
+        byte[] bytes = new byte[(int) getVarint(buffer)];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Buffered writer of length-prefixed rows to a channel
+     */
+    private static class RowWriter {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        // Values of the row being written, copied out with its length in endRow()
+        private ByteBuffer row = ByteBuffer.allocate(1024);
+
+        RowWriter(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        void beginRow() {
+            row.clear();
+        }
+
+        void endRow() throws IOException {
+            row.flip();
+            writeVarint(row.remaining());
+            write(row);
+        }
+
+        private void ensureRowCapacity(int bytes) {
+            if (row.remaining() < bytes) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(row.capacity() * 2, row.position() + bytes));
+                row.flip();
+                larger.put(row);
+                row = larger;
+            }
+        }
+
+        void putType(int type) {
+            ensureRowCapacity(1);
+            row.put((byte) type);
+        }
+
+        void putDouble(double value) {
+            ensureRowCapacity(8);
+            row.putDouble(value);
+        }
+
+        void putVarint(long value) {
+            ensureRowCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                row.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            row.put((byte) value);
+        }
+
+        void putBytes(byte[] bytes) {
+            putVarint(bytes.length);
+            ensureRowCapacity(bytes.length);
+            row.put(bytes);
+        }
+
+        void writeVarint(long value) throws IOException {
+            if (buffer.remaining() < 10) {
+                flush();
+            }
+            while ((value & ~0x7FL) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            write(ByteBuffer.wrap(bytes));
+        }
+
+        private void write(ByteBuffer source) throws IOException {
+            while (source.hasRemaining()) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int count = Math.min(source.remaining(), buffer.remaining());
+                ByteBuffer slice = source.duplicate();
+                slice.limit(slice.position() + count);
+                buffer.put(slice);
+                source.position(source.position() + count);
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Buffered reader of length-prefixed rows from a channel
+     */
+    private static class RowReader {
+        private final ReadableByteChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        RowReader(ReadableByteChannel channel) {
+            this.channel = channel;
+            buffer.flip();
+        }
+
+        /**
+         * Make at least count bytes available in the buffer, reading more as needed
+         */
+        private void require(int count) throws IOException {
+            if (buffer.remaining() >= count) {
+                return;
+            }
+            if (buffer.capacity() < count) {
+                ByteBuffer larger = ByteBuffer.allocate(count);
+                larger.put(buffer);
+                buffer = larger;
+            } else {
+                buffer.compact();
+            }
+            while (buffer.position() < count) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Snapshot ends unexpectedly");
+                }
+            }
+            buffer.flip();
+        }
+
+        long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                require(1);
+                byte b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Corrupt snapshot: varint too long");
+        }
+
+        String readString() throws IOException {
+            int length = (int) readVarint();
+            require(length);
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                    length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+
+        /**
+         * Get a view of the next row's values; valid until the next read
+         */
+        ByteBuffer readRow(int length) throws IOException {
+            require(length);
+            ByteBuffer row = buffer.slice();
+            row.limit(length);
+            buffer.position(buffer.position() + length);
+            return row;
+        }
+    }
+}
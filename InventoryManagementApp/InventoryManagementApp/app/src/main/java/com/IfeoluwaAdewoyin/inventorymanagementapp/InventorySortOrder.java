@@ -0,0 +1,150 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Orderings offered for the inventory list, each backed by a matching index
+ * Every ordering ends with item_id, so rows with equal sort keys always come back in
+ * the same order. Pages are read with keyset conditions instead of OFFSET, so each
+ * page starts with an index seek right after the last row of the previous page.
+ */
+public enum InventorySortOrder {
+
+    NAME("Name", "idx_inventory_name", false,
+            new String[]{InventoryDatabaseHelper.COLUMN_ITEM_NAME},
+            new boolean[]{false}),
+
+    QUANTITY("Quantity (lowest first)", "idx_inventory_quantity", false,
+            new String[]{InventoryDatabaseHelper.COLUMN_ITEM_QUANTITY},
+            new boolean[]{true}),
+
+    STOCK_STATUS("Stock status (critical first)", "idx_inventory_stock_status", false,
+            new String[]{InventorySortOrder.STOCK_STATUS_EXPRESSION, InventoryDatabaseHelper.COLUMN_ITEM_QUANTITY},
+            new boolean[]{true, true}),
+
+    CATEGORY("Category", "idx_inventory_category", false,
+            new String[]{"IFNULL(" + InventoryDatabaseHelper.COLUMN_ITEM_CATEGORY + ", '')",
+                    InventoryDatabaseHelper.COLUMN_ITEM_NAME},
+            new boolean[]{false, false}),
+
+    RECENTLY_UPDATED("Recently updated", "idx_inventory_updated_at", true,
+            new String[]{InventoryDatabaseHelper.COLUMN_ITEM_UPDATED_AT},
+            new boolean[]{false});
+
+    // 0 = critical, 1 = low stock, 2 = in stock; same rules as InventoryItem
+    static final String STOCK_STATUS_EXPRESSION =
+            "CASE WHEN " + InventoryDatabaseHelper.COLUMN_ITEM_QUANTITY + " <= " +
+                    InventoryDatabaseHelper.COLUMN_CRITICAL_THRESHOLD + " THEN 0" +
+                    " WHEN " + InventoryDatabaseHelper.COLUMN_ITEM_QUANTITY + " <= " +
+                    InventoryDatabaseHelper.COLUMN_LOW_STOCK_THRESHOLD + " THEN 1 ELSE 2 END";
+
+    private final String label;
+    private final String indexName;
+    private final boolean descending;
+    private final String[] keys;
+    private final boolean[] numericKeys;
+
+    InventorySortOrder(String label, String indexName, boolean descending,
+                       String[] keys, boolean[] numericKeys) {
+        this.label = label;
+        this.indexName = indexName;
+        this.descending = descending;
+        this.keys = keys;
+        this.numericKeys = numericKeys;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Get the sort key expressions, not including the trailing item_id
+     * @return Key expressions in sort order
+     */
+    String[] getKeys() {
+        return keys;
+    }
+
+    /**
+     * Build the index that serves this ordering
+     * The rowid (item_id) is always the last entry of an index, so it is not listed.
+     * Only live items are indexed; queries must include LIVE_ITEMS to use the index.
+     * @return CREATE INDEX statement
+     */
+    String getCreateIndexSql() {
+        return "CREATE INDEX " + indexName + " ON " + InventoryDatabaseHelper.TABLE_INVENTORY +
+                " (" + String.join(", ", keys) + ") WHERE " + InventoryDatabaseHelper.LIVE_ITEMS;
+    }
+
+    /**
+     * Build the ORDER BY clause, including the item_id tiebreaker
+     * @return Order terms without the ORDER BY keyword
+     */
+    String getOrderBy() {
+        String direction = descending ? " DESC" : "";
+        StringBuilder orderBy = new StringBuilder();
+        for (String key : keys) {
+            orderBy.append(key).append(direction).append(", ");
+        }
+        return orderBy.append(InventoryDatabaseHelper.COLUMN_ITEM_ID).append(direction).toString();
+    }
+
+    /**
+     * Build the condition selecting rows that sort after a given row
+     * Written as "k >= v AND (k > v OR ...)" rather than with row values, which need a
+     * newer SQLite than minSdk ships, so the leading key still bounds the index range.
+     * Numeric keys are written as integer literals: a bound argument is text and would
+     * never compare equal to the stock status expression, and a CAST stops SQLite
+     * from seeking the expression index.
+     * @param sortKey Values of getKeys() followed by the item ID, as returned for a page
+     * @return WHERE condition; bind it with getKeysetArgs()
+     * @throws NumberFormatException if a numeric key value is not an integer
+     */
+    String getKeysetCondition(String[] sortKey) {
+        String after = descending ? " < " : " > ";
+        String afterOrEqual = descending ? " <= " : " >= ";
+        StringBuilder condition = new StringBuilder();
+        for (int i = 0; i < keys.length; i++) {
+            String value = numericKeys[i] ? String.valueOf(Long.parseLong(sortKey[i])) : "?";
+            condition.append(keys[i]).append(afterOrEqual).append(value)
+                    .append(" AND (").append(keys[i]).append(after).append(value).append(" OR ");
+        }
+        condition.append(InventoryDatabaseHelper.COLUMN_ITEM_ID).append(after)
+                .append(Long.parseLong(sortKey[keys.length]));
+        for (int i = 0; i < keys.length; i++) {
+            condition.append(")");
+        }
+        return condition.toString();
+    }
+
+    /**
+     * Arrange the text values of a row's sort key for binding to getKeysetCondition()
+     * @param sortKey Values of getKeys() followed by the item ID
+     * @return Selection arguments
+     */
+    String[] getKeysetArgs(String[] sortKey) {
+        List<String> args = new ArrayList<>();
+        for (int i = 0; i < keys.length; i++) {
+            if (!numericKeys[i]) {
+                args.add(sortKey[i]);
+                args.add(sortKey[i]);
+            }
+        }
+        return args.toArray(new String[0]);
+    }
+
+    /**
+     * Look up an ordering by name, e.g. one saved in preferences
+     * @param name Enum constant name
+     * @return Matching ordering, or NAME if unknown
+     */
+    public static InventorySortOrder fromName(String name) {
+        for (InventorySortOrder order : values()) {
+            if (order.name().equals(name)) {
+                return order;
+            }
+        }
+        return NAME;
+    }
+}
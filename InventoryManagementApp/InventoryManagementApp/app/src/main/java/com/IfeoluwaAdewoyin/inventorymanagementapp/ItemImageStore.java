@@ -0,0 +1,158 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.Log;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores item photos as JPEG files in app storage, outside the database
+ * Each stock location has its own folder and photos are named by item ID.
+ * Photos are scaled down when saved, so list thumbnails decode quickly.
+ */
+public class ItemImageStore {
+
+    private static final String TAG = "ItemImageStore";
+    private static final String IMAGE_DIR = "item_images";
+    private static final String PENDING_DIR = "pending_images";
+    private static final int MAX_IMAGE_SIZE_PX = 1280;
+    private static final int JPEG_QUALITY = 85;
+
+    // Small number per photo folder for the lifetime of the process, used in thumbnail cache keys
+    private static final Map<String, Integer> STORE_IDS = new HashMap<>();
+
+    private final File directory;
+    private final int storeId;
+
+    /**
+     * @param context Application context
+     * @param databaseName Database file of the stock location the photos belong to
+     */
+    public ItemImageStore(Context context, String databaseName) {
+        this.directory = new File(new File(context.getFilesDir(), IMAGE_DIR), databaseName);
+        synchronized (STORE_IDS) {
+            Integer id = STORE_IDS.get(directory.getPath());
+            if (id == null) {
+                id = STORE_IDS.size();
+                STORE_IDS.put(directory.getPath(), id);
+            }
+            this.storeId = id;
+        }
+    }
+
+    /**
+     * Get the number identifying this photo folder; stores of the same location share it
+     * @return Store number, only stable while the process runs
+     */
+    int getStoreId() {
+        return storeId;
+    }
+
+    /**
+     * Get the photo file of an item; the file only exists if a photo was attached
+     * @param itemId ID of the item
+     * @return Photo file location
+     */
+    public File getImageFile(long itemId) {
+        return new File(directory, itemId + ".jpg");
+    }
+
+    /**
+     * Get a scratch file for a photo that is not attached to an item yet
+     * Photos are taken or imported into this file, then attached with attachImage()
+     * @param context Application context
+     * @return Pending photo file in the cache directory
+     */
+    public static File getPendingImageFile(Context context) {
+        File pendingDir = new File(context.getCacheDir(), PENDING_DIR);
+        if (!pendingDir.exists() && !pendingDir.mkdirs()) {
+            Log.w(TAG, "Could not create pending image directory");
+        }
+        return new File(pendingDir, "pending_item_image.jpg");
+    }
+
+    /**
+     * Copy an image stream into a file, e.g. a photo picked from the gallery
+     * Must not be called on the main thread
+     * @param in Image data; closed by the caller
+     * @param destination File to write
+     * @throws IOException if the data cannot be copied
+     */
+    public static void copyImage(InputStream in, File destination) throws IOException {
+        try (OutputStream out = new FileOutputStream(destination)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    /**
+     * Re-encode an image file in place so neither side exceeds the stored photo size
+     * Decoding is subsampled by a power of two first, so the final scale step stays small.
+     * Must not be called on the main thread
+     * @param file Image file to shrink
+     * @throws IOException if the file is not a readable image or cannot be written
+     */
+    public static void shrinkImage(File file) throws IOException {
+        Bitmap bitmap = ThumbnailLoader.decodeSampled(file, MAX_IMAGE_SIZE_PX);
+        if (bitmap == null) {
+            throw new IOException("Not a readable image: " + file.getName());
+        }
+
+        int longestSide = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        if (longestSide > MAX_IMAGE_SIZE_PX) {
+            Bitmap scaled = Bitmap.createScaledBitmap(bitmap,
+                    Math.max(1, bitmap.getWidth() * MAX_IMAGE_SIZE_PX / longestSide),
+                    Math.max(1, bitmap.getHeight() * MAX_IMAGE_SIZE_PX / longestSide), true);
+            bitmap.recycle();
+            bitmap = scaled;
+        }
+
+        try (OutputStream out = new FileOutputStream(file)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+        } finally {
+            bitmap.recycle();
+        }
+    }
+
+    /**
+     * Move a pending photo into place as an item's photo, replacing any previous one
+     * @param itemId ID of the item
+     * @param pendingFile Photo prepared with shrinkImage()
+     * @return true if the photo was attached
+     */
+    public boolean attachImage(long itemId, File pendingFile) {
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.e(TAG, "Could not create image directory " + directory);
+            return false;
+        }
+
+        File target = getImageFile(itemId);
+        boolean attached = pendingFile.renameTo(target);
+        if (attached) {
+            // Renaming keeps the old timestamp; thumbnails are only reused if newer than the photo
+            target.setLastModified(System.currentTimeMillis());
+        }
+        Log.d(TAG, "Attached photo for item ID " + itemId + ": " + attached);
+        return attached;
+    }
+
+    /**
+     * Delete an item's photo, if it has one
+     * @param itemId ID of the item
+     */
+    public void deleteImage(long itemId) {
+        File file = getImageFile(itemId);
+        if (file.exists() && !file.delete()) {
+            Log.w(TAG, "Could not delete photo for item ID " + itemId);
+        }
+    }
+}
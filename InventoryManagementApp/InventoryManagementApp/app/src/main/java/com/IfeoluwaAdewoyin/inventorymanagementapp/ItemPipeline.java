@@ -0,0 +1,432 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.util.Log;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streams inventory items from a source through transform stages into a sink
+ * The source and every stage run on their own thread, connected by bounded queues: a
+ * slow sink fills the queues and then blocks the stages and source behind it, so a
+ * pipeline never holds more than (stages + 1) * bufferSize items no matter how many
+ * rows it moves. The sink runs on the thread that calls run(), which also reports
+ * progress. cancel() stops every thread at its next item; nothing is finished then.
+ */
+public class ItemPipeline {
+
+    private static final String TAG = "ItemPipeline";
+    static final int DEFAULT_BUFFER_SIZE = 256;
+    private static final int PROGRESS_INTERVAL_ROWS = 500;
+    // How often blocked threads look for cancellation or a failure elsewhere
+    private static final long POLL_MILLIS = 50;
+
+    // Marks the end of the stream in a queue
+    private static final InventoryItem END = new InventoryItem();
+
+    /**
+     * Produces items one at a time
+     */
+    public interface Source extends Closeable {
+        /**
+         * @return Next item, or null at the end
+         */
+        InventoryItem next() throws IOException;
+
+        /**
+         * @return Number of items the source will produce, or -1 if unknown
+         */
+        long size();
+    }
+
+    /**
+     * Transforms one item
+     */
+    public interface Stage {
+        /**
+         * @param item Item from the previous stage
+         * @return Item for the next stage, or null to drop it
+         */
+        InventoryItem apply(InventoryItem item) throws IOException;
+    }
+
+    /**
+     * Consumes the items that come out of the last stage
+     */
+    public interface Sink {
+        void accept(InventoryItem item) throws IOException;
+
+        /**
+         * Called once after the last item, unless the pipeline was cancelled or failed
+         */
+        void finish() throws IOException;
+    }
+
+    public interface ProgressListener {
+        /**
+         * @param rows Items read from the source so far
+         * @param total Items the source will produce, or -1 if unknown
+         */
+        void onProgress(long rows, long total);
+    }
+
+    private final Source source;
+    private final List<Stage> stages = new ArrayList<>();
+    private int bufferSize = DEFAULT_BUFFER_SIZE;
+    private ProgressListener progressListener;
+    private volatile boolean cancelled;
+    private volatile long rowsRead;
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+
+    public ItemPipeline(Source source) {
+        this.source = source;
+    }
+
+    /**
+     * Add a transform stage after the existing ones
+     * @param stage Stage, run on its own thread
+     * @return This pipeline
+     */
+    public ItemPipeline map(Stage stage) {
+        stages.add(stage);
+        return this;
+    }
+
+    /**
+     * Set how many items may wait between two threads
+     * @param bufferSize Queue capacity, at least 1
+     * @return This pipeline
+     */
+    public ItemPipeline bufferSize(int bufferSize) {
+        this.bufferSize = Math.max(1, bufferSize);
+        return this;
+    }
+
+    public ItemPipeline onProgress(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * Stop the pipeline; run() then throws CancellationException
+     * Safe to call from any thread
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Move every item from the source through the stages into the sink
+     * Blocks until the sink has finished; must not be called on the main thread
+     * @param sink Sink, run on the calling thread
+     * @return Number of items the sink accepted
+     * @throws IOException if the source, a stage or the sink failed
+     * @throws CancellationException if cancel() was called before the end
+     */
+    public long run(Sink sink) throws IOException {
+        long startTime = System.nanoTime();
+        long total = source.size();
+        List<BlockingQueue<InventoryItem>> queues = new ArrayList<>();
+        for (int i = 0; i <= stages.size(); i++) {
+            queues.add(new ArrayBlockingQueue<>(bufferSize));
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        threads.add(new Thread(() -> produce(queues.get(0)), TAG + "-source"));
+        for (int i = 0; i < stages.size(); i++) {
+            Stage stage = stages.get(i);
+            BlockingQueue<InventoryItem> input = queues.get(i);
+            BlockingQueue<InventoryItem> output = queues.get(i + 1);
+            threads.add(new Thread(() -> transform(stage, input, output), TAG + "-stage" + (i + 1)));
+        }
+
+        long accepted = 0;
+        try {
+            for (Thread thread : threads) {
+                thread.start();
+            }
+
+            BlockingQueue<InventoryItem> input = queues.get(queues.size() - 1);
+            InventoryItem item;
+            while ((item = take(input)) != END && item != null) {
+                sink.accept(item);
+                accepted++;
+                if (progressListener != null && accepted % PROGRESS_INTERVAL_ROWS == 0) {
+                    progressListener.onProgress(rowsRead, total);
+                }
+            }
+            throwIfStopped();
+            sink.finish();
+            if (progressListener != null) {
+                progressListener.onProgress(rowsRead, total);
+            }
+        } catch (IOException | RuntimeException e) {
+            failure.compareAndSet(null, e);
+            throw e;
+        } finally {
+            cancelled |= failure.get() != null;
+            joinAll(threads);
+            source.close();
+        }
+
+        Log.d(TAG, "Moved " + accepted + " of " + rowsRead + " items in " +
+                (System.nanoTime() - startTime) / 1000000 + " ms");
+        return accepted;
+    }
+
+    private void produce(BlockingQueue<InventoryItem> output) {
+        try {
+            InventoryItem item;
+            while (!isStopped() && (item = source.next()) != null) {
+                rowsRead++;
+                if (!put(output, item)) {
+                    return;
+                }
+            }
+            put(output, END);
+        } catch (Exception e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private void transform(Stage stage, BlockingQueue<InventoryItem> input, BlockingQueue<InventoryItem> output) {
+        try {
+            InventoryItem item;
+            while ((item = take(input)) != null) {
+                if (item == END) {
+                    put(output, END);
+                    return;
+                }
+                InventoryItem result = stage.apply(item);
+                if (result != null && !put(output, result)) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    /**
+     * Wait for room in a queue, giving up if the pipeline stops
+     * @return true if the item was queued
+     */
+    private boolean put(BlockingQueue<InventoryItem> queue, InventoryItem item) throws InterruptedException {
+        while (!isStopped()) {
+            if (queue.offer(item, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wait for an item, giving up if the pipeline stops
+     * @return Item, END, or null if the pipeline stopped
+     */
+    private InventoryItem take(BlockingQueue<InventoryItem> queue) {
+        try {
+            while (!isStopped()) {
+                InventoryItem item = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (item != null) {
+                    return item;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelled = true;
+        }
+        return null;
+    }
+
+    private boolean isStopped() {
+        return cancelled || failure.get() != null;
+    }
+
+    private void throwIfStopped() throws IOException {
+        Exception e = failure.get();
+        if (e instanceof IOException) {
+            throw (IOException) e;
+        } else if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else if (e != null) {
+            throw new IOException(e);
+        }
+        if (cancelled) {
+            throw new CancellationException("Pipeline cancelled after " + rowsRead + " items");
+        }
+    }
+
+    private static void joinAll(List<Thread> threads) {
+        boolean interrupted = false;
+        for (Thread thread : threads) {
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ======================== SOURCES AND SINKS ========================
+
+    /**
+     * Source reading the live items of a database page by page
+     * Only one page is held at a time; see InventoryDatabaseHelper.getItemsAfter()
+     */
+    public static class DatabaseSource implements Source {
+        private static final int PAGE_SIZE = 200;
+
+        private final InventoryDatabaseHelper databaseHelper;
+        private final long size;
+        private Iterator<InventoryItem> page;
+        private long lastItemId;
+        private boolean lastPage;
+
+        public DatabaseSource(InventoryDatabaseHelper databaseHelper) {
+            this.databaseHelper = databaseHelper;
+            this.size = databaseHelper.getInventoryStats()[0];
+        }
+
+        @Override
+        public InventoryItem next() {
+            if ((page == null || !page.hasNext()) && !lastPage) {
+                List<InventoryItem> items = databaseHelper.getItemsAfter(lastItemId, PAGE_SIZE);
+                lastPage = items.size() < PAGE_SIZE;
+                page = items.iterator();
+            }
+            if (page == null || !page.hasNext()) {
+                return null;
+            }
+            InventoryItem item = page.next();
+            lastItemId = item.getId();
+            return item;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public void close() {
+            page = null;
+        }
+    }
+
+    /**
+     * Sink writing items as CSV with the columns InventoryImporter reads back
+     */
+    public static class CsvSink implements Sink {
+        private final Writer writer;
+
+        /**
+         * @param writer Destination, ideally buffered; flushed but not closed by finish()
+         */
+        public CsvSink(Writer writer) throws IOException {
+            this.writer = writer;
+            writeRow(InventoryImporter.COLUMN_LABELS);
+        }
+
+        @Override
+        public void accept(InventoryItem item) throws IOException {
+            writeRow(new String[]{item.getName(), item.getDescription(), item.getCategory(),
+                    String.valueOf(item.getQuantity()), String.valueOf(item.getLowStockThreshold()),
+                    item.getBarcode(), InventoryItem.formatCents(item.getUnitCostCents()),
+                    InventoryItem.formatCents(item.getUnitPriceCents()), item.getSupplier()});
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+
+        private void writeRow(String[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(quote(values[i]));
+            }
+            writer.write("\r\n");
+        }
+
+        /**
+         * Quote a value if it contains a separator, quote or line break
+         */
+        static String quote(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                    && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    /**
+     * Sink sending one SMS summarizing the low and critical items it receives
+     * Counts every item but keeps only the first few for the message, so memory stays
+     * constant for any number of items.
+     */
+    public static class SmsDigestSink implements Sink {
+        static final int MAX_LISTED_ITEMS = 5;
+
+        private final SMSNotificationManager smsManager;
+        private final List<InventoryItem> listedItems = new ArrayList<>();
+        private int lowStockCount;
+        private int criticalCount;
+
+        public SmsDigestSink(SMSNotificationManager smsManager) {
+            this.smsManager = smsManager;
+        }
+
+        @Override
+        public void accept(InventoryItem item) {
+            if (item.isCriticalStock()) {
+                criticalCount++;
+            } else if (item.isLowStock()) {
+                lowStockCount++;
+            } else {
+                return;
+            }
+            if (listedItems.size() < MAX_LISTED_ITEMS) {
+                listedItems.add(item);
+            }
+        }
+
+        @Override
+        public void finish() {
+            if (lowStockCount + criticalCount > 0) {
+                smsManager.sendStockDigest(listedItems, lowStockCount, criticalCount);
+            }
+        }
+
+        public int getLowStockCount() {
+            return lowStockCount;
+        }
+
+        public int getCriticalCount() {
+            return criticalCount;
+        }
+    }
+}
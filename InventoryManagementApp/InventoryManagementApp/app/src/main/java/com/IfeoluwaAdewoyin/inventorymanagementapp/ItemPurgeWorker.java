@@ -0,0 +1,77 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that permanently removes deleted items once they can no longer be undone
+ * Runs over every stock location, purging tombstones in batches and deleting the
+ * photos of the purged items.
+ */
+public class ItemPurgeWorker extends Worker {
+
+    private static final String TAG = "ItemPurgeWorker";
+    private static final String WORK_NAME = "purge_deleted_items";
+
+    // Deleted items are kept at least this long, well past the undo Snackbar
+    static final long UNDO_WINDOW_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final int BATCH_SIZE = 200;
+
+    public ItemPurgeWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedule a purge to run after the undo window of an item deleted now
+     * Rescheduling replaces the pending run, so one run covers a burst of deletes
+     * @param context Any context
+     */
+    public static void schedule(Context context) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(ItemPurgeWorker.class)
+                .setInitialDelay(UNDO_WINDOW_MS, TimeUnit.MILLISECONDS)
+                .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.REPLACE, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        Context context = getApplicationContext();
+        InventoryLocationManager locationManager = new InventoryLocationManager(context);
+        long deletedBefore = System.currentTimeMillis() - UNDO_WINDOW_MS;
+
+        try {
+            for (String location : locationManager.getLocations()) {
+                if (isStopped()) {
+                    return Result.retry();
+                }
+                if (!context.getDatabasePath(locationManager.getDatabaseName(location)).exists()) {
+                    continue;
+                }
+
+                InventoryDatabaseHelper helper = locationManager.openHelper(location);
+                try {
+                    List<Long> purgedIds = helper.purgeDeletedItems(deletedBefore, BATCH_SIZE);
+                    ItemImageStore imageStore = new ItemImageStore(context, helper.getDatabaseName());
+                    for (long itemId : purgedIds) {
+                        imageStore.deleteImage(itemId);
+                    }
+                } finally {
+                    helper.close();
+                }
+            }
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "Error purging deleted items: " + e.getMessage(), e);
+            return Result.retry();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import android.content.DialogInterface;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
+import android.net.Uri;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.Menu;
@@ -17,7 +18,26 @@ import androidx.appcompat.widget.Toolbar;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
+import com.google.android.material.snackbar.Snackbar;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * MainActivity - Main dashboard showing inventory items and statistics
@@ -26,12 +46,33 @@ import java.util.List;
 public class MainActivity extends AppCompatActivity implements
         InventoryAdapter.OnItemClickListener,
         InventoryAdapter.OnItemDeleteListener,
-        InventoryAdapter.OnQuantityChangeListener {
+        InventoryAdapter.OnQuantityChangeListener,
+        QuantityWriteBuffer.OnFlushListener {
 
     private static final String TAG = "MainActivity";
     private static final String PREFS_NAME = "InventoryAppPrefs";
     private static final int ADD_ITEM_REQUEST_CODE = 100;
     private static final int EDIT_ITEM_REQUEST_CODE = 101;
+    private static final int IMPORT_FILE_REQUEST_CODE = 102;
+    private static final int EXPORT_FILE_REQUEST_CODE = 103;
+    private static final String PREF_SYNC_SERVER_URL = "sync_server_url";
+    private static final String PREF_SORT_ORDER = "sort_order";
+    private static final String LOW_STOCK_ALERT_WATERMARK = "low_stock_alerts";
+    private static final String EXPIRY_ALERT_WATERMARK = "expiry_alerts";
+
+    // Lots expiring this many days ahead are alerted once a day, and listed on request
+    private static final int EXPIRY_ALERT_DAYS = 7;
+    private static final int EXPIRING_LIST_DAYS = 30;
+    private static final int EXPIRING_LIST_LIMIT = 100;
+
+    // Export formats, in the order the export dialog lists them
+    private static final int EXPORT_CSV = 0;
+    private static final int EXPORT_SNAPSHOT = 1;
+    private static final int EXPORT_SMS_DIGEST = 2;
+
+    // Rows read per page, and how close to the end of the list the next page is loaded
+    private static final int PAGE_SIZE = 200;
+    private static final int PAGE_PREFETCH_ROWS = 50;
 
     // UI Components
     private RecyclerView inventoryRecyclerView;
@@ -44,15 +85,32 @@ public class MainActivity extends AppCompatActivity implements
     private InventoryAdapter inventoryAdapter;
     private InventoryDatabaseHelper databaseHelper;
     private SMSNotificationManager smsManager;
+    private QuantityWriteBuffer quantityWriteBuffer;
+    private InventoryLocationManager locationManager;
+    private final ExecutorService syncExecutor = Executors.newSingleThreadExecutor();
+    private final ExecutorService databaseExecutor = Executors.newSingleThreadExecutor();
+
+    // List paging state
+    private InventorySortOrder sortOrder;
+    private InventoryItemStore inventoryItems;
+    private String[] nextPageKey;
+
+    // Format chosen before the user picks where to save the export
+    private int pendingExportFormat = EXPORT_CSV;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
-        // Initialize database and SMS manager
-        databaseHelper = new InventoryDatabaseHelper(this);
+        // Initialize database for the current location and SMS manager
+        locationManager = new InventoryLocationManager(this);
+        databaseHelper = locationManager.openCurrentHelper();
         smsManager = new SMSNotificationManager(this);
+        quantityWriteBuffer = new QuantityWriteBuffer(databaseHelper);
+        quantityWriteBuffer.setOnFlushListener(this);
+        sortOrder = InventorySortOrder.fromName(getSharedPreferences(PREFS_NAME, MODE_PRIVATE)
+                .getString(PREF_SORT_ORDER, InventorySortOrder.NAME.name()));
 
         setupToolbar();
         initializeViews();
@@ -62,6 +120,8 @@ public class MainActivity extends AppCompatActivity implements
         // Load data and check SMS permissions
         loadInventoryData();
         checkSMSPermissions();
+        ForecastWorker.schedule(this);
+        DatabaseMaintenanceWorker.schedule(this);
 
         Log.d(TAG, "MainActivity created successfully");
     }
@@ -72,6 +132,7 @@ public class MainActivity extends AppCompatActivity implements
     private void setupToolbar() {
         Toolbar toolbar = findViewById(R.id.toolbar);
         setSupportActionBar(toolbar);
+        toolbar.setSubtitle(locationManager.getCurrentLocation());
     }
 
     /**
@@ -93,11 +154,23 @@ public class MainActivity extends AppCompatActivity implements
         inventoryRecyclerView.setLayoutManager(layoutManager);
 
         inventoryAdapter = new InventoryAdapter(this);
+        inventoryAdapter.setImageStore(new ItemImageStore(this, databaseHelper.getDatabaseName()));
         inventoryAdapter.setOnItemClickListener(this);
         inventoryAdapter.setOnItemDeleteListener(this);
         inventoryAdapter.setOnQuantityChangeListener(this);
 
         inventoryRecyclerView.setAdapter(inventoryAdapter);
+
+        // Load the next page of items as the list nears its end
+        inventoryRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && nextPageKey != null && layoutManager.findLastVisibleItemPosition()
+                        >= inventoryAdapter.getItemCount() - PAGE_PREFETCH_ROWS) {
+                    recyclerView.post(() -> loadNextPage());
+                }
+            }
+        });
     }
 
     /**
@@ -115,8 +188,13 @@ public class MainActivity extends AppCompatActivity implements
      */
     private void loadInventoryData() {
         try {
-            // Get all inventory items
-            List<InventoryItem> items = databaseHelper.getAllInventoryItems();
+            // Make sure buffered quantity changes are visible to the queries below
+            quantityWriteBuffer.flush();
+
+            // Get the first page of inventory items in the selected order
+            InventoryItemStore items = new InventoryItemStore();
+            nextPageKey = databaseHelper.loadInventoryPage(items, sortOrder, null, PAGE_SIZE);
+            inventoryItems = items;
             inventoryAdapter.updateItems(items);
 
             // Update statistics
@@ -124,6 +202,7 @@ public class MainActivity extends AppCompatActivity implements
 
             // Check for low stock items and send notifications if needed
             checkLowStockAndNotify();
+            checkExpiringLotsAndNotify();
 
             Log.d(TAG, "Loaded " + items.size() + " inventory items");
 
@@ -133,6 +212,48 @@ public class MainActivity extends AppCompatActivity implements
         }
     }
 
+    /**
+     * Append the next page of inventory items to the list, if there is one
+     */
+    private void loadNextPage() {
+        if (nextPageKey == null) {
+            return;
+        }
+        try {
+            int positionStart = inventoryItems.size();
+            nextPageKey = databaseHelper.loadInventoryPage(inventoryItems, sortOrder, nextPageKey, PAGE_SIZE);
+            inventoryAdapter.notifyItemsAppended(positionStart, inventoryItems.size() - positionStart);
+        } catch (Exception e) {
+            Log.e(TAG, "Error loading inventory page: " + e.getMessage(), e);
+            nextPageKey = null;
+            Toast.makeText(this, "Error loading inventory data", Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    /**
+     * Show the available list orderings and reload the list in the chosen one
+     */
+    private void showSortDialog() {
+        InventorySortOrder[] orders = InventorySortOrder.values();
+        String[] labels = new String[orders.length];
+        for (int i = 0; i < orders.length; i++) {
+            labels[i] = orders[i].getLabel();
+        }
+
+        new AlertDialog.Builder(this)
+                .setTitle("Sort Items By")
+                .setSingleChoiceItems(labels, sortOrder.ordinal(), (dialog, which) -> {
+                    sortOrder = orders[which];
+                    getSharedPreferences(PREFS_NAME, MODE_PRIVATE).edit()
+                            .putString(PREF_SORT_ORDER, sortOrder.name()).apply();
+                    dialog.dismiss();
+                    loadInventoryData();
+                    inventoryRecyclerView.scrollToPosition(0);
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
     /**
      * Update inventory statistics display
      */
@@ -145,15 +266,64 @@ public class MainActivity extends AppCompatActivity implements
     }
 
     /**
-     * Check for low stock items and send SMS notifications if permissions granted
+     * Check for low stock items in the background and send SMS notifications if permissions granted
+     * Only items changed since the last check are scanned, so each change alerts once
      */
     private void checkLowStockAndNotify() {
-        if (SMSPermissionHelper.hasSMSPermission(this)) {
-            List<InventoryItem> lowStockItems = databaseHelper.getLowStockItems();
-            if (!lowStockItems.isEmpty()) {
-                smsManager.sendLowStockNotifications(lowStockItems);
+        if (!SMSPermissionHelper.hasSMSPermission(this)) {
+            return;
+        }
+        InventoryDatabaseHelper helper = databaseHelper;
+        databaseExecutor.execute(() -> {
+            try {
+                long upToChangeId = helper.getLastChangeId();
+                long watermark = helper.getChangeWatermark(LOW_STOCK_ALERT_WATERMARK);
+                if (upToChangeId == watermark) {
+                    return;
+                }
+
+                List<InventoryItem> lowStockItems = new ArrayList<>();
+                for (InventoryItem item : helper.getItemsChangedSince(watermark, upToChangeId)) {
+                    if (!item.isDeleted() && item.isLowStock()) {
+                        lowStockItems.add(item);
+                    }
+                }
+                if (!lowStockItems.isEmpty()) {
+                    smsManager.sendLowStockNotifications(lowStockItems);
+                }
+                helper.setChangeWatermark(LOW_STOCK_ALERT_WATERMARK, upToChangeId);
+            } catch (Exception e) {
+                Log.e(TAG, "Error checking low stock: " + e.getMessage(), e);
             }
+        });
+    }
+
+    /**
+     * Send one SMS a day about lots that expire within EXPIRY_ALERT_DAYS, if any, in the background
+     * The time of the last alert is kept as a watermark, so reloading the list doesn't repeat it
+     */
+    private void checkExpiringLotsAndNotify() {
+        if (!SMSPermissionHelper.hasSMSPermission(this)) {
+            return;
         }
+        InventoryDatabaseHelper helper = databaseHelper;
+        databaseExecutor.execute(() -> {
+            try {
+                long now = System.currentTimeMillis();
+                if (now - helper.getChangeWatermark(EXPIRY_ALERT_WATERMARK) < StockHistory.DAY_MILLIS) {
+                    return;
+                }
+
+                List<StockLot> lots = helper.getExpiringLots(now + EXPIRY_ALERT_DAYS * StockHistory.DAY_MILLIS,
+                        SMSNotificationManager.MAX_LISTED_LOTS + 1);
+                if (!lots.isEmpty()) {
+                    smsManager.sendExpiryAlert(lots, now);
+                }
+                helper.setChangeWatermark(EXPIRY_ALERT_WATERMARK, now);
+            } catch (Exception e) {
+                Log.e(TAG, "Error checking expiring lots: " + e.getMessage(), e);
+            }
+        });
     }
 
     /**
@@ -204,6 +374,12 @@ public class MainActivity extends AppCompatActivity implements
 
     @Override
     public void onItemClick(InventoryItem item, int position) {
+        // List rows are partial, so the full row is read into the shared item cache in the
+        // background while the edit screen starts, and that screen reads it from the cache
+        InventoryDatabaseHelper helper = databaseHelper;
+        long itemId = item.getId();
+        databaseExecutor.execute(() -> helper.getInventoryItem(itemId));
+
         // Navigate to edit item activity
         Intent intent = new Intent(this, AddItemActivity.class);
         intent.putExtra("EDIT_MODE", true);
@@ -213,53 +389,87 @@ public class MainActivity extends AppCompatActivity implements
 
     @Override
     public void onItemDelete(InventoryItem item, int position) {
-        // Show confirmation dialog before deleting
-        new AlertDialog.Builder(this)
-                .setTitle("Delete Item")
-                .setMessage("Are you sure you want to delete \"" + item.getName() + "\"?")
-                .setPositiveButton("Delete", (dialog, which) -> {
+        // Remove the row right away; the delete is written in the background and can be undone
+        inventoryAdapter.removeItem(position);
+        InventoryDatabaseHelper helper = databaseHelper;
+        databaseExecutor.execute(() -> {
+            try {
+                int rowsAffected = helper.deleteInventoryItem(item.getId());
+                runOnUiThread(() -> {
+                    if (rowsAffected > 0) {
+                        updateInventoryStatistics();
+                        ItemPurgeWorker.schedule(this);
+                        showUndoDelete(helper, item, position);
+                    } else {
+                        Toast.makeText(this, "Failed to delete item", Toast.LENGTH_SHORT).show();
+                        loadInventoryData();
+                    }
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Error deleting item: " + e.getMessage(), e);
+                runOnUiThread(() -> {
+                    Toast.makeText(this, "Error deleting item", Toast.LENGTH_SHORT).show();
+                    loadInventoryData();
+                });
+            }
+        });
+    }
+
+    /**
+     * Offer to undo a delete; the item is restored in place if it has not been purged yet
+     * @param helper Database the item was deleted from
+     * @param item The deleted item
+     * @param position Position the item had in the list
+     */
+    private void showUndoDelete(InventoryDatabaseHelper helper, InventoryItem item, int position) {
+        Snackbar.make(inventoryRecyclerView, "\"" + item.getName() + "\" deleted", Snackbar.LENGTH_LONG)
+                .setAnchorView(fabAddItem)
+                .setAction("Undo", v -> databaseExecutor.execute(() -> {
                     try {
-                        int rowsAffected = databaseHelper.deleteInventoryItem(item.getId());
-                        if (rowsAffected > 0) {
-                            inventoryAdapter.removeItem(position);
-                            updateInventoryStatistics();
-                            Toast.makeText(this, "Item deleted successfully", Toast.LENGTH_SHORT).show();
-                        } else {
-                            Toast.makeText(this, "Failed to delete item", Toast.LENGTH_SHORT).show();
-                        }
+                        int rowsAffected = helper.restoreInventoryItem(item.getId());
+                        runOnUiThread(() -> {
+                            if (rowsAffected > 0) {
+                                // The list may show another location by now
+                                if (helper == databaseHelper) {
+                                    inventoryAdapter.insertItem(position, item);
+                                    updateInventoryStatistics();
+                                }
+                            } else {
+                                Toast.makeText(this, "Item can no longer be restored", Toast.LENGTH_SHORT).show();
+                            }
+                        });
                     } catch (Exception e) {
-                        Log.e(TAG, "Error deleting item: " + e.getMessage(), e);
-                        Toast.makeText(this, "Error deleting item", Toast.LENGTH_SHORT).show();
+                        Log.e(TAG, "Error restoring item: " + e.getMessage(), e);
+                        runOnUiThread(() -> Toast.makeText(this, "Error restoring item",
+                                Toast.LENGTH_SHORT).show());
                     }
-                })
-                .setNegativeButton("Cancel", null)
+                }))
                 .show();
     }
 
     @Override
     public void onQuantityChanged(InventoryItem item, int newQuantity, int position) {
-        try {
-            // Update quantity in database
-            int rowsAffected = databaseHelper.updateInventoryQuantity(item.getId(), newQuantity);
-            if (rowsAffected > 0) {
-                // Update item object and refresh display
-                item.setQuantity(newQuantity);
-                inventoryAdapter.updateItem(position, item);
-                updateInventoryStatistics();
-
-                Toast.makeText(this, "Quantity updated to " + newQuantity, Toast.LENGTH_SHORT).show();
-
-                // Check if item is now low stock and send notification
-                if (item.isLowStock() && SMSPermissionHelper.hasSMSPermission(this)) {
-                    smsManager.sendLowStockAlert(item);
-                }
-            } else {
-                Toast.makeText(this, "Failed to update quantity", Toast.LENGTH_SHORT).show();
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error updating quantity: " + e.getMessage(), e);
-            Toast.makeText(this, "Error updating quantity", Toast.LENGTH_SHORT).show();
-        }
+        // Update the item optimistically and let the write buffer persist the change
+        int delta = newQuantity - item.getQuantity();
+        item.setQuantity(newQuantity);
+        inventoryAdapter.updateQuantity(position, newQuantity);
+        quantityWriteBuffer.addDelta(item.getId(), delta);
+
+        Toast.makeText(this, "Quantity updated to " + newQuantity, Toast.LENGTH_SHORT).show();
+    }
+
+    @Override
+    public void onFlushComplete(int itemsWritten) {
+        updateInventoryStatistics();
+        // Alert once for the flushed batch rather than on every tap
+        checkLowStockAndNotify();
+    }
+
+    @Override
+    public void onFlushFailed(Exception e) {
+        // The failed batch was rolled back, so reload to discard the optimistic changes
+        Toast.makeText(this, "Error updating quantity", Toast.LENGTH_SHORT).show();
+        loadInventoryData();
     }
 
     // ======================== ACTIVITY LIFECYCLE AND RESULTS ========================
@@ -272,6 +482,10 @@ public class MainActivity extends AppCompatActivity implements
             if (requestCode == ADD_ITEM_REQUEST_CODE || requestCode == EDIT_ITEM_REQUEST_CODE) {
                 // Refresh data when returning from add/edit activity
                 loadInventoryData();
+            } else if (requestCode == IMPORT_FILE_REQUEST_CODE && data != null && data.getData() != null) {
+                importItems(data.getData());
+            } else if (requestCode == EXPORT_FILE_REQUEST_CODE && data != null && data.getData() != null) {
+                runExport(pendingExportFormat, data.getData());
             }
         }
     }
@@ -296,6 +510,19 @@ public class MainActivity extends AppCompatActivity implements
         }
     }
 
+    @Override
+    protected void onPause() {
+        super.onPause();
+        // Persist any buffered quantity changes before leaving the screen
+        quantityWriteBuffer.flush();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        quantityWriteBuffer.flush();
+    }
+
     @Override
     protected void onResume() {
         super.onResume();
@@ -319,9 +546,37 @@ public class MainActivity extends AppCompatActivity implements
             Intent intent = new Intent(this, SettingsActivity.class);
             startActivity(intent);
             return true;
+        } else if (id == R.id.action_sort) {
+            showSortDialog();
+            return true;
+        } else if (id == R.id.action_switch_location) {
+            showLocationDialog();
+            return true;
+        } else if (id == R.id.action_report) {
+            quantityWriteBuffer.flush();
+            startActivity(new Intent(this, ReportActivity.class));
+            return true;
+        } else if (id == R.id.action_purchase_orders) {
+            showPurchaseOrders();
+            return true;
+        } else if (id == R.id.action_expiring_stock) {
+            showExpiringLots();
+            return true;
+        } else if (id == R.id.action_sync) {
+            syncInventory();
+            return true;
+        } else if (id == R.id.action_import) {
+            pickImportFile();
+            return true;
         } else if (id == R.id.action_export) {
             exportInventoryData();
             return true;
+        } else if (id == R.id.action_backup) {
+            backupInventory();
+            return true;
+        } else if (id == R.id.action_restore) {
+            confirmRestoreInventory();
+            return true;
         } else if (id == R.id.action_logout) {
             handleLogout();
             return true;
@@ -331,33 +586,593 @@ public class MainActivity extends AppCompatActivity implements
     }
 
     /**
-     * Export inventory data (placeholder implementation)
+     * Count the items of every stock location in the background, then list the locations
      */
-    private void exportInventoryData() {
-        try {
-            List<InventoryItem> items = databaseHelper.getAllInventoryItems();
-
-            // Simple CSV export to demonstrate functionality
-            StringBuilder csvData = new StringBuilder();
-            csvData.append("Name,Description,Category,Quantity,Low Stock Threshold,Barcode\n");
-
-            for (InventoryItem item : items) {
-                csvData.append(item.getName()).append(",")
-                        .append(item.getDescription()).append(",")
-                        .append(item.getCategory()).append(",")
-                        .append(item.getQuantity()).append(",")
-                        .append(item.getLowStockThreshold()).append(",")
-                        .append(item.getBarcode()).append("\n");
+    private void showLocationDialog() {
+        quantityWriteBuffer.flush();
+
+        databaseExecutor.execute(() -> {
+            try {
+                Map<String, int[]> locationStats = locationManager.getLocationStats();
+                runOnUiThread(() -> {
+                    if (!isFinishing()) {
+                        showLocationList(locationStats);
+                    }
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading locations: " + e.getMessage(), e);
+                runOnUiThread(() -> Toast.makeText(this, "Could not load locations", Toast.LENGTH_SHORT).show());
             }
+        });
+    }
 
-            Log.d(TAG, "CSV Export Data:\n" + csvData.toString());
-            Toast.makeText(this, "Export functionality would save " + items.size() +
-                    " items to CSV file", Toast.LENGTH_LONG).show();
+    /**
+     * Show the list of stock locations with their item counts
+     * @param locationStats Location name to its stats, as returned by getLocationStats()
+     */
+    private void showLocationList(Map<String, int[]> locationStats) {
+        List<String> locations = locationManager.getLocations();
 
-        } catch (Exception e) {
-            Log.e(TAG, "Error exporting data: " + e.getMessage(), e);
-            Toast.makeText(this, "Export failed", Toast.LENGTH_SHORT).show();
+        String[] options = new String[locations.size() + 1];
+        for (int i = 0; i < locations.size(); i++) {
+            int[] stats = locationStats.get(locations.get(i));
+            options[i] = locations.get(i) + " (" + (stats != null ? stats[0] : 0) + " items)";
         }
+        options[locations.size()] = "Add Location...";
+
+        new AlertDialog.Builder(this)
+                .setTitle("Stock Locations")
+                .setItems(options, (dialog, which) -> {
+                    if (which < locations.size()) {
+                        switchLocation(locations.get(which));
+                    } else {
+                        showAddLocationDialog();
+                    }
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /**
+     * Read the open purchase orders of the current location in the background, then list them
+     */
+    private void showPurchaseOrders() {
+        quantityWriteBuffer.flush();
+
+        PurchaseOrderManager orderManager = new PurchaseOrderManager(databaseHelper);
+        databaseExecutor.execute(() -> {
+            try {
+                List<PurchaseOrder> orders = orderManager.getOpenOrders();
+                runOnUiThread(() -> {
+                    if (!isFinishing()) {
+                        showPurchaseOrderList(orderManager, orders);
+                    }
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading purchase orders: " + e.getMessage(), e);
+                runOnUiThread(() -> Toast.makeText(this, "Could not load orders", Toast.LENGTH_SHORT).show());
+            }
+        });
+    }
+
+    /**
+     * Show the open purchase orders of the current location
+     * Drafts are regenerated from the items that need reordering on request
+     */
+    private void showPurchaseOrderList(PurchaseOrderManager orderManager, List<PurchaseOrder> orders) {
+        String[] options = new String[orders.size()];
+        for (int i = 0; i < orders.size(); i++) {
+            PurchaseOrder order = orders.get(i);
+            options[i] = (order.getSupplier().isEmpty() ? "No supplier" : order.getSupplier()) + " - " +
+                    order.getStatusLabel() + ", " + order.getLineCount() + " items, " +
+                    InventoryItem.formatCents(order.getTotalCostCents());
+        }
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(this)
+                .setTitle("Purchase Orders")
+                .setPositiveButton("Reorder Low Stock", (dialog, which) -> generateDraftOrders(orderManager))
+                .setNegativeButton("Close", null);
+        if (orders.isEmpty()) {
+            builder.setMessage("No open orders");
+        } else {
+            builder.setItems(options, (dialog, which) -> showPurchaseOrder(orderManager, orders.get(which).getId()));
+        }
+        builder.show();
+    }
+
+    /**
+     * Replace the draft orders with new ones in the background, then show them
+     */
+    private void generateDraftOrders(PurchaseOrderManager orderManager) {
+        databaseExecutor.execute(() -> {
+            try {
+                int lines = orderManager.generateDraftOrders();
+                runOnUiThread(() -> {
+                    Toast.makeText(this, lines == 0 ? "No items need reordering"
+                            : "Drafted orders for " + lines + " items", Toast.LENGTH_SHORT).show();
+                    showPurchaseOrders();
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Error generating purchase orders: " + e.getMessage(), e);
+                runOnUiThread(() -> Toast.makeText(this, "Could not create orders", Toast.LENGTH_SHORT).show());
+            }
+        });
+    }
+
+    /**
+     * Read one order with its lines in the background, then show it
+     */
+    private void showPurchaseOrder(PurchaseOrderManager orderManager, long orderId) {
+        databaseExecutor.execute(() -> {
+            try {
+                PurchaseOrder order = orderManager.getOrder(orderId);
+                runOnUiThread(() -> {
+                    if (order != null && !isFinishing()) {
+                        showPurchaseOrderLines(orderManager, order);
+                    }
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading purchase order: " + e.getMessage(), e);
+                runOnUiThread(() -> Toast.makeText(this, "Could not load order", Toast.LENGTH_SHORT).show());
+            }
+        });
+    }
+
+    /**
+     * Show the lines of one order, with the actions its status allows
+     */
+    private void showPurchaseOrderLines(PurchaseOrderManager orderManager, PurchaseOrder order) {
+        long orderId = order.getId();
+        StringBuilder message = new StringBuilder();
+        for (PurchaseOrder.Line line : order.getLines()) {
+            message.append(line.getQuantity()).append(" x ").append(line.getItemName())
+                    .append(" @ ").append(InventoryItem.formatCents(line.getUnitCostCents())).append("\n");
+        }
+        message.append("\nTotal: ").append(order.getTotalUnits()).append(" units, ")
+                .append(InventoryItem.formatCents(order.getTotalCostCents()));
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(this)
+                .setTitle((order.getSupplier().isEmpty() ? "No supplier" : order.getSupplier()) +
+                        " (" + order.getStatusLabel() + ")")
+                .setMessage(message.toString())
+                .setPositiveButton("Receive", (dialog, which) -> receivePurchaseOrder(orderManager, orderId))
+                .setNegativeButton("Close", null);
+        if (order.getStatus() == PurchaseOrder.STATUS_DRAFT) {
+            builder.setNeutralButton("Mark Ordered", (dialog, which) -> markPurchaseOrderOrdered(orderManager, orderId));
+        }
+        builder.show();
+    }
+
+    /**
+     * Mark a draft order as sent to its supplier in the background, then list the orders again
+     */
+    private void markPurchaseOrderOrdered(PurchaseOrderManager orderManager, long orderId) {
+        databaseExecutor.execute(() -> {
+            try {
+                orderManager.markOrdered(orderId);
+                runOnUiThread(this::showPurchaseOrders);
+            } catch (Exception e) {
+                Log.e(TAG, "Error marking purchase order: " + e.getMessage(), e);
+                runOnUiThread(() -> Toast.makeText(this, "Could not update order", Toast.LENGTH_SHORT).show());
+            }
+        });
+    }
+
+    /**
+     * Add an order's quantities to stock in the background, all at once
+     */
+    private void receivePurchaseOrder(PurchaseOrderManager orderManager, long orderId) {
+        databaseExecutor.execute(() -> {
+            try {
+                int received = orderManager.receiveOrder(orderId);
+                runOnUiThread(() -> {
+                    loadInventoryData();
+                    Toast.makeText(this, received < 0 ? "Order was already received"
+                            : "Received stock for " + received + " items", Toast.LENGTH_SHORT).show();
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Error receiving purchase order: " + e.getMessage(), e);
+                runOnUiThread(() -> Toast.makeText(this, "Could not receive order", Toast.LENGTH_SHORT).show());
+            }
+        });
+    }
+
+    /**
+     * Read the lots of the current location that expire soon in the background, then list them
+     */
+    private void showExpiringLots() {
+        quantityWriteBuffer.flush();
+
+        InventoryDatabaseHelper helper = databaseHelper;
+        long now = System.currentTimeMillis();
+        databaseExecutor.execute(() -> {
+            try {
+                List<StockLot> lots = helper.getExpiringLots(now + EXPIRING_LIST_DAYS * StockHistory.DAY_MILLIS,
+                        EXPIRING_LIST_LIMIT);
+                runOnUiThread(() -> {
+                    if (!isFinishing()) {
+                        showExpiringLotList(lots, now);
+                    }
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading expiring lots: " + e.getMessage(), e);
+                runOnUiThread(() -> Toast.makeText(this, "Could not load lots", Toast.LENGTH_SHORT).show());
+            }
+        });
+    }
+
+    /**
+     * Show the lots of the current location that expire within EXPIRING_LIST_DAYS
+     * Expired lots come first; choosing a lot offers to write it off
+     * @param lots Lots as returned by getExpiringLots()
+     * @param now Time the lots were read at, in epoch millis
+     */
+    private void showExpiringLotList(List<StockLot> lots, long now) {
+        String[] options = new String[lots.size()];
+        for (int i = 0; i < lots.size(); i++) {
+            StockLot lot = lots.get(i);
+            long days = lot.getDaysUntilExpiry(now);
+            options[i] = lot.getItemName() + (lot.getLotNumber().isEmpty() ? "" : " (" + lot.getLotNumber() + ")") +
+                    " - " + lot.getQuantity() + " units, " +
+                    (lot.isExpired(now) ? "expired " + lot.getExpiryDate()
+                            : days == 0 ? "expires today" : "expires in " + days + " days");
+        }
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(this)
+                .setTitle("Expiring Stock")
+                .setNegativeButton("Close", null);
+        if (lots.isEmpty()) {
+            builder.setMessage("No stock expires in the next " + EXPIRING_LIST_DAYS + " days");
+        } else {
+            builder.setItems(options, (dialog, which) -> confirmDiscardLot(lots.get(which)));
+        }
+        builder.show();
+    }
+
+    /**
+     * Ask before writing off a lot's units, then remove them from stock
+     */
+    private void confirmDiscardLot(StockLot lot) {
+        new AlertDialog.Builder(this)
+                .setTitle("Discard Lot")
+                .setMessage("Remove " + lot.getQuantity() + " units of " + lot.getItemName() +
+                        " expiring " + lot.getExpiryDate() + " from stock?")
+                .setPositiveButton("Discard", (dialog, which) -> discardLot(lot))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /**
+     * Remove a lot's units from stock in the background, then reload the list
+     */
+    private void discardLot(StockLot lot) {
+        InventoryDatabaseHelper helper = databaseHelper;
+        databaseExecutor.execute(() -> {
+            try {
+                int units = helper.discardLot(lot.getLotId());
+                runOnUiThread(() -> {
+                    loadInventoryData();
+                    Toast.makeText(this, "Discarded " + units + " units", Toast.LENGTH_SHORT).show();
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Error discarding lot: " + e.getMessage(), e);
+                runOnUiThread(() -> Toast.makeText(this, "Could not discard lot", Toast.LENGTH_SHORT).show());
+            }
+        });
+    }
+
+    /**
+     * Show dialog for adding a new stock location
+     */
+    private void showAddLocationDialog() {
+        android.widget.EditText input = new android.widget.EditText(this);
+        input.setHint("Location name");
+
+        new AlertDialog.Builder(this)
+                .setTitle("Add Location")
+                .setView(input)
+                .setPositiveButton("Add", (dialog, which) -> {
+                    String name = input.getText().toString().trim();
+                    if (locationManager.addLocation(name)) {
+                        switchLocation(name);
+                    } else {
+                        Toast.makeText(this, "Location name is empty or already exists",
+                                Toast.LENGTH_SHORT).show();
+                    }
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /**
+     * Switch the dashboard to another stock location's database
+     * @param location Location to switch to
+     */
+    private void switchLocation(String location) {
+        quantityWriteBuffer.flush();
+        closeWhenIdle(databaseHelper);
+
+        locationManager.setCurrentLocation(location);
+        databaseHelper = locationManager.openHelper(location);
+        quantityWriteBuffer = new QuantityWriteBuffer(databaseHelper);
+        quantityWriteBuffer.setOnFlushListener(this);
+        inventoryAdapter.setImageStore(new ItemImageStore(this, databaseHelper.getDatabaseName()));
+
+        Toolbar toolbar = findViewById(R.id.toolbar);
+        toolbar.setSubtitle(location);
+        loadInventoryData();
+
+        Log.d(TAG, "Switched to location: " + location);
+    }
+
+    /**
+     * Synchronize the current location with the sync server in the background
+     * Falls back to the in-process demo server when no server URL is configured
+     */
+    private void syncInventory() {
+        String serverUrl = getSharedPreferences(PREFS_NAME, MODE_PRIVATE)
+                .getString(PREF_SYNC_SERVER_URL, "");
+        if (serverUrl.isEmpty()) {
+            Toast.makeText(this, "No sync server configured", Toast.LENGTH_LONG).show();
+            return;
+        }
+        quantityWriteBuffer.flush();
+
+        InventoryDatabaseHelper helper = databaseHelper;
+        String stream = locationManager.getDatabaseName(locationManager.getCurrentLocation());
+
+        Toast.makeText(this, "Syncing inventory...", Toast.LENGTH_SHORT).show();
+        syncExecutor.execute(() -> {
+            try {
+                SyncEngine.SyncResult result = new SyncEngine(helper, serverUrl, stream).sync();
+
+                runOnUiThread(() -> {
+                    loadInventoryData();
+                    Toast.makeText(this, "Sync complete: " + result.changesPushed + " sent, " +
+                            result.changesPulled + " received", Toast.LENGTH_SHORT).show();
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Error syncing inventory: " + e.getMessage(), e);
+                runOnUiThread(() -> Toast.makeText(this,
+                        "Sync failed, it will resume on the next attempt", Toast.LENGTH_LONG).show());
+            }
+        });
+    }
+
+    /**
+     * Write a binary snapshot of the current location in the background
+     * The snapshot is kept in app files, which Android backs up (see backup_rules.xml)
+     */
+    private void backupInventory() {
+        quantityWriteBuffer.flush();
+
+        InventoryDatabaseHelper helper = databaseHelper;
+        File snapshotFile = InventorySnapshot.getSnapshotFile(this, helper.getDatabaseName());
+        databaseExecutor.execute(() -> {
+            try {
+                int rows = new InventorySnapshot(helper).write(snapshotFile, true);
+                runOnUiThread(() -> Toast.makeText(this, "Backup saved (" + rows + " records)",
+                        Toast.LENGTH_SHORT).show());
+            } catch (Exception e) {
+                Log.e(TAG, "Error backing up inventory: " + e.getMessage(), e);
+                runOnUiThread(() -> Toast.makeText(this, "Backup failed", Toast.LENGTH_SHORT).show());
+            }
+        });
+    }
+
+    /**
+     * Ask before replacing the current location's data with its last backup
+     */
+    private void confirmRestoreInventory() {
+        File snapshotFile = InventorySnapshot.getSnapshotFile(this, databaseHelper.getDatabaseName());
+        if (!snapshotFile.exists()) {
+            Toast.makeText(this, "No backup found for this location", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        new AlertDialog.Builder(this)
+                .setTitle("Restore Backup")
+                .setMessage("Replace all items at this location with the backup from " +
+                        DateFormat.getDateTimeInstance().format(new Date(snapshotFile.lastModified())) + "?")
+                .setPositiveButton("Restore", (dialog, which) -> restoreInventory(snapshotFile))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void restoreInventory(File snapshotFile) {
+        quantityWriteBuffer.flush();
+
+        InventoryDatabaseHelper helper = databaseHelper;
+        databaseExecutor.execute(() -> {
+            try {
+                int rows = new InventorySnapshot(helper).restore(snapshotFile);
+                runOnUiThread(() -> {
+                    loadInventoryData();
+                    Toast.makeText(this, "Backup restored (" + rows + " records)",
+                            Toast.LENGTH_SHORT).show();
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Error restoring backup: " + e.getMessage(), e);
+                runOnUiThread(() -> Toast.makeText(this, "Restore failed, no changes were made",
+                        Toast.LENGTH_LONG).show());
+            }
+        });
+    }
+
+    /**
+     * Let the user pick a CSV file to import items from
+     */
+    private void pickImportFile() {
+        Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType("*/*");
+        intent.putExtra(Intent.EXTRA_MIME_TYPES,
+                new String[]{"text/csv", "text/comma-separated-values", "text/plain"});
+        startActivityForResult(intent, IMPORT_FILE_REQUEST_CODE);
+    }
+
+    /**
+     * Import items from a CSV file into the current location in the background
+     * @param uri File picked by the user
+     */
+    private void importItems(Uri uri) {
+        quantityWriteBuffer.flush();
+
+        InventoryImporter importer = new InventoryImporter(databaseHelper);
+        AlertDialog progressDialog = showProgressDialog("Importing Items", importer::cancel);
+        importer.setProgressListener((rows, total) -> runOnUiThread(() ->
+                progressDialog.setMessage(formatProgress(rows, total))));
+
+        databaseExecutor.execute(() -> {
+            try (InputStream in = getContentResolver().openInputStream(uri)) {
+                if (in == null) {
+                    throw new IOException("Could not open " + uri);
+                }
+                InventoryImporter.ImportResult result = importer.importCsv(in);
+                runOnUiThread(() -> {
+                    progressDialog.dismiss();
+                    loadInventoryData();
+                    showImportResult(result);
+                });
+            } catch (CancellationException e) {
+                // Chunks written before the cancel stay imported
+                Log.d(TAG, "Import cancelled: " + e.getMessage());
+                runOnUiThread(() -> {
+                    loadInventoryData();
+                    Toast.makeText(this, "Import cancelled", Toast.LENGTH_SHORT).show();
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Error importing items: " + e.getMessage(), e);
+                runOnUiThread(() -> {
+                    progressDialog.dismiss();
+                    Toast.makeText(this, "Import failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                });
+            }
+        });
+    }
+
+    /**
+     * Show how many rows were imported, with the first rows that were skipped
+     */
+    private void showImportResult(InventoryImporter.ImportResult result) {
+        StringBuilder message = new StringBuilder(String.format(Locale.US,
+                "%d added, %d updated, %d skipped (%.0f rows/s)", result.getInserted(),
+                result.getUpdated(), result.getFailed(), result.getRowsPerSecond()));
+        List<InventoryImporter.RowError> errors = result.getErrors();
+        for (int i = 0; i < Math.min(errors.size(), 10); i++) {
+            message.append("\nRow ").append(errors.get(i).getRow()).append(": ")
+                    .append(errors.get(i).getMessage());
+        }
+        if (result.getFailed() > 10) {
+            message.append("\n...");
+        }
+
+        new AlertDialog.Builder(this)
+                .setTitle("Import Complete")
+                .setMessage(message.toString())
+                .setPositiveButton("OK", null)
+                .show();
+    }
+
+    /**
+     * Let the user choose how to export the items of the current location
+     * Files are written to a document the user creates; the digest is sent as one SMS
+     */
+    private void exportInventoryData() {
+        String[] formats = {"CSV file", "Compact binary file", "SMS stock digest"};
+        new AlertDialog.Builder(this)
+                .setTitle("Export Items")
+                .setItems(formats, (dialog, which) -> {
+                    if (which == EXPORT_SMS_DIGEST) {
+                        runExport(EXPORT_SMS_DIGEST, null);
+                        return;
+                    }
+                    pendingExportFormat = which;
+                    Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+                    intent.addCategory(Intent.CATEGORY_OPENABLE);
+                    intent.setType(which == EXPORT_SNAPSHOT ? "application/octet-stream" : "text/csv");
+                    intent.putExtra(Intent.EXTRA_TITLE, which == EXPORT_SNAPSHOT ? "inventory.invs" : "inventory.csv");
+                    startActivityForResult(intent, EXPORT_FILE_REQUEST_CODE);
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /**
+     * Stream every item of the current location into the chosen format in the background
+     * Progress is shown in a dialog whose Cancel button stops the pipeline; a cancelled
+     * file export leaves a partial document behind, which the message points out.
+     * @param format One of the EXPORT_ constants
+     * @param uri Document to write, or null for the SMS digest
+     */
+    private void runExport(int format, Uri uri) {
+        quantityWriteBuffer.flush();
+
+        InventoryDatabaseHelper helper = databaseHelper;
+        ItemPipeline pipeline = new ItemPipeline(new ItemPipeline.DatabaseSource(helper));
+        AlertDialog progressDialog = showProgressDialog("Exporting Items", pipeline::cancel);
+        pipeline.onProgress((rows, total) -> runOnUiThread(() ->
+                progressDialog.setMessage(formatProgress(rows, total))));
+
+        databaseExecutor.execute(() -> {
+            try {
+                long exported;
+                if (format == EXPORT_SMS_DIGEST) {
+                    ItemPipeline.SmsDigestSink sink = new ItemPipeline.SmsDigestSink(smsManager);
+                    // Only low and critical items go past the first stage
+                    exported = pipeline.map(item -> item.isLowStock() ? item : null).run(sink);
+                } else {
+                    try (OutputStream out = getContentResolver().openOutputStream(uri)) {
+                        if (out == null) {
+                            throw new IOException("Could not open " + uri);
+                        }
+                        if (format == EXPORT_CSV) {
+                            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                            exported = pipeline.run(new ItemPipeline.CsvSink(writer));
+                        } else {
+                            exported = pipeline.run(new InventorySnapshot.ItemSink(
+                                    new BufferedOutputStream(out), helper.getReadableDatabase().getVersion(), true));
+                        }
+                    }
+                }
+                runOnUiThread(() -> {
+                    progressDialog.dismiss();
+                    Toast.makeText(this, "Exported " + exported + " items", Toast.LENGTH_SHORT).show();
+                });
+            } catch (CancellationException e) {
+                Log.d(TAG, "Export cancelled: " + e.getMessage());
+                runOnUiThread(() -> Toast.makeText(this, format == EXPORT_SMS_DIGEST
+                        ? "Export cancelled" : "Export cancelled; the file is incomplete",
+                        Toast.LENGTH_LONG).show());
+            } catch (Exception e) {
+                Log.e(TAG, "Error exporting data: " + e.getMessage(), e);
+                runOnUiThread(() -> {
+                    progressDialog.dismiss();
+                    Toast.makeText(this, "Export failed: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                });
+            }
+        });
+    }
+
+    /**
+     * Show a dialog for a long-running operation with a Cancel button
+     * @param title Dialog title
+     * @param onCancel Called on the main thread when the user cancels
+     * @return The dialog, whose message the operation updates
+     */
+    private AlertDialog showProgressDialog(String title, Runnable onCancel) {
+        return new AlertDialog.Builder(this)
+                .setTitle(title)
+                .setMessage("Starting...")
+                .setCancelable(false)
+                .setNegativeButton("Cancel", (dialog, which) -> onCancel.run())
+                .show();
+    }
+
+    private static String formatProgress(long rows, long total) {
+        return total > 0
+                ? String.format(Locale.US, "%d of %d items (%d%%)", rows, total, rows * 100 / total)
+                : String.format(Locale.US, "%d rows", rows);
     }
 
     /**
@@ -386,7 +1201,25 @@ public class MainActivity extends AppCompatActivity implements
     protected void onDestroy() {
         super.onDestroy();
         if (databaseHelper != null) {
-            databaseHelper.close();
+            closeWhenIdle(databaseHelper);
         }
+        syncExecutor.shutdown();
+        databaseExecutor.shutdown();
+    }
+
+    /**
+     * Close a helper once the tasks already queued on both executors are done with it
+     * Each executor runs its tasks in order on one thread, so the close is queued on both
+     * and runs when the second of them reaches it.
+     */
+    private void closeWhenIdle(InventoryDatabaseHelper helper) {
+        AtomicInteger pendingExecutors = new AtomicInteger(2);
+        Runnable release = () -> {
+            if (pendingExecutors.decrementAndGet() == 0) {
+                helper.close();
+            }
+        };
+        syncExecutor.execute(release);
+        databaseExecutor.execute(release);
     }
 }
\ No newline at end of file
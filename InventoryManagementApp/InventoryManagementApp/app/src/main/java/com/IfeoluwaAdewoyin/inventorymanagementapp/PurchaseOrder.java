@@ -0,0 +1,129 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A purchase order to one supplier, with totals over its lines
+ * Orders start as drafts, are marked ordered once sent to the supplier, and are
+ * received when the goods arrive, which adds every line's quantity to stock.
+ */
+public class PurchaseOrder {
+
+    public static final int STATUS_DRAFT = 0;
+    public static final int STATUS_ORDERED = 1;
+    public static final int STATUS_RECEIVED = 2;
+
+    /**
+     * One item on an order
+     */
+    public static class Line {
+        final long itemId;
+        final String itemName;
+        final int quantity;
+        final long unitCostCents;
+
+        Line(long itemId, String itemName, int quantity, long unitCostCents) {
+            this.itemId = itemId;
+            this.itemName = itemName;
+            this.quantity = quantity;
+            this.unitCostCents = unitCostCents;
+        }
+
+        public long getItemId() {
+            return itemId;
+        }
+
+        /**
+         * @return Item name, "" if the item was deleted since the order was made
+         */
+        public String getItemName() {
+            return itemName != null ? itemName : "";
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+
+        /**
+         * @return Unit cost when the order was made, in cents
+         */
+        public long getUnitCostCents() {
+            return unitCostCents;
+        }
+    }
+
+    final long id;
+    final String supplier;
+    final int status;
+    final long createdAt;
+    int lineCount;
+    long totalUnits;
+    long totalCostCents;
+    final List<Line> lines = new ArrayList<>();
+
+    PurchaseOrder(long id, String supplier, int status, long createdAt) {
+        this.id = id;
+        this.supplier = supplier;
+        this.status = status;
+        this.createdAt = createdAt;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return Supplier name, "" for items without one
+     */
+    public String getSupplier() {
+        return supplier;
+    }
+
+    /**
+     * @return One of the STATUS_ constants
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return When the order was generated, in epoch millis
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public long getTotalUnits() {
+        return totalUnits;
+    }
+
+    /**
+     * @return Sum of quantity times unit cost over the lines, in cents
+     */
+    public long getTotalCostCents() {
+        return totalCostCents;
+    }
+
+    /**
+     * @return Lines, only filled in by PurchaseOrderManager.getOrder()
+     */
+    public List<Line> getLines() {
+        return lines;
+    }
+
+    public String getStatusLabel() {
+        switch (status) {
+            case STATUS_DRAFT:
+                return "Draft";
+            case STATUS_ORDERED:
+                return "Ordered";
+            default:
+                return "Received";
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Turns low-stock items into draft purchase orders, one per supplier, and receives them
+ * Drafts are built with two INSERT ... SELECT statements in one transaction, so the
+ * work stays inside SQLite no matter how many items are low. An item needs reordering
+ * when its quantity is at or below the larger of its low stock threshold and its
+ * forecast reorder point; it is ordered up to the larger of twice the threshold and
+ * the reorder point plus the threshold. Items already on an ordered, not yet received
+ * order are left out, so goods on their way aren't ordered twice.
+ * Each item is ordered from its cheapest linked supplier at that supplier's price,
+ * looked up with one index seek per item; items without offers fall back to the
+ * supplier and unit cost entered on the item.
+ */
+public class PurchaseOrderManager {
+
+    private static final String TAG = "PurchaseOrderManager";
+
+    private static final String ORDERS = InventoryDatabaseHelper.TABLE_PURCHASE_ORDERS;
+    private static final String LINES = InventoryDatabaseHelper.TABLE_PURCHASE_ORDER_LINES;
+    private static final String ORDER_ID = InventoryDatabaseHelper.COLUMN_ORDER_ID;
+    private static final String SUPPLIER = InventoryDatabaseHelper.COLUMN_SUPPLIER;
+    private static final String STATUS = InventoryDatabaseHelper.COLUMN_ORDER_STATUS;
+    private static final String ITEM_ID = InventoryDatabaseHelper.COLUMN_ITEM_ID;
+    private static final String ORDER_QUANTITY = InventoryDatabaseHelper.COLUMN_ORDER_QUANTITY;
+    private static final String UNIT_COST = InventoryDatabaseHelper.COLUMN_UNIT_COST;
+
+    private static final String THRESHOLD = "IFNULL(i." + InventoryDatabaseHelper.COLUMN_LOW_STOCK_THRESHOLD + ", 0)";
+    private static final String REORDER_POINT = "IFNULL(f." + InventoryDatabaseHelper.COLUMN_REORDER_POINT + ", 0)";
+    private static final String QUANTITY = "i." + InventoryDatabaseHelper.COLUMN_ITEM_QUANTITY;
+
+    // Items with their forecasts, aliases i and f, and the condition for needing a reorder
+    static final String SQL_ITEMS_WITH_FORECASTS =
+            InventoryDatabaseHelper.TABLE_INVENTORY + " i LEFT JOIN " + InventoryDatabaseHelper.TABLE_ITEM_FORECAST +
+                    " f ON f." + InventoryDatabaseHelper.COLUMN_ITEM_UUID + " = i." +
+                    InventoryDatabaseHelper.COLUMN_ITEM_UUID;
+
+    static final String SQL_NEEDS_REORDER =
+            "i." + InventoryDatabaseHelper.LIVE_ITEMS + " AND " + QUANTITY + " <= MAX(" + THRESHOLD + ", " + REORDER_POINT + ")" +
+                    " AND i." + ITEM_ID + " NOT IN (SELECT l." + ITEM_ID + " FROM " + LINES + " l JOIN " + ORDERS +
+                    " o ON o." + ORDER_ID + " = l." + ORDER_ID + " WHERE o." + STATUS + " = " +
+                    PurchaseOrder.STATUS_ORDERED + ")";
+
+    // Supplier and unit cost an item is ordered with
+    static final String SQL_ORDER_SUPPLIER =
+            "COALESCE(" + SupplierManager.cheapestOffer("sp." + InventoryDatabaseHelper.COLUMN_SUPPLIER_NAME,
+                    "i." + ITEM_ID) + ", IFNULL(i." + SUPPLIER + ", ''))";
+
+    static final String SQL_ORDER_UNIT_COST =
+            "COALESCE(" + SupplierManager.cheapestOffer("c." + UNIT_COST, "i." + ITEM_ID) + ", i." + UNIT_COST + ")";
+
+    static final String SQL_ORDER_QUANTITY =
+            "MAX(1, MAX(2 * " + THRESHOLD + ", " + REORDER_POINT + " + " + THRESHOLD + ") - " + QUANTITY + ")";
+
+    static final String SQL_DELETE_DRAFT_LINES =
+            "DELETE FROM " + LINES + " WHERE " + ORDER_ID + " IN (SELECT " + ORDER_ID + " FROM " + ORDERS +
+                    " WHERE " + STATUS + " = " + PurchaseOrder.STATUS_DRAFT + ")";
+
+    static final String SQL_DELETE_DRAFT_ORDERS =
+            "DELETE FROM " + ORDERS + " WHERE " + STATUS + " = " + PurchaseOrder.STATUS_DRAFT;
+
+    static final String SQL_INSERT_DRAFT_ORDERS =
+            "INSERT INTO " + ORDERS + " (" + SUPPLIER + ", " + STATUS + ", " +
+                    InventoryDatabaseHelper.COLUMN_ORDER_CREATED_AT + ") SELECT DISTINCT " + SQL_ORDER_SUPPLIER + ", " +
+                    PurchaseOrder.STATUS_DRAFT + ", ? FROM " + SQL_ITEMS_WITH_FORECASTS +
+                    " WHERE " + SQL_NEEDS_REORDER;
+
+    static final String SQL_INSERT_DRAFT_LINES =
+            "INSERT INTO " + LINES + " (" + ORDER_ID + ", " + ITEM_ID + ", " + ORDER_QUANTITY + ", " +
+                    UNIT_COST + ") SELECT o." + ORDER_ID + ", i." + ITEM_ID + ", " + SQL_ORDER_QUANTITY + ", " +
+                    SQL_ORDER_UNIT_COST + " FROM " + SQL_ITEMS_WITH_FORECASTS + " JOIN " + ORDERS + " o ON o." +
+                    STATUS + " = " + PurchaseOrder.STATUS_DRAFT + " AND o." + SUPPLIER + " = " + SQL_ORDER_SUPPLIER +
+                    " WHERE " + SQL_NEEDS_REORDER;
+
+    // Open orders with their totals, newest first
+    static final String SQL_SELECT_OPEN_ORDERS =
+            "SELECT o." + ORDER_ID + ", o." + SUPPLIER + ", o." + STATUS + ", o." +
+                    InventoryDatabaseHelper.COLUMN_ORDER_CREATED_AT + ", COUNT(l." + ITEM_ID + "), " +
+                    "IFNULL(SUM(l." + ORDER_QUANTITY + "), 0), IFNULL(SUM(l." + ORDER_QUANTITY + " * l." +
+                    UNIT_COST + "), 0) FROM " + ORDERS + " o LEFT JOIN " + LINES + " l ON l." + ORDER_ID +
+                    " = o." + ORDER_ID + " WHERE o." + STATUS + " != " + PurchaseOrder.STATUS_RECEIVED +
+                    " GROUP BY o." + ORDER_ID + " ORDER BY o." + ORDER_ID + " DESC";
+
+    private final InventoryDatabaseHelper databaseHelper;
+
+    public PurchaseOrderManager(InventoryDatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    /**
+     * Replace all draft orders with fresh ones for the items that need reordering now
+     * Orders already marked ordered or received are kept. Must not be called on the main thread.
+     * @return Number of order lines created
+     */
+    public int generateDraftOrders() {
+        long startTime = System.nanoTime();
+        SQLiteDatabase db = databaseHelper.getWritableDatabase();
+        int lines;
+        db.beginTransaction();
+        try {
+            db.execSQL(SQL_DELETE_DRAFT_LINES);
+            db.execSQL(SQL_DELETE_DRAFT_ORDERS);
+            db.execSQL(SQL_INSERT_DRAFT_ORDERS, new Object[]{System.currentTimeMillis()});
+            db.execSQL(SQL_INSERT_DRAFT_LINES);
+            lines = queryInt(db, "SELECT changes()");
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        Log.d(TAG, "Generated " + lines + " draft order lines in " +
+                (System.nanoTime() - startTime) / 1000000 + " ms");
+        return lines;
+    }
+
+    /**
+     * Get the draft and ordered purchase orders with their totals, without lines
+     * @return Open orders, newest first
+     */
+    public List<PurchaseOrder> getOpenOrders() {
+        List<PurchaseOrder> orders = new ArrayList<>();
+        Cursor cursor = databaseHelper.getReadableDatabase().rawQuery(SQL_SELECT_OPEN_ORDERS, null);
+        while (cursor.moveToNext()) {
+            PurchaseOrder order = new PurchaseOrder(cursor.getLong(0), cursor.getString(1),
+                    cursor.getInt(2), cursor.getLong(3));
+            order.lineCount = cursor.getInt(4);
+            order.totalUnits = cursor.getLong(5);
+            order.totalCostCents = cursor.getLong(6);
+            orders.add(order);
+        }
+        cursor.close();
+        return orders;
+    }
+
+    /**
+     * Get one order with its lines
+     * @param orderId Order ID
+     * @return The order, or null if it doesn't exist
+     */
+    public PurchaseOrder getOrder(long orderId) {
+        SQLiteDatabase db = databaseHelper.getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT " + SUPPLIER + ", " + STATUS + ", " +
+                        InventoryDatabaseHelper.COLUMN_ORDER_CREATED_AT + " FROM " + ORDERS + " WHERE " +
+                        ORDER_ID + " = ?", new String[]{String.valueOf(orderId)});
+        if (!cursor.moveToFirst()) {
+            cursor.close();
+            return null;
+        }
+        PurchaseOrder order = new PurchaseOrder(orderId, cursor.getString(0), cursor.getInt(1), cursor.getLong(2));
+        cursor.close();
+
+        cursor = db.rawQuery("SELECT l." + ITEM_ID + ", i." + InventoryDatabaseHelper.COLUMN_ITEM_NAME + ", l." +
+                        ORDER_QUANTITY + ", l." + UNIT_COST + " FROM " + LINES + " l LEFT JOIN " +
+                        InventoryDatabaseHelper.TABLE_INVENTORY + " i ON i." + ITEM_ID + " = l." + ITEM_ID +
+                        " WHERE l." + ORDER_ID + " = ? ORDER BY i." + InventoryDatabaseHelper.COLUMN_ITEM_NAME,
+                new String[]{String.valueOf(orderId)});
+        while (cursor.moveToNext()) {
+            PurchaseOrder.Line line = new PurchaseOrder.Line(cursor.getLong(0), cursor.getString(1),
+                    cursor.getInt(2), cursor.getLong(3));
+            order.lines.add(line);
+            order.lineCount++;
+            order.totalUnits += line.quantity;
+            order.totalCostCents += line.quantity * line.unitCostCents;
+        }
+        cursor.close();
+        return order;
+    }
+
+    /**
+     * Mark a draft order as sent to its supplier; it is then kept when drafts are regenerated
+     * @param orderId Order ID
+     * @return true if the order was a draft
+     */
+    public boolean markOrdered(long orderId) {
+        SQLiteDatabase db = databaseHelper.getWritableDatabase();
+        db.execSQL("UPDATE " + ORDERS + " SET " + STATUS + " = " + PurchaseOrder.STATUS_ORDERED + " WHERE " +
+                ORDER_ID + " = ? AND " + STATUS + " = " + PurchaseOrder.STATUS_DRAFT, new Object[]{orderId});
+        return queryInt(db, "SELECT changes()") > 0;
+    }
+
+    /**
+     * Add every line of an order to stock and mark the order received, all or nothing
+     * The status is switched first inside the transaction, so an order can't be received
+     * twice even if two receives race. Quantities go through the quantity counters like
+     * any other stock change, so they sync. Lines of items deleted since are skipped.
+     * Must not be called on the main thread.
+     * @param orderId Draft or ordered order
+     * @return Number of items whose stock was increased, -1 if the order was already received
+     */
+    public int receiveOrder(long orderId) {
+        long startTime = System.nanoTime();
+        SQLiteDatabase db = databaseHelper.getWritableDatabase();
+        int received;
+        db.beginTransaction();
+        try {
+            db.execSQL("UPDATE " + ORDERS + " SET " + STATUS + " = " + PurchaseOrder.STATUS_RECEIVED + ", " +
+                            InventoryDatabaseHelper.COLUMN_RECEIVED_AT + " = ? WHERE " + ORDER_ID + " = ? AND " +
+                            STATUS + " != " + PurchaseOrder.STATUS_RECEIVED,
+                    new Object[]{System.currentTimeMillis(), orderId});
+            if (queryInt(db, "SELECT changes()") == 0) {
+                return -1;
+            }
+
+            Map<Long, Integer> quantityDeltas = new HashMap<>();
+            Cursor cursor = db.rawQuery("SELECT l." + ITEM_ID + ", l." + ORDER_QUANTITY + " FROM " + LINES +
+                            " l JOIN " + InventoryDatabaseHelper.TABLE_INVENTORY + " i ON i." + ITEM_ID + " = l." +
+                            ITEM_ID + " WHERE l." + ORDER_ID + " = ? AND i." + InventoryDatabaseHelper.LIVE_ITEMS,
+                    new String[]{String.valueOf(orderId)});
+            while (cursor.moveToNext()) {
+                quantityDeltas.put(cursor.getLong(0), cursor.getInt(1));
+            }
+            cursor.close();
+
+            // Joins this transaction, so the stock changes commit together with the status
+            received = databaseHelper.applyQuantityDeltas(quantityDeltas);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        Log.d(TAG, "Received order " + orderId + " into " + received + " items in " +
+                (System.nanoTime() - startTime) / 1000000 + " ms");
+        return received;
+    }
+
+    private static int queryInt(SQLiteDatabase db, String sql) {
+        Cursor cursor = db.rawQuery(sql, null);
+        int value = cursor.moveToFirst() ? cursor.getInt(0) : 0;
+        cursor.close();
+        return value;
+    }
+}
@@ -0,0 +1,181 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.util.Base64;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Conflict-free quantity counter (PN-counter) for one item
+ * Every device only ever grows its own increment and decrement totals, and merging
+ * takes the larger total per device, so replicas converge no matter how often or in
+ * which order their states are exchanged. The stock quantity is the sum of all
+ * increments minus all decrements.
+ */
+public class QuantityCounter {
+
+    private final Map<String, long[]> replicas = new LinkedHashMap<>();
+
+    /**
+     * Record a local quantity change for one device
+     * @param deviceId Device making the change
+     * @param delta Amount added (positive) or removed (negative)
+     */
+    public void add(String deviceId, long delta) {
+        long[] totals = getTotals(deviceId);
+        if (delta > 0) {
+            totals[0] += delta;
+        } else {
+            totals[1] -= delta;
+        }
+    }
+
+    /**
+     * Set the totals of one device, keeping the larger value of each total
+     * @param deviceId Device the totals belong to
+     * @param increments Total units added by the device
+     * @param decrements Total units removed by the device
+     */
+    public void merge(String deviceId, long increments, long decrements) {
+        long[] totals = getTotals(deviceId);
+        totals[0] = Math.max(totals[0], increments);
+        totals[1] = Math.max(totals[1], decrements);
+    }
+
+    /**
+     * Merge another counter's state into this one
+     * @param other Counter received from another replica
+     */
+    public void merge(QuantityCounter other) {
+        for (Map.Entry<String, long[]> entry : other.replicas.entrySet()) {
+            merge(entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+        }
+    }
+
+    /**
+     * Get the counter value; may be negative if devices sold the same stock while offline
+     * @return Sum of all increments minus all decrements
+     */
+    public long getValue() {
+        long value = 0;
+        for (long[] totals : replicas.values()) {
+            value += totals[0] - totals[1];
+        }
+        return value;
+    }
+
+    public Map<String, long[]> getReplicas() {
+        return replicas;
+    }
+
+    private long[] getTotals(String deviceId) {
+        long[] totals = replicas.get(deviceId);
+        if (totals == null) {
+            totals = new long[2];
+            replicas.put(deviceId, totals);
+        }
+        return totals;
+    }
+
+    // ======================== ENCODING ========================
+
+    /**
+     * Encode the counter as [replica count] then [device, increments, decrements] per replica
+     * Numbers are unsigned varints and device IDs are length-prefixed UTF-8
+     * @return Compact binary form of the counter
+     */
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarint(out, replicas.size());
+        for (Map.Entry<String, long[]> entry : replicas.entrySet()) {
+            byte[] device = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, device.length);
+            out.write(device, 0, device.length);
+            writeVarint(out, entry.getValue()[0]);
+            writeVarint(out, entry.getValue()[1]);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a counter produced by encode()
+     * @param data Encoded counter
+     * @return Decoded counter
+     * @throws IllegalArgumentException if the data is truncated or malformed
+     */
+    public static QuantityCounter decode(byte[] data) {
+        QuantityCounter counter = new QuantityCounter();
+        int[] position = {0};
+        long count = readVarint(data, position);
+        for (long i = 0; i < count; i++) {
+            int length = (int) readVarint(data, position);
+            if (length < 0 || position[0] + length > data.length) {
+                throw new IllegalArgumentException("Truncated device ID");
+            }
+            String device = new String(data, position[0], length, StandardCharsets.UTF_8);
+            position[0] += length;
+            counter.merge(device, readVarint(data, position), readVarint(data, position));
+        }
+        return counter;
+    }
+
+    /**
+     * Encode a counter holding only one device's totals, as encode() would, without building it
+     * @param deviceId Device the totals belong to
+     * @param increments Total units added by the device
+     * @param decrements Total units removed by the device
+     * @return Compact binary form of the counter
+     */
+    public static byte[] encodeReplica(String deviceId, long increments, long decrements) {
+        byte[] device = deviceId.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(device.length + 24);
+        writeVarint(out, 1);
+        writeVarint(out, device.length);
+        out.write(device, 0, device.length);
+        writeVarint(out, increments);
+        writeVarint(out, decrements);
+        return out.toByteArray();
+    }
+
+    /**
+     * Base64 text form of encodeReplica()
+     */
+    public static String encodeReplicaToString(String deviceId, long increments, long decrements) {
+        return Base64.encodeToString(encodeReplica(deviceId, increments, decrements), Base64.NO_WRAP);
+    }
+
+    /**
+     * Encode the counter as Base64 text for storage in text columns and JSON
+     */
+    public String encodeToString() {
+        return Base64.encodeToString(encode(), Base64.NO_WRAP);
+    }
+
+    public static QuantityCounter decodeFromString(String text) {
+        return decode(Base64.decode(text, Base64.NO_WRAP));
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] data, int[] position) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position[0] >= data.length) {
+                throw new IllegalArgumentException("Truncated varint");
+            }
+            byte b = data[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
@@ -0,0 +1,109 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Write-behind buffer for quantity adjustments
+ * Collects per-item quantity deltas in memory and writes them to the database in a
+ * single transaction, either shortly after the first pending change or as soon as
+ * enough items are pending. Must only be used from the main thread.
+ */
+public class QuantityWriteBuffer {
+
+    private static final String TAG = "QuantityWriteBuffer";
+    private static final long FLUSH_DELAY_MS = 750;
+    private static final int FLUSH_THRESHOLD = 25;
+
+    // Interface definition for flush result callbacks
+    public interface OnFlushListener {
+        void onFlushComplete(int itemsWritten);
+
+        void onFlushFailed(Exception e);
+    }
+
+    private final InventoryDatabaseHelper databaseHelper;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<Long, Integer> pendingDeltas = new LinkedHashMap<>();
+    private final Runnable flushRunnable = this::flush;
+    private OnFlushListener flushListener;
+    private boolean flushScheduled = false;
+
+    public QuantityWriteBuffer(InventoryDatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    public void setOnFlushListener(OnFlushListener listener) {
+        this.flushListener = listener;
+    }
+
+    /**
+     * Queue a quantity change for an item
+     * Deltas for the same item are merged so each item is written at most once per flush
+     * @param itemId The ID of the item to adjust
+     * @param delta Amount to add to the stored quantity (can be negative)
+     */
+    public void addDelta(long itemId, int delta) {
+        if (delta == 0) {
+            return;
+        }
+
+        Integer pending = pendingDeltas.get(itemId);
+        int merged = (pending != null ? pending : 0) + delta;
+        if (merged == 0) {
+            pendingDeltas.remove(itemId);
+        } else {
+            pendingDeltas.put(itemId, merged);
+        }
+
+        if (pendingDeltas.size() >= FLUSH_THRESHOLD) {
+            flush();
+        } else if (!flushScheduled && !pendingDeltas.isEmpty()) {
+            flushScheduled = true;
+            handler.postDelayed(flushRunnable, FLUSH_DELAY_MS);
+        }
+    }
+
+    /**
+     * Check if there are changes waiting to be written
+     * @return true if at least one item has a pending delta
+     */
+    public boolean hasPendingChanges() {
+        return !pendingDeltas.isEmpty();
+    }
+
+    /**
+     * Write all pending deltas to the database in one transaction
+     * Pending deltas are handed over before writing, so a delta is applied at most once;
+     * if the transaction fails it is rolled back and the listener is told to resync
+     */
+    public void flush() {
+        handler.removeCallbacks(flushRunnable);
+        flushScheduled = false;
+
+        if (pendingDeltas.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Integer> batch = new LinkedHashMap<>(pendingDeltas);
+        pendingDeltas.clear();
+
+        try {
+            databaseHelper.applyQuantityDeltas(batch);
+            Log.d(TAG, "Flushed quantity changes for " + batch.size() + " items");
+
+            if (flushListener != null) {
+                flushListener.onFlushComplete(batch.size());
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error flushing quantity changes: " + e.getMessage(), e);
+
+            if (flushListener != null) {
+                flushListener.onFlushFailed(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.os.Bundle;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+import android.widget.Toast;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.widget.Toolbar;
+import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Shows what the stock is worth, per category of the current location and per location
+ * Every figure comes from the running category totals, so the report opens just as fast
+ * for a large catalog as for a small one.
+ */
+public class ReportActivity extends AppCompatActivity {
+
+    private static final String TAG = "ReportActivity";
+
+    private TextView retailValueText;
+    private TextView costValueText;
+    private TextView stockSummaryText;
+    private LinearLayout categoryRows;
+    private LinearLayout locationRows;
+
+    private InventoryLocationManager locationManager;
+    private InventoryDatabaseHelper databaseHelper;
+    private final ExecutorService databaseExecutor = Executors.newSingleThreadExecutor();
+    private final NumberFormat currencyFormat = NumberFormat.getCurrencyInstance();
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_report);
+
+        locationManager = new InventoryLocationManager(this);
+        databaseHelper = locationManager.openCurrentHelper();
+
+        setupToolbar();
+        initializeViews();
+        loadReport();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        databaseExecutor.shutdown();
+        databaseHelper.close();
+    }
+
+    private void setupToolbar() {
+        Toolbar toolbar = findViewById(R.id.toolbar);
+        setSupportActionBar(toolbar);
+        getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+        getSupportActionBar().setSubtitle(locationManager.getCurrentLocation());
+
+        toolbar.setNavigationOnClickListener(v -> finish());
+    }
+
+    private void initializeViews() {
+        retailValueText = findViewById(R.id.retail_value_text);
+        costValueText = findViewById(R.id.cost_value_text);
+        stockSummaryText = findViewById(R.id.stock_summary_text);
+        categoryRows = findViewById(R.id.category_rows);
+        locationRows = findViewById(R.id.location_rows);
+    }
+
+    /**
+     * Read the category and location totals off the main thread and show them
+     */
+    private void loadReport() {
+        databaseExecutor.execute(() -> {
+            try {
+                List<CategoryTotals> categories = databaseHelper.getCategoryTotals();
+                Map<String, long[]> locations = locationManager.getLocationValues();
+                runOnUiThread(() -> {
+                    if (!isFinishing()) {
+                        showReport(categories, locations);
+                    }
+                });
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading report: " + e.getMessage(), e);
+                runOnUiThread(() -> Toast.makeText(this, "Error loading report",
+                        Toast.LENGTH_SHORT).show());
+            }
+        });
+    }
+
+    /**
+     * Fill the summary card and the category and location rows
+     * @param categories Totals of every category of the current location
+     * @param locations Location name to [totalUnits, costValueCents, retailValueCents]
+     */
+    private void showReport(List<CategoryTotals> categories, Map<String, long[]> locations) {
+        long costCents = 0;
+        long retailCents = 0;
+        long units = 0;
+        int items = 0;
+        int lowStock = 0;
+        int critical = 0;
+
+        categoryRows.removeAllViews();
+        for (CategoryTotals totals : categories) {
+            costCents += totals.getCostValueCents();
+            retailCents += totals.getRetailValueCents();
+            units += totals.getTotalUnits();
+            items += totals.getItemCount();
+            lowStock += totals.getLowStockCount();
+            critical += totals.getCriticalCount();
+
+            String name = totals.getCategory().isEmpty() ? "Uncategorized" : totals.getCategory();
+            String detail = String.format(Locale.US, "%d items, %d units, cost %s, %d low, %d critical",
+                    totals.getItemCount(), totals.getTotalUnits(), formatMoney(totals.getCostValueCents()),
+                    totals.getLowStockCount(), totals.getCriticalCount());
+            addRow(categoryRows, name, detail, formatMoney(totals.getRetailValueCents()));
+        }
+        if (categories.isEmpty()) {
+            addRow(categoryRows, "No items yet", "", "");
+        }
+
+        retailValueText.setText(formatMoney(retailCents));
+        costValueText.setText("Cost value: " + formatMoney(costCents) +
+                "  (margin " + formatMoney(retailCents - costCents) + ")");
+        stockSummaryText.setText(String.format(Locale.US, "%d items, %d units, %d low, %d critical",
+                items, units, lowStock, critical));
+
+        locationRows.removeAllViews();
+        for (Map.Entry<String, long[]> entry : locations.entrySet()) {
+            long[] values = entry.getValue();
+            String detail = String.format(Locale.US, "%d units, cost %s", values[0], formatMoney(values[1]));
+            addRow(locationRows, entry.getKey(), detail, formatMoney(values[2]));
+        }
+    }
+
+    private void addRow(LinearLayout container, String name, String detail, String value) {
+        View row = LayoutInflater.from(this).inflate(R.layout.item_report_row, container, false);
+        ((TextView) row.findViewById(R.id.report_row_name)).setText(name);
+        TextView detailText = row.findViewById(R.id.report_row_detail);
+        detailText.setText(detail);
+        detailText.setVisibility(detail.isEmpty() ? View.GONE : View.VISIBLE);
+        ((TextView) row.findViewById(R.id.report_row_value)).setText(value);
+        container.addView(row);
+    }
+
+    private String formatMoney(long cents) {
+        return currencyFormat.format(BigDecimal.valueOf(cents, 2));
+    }
+}
@@ -17,6 +17,9 @@ public class SMSNotificationManager {
     private static final String TAG = "SMSNotificationManager";
     private static final String DEFAULT_PHONE_NUMBER = "5551234567"; // Demo number for testing
 
+    // Lots named in an expiry alert; the message stays within a few SMS parts
+    static final int MAX_LISTED_LOTS = 5;
+
     private Context context;
     private SmsManager smsManager;
 
@@ -58,6 +61,73 @@ public class SMSNotificationManager {
         }
     }
 
+    /**
+     * Send one message summarizing the low and critical items of the whole inventory
+     * @param listedItems First few low or critical items, named in the message
+     * @param lowStockCount Number of items that are low but not critical
+     * @param criticalCount Number of items at or below their critical level
+     */
+    public void sendStockDigest(List<InventoryItem> listedItems, int lowStockCount, int criticalCount) {
+        if (!SMSPermissionHelper.hasSMSPermission(context)) {
+            Log.w(TAG, "SMS permission not granted, cannot send digest");
+            return;
+        }
+
+        try {
+            int total = lowStockCount + criticalCount;
+            StringBuilder message = new StringBuilder();
+            message.append("STOCK DIGEST: ").append(criticalCount).append(" critical, ")
+                    .append(lowStockCount).append(" low\n");
+
+            for (InventoryItem item : listedItems) {
+                message.append("• ").append(item.getName())
+                        .append(" (").append(item.getQuantity())
+                        .append(" left)\n");
+            }
+            if (total > listedItems.size()) {
+                message.append("+").append(total - listedItems.size()).append(" more");
+            }
+
+            sendSMSMessage(message.toString());
+
+        } catch (Exception e) {
+            Log.e(TAG, "Error sending stock digest: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Send one message listing stock lots that have expired or expire soon
+     * @param lots Lots soonest expiry first; only the first MAX_LISTED_LOTS are named
+     * @param now Current time in epoch millis
+     */
+    public void sendExpiryAlert(List<StockLot> lots, long now) {
+        if (!SMSPermissionHelper.hasSMSPermission(context)) {
+            Log.w(TAG, "SMS permission not granted, cannot send expiry alert");
+            return;
+        }
+
+        try {
+            StringBuilder message = new StringBuilder();
+            message.append("EXPIRY ALERT: stock expiring soon:\n");
+
+            for (int i = 0; i < Math.min(lots.size(), MAX_LISTED_LOTS); i++) {
+                StockLot lot = lots.get(i);
+                message.append("• ").append(lot.getItemName())
+                        .append(" (").append(lot.getQuantity()).append(" units, ")
+                        .append(lot.isExpired(now) ? "expired " : "expires ")
+                        .append(lot.getExpiryDate()).append(")\n");
+            }
+            if (lots.size() > MAX_LISTED_LOTS) {
+                message.append("+ more, see Expiring Stock");
+            }
+
+            sendSMSMessage(message.toString());
+
+        } catch (Exception e) {
+            Log.e(TAG, "Error sending expiry alert: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Send low stock alert for a single item
      * @param item Item that is low in stock
@@ -71,7 +141,10 @@ public class SMSNotificationManager {
         try {
             String message;
             if (item.isCriticalStock()) {
-                message = "CRITICAL ALERT: " + item.getName() + " is OUT OF STOCK!";
+                message = item.getQuantity() == 0
+                        ? "CRITICAL ALERT: " + item.getName() + " is OUT OF STOCK!"
+                        : "CRITICAL ALERT: " + item.getName() + " only has " +
+                                item.getQuantity() + " items remaining.";
             } else {
                 message = "LOW STOCK ALERT: " + item.getName() + " only has " +
                         item.getQuantity() + " items remaining.";
@@ -1,6 +1,9 @@
 package com.IfeoluwaAdewoyin.inventorymanagementapp;
 
 import android.os.Bundle;
+import android.util.Log;
+import android.widget.ArrayAdapter;
+import android.widget.AutoCompleteTextView;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -8,27 +11,55 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.widget.Toolbar;
 import com.google.android.material.materialswitch.MaterialSwitch;
 import com.google.android.material.slider.Slider;
+import java.io.File;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class SettingsActivity extends AppCompatActivity {
 
+    private static final String TAG = "SettingsActivity";
+
+    // Thresholds of items that no policy has been applied to yet (the column defaults)
+    private static final int DEFAULT_LOW_STOCK_THRESHOLD = 10;
+    private static final int DEFAULT_CRITICAL_THRESHOLD = 0;
+
     private MaterialSwitch smsNotificationsSwitch;
     private MaterialSwitch pushNotificationsSwitch;
     private Slider lowStockSlider;
     private Slider criticalStockSlider;
     private TextView lowStockValue;
     private TextView criticalStockValue;
+    private AutoCompleteTextView thresholdCategoryDropdown;
     private LinearLayout exportDataOption;
     private LinearLayout aboutOption;
 
+    private InventoryDatabaseHelper databaseHelper;
+    private final ExecutorService databaseExecutor = Executors.newSingleThreadExecutor();
+    // Category whose policy the sliders show, GLOBAL_POLICY for all categories
+    private String thresholdCategory = InventoryDatabaseHelper.GLOBAL_POLICY;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_settings);
 
+        databaseHelper = new InventoryLocationManager(this).openCurrentHelper();
+
         setupToolbar();
         initializeViews();
+        setupThresholdCategoryDropdown();
         setupSliders();
         setupClickListeners();
+        loadThresholdPolicy();
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Closed after queued work such as a running backup is done with the helper
+        databaseExecutor.execute(databaseHelper::close);
+        databaseExecutor.shutdown();
     }
 
     private void setupToolbar() {
@@ -46,10 +77,31 @@ public class SettingsActivity extends AppCompatActivity {
         criticalStockSlider = findViewById(R.id.critical_stock_slider);
         lowStockValue = findViewById(R.id.low_stock_value);
         criticalStockValue = findViewById(R.id.critical_stock_value);
+        thresholdCategoryDropdown = findViewById(R.id.threshold_category_dropdown);
         exportDataOption = findViewById(R.id.export_data_option);
         aboutOption = findViewById(R.id.about_option);
     }
 
+    /**
+     * Set up the dropdown choosing which categories the thresholds apply to
+     * The first entry is the global policy, followed by the product categories
+     */
+    private void setupThresholdCategoryDropdown() {
+        String[] categories = getResources().getStringArray(R.array.product_categories);
+        String[] options = new String[categories.length + 1];
+        options[0] = "All categories";
+        System.arraycopy(categories, 0, options, 1, categories.length);
+
+        ArrayAdapter<String> adapter = new ArrayAdapter<>(this,
+                android.R.layout.simple_dropdown_item_1line, options);
+        thresholdCategoryDropdown.setAdapter(adapter);
+        thresholdCategoryDropdown.setText(options[0], false);
+        thresholdCategoryDropdown.setOnItemClickListener((parent, view, position, id) -> {
+            thresholdCategory = position == 0 ? InventoryDatabaseHelper.GLOBAL_POLICY : options[position];
+            loadThresholdPolicy();
+        });
+    }
+
     private void setupSliders() {
         lowStockSlider.addOnChangeListener((slider, value, fromUser) -> {
             lowStockValue.setText(String.format("%.0f units", value));
@@ -58,13 +110,94 @@ public class SettingsActivity extends AppCompatActivity {
         criticalStockSlider.addOnChangeListener((slider, value, fromUser) -> {
             criticalStockValue.setText(String.format("%.0f units", value));
         });
+
+        // Apply once the user lets go, not on every step while dragging
+        Slider.OnSliderTouchListener applyOnRelease = new Slider.OnSliderTouchListener() {
+            @Override
+            public void onStartTrackingTouch(Slider slider) {
+            }
+
+            @Override
+            public void onStopTrackingTouch(Slider slider) {
+                // An item can't be critical without also being low in stock
+                if (criticalStockSlider.getValue() > lowStockSlider.getValue()) {
+                    if (slider == lowStockSlider) {
+                        criticalStockSlider.setValue(lowStockSlider.getValue());
+                    } else {
+                        lowStockSlider.setValue(criticalStockSlider.getValue());
+                    }
+                }
+                applyThresholdPolicy();
+            }
+        };
+        lowStockSlider.addOnSliderTouchListener(applyOnRelease);
+        criticalStockSlider.addOnSliderTouchListener(applyOnRelease);
     }
 
-    private void setupClickListeners() {
-        exportDataOption.setOnClickListener(v -> {
-            // TODO: Implement data export functionality in Project 3
-            Toast.makeText(this, "Export functionality coming soon", Toast.LENGTH_SHORT).show();
+    /**
+     * Show the thresholds of the selected category on the sliders
+     */
+    private void loadThresholdPolicy() {
+        String category = thresholdCategory;
+        databaseExecutor.execute(() -> {
+            int[] policy = databaseHelper.getThresholdPolicy(category);
+            runOnUiThread(() -> {
+                if (isFinishing() || !category.equals(thresholdCategory)) {
+                    return;
+                }
+                int low = policy != null ? policy[0] : DEFAULT_LOW_STOCK_THRESHOLD;
+                int critical = policy != null ? policy[1] : DEFAULT_CRITICAL_THRESHOLD;
+                lowStockSlider.setValue(clamp(low, lowStockSlider));
+                criticalStockSlider.setValue(clamp(critical, criticalStockSlider));
+            });
+        });
+    }
+
+    /**
+     * Save the slider values as the selected category's policy and re-threshold its items
+     * The database applies the policy as one bulk update, off the UI thread
+     */
+    private void applyThresholdPolicy() {
+        String category = thresholdCategory;
+        int low = (int) lowStockSlider.getValue();
+        int critical = (int) criticalStockSlider.getValue();
+        databaseExecutor.execute(() -> {
+            try {
+                int updated = databaseHelper.applyThresholdPolicy(category, low, critical);
+                runOnUiThread(() -> Toast.makeText(this, String.format(Locale.US,
+                        "Thresholds updated for %d items", updated), Toast.LENGTH_SHORT).show());
+            } catch (Exception e) {
+                Log.e(TAG, "Error applying thresholds: " + e.getMessage(), e);
+                runOnUiThread(() -> Toast.makeText(this, "Error updating thresholds",
+                        Toast.LENGTH_SHORT).show());
+            }
+        });
+    }
+
+    /**
+     * Make an online backup of the current location's database in the background
+     * The app can keep writing while the copy is taken
+     */
+    private void backupDatabase() {
+        Toast.makeText(this, "Backing up inventory...", Toast.LENGTH_SHORT).show();
+        databaseExecutor.execute(() -> {
+            try {
+                File backupFile = new DatabaseBackup(getApplicationContext(), databaseHelper).backup();
+                runOnUiThread(() -> Toast.makeText(this, "Inventory saved to " + backupFile.getName() +
+                        " (" + backupFile.length() / 1024 + " KB)", Toast.LENGTH_LONG).show());
+            } catch (Exception e) {
+                Log.e(TAG, "Error backing up database: " + e.getMessage(), e);
+                runOnUiThread(() -> Toast.makeText(this, "Backup failed", Toast.LENGTH_SHORT).show());
+            }
         });
+    }
+
+    private static float clamp(int value, Slider slider) {
+        return Math.max(slider.getValueFrom(), Math.min(slider.getValueTo(), value));
+    }
+
+    private void setupClickListeners() {
+        exportDataOption.setOnClickListener(v -> backupDatabase());
 
         aboutOption.setOnClickListener(v -> {
             // TODO: Show about dialog in Project 3
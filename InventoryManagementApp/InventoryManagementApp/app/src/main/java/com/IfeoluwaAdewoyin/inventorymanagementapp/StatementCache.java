@@ -0,0 +1,49 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache of compiled SQLite statements for frequently executed writes
+ * Statements are tied to the database instance they were compiled against and
+ * are recompiled automatically if the helper reopens its connection
+ */
+class StatementCache {
+
+    private final Map<String, SQLiteStatement> statements = new HashMap<>();
+    private SQLiteDatabase database;
+
+    /**
+     * Get a compiled statement for the given SQL, compiling it on first use
+     * Callers must synchronize on the returned statement while binding and executing it
+     * @param db Database the statement should run against
+     * @param sql SQL text of the statement
+     * @return Compiled statement ready for binding
+     */
+    synchronized SQLiteStatement get(SQLiteDatabase db, String sql) {
+        if (db != database) {
+            clear();
+            database = db;
+        }
+
+        SQLiteStatement statement = statements.get(sql);
+        if (statement == null) {
+            statement = db.compileStatement(sql);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * Close and forget all compiled statements
+     */
+    synchronized void clear() {
+        for (SQLiteStatement statement : statements.values()) {
+            statement.close();
+        }
+        statements.clear();
+        database = null;
+    }
+}
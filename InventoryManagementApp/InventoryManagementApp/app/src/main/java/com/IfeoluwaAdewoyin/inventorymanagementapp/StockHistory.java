@@ -0,0 +1,95 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import java.util.TimeZone;
+
+/**
+ * Resolutions and retention of the stock level history
+ * Every quantity change is first recorded as a raw sample. Samples are folded into hourly
+ * and daily buckets as they arrive, so the rollups never have to be recomputed; each
+ * resolution is then kept only as long as a chart needs it at that detail.
+ */
+public class StockHistory {
+
+    public static final int RESOLUTION_HOURLY = 0;
+    public static final int RESOLUTION_DAILY = 1;
+
+    static final long HOUR_MILLIS = 60 * 60 * 1000L;
+    static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+    // How long each level of detail is kept; raw samples also wait until they are rolled up
+    static final long RAW_RETENTION_MILLIS = 2 * DAY_MILLIS;
+    static final long HOURLY_RETENTION_MILLIS = 31 * DAY_MILLIS;
+    static final long DAILY_RETENTION_MILLIS = 5 * 366 * DAY_MILLIS;
+
+    // Longest range still charted by the hour; longer ranges use daily buckets
+    static final long HOURLY_CHART_MAX_MILLIS = 7 * DAY_MILLIS;
+
+    /**
+     * Stock level of an item over one bucket
+     */
+    public static class Point {
+        final long bucketStart;
+        final int minQuantity;
+        final int maxQuantity;
+        final int lastQuantity;
+
+        Point(long bucketStart, int minQuantity, int maxQuantity, int lastQuantity) {
+            this.bucketStart = bucketStart;
+            this.minQuantity = minQuantity;
+            this.maxQuantity = maxQuantity;
+            this.lastQuantity = lastQuantity;
+        }
+
+        /**
+         * Get when the bucket starts
+         * @return Epoch millis
+         */
+        public long getBucketStart() {
+            return bucketStart;
+        }
+
+        public int getMinQuantity() {
+            return minQuantity;
+        }
+
+        public int getMaxQuantity() {
+            return maxQuantity;
+        }
+
+        /**
+         * Get the quantity at the end of the bucket
+         */
+        public int getLastQuantity() {
+            return lastQuantity;
+        }
+    }
+
+    /**
+     * Get the start of the bucket a point in time falls into
+     * Daily buckets follow the device's local midnight, so a chart's days match the calendar
+     * @param resolution RESOLUTION_HOURLY or RESOLUTION_DAILY
+     * @param at Epoch millis
+     * @return Bucket start in epoch millis
+     */
+    public static long bucketStart(int resolution, long at) {
+        if (resolution == RESOLUTION_HOURLY) {
+            return Math.floorDiv(at, HOUR_MILLIS) * HOUR_MILLIS;
+        }
+        TimeZone timeZone = TimeZone.getDefault();
+        long localDay = Math.floorDiv(at + timeZone.getOffset(at), DAY_MILLIS) * DAY_MILLIS;
+        // On days the clocks change, midnight has a different offset than later in the day
+        long midnight = localDay - timeZone.getOffset(at);
+        return localDay - timeZone.getOffset(midnight);
+    }
+
+    /**
+     * Pick the resolution that charts a range with a sensible number of points
+     * @param from Range start in epoch millis
+     * @param to Range end in epoch millis
+     * @return RESOLUTION_HOURLY for short recent ranges, otherwise RESOLUTION_DAILY
+     */
+    public static int resolutionFor(long from, long to) {
+        boolean recent = from >= System.currentTimeMillis() - HOURLY_RETENTION_MILLIS;
+        return recent && to - from <= HOURLY_CHART_MAX_MILLIS ? RESOLUTION_HOURLY : RESOLUTION_DAILY;
+    }
+}
@@ -0,0 +1,87 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Units of an item received together, with their lot number and expiry date
+ * A lot's units are part of the item's quantity; the rest of the quantity is untracked.
+ */
+public class StockLot {
+
+    final long lotId;
+    final long itemId;
+    final String itemName;
+    final String lotNumber;
+    final long expiresAt;
+    final int quantity;
+
+    StockLot(long lotId, long itemId, String itemName, String lotNumber, long expiresAt, int quantity) {
+        this.lotId = lotId;
+        this.itemId = itemId;
+        this.itemName = itemName;
+        this.lotNumber = lotNumber;
+        this.expiresAt = expiresAt;
+        this.quantity = quantity;
+    }
+
+    public long getLotId() {
+        return lotId;
+    }
+
+    public long getItemId() {
+        return itemId;
+    }
+
+    /**
+     * @return Item name, "" if not read with the lot
+     */
+    public String getItemName() {
+        return itemName != null ? itemName : "";
+    }
+
+    /**
+     * @return Lot or batch number, "" if none was given
+     */
+    public String getLotNumber() {
+        return lotNumber != null ? lotNumber : "";
+    }
+
+    /**
+     * @return Expiry time in epoch millis, 0 if the lot does not expire
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * Get the last day the units can be used, as entered on the item form
+     * @return Date as YYYY-MM-DD, "" if the lot does not expire
+     */
+    public String getExpiryDate() {
+        if (expiresAt == 0) {
+            return "";
+        }
+        // expiresAt is the midnight after the expiry day
+        return new SimpleDateFormat(InventoryItemValidator.EXPIRY_DATE_FORMAT, Locale.US)
+                .format(new Date(expiresAt - 1));
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public boolean isExpired(long now) {
+        return expiresAt != 0 && expiresAt <= now;
+    }
+
+    /**
+     * Get the number of whole days left before the lot expires
+     * @param now Current time in epoch millis
+     * @return Days left, 0 on the day of expiry, negative once expired
+     */
+    public long getDaysUntilExpiry(long now) {
+        return Math.floorDiv(expiresAt - now, StockHistory.DAY_MILLIS);
+    }
+}
@@ -0,0 +1,78 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.view.View;
+import androidx.core.content.ContextCompat;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Simple chart of an item's stock level over time
+ * Each bucket is drawn as a bar from its lowest to its highest quantity, with a line
+ * through the quantity each bucket ended at.
+ */
+public class StockTrendView extends View {
+
+    private final Paint rangePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path linePath = new Path();
+    private List<StockHistory.Point> points = new ArrayList<>();
+
+    public StockTrendView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        float density = getResources().getDisplayMetrics().density;
+
+        rangePaint.setColor(ContextCompat.getColor(context, R.color.md_theme_primary_container));
+        rangePaint.setStrokeWidth(3 * density);
+        linePaint.setColor(ContextCompat.getColor(context, R.color.md_theme_primary));
+        linePaint.setStrokeWidth(2 * density);
+        linePaint.setStyle(Paint.Style.STROKE);
+    }
+
+    /**
+     * Show a new series
+     * @param points Stock levels in time order, as returned by getStockHistory()
+     */
+    public void setPoints(List<StockHistory.Point> points) {
+        this.points = new ArrayList<>(points);
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (points.isEmpty()) {
+            return;
+        }
+
+        int max = 1;
+        for (StockHistory.Point point : points) {
+            max = Math.max(max, point.getMaxQuantity());
+        }
+        float left = getPaddingLeft();
+        float top = getPaddingTop();
+        float width = getWidth() - left - getPaddingRight();
+        float height = getHeight() - top - getPaddingBottom();
+        float step = points.size() > 1 ? width / (points.size() - 1) : 0;
+
+        linePath.reset();
+        for (int i = 0; i < points.size(); i++) {
+            StockHistory.Point point = points.get(i);
+            float x = left + i * step;
+            canvas.drawLine(x, top + height * (1 - point.getMinQuantity() / (float) max),
+                    x, top + height * (1 - point.getMaxQuantity() / (float) max), rangePaint);
+
+            float y = top + height * (1 - point.getLastQuantity() / (float) max);
+            if (i == 0) {
+                linePath.moveTo(x, y);
+            } else {
+                linePath.lineTo(x, y);
+            }
+        }
+        canvas.drawPath(linePath, linePaint);
+    }
+}
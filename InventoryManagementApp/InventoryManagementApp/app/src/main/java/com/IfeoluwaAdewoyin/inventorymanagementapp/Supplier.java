@@ -0,0 +1,102 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+/**
+ * A supplier that items can be bought from
+ */
+public class Supplier {
+
+    /**
+     * What one supplier charges for one item, and how long delivery takes
+     */
+    public static class Offer {
+        final long itemId;
+        final String itemName;
+        final int itemQuantity;
+        final long supplierId;
+        final String supplierName;
+        final long unitCostCents;
+        final int leadTimeDays;
+
+        Offer(long itemId, String itemName, int itemQuantity, long supplierId, String supplierName,
+              long unitCostCents, int leadTimeDays) {
+            this.itemId = itemId;
+            this.itemName = itemName;
+            this.itemQuantity = itemQuantity;
+            this.supplierId = supplierId;
+            this.supplierName = supplierName;
+            this.unitCostCents = unitCostCents;
+            this.leadTimeDays = leadTimeDays;
+        }
+
+        public long getItemId() {
+            return itemId;
+        }
+
+        public String getItemName() {
+            return itemName != null ? itemName : "";
+        }
+
+        public int getItemQuantity() {
+            return itemQuantity;
+        }
+
+        /**
+         * @return Supplier ID, 0 if the item has no supplier
+         */
+        public long getSupplierId() {
+            return supplierId;
+        }
+
+        /**
+         * @return Supplier name, "" if the item has no supplier
+         */
+        public String getSupplierName() {
+            return supplierName != null ? supplierName : "";
+        }
+
+        /**
+         * @return Price per unit from this supplier, in cents
+         */
+        public long getUnitCostCents() {
+            return unitCostCents;
+        }
+
+        public int getLeadTimeDays() {
+            return leadTimeDays;
+        }
+    }
+
+    final long id;
+    final String name;
+    final String contact;
+    final int leadTimeDays;
+
+    Supplier(long id, String name, String contact, int leadTimeDays) {
+        this.id = id;
+        this.name = name;
+        this.contact = contact;
+        this.leadTimeDays = leadTimeDays;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return Phone number or email, "" if not set
+     */
+    public String getContact() {
+        return contact != null ? contact : "";
+    }
+
+    /**
+     * @return Usual days from order to delivery, used for new offers
+     */
+    public int getLeadTimeDays() {
+        return leadTimeDays;
+    }
+}
@@ -0,0 +1,210 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Suppliers and the items each one offers, with price and lead time per item
+ * Offers are kept in an index ordered by item, price and lead time, so the cheapest
+ * supplier of an item is a single index seek. The cheapest offer for every low-stock
+ * item is one query: the stock status index finds the low items, and a correlated
+ * subquery seeks each item's first offer, instead of one lookup per item from Java.
+ */
+public class SupplierManager {
+
+    private static final String TAG = "SupplierManager";
+
+    private static final String SUPPLIERS = InventoryDatabaseHelper.TABLE_SUPPLIERS;
+    private static final String ITEM_SUPPLIERS = InventoryDatabaseHelper.TABLE_ITEM_SUPPLIERS;
+    private static final String SUPPLIER_ID = InventoryDatabaseHelper.COLUMN_SUPPLIER_ID;
+    private static final String SUPPLIER_NAME = InventoryDatabaseHelper.COLUMN_SUPPLIER_NAME;
+    private static final String CONTACT = InventoryDatabaseHelper.COLUMN_SUPPLIER_CONTACT;
+    private static final String LEAD_TIME = InventoryDatabaseHelper.COLUMN_LEAD_TIME_DAYS;
+    private static final String ITEM_ID = InventoryDatabaseHelper.COLUMN_ITEM_ID;
+    private static final String UNIT_COST = InventoryDatabaseHelper.COLUMN_UNIT_COST;
+
+    // Low and critical items with their cheapest offer, if any; ties go to the faster supplier
+    static final String SQL_CHEAPEST_OFFERS_FOR_LOW_STOCK =
+            "SELECT i." + ITEM_ID + ", i." + InventoryDatabaseHelper.COLUMN_ITEM_NAME + ", i." +
+                    InventoryDatabaseHelper.COLUMN_ITEM_QUANTITY + ", s." + SUPPLIER_ID + ", sp." + SUPPLIER_NAME +
+                    ", s." + UNIT_COST + ", s." + LEAD_TIME + " FROM " + InventoryDatabaseHelper.TABLE_INVENTORY +
+                    " i LEFT JOIN " + ITEM_SUPPLIERS + " s ON s." + ITEM_ID + " = i." + ITEM_ID + " AND s." +
+                    SUPPLIER_ID + " = " + cheapestOffer("c." + SUPPLIER_ID, "i." + ITEM_ID) + " LEFT JOIN " +
+                    SUPPLIERS + " sp ON sp." + SUPPLIER_ID + " = s." + SUPPLIER_ID + " WHERE " +
+                    InventoryDatabaseHelper.LIVE_ITEMS + " AND " + InventorySortOrder.STOCK_STATUS_EXPRESSION +
+                    " <= 1 ORDER BY " + InventorySortOrder.STOCK_STATUS_EXPRESSION + ", i." +
+                    InventoryDatabaseHelper.COLUMN_ITEM_QUANTITY;
+
+    static final String SQL_SELECT_ITEM_OFFERS =
+            "SELECT s." + ITEM_ID + ", s." + SUPPLIER_ID + ", sp." + SUPPLIER_NAME + ", s." + UNIT_COST + ", s." +
+                    LEAD_TIME + " FROM " + ITEM_SUPPLIERS + " s JOIN " + SUPPLIERS + " sp ON sp." + SUPPLIER_ID +
+                    " = s." + SUPPLIER_ID + " WHERE s." + ITEM_ID + " = ? ORDER BY s." + UNIT_COST + ", s." + LEAD_TIME;
+
+    private final InventoryDatabaseHelper databaseHelper;
+
+    public SupplierManager(InventoryDatabaseHelper databaseHelper) {
+        this.databaseHelper = databaseHelper;
+    }
+
+    /**
+     * Build a subquery reading one column of an item's cheapest offer
+     * Served from idx_item_suppliers_cost: the first index entry for the item is the answer.
+     * The offer is aliased c; join suppliers as sp to read the supplier's name.
+     * @param column Column to return, e.g. "c.supplier_id" or "sp.supplier_name"
+     * @param itemId Expression for the item ID, e.g. "i.item_id"
+     * @return Parenthesized scalar subquery, NULL if the item has no offers
+     */
+    static String cheapestOffer(String column, String itemId) {
+        String from = column.startsWith("sp.")
+                ? ITEM_SUPPLIERS + " c JOIN " + SUPPLIERS + " sp ON sp." + SUPPLIER_ID + " = c." + SUPPLIER_ID
+                : ITEM_SUPPLIERS + " c";
+        return "(SELECT " + column + " FROM " + from + " WHERE c." + ITEM_ID + " = " + itemId +
+                " ORDER BY c." + UNIT_COST + ", c." + LEAD_TIME + " LIMIT 1)";
+    }
+
+    /**
+     * Get a supplier's ID by name, adding the supplier if it is new
+     * Names are matched without regard to case.
+     * @param name Supplier name, not empty
+     * @return Supplier ID
+     */
+    public long getOrAddSupplier(String name) {
+        SQLiteDatabase db = databaseHelper.getWritableDatabase();
+        ContentValues values = new ContentValues();
+        values.put(SUPPLIER_NAME, name.trim());
+        db.insertWithOnConflict(SUPPLIERS, null, values, SQLiteDatabase.CONFLICT_IGNORE);
+
+        Cursor cursor = db.rawQuery("SELECT " + SUPPLIER_ID + " FROM " + SUPPLIERS + " WHERE " +
+                SUPPLIER_NAME + " = ?", new String[]{name.trim()});
+        long supplierId = cursor.moveToFirst() ? cursor.getLong(0) : -1;
+        cursor.close();
+        return supplierId;
+    }
+
+    /**
+     * Change a supplier's contact and usual lead time
+     * Existing offers keep their lead time; only offers recorded later use the new one.
+     * @return true if the supplier exists
+     */
+    public boolean updateSupplier(long supplierId, String contact, int leadTimeDays) {
+        ContentValues values = new ContentValues();
+        values.put(CONTACT, contact);
+        values.put(LEAD_TIME, Math.max(0, leadTimeDays));
+        return databaseHelper.getWritableDatabase().update(SUPPLIERS, values, SUPPLIER_ID + " = ?",
+                new String[]{String.valueOf(supplierId)}) > 0;
+    }
+
+    /**
+     * Get every supplier by name
+     */
+    public List<Supplier> getSuppliers() {
+        List<Supplier> suppliers = new ArrayList<>();
+        Cursor cursor = databaseHelper.getReadableDatabase().rawQuery("SELECT " + SUPPLIER_ID + ", " +
+                SUPPLIER_NAME + ", " + CONTACT + ", " + LEAD_TIME + " FROM " + SUPPLIERS + " ORDER BY " +
+                SUPPLIER_NAME, null);
+        while (cursor.moveToNext()) {
+            suppliers.add(new Supplier(cursor.getLong(0), cursor.getString(1), cursor.getString(2), cursor.getInt(3)));
+        }
+        cursor.close();
+        return suppliers;
+    }
+
+    /**
+     * Delete a supplier and all of its offers
+     * @return true if the supplier existed
+     */
+    public boolean deleteSupplier(long supplierId) {
+        SQLiteDatabase db = databaseHelper.getWritableDatabase();
+        String[] args = {String.valueOf(supplierId)};
+        int deleted;
+        db.beginTransaction();
+        try {
+            db.delete(ITEM_SUPPLIERS, SUPPLIER_ID + " = ?", args);
+            deleted = db.delete(SUPPLIERS, SUPPLIER_ID + " = ?", args);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return deleted > 0;
+    }
+
+    /**
+     * Record what a supplier charges for an item, replacing its previous price
+     * A new offer takes the supplier's usual lead time; an existing one keeps its own.
+     * @param itemId Item ID
+     * @param supplierId Supplier ID
+     * @param unitCostCents Price per unit, in cents
+     */
+    public void setOffer(long itemId, long supplierId, long unitCostCents) {
+        SQLiteDatabase db = databaseHelper.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            db.execSQL("INSERT OR IGNORE INTO " + ITEM_SUPPLIERS + " (" + ITEM_ID + ", " + SUPPLIER_ID + ", " +
+                            LEAD_TIME + ") SELECT ?, " + SUPPLIER_ID + ", " + LEAD_TIME + " FROM " + SUPPLIERS +
+                            " WHERE " + SUPPLIER_ID + " = ?",
+                    new Object[]{itemId, supplierId});
+            db.execSQL("UPDATE " + ITEM_SUPPLIERS + " SET " + UNIT_COST + " = ? WHERE " + ITEM_ID + " = ? AND " +
+                    SUPPLIER_ID + " = ?", new Object[]{Math.max(0, unitCostCents), itemId, supplierId});
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Record an item's supplier and unit cost as an offer from that supplier
+     * Called when an item is saved, so each supplier an item was bought from is kept
+     * with the last price paid, and the cheapest can be chosen when reordering.
+     * @param item Saved item; nothing is recorded if it has no supplier or isn't saved yet
+     */
+    public void recordItemSupplier(InventoryItem item) {
+        // Item IDs start at 1; unsaved items are -1 or 0 depending on the constructor
+        if (item.getSupplier().isEmpty() || item.getId() <= 0) {
+            return;
+        }
+        long supplierId = getOrAddSupplier(item.getSupplier());
+        if (supplierId != -1) {
+            setOffer(item.getId(), supplierId, item.getUnitCostCents());
+        }
+    }
+
+    /**
+     * Get every offer for an item, cheapest first
+     * @param itemId Item ID
+     * @return Offers; item name and quantity are not filled in
+     */
+    public List<Supplier.Offer> getItemOffers(long itemId) {
+        List<Supplier.Offer> offers = new ArrayList<>();
+        Cursor cursor = databaseHelper.getReadableDatabase().rawQuery(SQL_SELECT_ITEM_OFFERS,
+                new String[]{String.valueOf(itemId)});
+        while (cursor.moveToNext()) {
+            offers.add(new Supplier.Offer(cursor.getLong(0), null, 0, cursor.getLong(1), cursor.getString(2),
+                    cursor.getLong(3), cursor.getInt(4)));
+        }
+        cursor.close();
+        return offers;
+    }
+
+    /**
+     * Get the cheapest offer for every low or critical item in one query
+     * Items without any offer are included with no supplier.
+     * @return One offer per low-stock item, critical items first
+     */
+    public List<Supplier.Offer> getCheapestOffersForLowStock() {
+        long startTime = System.nanoTime();
+        List<Supplier.Offer> offers = new ArrayList<>();
+        Cursor cursor = databaseHelper.getReadableDatabase().rawQuery(SQL_CHEAPEST_OFFERS_FOR_LOW_STOCK, null);
+        while (cursor.moveToNext()) {
+            offers.add(new Supplier.Offer(cursor.getLong(0), cursor.getString(1), cursor.getInt(2),
+                    cursor.getLong(3), cursor.getString(4), cursor.getLong(5), cursor.getInt(6)));
+        }
+        cursor.close();
+        Log.d(TAG, "Found cheapest offers for " + offers.size() + " low-stock items in " +
+                (System.nanoTime() - startTime) / 1000000 + " ms");
+        return offers;
+    }
+}
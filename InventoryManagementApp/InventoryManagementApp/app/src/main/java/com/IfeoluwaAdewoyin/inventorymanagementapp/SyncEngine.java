@@ -0,0 +1,425 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Offline-first sync engine for one inventory database
+ * Pushes local entries from the change log and pulls other devices' entries in
+ * gzip-compressed batches. Sync cursors are stored in the database for each server
+ * after every batch, so an interrupted sync resumes where it stopped.
+ * Conflicts are resolved per field: quantities are PN-counters merged per device,
+ * other fields use last-writer-wins on (changed_at, device_id).
+ */
+public class SyncEngine {
+
+    private static final String TAG = "SyncEngine";
+    private static final int BATCH_SIZE = 500;
+    private static final int TIMEOUT_MS = 15000;
+    // Cursors are kept per server, so changes sent to one server are still sent to the next
+    private static final String STATE_LAST_PUSHED = "last_pushed_change_id:";
+    private static final String STATE_LAST_PULLED = "last_pulled_seq:";
+
+    /**
+     * Counters describing one sync run
+     */
+    public static class SyncResult {
+        public int changesPushed;
+        public int changesPulled;
+        public long bytesSent;
+        public long bytesReceived;
+        public long elapsedMs;
+
+        public int getTotalChanges() {
+            return changesPushed + changesPulled;
+        }
+
+        /**
+         * Bytes transferred in both directions per 1,000 changes
+         */
+        public long getBytesPerThousandChanges() {
+            int total = getTotalChanges();
+            return total > 0 ? (bytesSent + bytesReceived) * 1000 / total : 0;
+        }
+
+        /**
+         * Sync latency per 1,000 changes in milliseconds
+         */
+        public long getMillisPerThousandChanges() {
+            int total = getTotalChanges();
+            return total > 0 ? elapsedMs * 1000 / total : 0;
+        }
+
+        @Override
+        public String toString() {
+            return "SyncResult{" +
+                    "pushed=" + changesPushed +
+                    ", pulled=" + changesPulled +
+                    ", bytesSent=" + bytesSent +
+                    ", bytesReceived=" + bytesReceived +
+                    ", elapsedMs=" + elapsedMs +
+                    ", bytesPer1k=" + getBytesPerThousandChanges() +
+                    ", msPer1k=" + getMillisPerThousandChanges() +
+                    '}';
+        }
+    }
+
+    private final InventoryDatabaseHelper databaseHelper;
+    private final String serverUrl;
+    private final String stream;
+    private final String lastPushedKey;
+    private final String lastPulledKey;
+
+    /**
+     * @param databaseHelper Database to synchronize
+     * @param serverUrl Base URL of the sync server, e.g. http://127.0.0.1:8080
+     * @param stream Name of the shared change stream, one per stock location
+     */
+    public SyncEngine(InventoryDatabaseHelper databaseHelper, String serverUrl, String stream) {
+        this.databaseHelper = databaseHelper;
+        this.serverUrl = serverUrl;
+        this.stream = stream;
+        this.lastPushedKey = STATE_LAST_PUSHED + serverUrl;
+        this.lastPulledKey = STATE_LAST_PULLED + serverUrl;
+    }
+
+    /**
+     * Push local changes and pull remote ones
+     * Must not be called on the main thread
+     * @return Counters for this sync run
+     * @throws IOException if the server cannot be reached; completed batches are kept
+     */
+    public SyncResult sync() throws IOException {
+        SyncResult result = new SyncResult();
+        long startTime = System.nanoTime();
+
+        try {
+            push(result);
+            pull(result);
+        } catch (JSONException e) {
+            throw new IOException("Malformed sync payload", e);
+        } finally {
+            result.elapsedMs = (System.nanoTime() - startTime) / 1000000;
+        }
+
+        Log.d(TAG, "Sync finished: " + result);
+        return result;
+    }
+
+    // ======================== PUSH ========================
+
+    private void push(SyncResult result) throws IOException, JSONException {
+        SQLiteDatabase db = databaseHelper.getWritableDatabase();
+        String deviceId = databaseHelper.getDeviceId();
+
+        while (true) {
+            long lastPushed = parseLong(InventoryDatabaseHelper.getSyncState(db, lastPushedKey));
+            long lastChangeId = lastPushed;
+            JSONArray changes = new JSONArray();
+
+            Cursor cursor = db.query(InventoryDatabaseHelper.TABLE_CHANGE_LOG, null,
+                    InventoryDatabaseHelper.COLUMN_CHANGE_ID + " > ? AND " +
+                            InventoryDatabaseHelper.COLUMN_DEVICE_ID + " = ?",
+                    new String[]{String.valueOf(lastPushed), deviceId},
+                    null, null, InventoryDatabaseHelper.COLUMN_CHANGE_ID, String.valueOf(BATCH_SIZE));
+            while (cursor.moveToNext()) {
+                changes.put(cursorToChange(cursor));
+                lastChangeId = cursor.getLong(cursor.getColumnIndexOrThrow(InventoryDatabaseHelper.COLUMN_CHANGE_ID));
+            }
+            cursor.close();
+
+            if (changes.length() == 0) {
+                return;
+            }
+
+            JSONObject body = new JSONObject();
+            body.put("device", deviceId);
+            body.put("changes", changes);
+            post("/sync/push?stream=" + encode(stream), gzip(body.toString()), result);
+
+            // The server ignores changes it has already seen, so re-sending a batch is safe
+            InventoryDatabaseHelper.setSyncState(db, lastPushedKey, String.valueOf(lastChangeId));
+            result.changesPushed += changes.length();
+
+            if (changes.length() < BATCH_SIZE) {
+                return;
+            }
+        }
+    }
+
+    private JSONObject cursorToChange(Cursor cursor) throws JSONException {
+        JSONObject change = new JSONObject();
+        change.put("id", cursor.getLong(cursor.getColumnIndexOrThrow(InventoryDatabaseHelper.COLUMN_CHANGE_ID)));
+        change.put("uuid", cursor.getString(cursor.getColumnIndexOrThrow(InventoryDatabaseHelper.COLUMN_ITEM_UUID)));
+        change.put("field", cursor.getString(cursor.getColumnIndexOrThrow(InventoryDatabaseHelper.COLUMN_CHANGE_FIELD)));
+        change.put("device", cursor.getString(cursor.getColumnIndexOrThrow(InventoryDatabaseHelper.COLUMN_DEVICE_ID)));
+        change.put("at", cursor.getLong(cursor.getColumnIndexOrThrow(InventoryDatabaseHelper.COLUMN_CHANGED_AT)));
+
+        int valueIndex = cursor.getColumnIndexOrThrow(InventoryDatabaseHelper.COLUMN_CHANGE_VALUE);
+        if (!cursor.isNull(valueIndex)) {
+            change.put("value", cursor.getString(valueIndex));
+        }
+        long delta = cursor.getLong(cursor.getColumnIndexOrThrow(InventoryDatabaseHelper.COLUMN_QUANTITY_DELTA));
+        if (delta != 0) {
+            change.put("delta", delta);
+        }
+        return change;
+    }
+
+    // ======================== PULL ========================
+
+    private void pull(SyncResult result) throws IOException, JSONException {
+        SQLiteDatabase db = databaseHelper.getWritableDatabase();
+        String deviceId = databaseHelper.getDeviceId();
+
+        while (true) {
+            long lastPulled = parseLong(InventoryDatabaseHelper.getSyncState(db, lastPulledKey));
+            byte[] response = get("/sync/pull?stream=" + encode(stream) + "&since=" + lastPulled +
+                    "&exclude=" + encode(deviceId) + "&limit=" + BATCH_SIZE, result);
+
+            JSONObject page = new JSONObject(gunzip(response));
+            JSONArray changes = page.getJSONArray("changes");
+
+            // Apply the page and advance the cursor atomically
+            db.beginTransaction();
+            try {
+                for (int i = 0; i < changes.length(); i++) {
+                    applyRemoteChange(db, changes.getJSONObject(i));
+                }
+                InventoryDatabaseHelper.setSyncState(db, lastPulledKey,
+                        String.valueOf(page.getLong("last_seq")));
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+                databaseHelper.invalidateItemCache();
+            }
+            result.changesPulled += changes.length();
+
+            if (!page.optBoolean("has_more", false)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Apply one change received from another device and record it in the change log
+     */
+    private void applyRemoteChange(SQLiteDatabase db, JSONObject change) throws JSONException {
+        String uuid = change.getString("uuid");
+        String field = change.getString("field");
+        String value = change.optString("value", null);
+        long delta = change.optLong("delta", 0);
+        String device = change.getString("device");
+        long changedAt = change.getLong("at");
+
+        if (!isSyncedField(field)) {
+            Log.w(TAG, "Ignoring change to unknown field: " + field);
+            return;
+        }
+
+        String[] uuidArgs = {uuid};
+        if (InventoryDatabaseHelper.FIELD_DELETED.equals(field)) {
+            db.delete(InventoryDatabaseHelper.TABLE_QUANTITY_COUNTERS,
+                    InventoryDatabaseHelper.COLUMN_ITEM_UUID + " = ?", uuidArgs);
+            db.delete(InventoryDatabaseHelper.TABLE_ITEM_FORECAST,
+                    InventoryDatabaseHelper.COLUMN_ITEM_UUID + " = ?", uuidArgs);
+            db.delete(InventoryDatabaseHelper.TABLE_INVENTORY,
+                    InventoryDatabaseHelper.COLUMN_ITEM_UUID + " = ?", uuidArgs);
+        } else if (!isDeleted(db, uuid)) {
+            ensureItemExists(db, uuid);
+
+            if (InventoryDatabaseHelper.COLUMN_ITEM_QUANTITY.equals(field)) {
+                // Counter merges commute and are idempotent, so order and duplicates don't matter
+                if (value != null) {
+                    try {
+                        databaseHelper.mergeQuantityCounter(db, uuid, QuantityCounter.decodeFromString(value));
+                    } catch (IllegalArgumentException e) {
+                        Log.w(TAG, "Ignoring malformed quantity counter for " + uuid);
+                    }
+                }
+            } else if (isNewerThanLocal(db, uuid, field, changedAt, device)) {
+                db.execSQL("UPDATE " + InventoryDatabaseHelper.TABLE_INVENTORY + " SET " + field +
+                                " = ? WHERE " + InventoryDatabaseHelper.COLUMN_ITEM_UUID + " = ?",
+                        new Object[]{value, uuid});
+            }
+        }
+
+        db.execSQL("INSERT INTO " + InventoryDatabaseHelper.TABLE_CHANGE_LOG + " (" +
+                        InventoryDatabaseHelper.COLUMN_ITEM_UUID + ", " +
+                        InventoryDatabaseHelper.COLUMN_CHANGE_FIELD + ", " +
+                        InventoryDatabaseHelper.COLUMN_CHANGE_VALUE + ", " +
+                        InventoryDatabaseHelper.COLUMN_QUANTITY_DELTA + ", " +
+                        InventoryDatabaseHelper.COLUMN_DEVICE_ID + ", " +
+                        InventoryDatabaseHelper.COLUMN_CHANGED_AT + ") VALUES (?, ?, ?, ?, ?, ?)",
+                new Object[]{uuid, field, value, delta, device, changedAt});
+    }
+
+    private boolean isSyncedField(String field) {
+        return InventoryDatabaseHelper.COLUMN_ITEM_NAME.equals(field)
+                || InventoryDatabaseHelper.COLUMN_ITEM_DESCRIPTION.equals(field)
+                || InventoryDatabaseHelper.COLUMN_ITEM_CATEGORY.equals(field)
+                || InventoryDatabaseHelper.COLUMN_ITEM_QUANTITY.equals(field)
+                || InventoryDatabaseHelper.COLUMN_LOW_STOCK_THRESHOLD.equals(field)
+                || InventoryDatabaseHelper.COLUMN_UNIT_COST.equals(field)
+                || InventoryDatabaseHelper.COLUMN_UNIT_PRICE.equals(field)
+                || InventoryDatabaseHelper.COLUMN_BARCODE.equals(field)
+                || InventoryDatabaseHelper.COLUMN_SUPPLIER.equals(field)
+                || InventoryDatabaseHelper.FIELD_DELETED.equals(field);
+    }
+
+    /**
+     * Check if an item has been deleted on any device, so late changes don't resurrect it
+     */
+    private boolean isDeleted(SQLiteDatabase db, String uuid) {
+        Cursor cursor = db.query(InventoryDatabaseHelper.TABLE_CHANGE_LOG, new String[]{"1"},
+                InventoryDatabaseHelper.COLUMN_ITEM_UUID + " = ? AND " +
+                        InventoryDatabaseHelper.COLUMN_CHANGE_FIELD + " = ?",
+                new String[]{uuid, InventoryDatabaseHelper.FIELD_DELETED}, null, null, null, "1");
+        boolean deleted = cursor.getCount() > 0;
+        cursor.close();
+        return deleted;
+    }
+
+    /**
+     * Create an empty row for an item first seen through sync; its fields follow in later changes
+     */
+    private void ensureItemExists(SQLiteDatabase db, String uuid) {
+        db.execSQL("INSERT OR IGNORE INTO " + InventoryDatabaseHelper.TABLE_INVENTORY + " (" +
+                        InventoryDatabaseHelper.COLUMN_ITEM_UUID + ", " +
+                        InventoryDatabaseHelper.COLUMN_ITEM_NAME + ", " +
+                        InventoryDatabaseHelper.COLUMN_ITEM_QUANTITY + ") VALUES (?, '', 0)",
+                new Object[]{uuid});
+    }
+
+    /**
+     * Last-writer-wins check for one field, with the device ID as tie breaker
+     */
+    private boolean isNewerThanLocal(SQLiteDatabase db, String uuid, String field,
+                                     long changedAt, String device) {
+        Cursor cursor = db.query(InventoryDatabaseHelper.TABLE_CHANGE_LOG,
+                new String[]{InventoryDatabaseHelper.COLUMN_CHANGED_AT, InventoryDatabaseHelper.COLUMN_DEVICE_ID},
+                InventoryDatabaseHelper.COLUMN_ITEM_UUID + " = ? AND " +
+                        InventoryDatabaseHelper.COLUMN_CHANGE_FIELD + " = ?",
+                new String[]{uuid, field}, null, null,
+                InventoryDatabaseHelper.COLUMN_CHANGED_AT + " DESC, " +
+                        InventoryDatabaseHelper.COLUMN_DEVICE_ID + " DESC", "1");
+
+        boolean newer = true;
+        if (cursor.moveToFirst()) {
+            long localChangedAt = cursor.getLong(0);
+            String localDevice = cursor.getString(1);
+            newer = changedAt > localChangedAt
+                    || (changedAt == localChangedAt && device.compareTo(localDevice) > 0);
+        }
+        cursor.close();
+        return newer;
+    }
+
+    // ======================== TRANSPORT ========================
+
+    private byte[] post(String path, byte[] body, SyncResult result) throws IOException {
+        HttpURLConnection connection = openConnection(path);
+        try {
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            connection.setRequestProperty("Content-Encoding", "gzip");
+            connection.setFixedLengthStreamingMode(body.length);
+
+            OutputStream out = connection.getOutputStream();
+            out.write(body);
+            out.close();
+            result.bytesSent += body.length;
+
+            return readResponse(connection, result);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private byte[] get(String path, SyncResult result) throws IOException {
+        HttpURLConnection connection = openConnection(path);
+        try {
+            connection.setRequestMethod("GET");
+            return readResponse(connection, result);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private HttpURLConnection openConnection(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(serverUrl + path).openConnection();
+        connection.setConnectTimeout(TIMEOUT_MS);
+        connection.setReadTimeout(TIMEOUT_MS);
+        // Requesting gzip explicitly keeps the body compressed so we can count the real bytes
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        return connection;
+    }
+
+    private byte[] readResponse(HttpURLConnection connection, SyncResult result) throws IOException {
+        int responseCode = connection.getResponseCode();
+        if (responseCode != HttpURLConnection.HTTP_OK) {
+            throw new IOException("Sync server returned HTTP " + responseCode);
+        }
+
+        InputStream in = connection.getInputStream();
+        byte[] body = readFully(in);
+        in.close();
+        result.bytesReceived += body.length;
+        return body;
+    }
+
+    // ======================== ENCODING ========================
+
+    static byte[] gzip(String text) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GZIPOutputStream out = new GZIPOutputStream(bytes);
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    static String gunzip(byte[] data) throws IOException {
+        GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data));
+        byte[] text = readFully(in);
+        in.close();
+        return new String(text, StandardCharsets.UTF_8);
+    }
+
+    static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, read);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String encode(String value) throws IOException {
+        return URLEncoder.encode(value, "UTF-8");
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return value != null ? Long.parseLong(value) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
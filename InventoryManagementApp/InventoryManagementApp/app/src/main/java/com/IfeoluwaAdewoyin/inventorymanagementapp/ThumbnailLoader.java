@@ -0,0 +1,320 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import android.widget.ImageView;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads downsampled item photos into ImageViews
+ * Thumbnails are decoded with inSampleSize on a small background pool and kept in a
+ * memory cache sized by bitmap bytes, backed by a bounded disk cache of pre-scaled
+ * JPEGs. Item photos are looked up in the memory cache by a number made of the photo
+ * store, item ID and size, so a cache hit doesn't allocate. A new request for an
+ * ImageView cancels its previous one, so recycled list rows never show another item's
+ * photo. load(), cancel() and invalidate() must be called on the main thread.
+ */
+public class ThumbnailLoader {
+
+    private static final String TAG = "ThumbnailLoader";
+    private static final String DISK_CACHE_DIR = "thumbnails";
+    private static final long MAX_DISK_CACHE_BYTES = 20L * 1024 * 1024;
+    private static final int THUMBNAIL_QUALITY = 80;
+    private static final int DECODE_THREADS = 2;
+
+    private static ThumbnailLoader instance;
+
+    private final File diskCacheDir;
+    private final LruCache<Key, Bitmap> memoryCache;
+    private final Set<Key> missingImages = new HashSet<>();
+    private final Key lookupKey = new Key(0);
+    private final Map<ImageView, Request> pendingRequests = new WeakHashMap<>();
+    private final ExecutorService decodeExecutor = Executors.newFixedThreadPool(DECODE_THREADS);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private long diskCacheBytes = -1;
+
+    /**
+     * Memory cache key of one size of an item photo; lookups reuse a single instance
+     */
+    private static final class Key {
+        long value;
+
+        Key(long value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && ((Key) other).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (value ^ (value >>> 32));
+        }
+    }
+
+    /**
+     * One thumbnail request; cancelled requests never touch their ImageView
+     */
+    private static class Request {
+        final Key key;
+        final File source;
+        final int sizePx;
+        volatile boolean cancelled;
+        Future<?> future;
+
+        Request(Key key, File source, int sizePx) {
+            this.key = key;
+            this.source = source;
+            this.sizePx = sizePx;
+        }
+    }
+
+    /**
+     * Get the shared loader, so every screen uses the same caches
+     * @param context Any context; the application context is kept
+     * @return Shared loader instance
+     */
+    public static synchronized ThumbnailLoader getInstance(Context context) {
+        if (instance == null) {
+            instance = new ThumbnailLoader(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private ThumbnailLoader(Context context) {
+        diskCacheDir = new File(context.getCacheDir(), DISK_CACHE_DIR);
+
+        // Use an eighth of the heap for decoded thumbnails
+        int maxBytes = (int) Math.min(Runtime.getRuntime().maxMemory() / 8, Integer.MAX_VALUE);
+        memoryCache = new LruCache<Key, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(Key key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+        };
+    }
+
+    /**
+     * Show a thumbnail of an item photo, replacing any earlier request for the view
+     * The view is left unchanged until the thumbnail arrives, so show a placeholder meanwhile.
+     * The photo file is only looked up when the thumbnail is not in the memory cache.
+     * @param imageStore Photo store of the item's location
+     * @param itemId ID of the item
+     * @param imageView View to show the thumbnail in
+     * @param sizePx Smallest acceptable width and height of the thumbnail in pixels
+     * @return true if the thumbnail was shown right away from the memory cache
+     */
+    public boolean load(ItemImageStore imageStore, long itemId, ImageView imageView, int sizePx) {
+        cancel(imageView);
+
+        lookupKey.value = getKey(imageStore, itemId, sizePx);
+        Bitmap cached = memoryCache.get(lookupKey);
+        if (cached != null) {
+            imageView.setImageBitmap(cached);
+            return true;
+        }
+        if (missingImages.contains(lookupKey)) {
+            return false;
+        }
+
+        submit(new Request(new Key(lookupKey.value), imageStore.getImageFile(itemId), sizePx), imageView);
+        return false;
+    }
+
+    /**
+     * Show a thumbnail of an image file that may have just changed, e.g. a photo being edited
+     * The thumbnail is not kept in the memory cache, so the file is always read again.
+     * @param source Full-size image file
+     * @param imageView View to show the thumbnail in
+     * @param sizePx Smallest acceptable width and height of the thumbnail in pixels
+     */
+    public void load(File source, ImageView imageView, int sizePx) {
+        cancel(imageView);
+        submit(new Request(null, source, sizePx), imageView);
+    }
+
+    private void submit(Request request, ImageView imageView) {
+        pendingRequests.put(imageView, request);
+        request.future = decodeExecutor.submit(() -> {
+            if (request.cancelled) {
+                return;
+            }
+            Bitmap bitmap = loadThumbnail(request);
+            mainHandler.post(() -> deliver(imageView, request, bitmap));
+        });
+    }
+
+    /**
+     * Cancel the pending request for a view, e.g. when its list row is recycled
+     * @param imageView View whose request should be dropped
+     */
+    public void cancel(ImageView imageView) {
+        Request request = pendingRequests.remove(imageView);
+        if (request != null) {
+            request.cancelled = true;
+            request.future.cancel(false);
+        }
+    }
+
+    /**
+     * Forget cached thumbnails of an item photo after it was replaced or deleted
+     * @param imageStore Photo store of the item's location
+     * @param itemId ID of the item
+     */
+    public void invalidate(ItemImageStore imageStore, long itemId) {
+        long photo = getKey(imageStore, itemId, 0) >>> 16;
+        for (Key key : memoryCache.snapshot().keySet()) {
+            if (key.value >>> 16 == photo) {
+                memoryCache.remove(key);
+            }
+        }
+        missingImages.removeIf(key -> key.value >>> 16 == photo);
+        // Disk thumbnails older than their source are ignored, so they need no cleanup here
+    }
+
+    /**
+     * Pack the photo store, item ID and size into one memory cache key
+     * Item IDs are SQLite row IDs, which stay far below 2^32 in practice.
+     */
+    static long getKey(ItemImageStore imageStore, long itemId, int sizePx) {
+        return ((long) imageStore.getStoreId() << 48) | ((itemId & 0xFFFFFFFFL) << 16) | (sizePx & 0xFFFF);
+    }
+
+    private void deliver(ImageView imageView, Request request, Bitmap bitmap) {
+        if (request.cancelled || pendingRequests.get(imageView) != request) {
+            return;
+        }
+        pendingRequests.remove(imageView);
+
+        if (bitmap != null) {
+            if (request.key != null) {
+                memoryCache.put(request.key, bitmap);
+            }
+            imageView.setImageBitmap(bitmap);
+        } else if (request.key != null) {
+            missingImages.add(request.key);
+        }
+    }
+
+    // ======================== BACKGROUND DECODING ========================
+
+    private Bitmap loadThumbnail(Request request) {
+        File source = request.source;
+        if (!source.exists()) {
+            return null;
+        }
+
+        File thumbnail = getDiskCacheFile(source, request.sizePx);
+        if (thumbnail.exists() && thumbnail.lastModified() >= source.lastModified()) {
+            Bitmap bitmap = BitmapFactory.decodeFile(thumbnail.getPath());
+            if (bitmap != null) {
+                return bitmap;
+            }
+        }
+
+        Bitmap bitmap = decodeSampled(source, request.sizePx);
+        if (bitmap != null && !request.cancelled) {
+            writeDiskCache(thumbnail, bitmap);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Decode an image at the smallest power-of-two scale that still covers the target size
+     * @param source Image file to decode
+     * @param sizePx Target width and height in pixels
+     * @return Decoded bitmap, or null if the file cannot be decoded
+     */
+    static Bitmap decodeSampled(File source, int sizePx) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(source.getPath(), options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, sizePx);
+        options.inJustDecodeBounds = false;
+        return BitmapFactory.decodeFile(source.getPath(), options);
+    }
+
+    static int calculateInSampleSize(int width, int height, int sizePx) {
+        int sampleSize = 1;
+        while (width / (sampleSize * 2) >= sizePx && height / (sampleSize * 2) >= sizePx) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private File getDiskCacheFile(File source, int sizePx) {
+        String name = source.getPath() + "@" + sizePx;
+        return new File(diskCacheDir, name.replaceAll("[^A-Za-z0-9._@-]", "_") + ".jpg");
+    }
+
+    private synchronized void writeDiskCache(File thumbnail, Bitmap bitmap) {
+        if (!diskCacheDir.exists() && !diskCacheDir.mkdirs()) {
+            return;
+        }
+        if (diskCacheBytes < 0) {
+            diskCacheBytes = 0;
+            File[] files = diskCacheDir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    diskCacheBytes += file.length();
+                }
+            }
+        }
+
+        long previousLength = thumbnail.length();
+        try (FileOutputStream out = new FileOutputStream(thumbnail)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, THUMBNAIL_QUALITY, out);
+        } catch (IOException e) {
+            Log.w(TAG, "Error writing thumbnail: " + e.getMessage());
+            return;
+        }
+        diskCacheBytes += thumbnail.length() - previousLength;
+
+        if (diskCacheBytes > MAX_DISK_CACHE_BYTES) {
+            trimDiskCache();
+        }
+    }
+
+    /**
+     * Delete the least recently written thumbnails until the cache is at three quarters of its limit
+     */
+    private void trimDiskCache() {
+        File[] files = diskCacheDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+
+        for (File file : files) {
+            if (diskCacheBytes <= MAX_DISK_CACHE_BYTES * 3 / 4) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                diskCacheBytes -= length;
+            }
+        }
+        Log.d(TAG, "Trimmed thumbnail disk cache to " + diskCacheBytes + " bytes");
+    }
+}
@@ -0,0 +1,77 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the smoothed usage forecast
+ */
+public class DemandForecasterTest {
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+    private static final long START = 1700000000000L;
+
+    private static DemandForecaster.Forecast dailyUsage(int units, int days) {
+        DemandForecaster.Forecast forecast = new DemandForecaster.Forecast();
+        for (int day = 0; day < days; day++) {
+            DemandForecaster.recordUsage(forecast, units, START + day * DAY);
+        }
+        return forecast;
+    }
+
+    @Test
+    public void getDailyUsage_isZeroWithoutUsage() {
+        DemandForecaster.Forecast forecast = new DemandForecaster.Forecast();
+        DemandForecaster.recordUsage(forecast, 0, START);
+        DemandForecaster.recordUsage(forecast, -5, START);
+
+        assertEquals(0, forecast.getDailyUsage(START), 0);
+        assertEquals(0, forecast.getReorderPoint(START));
+    }
+
+    @Test
+    public void getDailyUsage_matchesSteadyUsage() {
+        DemandForecaster.Forecast forecast = dailyUsage(10, 120);
+        long now = START + 119 * DAY;
+
+        assertEquals(10, forecast.getDailyUsage(now), 0.5);
+        assertEquals((int) Math.ceil(forecast.getDailyUsage(now) *
+                (DemandForecaster.LEAD_TIME_DAYS + DemandForecaster.SAFETY_DAYS)), forecast.getReorderPoint(now));
+        assertEquals(now, forecast.getLastUsageAt());
+    }
+
+    @Test
+    public void getDailyUsage_doesNotDiluteShortHistory() {
+        DemandForecaster.Forecast forecast = dailyUsage(10, 4);
+
+        // 40 units over three days, not spread over the whole smoothing window
+        assertEquals(40.0 / 3, forecast.getDailyUsage(START + 3 * DAY), 1);
+    }
+
+    @Test
+    public void getDailyUsage_fadesAfterUsageStops() {
+        DemandForecaster.Forecast forecast = dailyUsage(10, 60);
+        long lastUsage = START + 59 * DAY;
+
+        double later = forecast.getDailyUsage(lastUsage + 14 * DAY);
+
+        assertTrue(later < forecast.getDailyUsage(lastUsage) / 2);
+        assertTrue(later > 0);
+    }
+
+    @Test
+    public void recordUsage_givesSameResultInAnyOrder() {
+        long[] times = {START, START + 2 * DAY, START + 5 * DAY, START + 6 * DAY};
+        long[] units = {4, 7, 1, 12};
+        DemandForecaster.Forecast inOrder = new DemandForecaster.Forecast();
+        DemandForecaster.Forecast reversed = new DemandForecaster.Forecast();
+        for (int i = 0; i < times.length; i++) {
+            DemandForecaster.recordUsage(inOrder, units[i], times[i]);
+            DemandForecaster.recordUsage(reversed, units[times.length - 1 - i], times[times.length - 1 - i]);
+        }
+
+        long now = START + 8 * DAY;
+        assertEquals(inOrder.getDailyUsage(now), reversed.getDailyUsage(now), 1e-9);
+        assertEquals(inOrder.getLastUsageAt(), reversed.getLastUsageAt());
+    }
+}
@@ -0,0 +1,138 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for splitting, mapping and validating CSV rows for import
+ */
+public class InventoryImporterTest {
+
+    @Test
+    public void recordReader_keepsQuotedLineBreaksAndSkipsBlankLines() throws IOException {
+        InventoryImporter.RecordReader reader = new InventoryImporter.RecordReader(new StringReader(
+                "\uFEFFName,Qty\r\nGloves,4\r\n\r\n\"Tape,\r\nwide\",2\nLast,1"));
+
+        assertEquals("Name,Qty", reader.next());
+        assertEquals("Gloves,4", reader.next());
+        assertEquals("\"Tape,\r\nwide\",2", reader.next());
+        assertEquals("Last,1", reader.next());
+        assertNull(reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void recordReader_readsRecordsLongerThanItsBuffer() throws IOException {
+        StringBuilder longName = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            longName.append((char) ('a' + i % 26));
+        }
+        InventoryImporter.RecordReader reader = new InventoryImporter.RecordReader(
+                new StringReader(longName + ",1\nNext,2\n"));
+
+        assertEquals(longName + ",1", reader.next());
+        assertEquals("Next,2", reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void parseFields_unquotesAndUnescapes() {
+        assertEquals(Arrays.asList("Gloves", "Nitrile, size M", "He said \"hi\"", ""),
+                InventoryImporter.parseFields("Gloves,\"Nitrile, size M\",\"He said \"\"hi\"\"\","));
+        assertEquals(Collections.singletonList(""), InventoryImporter.parseFields(""));
+        assertEquals(Arrays.asList("a", "", "c"), InventoryImporter.parseFields("a,,c"));
+    }
+
+    @Test
+    public void mapColumns_acceptsExportHeadersAndAliases() {
+        int[] columns = InventoryImporter.mapColumns(Arrays.asList(
+                "Product Name", "Qty", "Barcode/SKU", "Unknown", "Low Stock Threshold", "price", "Name"));
+
+        assertEquals(0, columns[InventoryImporter.COLUMN_NAME]);
+        assertEquals(1, columns[InventoryImporter.COLUMN_QUANTITY]);
+        assertEquals(2, columns[InventoryImporter.COLUMN_BARCODE]);
+        assertEquals(4, columns[InventoryImporter.COLUMN_THRESHOLD]);
+        assertEquals(5, columns[InventoryImporter.COLUMN_UNIT_PRICE]);
+        assertEquals(-1, columns[InventoryImporter.COLUMN_CATEGORY]);
+        assertEquals(-1, columns[InventoryImporter.COLUMN_SUPPLIER]);
+    }
+
+    @Test
+    public void parseRow_buildsItemFromMappedColumns() {
+        int[] columns = InventoryImporter.mapColumns(Arrays.asList("Name", "Quantity", "Category", "Unit Cost",
+                "Threshold", "Supplier"));
+
+        InventoryImporter.ParsedRow row = InventoryImporter.parseRow(7,
+                Arrays.asList(" Gloves ", "40", "Safety", "2.50", "", "Acme"), columns);
+
+        assertNull(row.error);
+        assertEquals(7, row.row);
+        assertEquals("Gloves", row.item.getName());
+        assertEquals(40, row.item.getQuantity());
+        assertEquals("Safety", row.item.getCategory());
+        assertEquals(250, row.item.getUnitCostCents());
+        assertEquals(0, row.item.getUnitPriceCents());
+        // An empty threshold keeps the default
+        assertEquals(new InventoryItem().getLowStockThreshold(), row.item.getLowStockThreshold());
+        assertEquals("Acme", row.item.getSupplier());
+    }
+
+    @Test
+    public void parseRow_reportsFirstInvalidColumn() {
+        int[] columns = InventoryImporter.mapColumns(Arrays.asList("Name", "Quantity", "Category", "Price"));
+
+        assertEquals("Quantity: Quantity cannot be negative",
+                InventoryImporter.parseRow(2, Arrays.asList("Gloves", "-1", "", "abc"), columns).error);
+        assertEquals("Category: Please select a category",
+                InventoryImporter.parseRow(2, Arrays.asList("Gloves", "1", "", "1"), columns).error);
+        // Short rows read missing fields as empty
+        assertEquals("Quantity: Quantity is required",
+                InventoryImporter.parseRow(2, Collections.singletonList("Gloves"), columns).error);
+        // Without a category column the item is imported uncategorized
+        int[] withoutCategory = InventoryImporter.mapColumns(Arrays.asList("Name", "Quantity"));
+        assertNull(InventoryImporter.parseRow(2, Arrays.asList("Gloves", "1"), withoutCategory).error);
+    }
+
+    @Test
+    public void parseTask_keepsRowOrderAcrossSplits() {
+        List<String> records = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            records.add("Item " + i + "," + (i % 7 == 0 ? "x" : String.valueOf(i)));
+        }
+        int[] columns = InventoryImporter.mapColumns(Arrays.asList("Name", "Quantity"));
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<InventoryImporter.ParsedRow> rows =
+                    pool.invoke(new InventoryImporter.ParseTask(records, 2, columns, 0, records.size()));
+
+            assertEquals(records.size(), rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                assertEquals(i + 2, rows.get(i).row);
+                if (i % 7 == 0) {
+                    assertNotNull(rows.get(i).error);
+                } else {
+                    assertEquals("Item " + i, rows.get(i).item.getName());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void matchKeys_ignoreCaseOfNamesAndBlankBarcodes() {
+        assertEquals(InventoryImporter.nameKey(" Gloves"), InventoryImporter.nameKey("GLOVES "));
+        assertNotEquals(InventoryImporter.nameKey("123"), InventoryImporter.barcodeKey("123"));
+        assertNull(InventoryImporter.barcodeKey("  "));
+        assertNull(InventoryImporter.barcodeKey(null));
+    }
+}
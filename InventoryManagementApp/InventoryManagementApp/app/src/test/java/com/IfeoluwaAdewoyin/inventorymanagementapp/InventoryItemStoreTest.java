@@ -0,0 +1,199 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the column store behind the inventory list
+ */
+public class InventoryItemStoreTest {
+
+    private static InventoryItemStore storeWithRows(int rows, String descriptionPrefix) {
+        InventoryItemStore store = new InventoryItemStore();
+        for (int i = 0; i < rows; i++) {
+            store.add(i + 1, "Item " + i, descriptionPrefix + i, "Category " + (i % 5), i, 10, 2, "");
+        }
+        return store;
+    }
+
+    @Test
+    public void getItem_returnsStoredFields() {
+        InventoryItemStore store = new InventoryItemStore();
+        InventoryItem item = new InventoryItem("Café filters", "Größe 4, 100 Stück", "Kitchen", 7, 10, "4006381333931");
+        item.setId(42);
+        item.setCriticalThreshold(3);
+        store.add(item);
+
+        InventoryItem copy = store.getItem(0);
+
+        assertNotSame(item, copy);
+        assertEquals(42, copy.getId());
+        assertEquals("Café filters", copy.getName());
+        assertEquals("Größe 4, 100 Stück", copy.getDescription());
+        assertEquals("Kitchen", copy.getCategory());
+        assertEquals(7, copy.getQuantity());
+        assertEquals(10, copy.getLowStockThreshold());
+        assertEquals(3, copy.getCriticalThreshold());
+        assertEquals("4006381333931", copy.getBarcode());
+    }
+
+    @Test
+    public void itemView_readsColumnsAndStockFlags() {
+        InventoryItemStore store = new InventoryItemStore();
+        store.add(1, "Plenty", "", "Tools", 50, 10, 2, "");
+        store.add(2, "Low", "", "Tools", 8, 10, 2, "");
+        store.add(3, "Critical", "", "Tools", 2, 10, 2, "");
+        InventoryItemStore.ItemView view = store.newView();
+
+        assertFalse(view.moveTo(0).isLowStock());
+        assertTrue(view.moveTo(1).isLowStock());
+        assertFalse(view.isCriticalStock());
+        assertTrue(view.moveTo(2).isCriticalStock());
+        assertEquals(3, view.getId());
+        assertEquals(2, view.getPosition());
+        assertEquals(2, view.getQuantity());
+        assertEquals(10, view.getLowStockThreshold());
+        assertEquals(2, view.getCriticalThreshold());
+    }
+
+    @Test
+    public void add_sharesOneInstancePerCategory() {
+        InventoryItemStore store = new InventoryItemStore();
+        store.add(1, "A", "", new String("Tools"), 1, 1, 0, "");
+        store.add(2, "B", "", new String("Tools"), 1, 1, 0, "");
+        InventoryItemStore.ItemView view = store.newView();
+
+        assertSame(view.moveTo(0).getCategory(), view.moveTo(1).getCategory());
+    }
+
+    @Test
+    public void add_clampsNegativeNumbersAndNullText() {
+        InventoryItemStore store = new InventoryItemStore();
+        store.add(1, null, null, null, -5, -1, -1, null);
+        store.setQuantity(0, -3);
+        InventoryItemStore.ItemView view = store.newView().moveTo(0);
+
+        assertEquals(0, view.getQuantity());
+        assertEquals(0, view.getLowStockThreshold());
+        assertEquals(0, view.getCriticalThreshold());
+        assertEquals("", view.getName());
+        assertEquals("", view.getCategory());
+    }
+
+    @Test
+    public void indexOf_tracksRowsAcrossInsertAndRemove() {
+        InventoryItemStore store = storeWithRows(100, "");
+        assertEquals(0, store.indexOf(1));
+        assertEquals(99, store.indexOf(100));
+        assertEquals(-1, store.indexOf(101));
+
+        InventoryItem inserted = new InventoryItem("New", "", "", 1, 1, "");
+        inserted.setId(500);
+        store.insert(50, inserted);
+        assertEquals(50, store.indexOf(500));
+        assertEquals(51, store.indexOf(51));
+
+        store.remove(store.indexOf(1));
+        assertEquals(-1, store.indexOf(1));
+        assertEquals(49, store.indexOf(500));
+        assertEquals(100, store.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void insert_rejectsPositionPastEnd() {
+        InventoryItemStore store = storeWithRows(3, "");
+        store.insert(4, new InventoryItem("Late", "", "", 1, 1, ""));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getItem_rejectsRemovedPosition() {
+        InventoryItemStore store = storeWithRows(3, "");
+        store.remove(2);
+        store.getItem(2);
+    }
+
+    @Test
+    public void rebindingRow_returnsSameDecodedText() {
+        InventoryItemStore store = storeWithRows(10, "Description ");
+        InventoryItemStore.ItemView view = store.newView();
+
+        String name = view.moveTo(3).getName();
+        assertEquals("Item 3", name);
+        assertSame(name, view.moveTo(3).getName());
+        assertEquals("Description 3", view.getDescription());
+    }
+
+    @Test
+    public void decodedText_followsReplacedInsertedAndRemovedRows() {
+        InventoryItemStore store = storeWithRows(4, "Description ");
+        InventoryItemStore.ItemView view = store.newView();
+        for (int i = 0; i < store.size(); i++) {
+            view.moveTo(i).getName();
+        }
+
+        InventoryItem renamed = store.getItem(1);
+        renamed.setName("Renamed");
+        store.set(1, renamed);
+        assertEquals("Renamed", view.moveTo(1).getName());
+
+        store.insert(0, new InventoryItem("Inserted", "", "", 1, 1, ""));
+        assertEquals("Inserted", view.moveTo(0).getName());
+        assertEquals("Item 0", view.moveTo(1).getName());
+        assertEquals("Renamed", view.moveTo(2).getName());
+
+        store.remove(0);
+        assertEquals("Item 0", view.moveTo(0).getName());
+        assertEquals("Item 3", view.moveTo(3).getName());
+    }
+
+    @Test
+    public void scrollingPastCacheSize_decodesEarlierRowsAgain() {
+        InventoryItemStore store = storeWithRows(InventoryItemStore.DECODED_TEXT_SLOTS, "Description ");
+        InventoryItemStore.ItemView view = store.newView();
+
+        String first = view.moveTo(0).getName();
+        for (int i = 0; i < store.size(); i++) {
+            view.moveTo(i).getName();
+            view.getDescription();
+            view.getBarcode();
+        }
+        String again = view.moveTo(0).getName();
+
+        assertEquals(first, again);
+        assertNotSame(first, again);
+    }
+
+    @Test
+    public void displayingEveryRow_keepsHeapIndependentOfListLength() {
+        StringBuilder padding = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            padding.append('x');
+        }
+        InventoryItemStore store = storeWithRows(20000, padding.toString());
+        InventoryItemStore.ItemView view = store.newView();
+
+        long before = usedHeapAfterGc();
+        int characters = 0;
+        for (int i = 0; i < store.size(); i++) {
+            view.moveTo(i);
+            characters += view.getName().length() + view.getDescription().length();
+        }
+        long retained = usedHeapAfterGc() - before;
+
+        // Keeping every decoded string would retain over 4 MB here
+        assertTrue(characters > 4000000);
+        assertTrue("Retained " + retained + " bytes", retained < 1024 * 1024);
+        assertEquals(20000, store.size());
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
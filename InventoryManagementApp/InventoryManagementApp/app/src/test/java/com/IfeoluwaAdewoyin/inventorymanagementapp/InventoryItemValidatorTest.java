@@ -0,0 +1,111 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the item field rules shared by the item form and the importer
+ */
+public class InventoryItemValidatorTest {
+
+    @Test
+    public void checkName_requiresNameWithinLimit() {
+        assertNull(InventoryItemValidator.checkName("Hammer"));
+        assertNull(InventoryItemValidator.checkName(repeat('a', InventoryItemValidator.MAX_NAME_LENGTH)));
+        assertNotNull(InventoryItemValidator.checkName(""));
+        assertNotNull(InventoryItemValidator.checkName(null));
+        assertNotNull(InventoryItemValidator.checkName(repeat('a', InventoryItemValidator.MAX_NAME_LENGTH + 1)));
+    }
+
+    @Test
+    public void checkQuantity_requiresWholeNumberInRange() {
+        assertNull(InventoryItemValidator.checkQuantity("0"));
+        assertNull(InventoryItemValidator.checkQuantity(String.valueOf(InventoryItemValidator.MAX_QUANTITY)));
+        assertEquals("Quantity is required", InventoryItemValidator.checkQuantity(""));
+        assertEquals("Quantity cannot be negative", InventoryItemValidator.checkQuantity("-1"));
+        assertEquals("Quantity is too large",
+                InventoryItemValidator.checkQuantity(String.valueOf(InventoryItemValidator.MAX_QUANTITY + 1)));
+        assertEquals("Please enter a valid number", InventoryItemValidator.checkQuantity("2.5"));
+        assertEquals("Please enter a valid number", InventoryItemValidator.checkQuantity("99999999999"));
+    }
+
+    @Test
+    public void checkThreshold_allowsEmptyForDefault() {
+        assertNull(InventoryItemValidator.checkThreshold(""));
+        assertNull(InventoryItemValidator.checkThreshold(null));
+        assertNull(InventoryItemValidator.checkThreshold("25"));
+        assertEquals("Threshold cannot be negative", InventoryItemValidator.checkThreshold("-3"));
+        assertEquals("Threshold is too large",
+                InventoryItemValidator.checkThreshold(String.valueOf(InventoryItemValidator.MAX_THRESHOLD + 1)));
+        assertEquals("Please enter a valid number", InventoryItemValidator.checkThreshold("ten"));
+    }
+
+    @Test
+    public void checkAmount_acceptsUpToTwoDecimals() {
+        assertNull(InventoryItemValidator.checkAmount(""));
+        assertNull(InventoryItemValidator.checkAmount("12"));
+        assertNull(InventoryItemValidator.checkAmount("12.5"));
+        assertNull(InventoryItemValidator.checkAmount(".99"));
+        assertNull(InventoryItemValidator.checkAmount("999999.99"));
+        assertEquals("Amount is too large", InventoryItemValidator.checkAmount("1000000.00"));
+        assertNotNull(InventoryItemValidator.checkAmount("12.505"));
+        assertNotNull(InventoryItemValidator.checkAmount("-1"));
+        assertNotNull(InventoryItemValidator.checkAmount("."));
+        assertNotNull(InventoryItemValidator.checkAmount("1,50"));
+        assertNotNull(InventoryItemValidator.checkAmount("99999999999999999999"));
+    }
+
+    @Test
+    public void checkSupplierAndCategory() {
+        assertNull(InventoryItemValidator.checkSupplier(""));
+        assertNull(InventoryItemValidator.checkSupplier(null));
+        assertNotNull(InventoryItemValidator.checkSupplier(repeat('s', InventoryItemValidator.MAX_SUPPLIER_LENGTH + 1)));
+        assertNull(InventoryItemValidator.checkCategory("Tools"));
+        assertEquals("Please select a category", InventoryItemValidator.checkCategory(""));
+    }
+
+    @Test
+    public void checkLotNumber_allowsEmptyWithinLimit() {
+        assertNull(InventoryItemValidator.checkLotNumber(""));
+        assertNull(InventoryItemValidator.checkLotNumber(null));
+        assertNull(InventoryItemValidator.checkLotNumber(repeat('9', InventoryItemValidator.MAX_LOT_NUMBER_LENGTH)));
+        assertNotNull(InventoryItemValidator.checkLotNumber(
+                repeat('9', InventoryItemValidator.MAX_LOT_NUMBER_LENGTH + 1)));
+    }
+
+    @Test
+    public void checkExpiryDate_requiresRealDate() {
+        assertNull(InventoryItemValidator.checkExpiryDate(""));
+        assertNull(InventoryItemValidator.checkExpiryDate("2024-02-29"));
+        assertNotNull(InventoryItemValidator.checkExpiryDate("2023-02-29"));
+        assertNotNull(InventoryItemValidator.checkExpiryDate("2024-13-01"));
+        assertNotNull(InventoryItemValidator.checkExpiryDate("2024-01-01x"));
+        assertNotNull(InventoryItemValidator.checkExpiryDate("01/02/2024"));
+    }
+
+    @Test
+    public void parseExpiryDate_endsAtNextLocalMidnight() {
+        TimeZone defaultTimeZone = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+
+            // 2024-03-11 00:00 in New York, daylight saving time having started on the 10th
+            assertEquals(1710129600000L, InventoryItemValidator.parseExpiryDate("2024-03-10"));
+            assertEquals(0, InventoryItemValidator.parseExpiryDate(""));
+            assertEquals(0, InventoryItemValidator.parseExpiryDate("tomorrow"));
+        } finally {
+            TimeZone.setDefault(defaultTimeZone);
+        }
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+}
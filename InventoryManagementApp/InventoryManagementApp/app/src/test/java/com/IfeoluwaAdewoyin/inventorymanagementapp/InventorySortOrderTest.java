@@ -0,0 +1,69 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the SQL built for each inventory list ordering
+ */
+public class InventorySortOrderTest {
+
+    @Test
+    public void getOrderBy_endsWithItemIdInSameDirection() {
+        assertEquals("item_name, item_id", InventorySortOrder.NAME.getOrderBy());
+        assertEquals("item_updated_at DESC, item_id DESC", InventorySortOrder.RECENTLY_UPDATED.getOrderBy());
+    }
+
+    @Test
+    public void getKeysetCondition_bindsTextKeysTwice() {
+        String[] sortKey = {"Hammer", "12"};
+
+        assertEquals("item_name >= ? AND (item_name > ? OR item_id > 12)",
+                InventorySortOrder.NAME.getKeysetCondition(sortKey));
+        assertArrayEquals(new String[]{"Hammer", "Hammer"}, InventorySortOrder.NAME.getKeysetArgs(sortKey));
+    }
+
+    @Test
+    public void getKeysetCondition_writesNumericKeysAsLiterals() {
+        String[] sortKey = {"0", "3", "40"};
+
+        assertEquals(InventorySortOrder.STOCK_STATUS_EXPRESSION + " >= 0 AND (" +
+                        InventorySortOrder.STOCK_STATUS_EXPRESSION + " > 0 OR " +
+                        "item_quantity >= 3 AND (item_quantity > 3 OR item_id > 40))",
+                InventorySortOrder.STOCK_STATUS.getKeysetCondition(sortKey));
+        assertEquals(0, InventorySortOrder.STOCK_STATUS.getKeysetArgs(sortKey).length);
+    }
+
+    @Test
+    public void getKeysetCondition_flipsComparisonsWhenDescending() {
+        String[] sortKey = {"2024-05-01 10:00:00", "7"};
+
+        assertEquals("item_updated_at <= ? AND (item_updated_at < ? OR item_id < 7)",
+                InventorySortOrder.RECENTLY_UPDATED.getKeysetCondition(sortKey));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void getKeysetCondition_rejectsNonNumericValueForNumericKey() {
+        InventorySortOrder.QUANTITY.getKeysetCondition(new String[]{"1 OR 1=1", "5"});
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void getKeysetCondition_rejectsNonNumericItemId() {
+        InventorySortOrder.NAME.getKeysetCondition(new String[]{"Hammer", "5; DROP TABLE inventory"});
+    }
+
+    @Test
+    public void getCreateIndexSql_indexesOnlyLiveItemsOnSortKeys() {
+        assertEquals("CREATE INDEX idx_inventory_category ON inventory " +
+                        "(IFNULL(item_category, ''), item_name) WHERE " + InventoryDatabaseHelper.LIVE_ITEMS,
+                InventorySortOrder.CATEGORY.getCreateIndexSql());
+    }
+
+    @Test
+    public void fromName_fallsBackToName() {
+        assertEquals(InventorySortOrder.QUANTITY, InventorySortOrder.fromName("QUANTITY"));
+        assertEquals(InventorySortOrder.NAME, InventorySortOrder.fromName("NO_SUCH_ORDER"));
+        assertEquals(InventorySortOrder.NAME, InventorySortOrder.fromName(null));
+    }
+}
@@ -0,0 +1,54 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the CSV sink of the item pipeline
+ */
+public class ItemPipelineTest {
+
+    @Test
+    public void csvSink_quotesOnlyWhereNeeded() {
+        assertEquals("Gloves", ItemPipeline.CsvSink.quote("Gloves"));
+        assertEquals("", ItemPipeline.CsvSink.quote(null));
+        assertEquals("\"Tape, wide\"", ItemPipeline.CsvSink.quote("Tape, wide"));
+        assertEquals("\"2\"\" pipe\"", ItemPipeline.CsvSink.quote("2\" pipe"));
+        assertEquals("\"Line\nbreak\"", ItemPipeline.CsvSink.quote("Line\nbreak"));
+    }
+
+    @Test
+    public void csvSink_writesRowsTheImporterReadsBack() throws IOException {
+        InventoryItem item = new InventoryItem("Pipe, 2\"", "First line\r\nsecond \"line\"", "Plumbing", 12, 4, "0042");
+        item.setUnitCostCents(105);
+        item.setUnitPriceCents(250);
+        item.setSupplier("Acme");
+        StringWriter out = new StringWriter();
+
+        ItemPipeline.CsvSink sink = new ItemPipeline.CsvSink(out);
+        sink.accept(item);
+        sink.finish();
+
+        InventoryImporter.RecordReader reader = new InventoryImporter.RecordReader(new StringReader(out.toString()));
+        int[] columns = InventoryImporter.mapColumns(InventoryImporter.parseFields(reader.next()));
+        for (int i = 0; i < columns.length; i++) {
+            assertEquals(i, columns[i]);
+        }
+        List<String> fields = InventoryImporter.parseFields(reader.next());
+        assertEquals(Arrays.asList("Pipe, 2\"", "First line\r\nsecond \"line\"", "Plumbing", "12", "4", "0042",
+                "1.05", "2.50", "Acme"), fields);
+        assertNull(reader.next());
+
+        InventoryImporter.ParsedRow row = InventoryImporter.parseRow(2, fields, columns);
+        assertNull(row.error);
+        assertEquals(105, row.item.getUnitCostCents());
+        assertEquals(250, row.item.getUnitPriceCents());
+    }
+}
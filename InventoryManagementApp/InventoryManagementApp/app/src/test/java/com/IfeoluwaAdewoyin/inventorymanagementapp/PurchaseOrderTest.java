@@ -0,0 +1,26 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for purchase order values
+ */
+public class PurchaseOrderTest {
+
+    @Test
+    public void getStatusLabel_namesEachStatus() {
+        assertEquals("Draft", new PurchaseOrder(1, "Acme", PurchaseOrder.STATUS_DRAFT, 0).getStatusLabel());
+        assertEquals("Ordered", new PurchaseOrder(1, "Acme", PurchaseOrder.STATUS_ORDERED, 0).getStatusLabel());
+        assertEquals("Received", new PurchaseOrder(1, "Acme", PurchaseOrder.STATUS_RECEIVED, 0).getStatusLabel());
+    }
+
+    @Test
+    public void line_ofDeletedItemHasEmptyName() {
+        PurchaseOrder.Line line = new PurchaseOrder.Line(7, null, 3, 125);
+
+        assertEquals("", line.getItemName());
+        assertEquals(7, line.getItemId());
+    }
+}
@@ -0,0 +1,191 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the per-device quantity counter
+ */
+public class QuantityCounterTest {
+
+    @Test
+    public void add_tracksIncrementsAndDecrementsPerDevice() {
+        QuantityCounter counter = new QuantityCounter();
+        counter.add("device-a", 10);
+        counter.add("device-a", -3);
+        counter.add("device-b", -2);
+
+        assertEquals(5, counter.getValue());
+        assertArrayEquals(new long[]{10, 3}, counter.getReplicas().get("device-a"));
+        assertArrayEquals(new long[]{0, 2}, counter.getReplicas().get("device-b"));
+    }
+
+    @Test
+    public void merge_convergesInAnyOrderAndIsIdempotent() {
+        QuantityCounter a = new QuantityCounter();
+        a.add("device-a", 20);
+        a.add("device-a", -5);
+        QuantityCounter b = new QuantityCounter();
+        b.merge(a);
+        b.add("device-b", -4);
+        a.add("device-a", 2);
+
+        QuantityCounter ab = new QuantityCounter();
+        ab.merge(a);
+        ab.merge(b);
+        QuantityCounter ba = new QuantityCounter();
+        ba.merge(b);
+        ba.merge(a);
+        ba.merge(a);
+
+        assertEquals(13, ab.getValue());
+        assertEquals(ab.getValue(), ba.getValue());
+    }
+
+    @Test
+    public void merge_convergesForRandomReplicasAndDeliveryOrders() {
+        for (long seed = 0; seed < 200; seed++) {
+            Random random = new Random(seed);
+            int replicaCount = 2 + random.nextInt(7);
+            List<QuantityCounter> replicas = new ArrayList<>();
+            for (int i = 0; i < replicaCount; i++) {
+                replicas.add(new QuantityCounter());
+            }
+
+            // Replicas change their own stock and gossip states that may arrive late or twice
+            long expected = 0;
+            List<byte[]> sent = new ArrayList<>();
+            for (int step = 0; step < 100; step++) {
+                int replica = random.nextInt(replicaCount);
+                if (random.nextInt(3) > 0) {
+                    int delta = random.nextInt(101) - 50;
+                    replicas.get(replica).add("device-" + replica, delta);
+                    expected += delta;
+                } else if (!sent.isEmpty() && random.nextBoolean()) {
+                    replicas.get(replica).merge(QuantityCounter.decode(sent.get(random.nextInt(sent.size()))));
+                } else {
+                    sent.add(replicas.get(replica).encode());
+                }
+            }
+            for (QuantityCounter replica : replicas) {
+                sent.add(replica.encode());
+            }
+
+            // Every replica gets every state, in its own order and with duplicates
+            for (QuantityCounter replica : replicas) {
+                List<byte[]> inbox = new ArrayList<>(sent);
+                inbox.addAll(sent.subList(0, random.nextInt(sent.size())));
+                Collections.shuffle(inbox, random);
+                for (byte[] state : inbox) {
+                    replica.merge(QuantityCounter.decode(state));
+                }
+            }
+
+            for (QuantityCounter replica : replicas) {
+                assertEquals("seed " + seed, expected, replica.getValue());
+                assertSameReplicas("seed " + seed, replicas.get(0), replica);
+            }
+        }
+    }
+
+    @Test
+    public void merge_ofManyReplicasTakesLinearTime() {
+        QuantityCounter remote = new QuantityCounter();
+        for (int i = 0; i < 10000; i++) {
+            remote.merge("device-" + i, i, i / 2);
+        }
+        QuantityCounter local = QuantityCounter.decode(remote.encode());
+        remote.add("device-0", 5);
+
+        // A merge costs one map lookup per replica, so 100 merges of 10000 replicas take
+        // milliseconds; a scan per replica would take minutes
+        long start = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            local.merge(remote);
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+
+        assertEquals(remote.getValue(), local.getValue());
+        assertTrue("100 merges took " + elapsedMillis + " ms", elapsedMillis < 5000);
+    }
+
+    @Test
+    public void merge_keepsLargerTotalsSoOldStateCannotUndoChanges() {
+        QuantityCounter counter = new QuantityCounter();
+        counter.merge("device-a", 10, 4);
+        counter.merge("device-a", 8, 6);
+
+        assertArrayEquals(new long[]{10, 6}, counter.getReplicas().get("device-a"));
+        assertEquals(4, counter.getValue());
+    }
+
+    @Test
+    public void getValue_canGoNegativeWhenDevicesOversell() {
+        QuantityCounter counter = new QuantityCounter();
+        counter.merge("seeded", 3, 0);
+        counter.merge("device-a", 0, 2);
+        counter.merge("device-b", 0, 2);
+
+        assertEquals(-1, counter.getValue());
+    }
+
+    @Test
+    public void decode_readsWhatEncodeWrote() {
+        QuantityCounter counter = new QuantityCounter();
+        counter.merge("device-a", 300, 5);
+        counter.merge("géräť", Long.MAX_VALUE, 0);
+        counter.merge("device-c", 0, 128);
+
+        QuantityCounter decoded = QuantityCounter.decode(counter.encode());
+
+        assertEquals(3, decoded.getReplicas().size());
+        assertArrayEquals(new long[]{300, 5}, decoded.getReplicas().get("device-a"));
+        assertArrayEquals(new long[]{Long.MAX_VALUE, 0}, decoded.getReplicas().get("géräť"));
+        assertArrayEquals(new long[]{0, 128}, decoded.getReplicas().get("device-c"));
+    }
+
+    @Test
+    public void encode_usesOneByteForSmallNumbers() {
+        QuantityCounter counter = new QuantityCounter();
+        counter.merge("a", 127, 1);
+
+        assertArrayEquals(new byte[]{1, 1, 'a', 127, 1}, counter.encode());
+    }
+
+    @Test
+    public void encodeReplica_matchesEncodeOfOneDevice() {
+        QuantityCounter counter = new QuantityCounter();
+        counter.merge("device-a", 300, 128);
+
+        assertArrayEquals(counter.encode(), QuantityCounter.encodeReplica("device-a", 300, 128));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_rejectsTruncatedData() {
+        QuantityCounter counter = new QuantityCounter();
+        counter.merge("device-a", 1000, 0);
+        byte[] data = counter.encode();
+
+        QuantityCounter.decode(Arrays.copyOf(data, data.length - 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_rejectsDeviceIdLongerThanData() {
+        QuantityCounter.decode(new byte[]{1, 20, 'a'});
+    }
+
+    private static void assertSameReplicas(String message, QuantityCounter expected, QuantityCounter actual) {
+        assertEquals(message, expected.getReplicas().keySet(), actual.getReplicas().keySet());
+        for (Map.Entry<String, long[]> entry : expected.getReplicas().entrySet()) {
+            assertArrayEquals(message, entry.getValue(), actual.getReplicas().get(entry.getKey()));
+        }
+    }
+}
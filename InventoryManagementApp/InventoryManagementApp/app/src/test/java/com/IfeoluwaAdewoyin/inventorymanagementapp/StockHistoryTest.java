@@ -0,0 +1,83 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for stock history buckets and chart resolutions
+ */
+public class StockHistoryTest {
+    private static final long HOUR = StockHistory.HOUR_MILLIS;
+    private static final long DAY = StockHistory.DAY_MILLIS;
+
+    // 2024-03-31 and 2024-10-27 00:00 UTC, the days Berlin switches to and from summer time
+    private static final long SPRING_FORWARD_DAY = 1711843200000L;
+    private static final long FALL_BACK_DAY = 1729987200000L;
+
+    private TimeZone defaultTimeZone;
+
+    @Before
+    public void saveTimeZone() {
+        defaultTimeZone = TimeZone.getDefault();
+    }
+
+    @After
+    public void restoreTimeZone() {
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    @Test
+    public void bucketStart_hourlyFloorsToHour() {
+        long hour = SPRING_FORWARD_DAY + 5 * HOUR;
+
+        assertEquals(hour, StockHistory.bucketStart(StockHistory.RESOLUTION_HOURLY, hour));
+        assertEquals(hour, StockHistory.bucketStart(StockHistory.RESOLUTION_HOURLY, hour + HOUR - 1));
+        assertEquals(-HOUR, StockHistory.bucketStart(StockHistory.RESOLUTION_HOURLY, -1));
+    }
+
+    @Test
+    public void bucketStart_dailyFollowsLocalMidnight() {
+        TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+        long day = SPRING_FORWARD_DAY - 40 * DAY;
+        // New York is five hours behind UTC in winter
+        long midnight = day + 5 * HOUR;
+
+        assertEquals(midnight, StockHistory.bucketStart(StockHistory.RESOLUTION_DAILY, midnight));
+        assertEquals(midnight, StockHistory.bucketStart(StockHistory.RESOLUTION_DAILY, midnight + DAY - 1));
+        assertEquals(midnight - DAY, StockHistory.bucketStart(StockHistory.RESOLUTION_DAILY, midnight - 1));
+    }
+
+    @Test
+    public void bucketStart_dailyKeepsOneBucketOnDaysClocksChange() {
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+
+        // Midnight is still winter time (UTC+1) on the day summer time starts
+        long springMidnight = SPRING_FORWARD_DAY - HOUR;
+        assertEquals(springMidnight, StockHistory.bucketStart(StockHistory.RESOLUTION_DAILY, springMidnight + 30 * 60000));
+        assertEquals(springMidnight, StockHistory.bucketStart(StockHistory.RESOLUTION_DAILY, springMidnight + 12 * HOUR));
+        assertEquals(springMidnight, StockHistory.bucketStart(StockHistory.RESOLUTION_DAILY, springMidnight + 23 * HOUR - 1));
+
+        // Midnight is still summer time (UTC+2) on the day it ends
+        long fallMidnight = FALL_BACK_DAY - 2 * HOUR;
+        assertEquals(fallMidnight, StockHistory.bucketStart(StockHistory.RESOLUTION_DAILY, fallMidnight + 30 * 60000));
+        assertEquals(fallMidnight, StockHistory.bucketStart(StockHistory.RESOLUTION_DAILY, fallMidnight + 12 * HOUR));
+        assertEquals(fallMidnight, StockHistory.bucketStart(StockHistory.RESOLUTION_DAILY, fallMidnight + 25 * HOUR - 1));
+        assertEquals(fallMidnight + 25 * HOUR, StockHistory.bucketStart(StockHistory.RESOLUTION_DAILY, fallMidnight + 25 * HOUR));
+    }
+
+    @Test
+    public void resolutionFor_chartsShortRecentRangesByHour() {
+        long now = System.currentTimeMillis();
+
+        assertEquals(StockHistory.RESOLUTION_HOURLY, StockHistory.resolutionFor(now - DAY, now));
+        assertEquals(StockHistory.RESOLUTION_HOURLY, StockHistory.resolutionFor(now - 7 * DAY, now));
+        assertEquals(StockHistory.RESOLUTION_DAILY, StockHistory.resolutionFor(now - 30 * DAY, now));
+        // Hourly buckets of a day two months back have already been dropped
+        assertEquals(StockHistory.RESOLUTION_DAILY, StockHistory.resolutionFor(now - 60 * DAY, now - 59 * DAY));
+    }
+}
@@ -0,0 +1,71 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for lot expiry dates
+ */
+public class StockLotTest {
+    private static final long DAY = StockHistory.DAY_MILLIS;
+
+    private TimeZone defaultTimeZone;
+
+    @Before
+    public void saveTimeZone() {
+        defaultTimeZone = TimeZone.getDefault();
+    }
+
+    @After
+    public void restoreTimeZone() {
+        TimeZone.setDefault(defaultTimeZone);
+    }
+
+    @Test
+    public void expiryDate_roundTripsThroughParsing() {
+        TimeZone.setDefault(TimeZone.getTimeZone("Europe/Berlin"));
+
+        // Includes the days summer time starts and ends
+        for (String date : new String[]{"2024-01-15", "2024-03-31", "2024-10-27", "2024-12-31"}) {
+            long expiresAt = InventoryItemValidator.parseExpiryDate(date);
+            assertEquals(date, lot(expiresAt).getExpiryDate());
+        }
+        assertEquals("", lot(0).getExpiryDate());
+    }
+
+    @Test
+    public void isExpired_fromTheMidnightAfterExpiryDay() {
+        long expiresAt = InventoryItemValidator.parseExpiryDate("2024-06-10");
+        StockLot lot = lot(expiresAt);
+
+        assertFalse(lot.isExpired(expiresAt - 1));
+        assertTrue(lot.isExpired(expiresAt));
+        assertFalse(lot(0).isExpired(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void getDaysUntilExpiry_roundsDown() {
+        long now = 1000 * DAY;
+
+        assertEquals(2, lot(now + 2 * DAY + 5).getDaysUntilExpiry(now));
+        assertEquals(0, lot(now + DAY - 1).getDaysUntilExpiry(now));
+        assertEquals(-1, lot(now - 1).getDaysUntilExpiry(now));
+    }
+
+    @Test
+    public void namesDefaultToEmpty() {
+        StockLot lot = lot(0);
+
+        assertEquals("", lot.getItemName());
+        assertEquals("", lot.getLotNumber());
+    }
+
+    private static StockLot lot(long expiresAt) {
+        return new StockLot(1, 2, null, null, expiresAt, 5);
+    }
+}
@@ -0,0 +1,41 @@
+package com.IfeoluwaAdewoyin.inventorymanagementapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for supplier and offer values
+ */
+public class SupplierTest {
+
+    @Test
+    public void supplier_withoutContactHasEmptyContact() {
+        Supplier supplier = new Supplier(3, "Acme", null, 7);
+
+        assertEquals(3, supplier.getId());
+        assertEquals("Acme", supplier.getName());
+        assertEquals("", supplier.getContact());
+        assertEquals(7, supplier.getLeadTimeDays());
+    }
+
+    @Test
+    public void offer_ofItemWithoutSupplierHasEmptyNames() {
+        Supplier.Offer offer = new Supplier.Offer(5, null, 2, 0, null, 0, 0);
+
+        assertEquals("", offer.getItemName());
+        assertEquals("", offer.getSupplierName());
+        assertEquals(2, offer.getItemQuantity());
+    }
+
+    @Test
+    public void cheapestOffer_ordersByCostThenLeadTime() {
+        String subquery = SupplierManager.cheapestOffer("c.supplier_id", "i.item_id");
+
+        assertTrue(subquery, subquery.endsWith("ORDER BY c." + InventoryDatabaseHelper.COLUMN_UNIT_COST + ", c." +
+                InventoryDatabaseHelper.COLUMN_LEAD_TIME_DAYS + " LIMIT 1)"));
+        assertFalse(subquery, subquery.contains(" JOIN "));
+        // Reading the supplier's name joins the suppliers table
+        assertTrue(SupplierManager.cheapestOffer("sp.supplier_name", "i.item_id").contains(" JOIN "));
+    }
+}